@@ -0,0 +1,430 @@
+package com.kabu.graph;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Threadsicherer Graph fr gemischte Lese- und Schreibzugriffe aus mehreren
+ * Threads. Die Sperren sind zweistufig organisiert:
+ * <ul>
+ * <li>Operationen auf einzelnen Ecken und Kanten (connect(), remove(Edge),
+ * getNeighbours() usw.) belegen die globale Sperre nur gemeinsam und sperren
+ * zustzlich die Streifen ihrer Endecken. Jede Ecke ist ber ihren Hashwert
+ * einem von 64 Streifen zugeordnet, der ihre Kantenlisten schtzt. Operationen
+ * auf verschiedenen Ecken laufen daher parallel. Die globale Kantenliste wird
+ * nur fr das Ein- und Austragen einer Kante kurz gesperrt.</li>
+ * <li>Operationen, die die Nummern der Ecken verndern (addVertex(),
+ * remove(Vertex)), belegen die globale Sperre exklusiv.</li>
+ * <li>Operationen, die den gesamten Graphen lesen (toCsr(), copy(),
+ * toString()), arbeiten auf einer Momentaufnahme (siehe snapshot()). Sie
+ * belegen keine der Sperren und halten schreibende Threads daher nicht auf.
+ * Solange der Graph nicht verndert wird, liefert toCsr() dieselbe
+ * Darstellung in O(1).</li>
+ * </ul>
+ *
+ * Lesende Methoden liefern Kopien, die den Zustand zu einem Zeitpunkt
+ * wiedergeben und danach nicht mehr verndert werden. Fr lngere Auswertungen
+ * auf einem festen Stand siehe snapshot().
+ *
+ * Hinweise:
+ * <ul>
+ * <li>Die Methoden der Ecken selbst (Vertex.getNeighbours(),
+ * Vertex.getOutgoingEdges() usw.) sind nicht synchronisiert. Bei nebenlufigem
+ * Zugriff sind die gleichnamigen Methoden dieser Klasse zu verwenden.</li>
+ * <li>Die Listener werden im Thread benachrichtigt, der die nderung
+ * durchfhrt, gegebenenfalls in mehreren Threads gleichzeitig. Sie mssen
+ * daher threadsicher sein (siehe z.B. AsyncEventDispatcher) und drfen den
+ * Graphen nicht verndern.</li>
+ * <li>Ein Batch (siehe beginBatch()) sperrt den Graphen bis zum zugehrigen
+ * commitBatch() exklusiv fr den aufrufenden Thread. Momentaufnahmen (und
+ * damit toCsr() und copy()) knnen auch whrenddessen angelegt werden. Sie
+ * enthalten dann die bis dahin im Batch durchgefhrten nderungen.</li>
+ * </ul>
+ */
+public class ConcurrentGraph extends Graph {
+	private static final int STRIPES = 64;
+
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+	private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+
+	public ConcurrentGraph() {
+		for (int i = 0; i < STRIPES; i++) {
+			stripes[i] = new ReentrantLock();
+		}
+	}
+
+	/* ************************************************************************
+	 * Sperren
+	 * ************************************************************************
+	 */
+
+	private int stripeOf(Vertex vertex) {
+		int h = System.identityHashCode(vertex);
+
+		// Die unteren Bits des Hashwerts sind nicht immer gut verteilt
+		h ^= (h >>> 16);
+
+		return h & (STRIPES - 1);
+	}
+
+	/**
+	 * Sperren der Streifen zweier Ecken. Die Streifen werden stets in
+	 * aufsteigender Reihenfolge gesperrt, damit sich zwei Threads nicht
+	 * gegenseitig blockieren. Ecken, die null sind, werden bergangen.
+	 */
+	private void lockStripes(Vertex a, Vertex b) {
+		int i = a != null ? stripeOf(a) : -1;
+		int j = b != null ? stripeOf(b) : -1;
+
+		if (i > j) {
+			int swap = i;
+			i = j;
+			j = swap;
+		}
+		if (i >= 0) {
+			stripes[i].lock();
+		}
+		if (j >= 0 && j != i) {
+			stripes[j].lock();
+		}
+	}
+
+	private void unlockStripes(Vertex a, Vertex b) {
+		int i = a != null ? stripeOf(a) : -1;
+		int j = b != null ? stripeOf(b) : -1;
+
+		if (j >= 0 && j != i) {
+			stripes[j].unlock();
+		}
+		if (i >= 0) {
+			stripes[i].unlock();
+		}
+	}
+
+	/* ************************************************************************
+	 * Ecken
+	 * ************************************************************************
+	 */
+
+	public boolean contains(Vertex vertex) {
+		return indexOf(vertex) >= 0;
+	}
+
+	public int indexOf(Vertex vertex) {
+		lock.readLock().lock();
+		try {
+			return super.indexOf(vertex);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	public int getOrder() {
+		lock.readLock().lock();
+		try {
+			return super.getOrder();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	public void addVertex(Vertex vertex) {
+		lock.writeLock().lock();
+		try {
+			super.addVertex(vertex);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	boolean insertVertex(Vertex vertex) {
+		lock.writeLock().lock();
+		try {
+			return super.insertVertex(vertex);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Anlegen einer neuen Ecke. Das Label wird gesetzt, bevor die Ecke fr
+	 * andere Threads sichtbar wird.
+	 */
+	public Vertex createVertex(String label) {
+		Vertex vertex = new Vertex(label);
+		addVertex(vertex);
+
+		return vertex;
+	}
+
+	/**
+	 * Auslesen einer Kopie der Eckenliste.
+	 */
+	public List<Vertex> getVertices() {
+		lock.readLock().lock();
+		try {
+			return new ArrayList<Vertex>(super.getVertices());
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Auslesen des Index der Ecken nach ihrem Label (siehe findByLabel()).
+	 * Whrend er angelegt wird, verndert kein anderer Thread die Eckenmenge.
+	 * Danach ist er selbst synchronisiert und wird ohne Sperre gelesen.
+	 */
+	LabelIndex getLabelIndex() {
+		if (hasLabelIndex()) {
+			return super.getLabelIndex();
+		}
+
+		lock.readLock().lock();
+		try {
+			return super.getLabelIndex();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	public void remove(Vertex vertex) {
+		lock.writeLock().lock();
+		try {
+			super.remove(vertex);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Auslesen der Nachfolger einer Ecke.
+	 */
+	public List<Vertex> getNeighbours(Vertex vertex) {
+		lock.readLock().lock();
+		lockStripes(vertex, null);
+		try {
+			return vertex.getNeighbours();
+		} finally {
+			unlockStripes(vertex, null);
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Auslesen einer Kopie der von einer Ecke ausgehenden Kanten.
+	 */
+	public List<Edge> getOutgoingEdges(Vertex vertex) {
+		lock.readLock().lock();
+		lockStripes(vertex, null);
+		try {
+			return new ArrayList<Edge>(vertex.getOutgoingEdges());
+		} finally {
+			unlockStripes(vertex, null);
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Auslesen einer Kopie der in eine Ecke fhrenden Kanten.
+	 */
+	public List<Edge> getIncomingEdges(Vertex vertex) {
+		lock.readLock().lock();
+		lockStripes(vertex, null);
+		try {
+			return new ArrayList<Edge>(vertex.getIncomingEdges());
+		} finally {
+			unlockStripes(vertex, null);
+			lock.readLock().unlock();
+		}
+	}
+
+	public List<Vertex> getPred(Vertex target) {
+		lock.readLock().lock();
+		lockStripes(target, null);
+		try {
+			return super.getPred(target);
+		} finally {
+			unlockStripes(target, null);
+			lock.readLock().unlock();
+		}
+	}
+
+	/* ************************************************************************
+	 * Kanten
+	 * ************************************************************************
+	 */
+
+	/**
+	 * Auslesen einer Kopie der Kantenliste.
+	 */
+	public List<Edge> getAllEdges() {
+		return copyAllEdges();
+	}
+
+	public List<Edge> getEdges(Vertex from, Vertex to) {
+		lock.readLock().lock();
+		lockStripes(from, null);
+		try {
+			return super.getEdges(from, to);
+		} finally {
+			unlockStripes(from, null);
+			lock.readLock().unlock();
+		}
+	}
+
+	public Edge getShortestEdge(Vertex from, Vertex to) {
+		lock.readLock().lock();
+		lockStripes(from, null);
+		try {
+			return super.getShortestEdge(from, to);
+		} finally {
+			unlockStripes(from, null);
+			lock.readLock().unlock();
+		}
+	}
+
+	public boolean isConnected(Vertex from, Vertex to) {
+		lock.readLock().lock();
+		lockStripes(from, null);
+		try {
+			return super.isConnected(from, to);
+		} finally {
+			unlockStripes(from, null);
+			lock.readLock().unlock();
+		}
+	}
+
+	public Edge connect(Vertex from, Vertex to) {
+		return connect(from, to, "", 1);
+	}
+
+	public Edge connect(Vertex from, Vertex to, String label) {
+		return connect(from, to, label, 1);
+	}
+
+	public Edge connect(Vertex from, Vertex to, double weight) {
+		return connect(from, to, "", weight);
+	}
+
+	/**
+	 * Anlegen einer Kante. Label und Gewicht werden gesetzt, bevor die Kante
+	 * fr andere Threads sichtbar wird. Die Listener werden nach dem Freigeben
+	 * der Streifen benachrichtigt.
+	 */
+	public Edge connect(Vertex from, Vertex to, String label, double weight) {
+		Edge edge;
+
+		lock.readLock().lock();
+		try {
+			lockStripes(from, to);
+			try {
+				edge = insertEdge(from, to, label, weight);
+			} finally {
+				unlockStripes(from, to);
+			}
+
+			edgeAdded(edge);
+		} finally {
+			lock.readLock().unlock();
+		}
+
+		return edge;
+	}
+
+	public void remove(Edge edge) {
+		Vertex from = edge.getTail();
+		Vertex to = edge.getHead();
+		boolean removed;
+
+		lock.readLock().lock();
+		try {
+			lockStripes(from, to);
+			try {
+				removed = unlink(edge);
+			} finally {
+				unlockStripes(from, to);
+			}
+
+			if (removed) {
+				edgeRemoved(edge);
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	Edge insertEdge(Vertex from, Vertex to, String label, double weight) {
+		lock.readLock().lock();
+		lockStripes(from, to);
+		try {
+			return super.insertEdge(from, to, label, weight);
+		} finally {
+			unlockStripes(from, to);
+			lock.readLock().unlock();
+		}
+	}
+
+	/* ************************************************************************
+	 * Operationen auf dem gesamten Graphen
+	 * ************************************************************************
+	 */
+
+	void ensureCapacity(int additionalVertices, int additionalEdges) {
+		lock.writeLock().lock();
+		try {
+			super.ensureCapacity(additionalVertices, additionalEdges);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Erzeugen der CSR-Darstellung aus einer Momentaufnahme.
+	 */
+	public CsrGraph toCsr() {
+		return snapshot().toCsr();
+	}
+
+	/**
+	 * Anlegen einer Kopie aus einer Momentaufnahme. Die Kopie ist wiederum ein
+	 * ConcurrentGraph.
+	 */
+	protected Object clone() {
+		Graph g = newInstance();
+		Vertex[] copies = snapshot().copyInto(g);
+
+		copyStateTo(g, copies);
+
+		return g;
+	}
+
+	/**
+	 * Darstellung einer Momentaufnahme des Graphen.
+	 */
+	public String toString(int inset) {
+		return snapshot().toString(inset);
+	}
+
+	/**
+	 * ffnen eines Batches. Der Graph bleibt bis zum zugehrigen
+	 * commitBatch() fr andere Threads gesperrt.
+	 */
+	public void beginBatch() {
+		lock.writeLock().lock();
+		super.beginBatch();
+	}
+
+	public void commitBatch() {
+		if (!lock.isWriteLockedByCurrentThread()) {
+			throw new IllegalStateException("Kein Batch geffnet!");
+		}
+
+		try {
+			super.commitBatch();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+}
@@ -0,0 +1,124 @@
+package com.kabu.graph;
+
+import java.util.Arrays;
+
+/**
+ * Unvernderliche, kompakte Darstellung eines Graphen im CSR-Format
+ * (compressed sparse row). Die Ecken werden durch ihre Nummern 0..n-1
+ * dargestellt, die ihrer Position in Graph.getVertices() entsprechen. Die
+ * ausgehenden Kanten der Ecke i liegen in den Positionen offsets[i] bis
+ * offsets[i+1]-1 der Arrays targets (Nummer der Zielecke) und weights
+ * (Kantengewicht). Die Reihenfolge der Kanten einer Ecke entspricht ihrer
+ * Reihenfolge in Vertex.getOutgoingEdges().
+ *
+ * Algorithmen knnen so mit primitiven Arrays arbeiten, ohne in jedem Schritt
+ * Objekte anzulegen oder Hashtabellen zu befragen.
+ *
+ * Hinweis: Die Darstellung wird mit Graph.toCsr() erzeugt und spiegelt den
+ * Zustand des Graphen zu diesem Zeitpunkt wider. Sptere nderungen am Graphen
+ * (auch an Kantengewichten) werden nicht bernommen. Die von den get-Methoden
+ * gelieferten Arrays drfen nicht verndert werden.
+ */
+public class CsrGraph {
+	private Vertex[] vertices = null;
+	private Edge[] edges = null;
+	private int[] offsets = null;
+	private int[] targets = null;
+	private double[] weights = null;
+
+	CsrGraph(Vertex[] vertices, Edge[] edges, int[] offsets, int[] targets,
+			double[] weights) {
+		this.vertices = vertices;
+		this.edges = edges;
+		this.offsets = offsets;
+		this.targets = targets;
+		this.weights = weights;
+	}
+
+	/**
+	 * Anzahl der Ecken.
+	 */
+	public int getOrder() {
+		return vertices.length;
+	}
+
+	/**
+	 * Anzahl der Kanten.
+	 */
+	public int getSize() {
+		return targets.length;
+	}
+
+	public int[] getOffsets() {
+		return offsets;
+	}
+
+	public int[] getTargets() {
+		return targets;
+	}
+
+	public double[] getWeights() {
+		return weights;
+	}
+
+	/**
+	 * Anzahl der von der Ecke mit der gegebenen Nummer ausgehenden Kanten.
+	 */
+	public int getDegree(int vertex) {
+		return offsets[vertex + 1] - offsets[vertex];
+	}
+
+	/**
+	 * Auslesen der Ecke mit der gegebenen Nummer.
+	 */
+	public Vertex getVertex(int vertex) {
+		return vertices[vertex];
+	}
+
+	/**
+	 * Auslesen der Kante, die an der gegebenen Position der Arrays targets und
+	 * weights abgelegt ist.
+	 */
+	public Edge getEdge(int position) {
+		return edges[position];
+	}
+
+	/**
+	 * Erzeugen der CSR-Darstellung des Graphen mit umgekehrten Kanten. Dort
+	 * liegen in den Positionen offsets[i] bis offsets[i+1]-1 die in die Ecke i
+	 * fhrenden Kanten, targets enthlt jeweils die Nummer ihrer Anfangsecke.
+	 * getEdge() liefert weiterhin die ursprnglichen Kanten. Die eingehenden
+	 * Kanten einer Ecke sind nach ihrer Anfangsecke geordnet. Der Aufwand ist
+	 * O(V+E).
+	 */
+	public CsrGraph transpose() {
+		int n = vertices.length;
+		int m = targets.length;
+		int[] reverseOffsets = new int[n + 1];
+		Edge[] reverseEdges = new Edge[m];
+		int[] reverseTargets = new int[m];
+		double[] reverseWeights = new double[m];
+
+		// Eingangsgrade zhlen und zu Anfangspositionen aufsummieren
+		for (int pos = 0; pos < m; pos++) {
+			reverseOffsets[targets[pos] + 1]++;
+		}
+		for (int i = 0; i < n; i++) {
+			reverseOffsets[i + 1] += reverseOffsets[i];
+		}
+
+		int[] next = Arrays.copyOf(reverseOffsets, n);
+		for (int tail = 0; tail < n; tail++) {
+			for (int pos = offsets[tail]; pos < offsets[tail + 1]; pos++) {
+				int slot = next[targets[pos]]++;
+
+				reverseEdges[slot] = edges[pos];
+				reverseTargets[slot] = tail;
+				reverseWeights[slot] = weights[pos];
+			}
+		}
+
+		return new CsrGraph(vertices, reverseEdges, reverseOffsets,
+				reverseTargets, reverseWeights);
+	}
+}
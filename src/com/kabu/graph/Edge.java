@@ -1,7 +1,7 @@
 package com.kabu.graph;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import com.kabu.graph.event.EdgeChangeEvent;
 import com.kabu.graph.event.EdgeChangeListener;
@@ -13,7 +13,24 @@ public class Edge {
 	private String label = "";
 	private double weight = 1;
 
-	private List<EdgeChangeListener> edgeChangeListeners = new ArrayList<EdgeChangeListener>();
+	/**
+	 * Graph, dem die Kante angehrt, und ihre Position in dessen Kantenliste.
+	 * Damit kann die Kante in O(1) gefunden und entfernt werden.
+	 * 
+	 * @see Graph#contains(Edge)
+	 */
+	private Graph graph = null;
+	private int index = -1;
+	// Position in der Kantenliste der Startecke und in der Liste der
+	// eingehenden Kanten der Zielecke (siehe Vertex.deleteEdge())
+	private int outgoingIndex = -1;
+	private int incomingIndex = -1;
+	// Position in der Adjazenzstruktur des Graphen (siehe GraphState)
+	private int stateIndex = -1;
+
+	// Wird erst beim Registrieren des ersten Listeners angelegt, da die meisten
+	// Kanten keine Listener besitzen
+	private volatile List<EdgeChangeListener> edgeChangeListeners = null;
 
 	public Edge(Vertex tail, Vertex head) {
 		this.head = head;
@@ -37,6 +54,7 @@ public class Edge {
 
 	public void setLabel(String label) {
 		this.label = label;
+		modified();
 		edgeChanged(new EdgeChangeEvent(this));
 	}
 
@@ -46,14 +64,31 @@ public class Edge {
 
 	public void setWeight(double weight) {
 		this.weight = weight;
+		modified();
 	}
 
 	public double getWeight() {
 		return weight;
 	}
 
+	/**
+	 * Festlegen der Zielecke. Die Kante wird bei ihrer Startecke unter der
+	 * neuen Zielecke eingeordnet. War sie bei der bisherigen Zielecke als
+	 * eingehende Kante eingetragen (siehe Graph.connect()), so wird sie dort
+	 * aus- und bei der neuen Zielecke eingetragen.
+	 */
 	public void setHead(Vertex head) {
+		Vertex oldHead = this.head;
+		boolean incoming = oldHead != null && oldHead.removeIncomingEdge(this);
+
 		this.head = head;
+		if (tail != null) {
+			tail.headChanged(this, oldHead);
+		}
+		if (incoming && head != null) {
+			head.addIncomingEdge(this);
+		}
+		modified();
 		edgeChanged(new EdgeChangeEvent(this));
 	}
 
@@ -61,8 +96,24 @@ public class Edge {
 		return head;
 	}
 
+	/**
+	 * Festlegen der Startecke. War die Kante bei der bisherigen Startecke als
+	 * ausgehende Kante eingetragen, so wird sie dort aus- und bei der neuen
+	 * Startecke eingetragen.
+	 */
 	public void setTail(Vertex tail) {
+		Vertex oldTail = this.tail;
+		boolean outgoing = oldTail != null && oldTail.deleteEdge(this);
+
+		if (outgoing && graph != null) {
+			graph.outgoingEdgeRemoved(oldTail, this);
+		}
 		this.tail = tail;
+		if (outgoing && tail != null && tail.insertEdge(this)
+				&& graph != null) {
+			graph.outgoingEdgeAdded(tail, this);
+		}
+		modified();
 		edgeChanged(new EdgeChangeEvent(this));
 	}
 
@@ -74,26 +125,77 @@ public class Edge {
 		return head != null && tail != null;
 	}
 
+	Graph getGraph() {
+		return graph;
+	}
+
+	int getIndex() {
+		return index;
+	}
+
+	int getOutgoingIndex() {
+		return outgoingIndex;
+	}
+
+	void setOutgoingIndex(int outgoingIndex) {
+		this.outgoingIndex = outgoingIndex;
+	}
+
+	int getIncomingIndex() {
+		return incomingIndex;
+	}
+
+	void setIncomingIndex(int incomingIndex) {
+		this.incomingIndex = incomingIndex;
+	}
+
+	int getStateIndex() {
+		return stateIndex;
+	}
+
+	void setStateIndex(int stateIndex) {
+		this.stateIndex = stateIndex;
+	}
+
+	/**
+	 * Melden einer nderung an den Graphen, dem die Kante angehrt.
+	 */
+	private void modified() {
+		if (graph != null) {
+			graph.edgeModified(this);
+		}
+	}
+
+	void setIndex(Graph graph, int index) {
+		this.graph = graph;
+		this.index = index;
+	}
+
 	/* ************************************************************************
 	 * Event Management
 	 * ************************************************************************
 	 */
 
 	public synchronized void addEdgeChangeListener(EdgeChangeListener listener) {
+		if (edgeChangeListeners == null) {
+			edgeChangeListeners = new CopyOnWriteArrayList<EdgeChangeListener>();
+		}
 		edgeChangeListeners.add(listener);
 	}
 
 	public synchronized void removeEdgeChangeListener(
 			EdgeChangeListener listener) {
-		edgeChangeListeners.remove(listener);
+		if (edgeChangeListeners != null) {
+			edgeChangeListeners.remove(listener);
+		}
 	}
 
 	// Smtliche EdgeChangeListeners benachrichtigen
 	protected void edgeChanged(EdgeChangeEvent e) {
-		List<EdgeChangeListener> listeners = null;
+		List<EdgeChangeListener> listeners = edgeChangeListeners;
 
-		synchronized (this) {
-			listeners = new ArrayList<EdgeChangeListener>(edgeChangeListeners);
+		if (listeners == null) {
+			return;
 		}
 
 		for (EdgeChangeListener ecl : listeners) {
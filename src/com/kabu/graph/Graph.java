@@ -1,12 +1,18 @@
 package com.kabu.graph;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.kabu.graph.event.EdgeSetChangeEvent;
 import com.kabu.graph.event.EdgeSetChangeListener;
+import com.kabu.graph.event.VertexChangeEvent;
 import com.kabu.graph.event.VerticesChangeEvent;
 import com.kabu.graph.event.VerticesChangeListener;
 
@@ -27,9 +33,38 @@ import com.kabu.graph.event.VerticesChangeListener;
 public class Graph {
 	private List<Vertex> vertices = new ArrayList<Vertex>();
 	private List<Edge> edges = new ArrayList<Edge>();
-
-	private List<EdgeSetChangeListener> edgeSetChangeListeners = new ArrayList<EdgeSetChangeListener>();
-	private List<VerticesChangeListener> verticesChangeListeners = new ArrayList<VerticesChangeListener>();
+	// Nummern der Ecken, die bereits zu einem anderen Graphen gehren und
+	// daher dort ihre Nummer erhalten haben (z.B. im kw-Baum von ShortestPath)
+	private Map<Vertex, Integer> foreignIds = null;
+	// Index der Ecken nach ihrem Label. Wird bei der ersten Suche angelegt.
+	private volatile LabelIndex labelIndex = null;
+	// Adjazenzstruktur, aus der die Momentaufnahmen hervorgehen, die
+	// Versionsnummer und die zuletzt angelegte Momentaufnahme. Die Struktur
+	// wird beim ersten snapshot() angelegt. Sie, die Versionsnummer und die
+	// Kantenlisten werden nur unter stateLock verndert, damit snapshot() auch
+	// bei gleichzeitigen nderungen einen stimmigen Stand festhlt.
+	private final Object stateLock = new Object();
+	private GraphState state = null;
+	private final AtomicLong version = new AtomicLong();
+	private GraphSnapshot snapshot = null;
+
+	// Die Listenerlisten werden nur selten verndert, aber bei jeder nderung
+	// des Graphen durchlaufen. Daher werden Copy-on-write-Listen verwendet.
+	private List<EdgeSetChangeListener> edgeSetChangeListeners = new CopyOnWriteArrayList<EdgeSetChangeListener>();
+	private List<VerticesChangeListener> verticesChangeListeners = new CopyOnWriteArrayList<VerticesChangeListener>();
+	// Interne Indizes (z.B. der TypeHierarchy) werden auch innerhalb eines
+	// Batches sofort benachrichtigt, da sie stets den aktuellen Stand kennen
+	// mssen
+	private List<EdgeSetChangeListener> internalEdgeSetChangeListeners = new CopyOnWriteArrayList<EdgeSetChangeListener>();
+	private List<VerticesChangeListener> internalVerticesChangeListeners = new CopyOnWriteArrayList<VerticesChangeListener>();
+
+	// Verschachtelungstiefe der geffneten Batches und die darin gesammelten
+	// nderungen
+	private int batchDepth = 0;
+	private Set<Vertex> batchAddedVertices = null;
+	private Set<Vertex> batchRemovedVertices = null;
+	private Set<Edge> batchAddedEdges = null;
+	private Set<Edge> batchRemovedEdges = null;
 
 	public Graph() {
 	}
@@ -38,14 +73,58 @@ public class Graph {
 	 * Festellen, ob sich die gegebene Ecke in der Eckenmenge befindet.
 	 */
 	public boolean contains(Vertex vertex) {
-		return vertices.contains(vertex);
+		return indexOf(vertex) >= 0;
+	}
+
+	/**
+	 * Auslesen der fortlaufenden Nummer einer Ecke. Die Nummern sind dicht, d.h.
+	 * sie liegen zwischen 0 und getOrder()-1 und entsprechen der Position der
+	 * Ecke in getVertices(). Sie ndern sich nur, wenn Ecken entfernt werden.
+	 * 
+	 * @return die Nummer der Ecke oder -1, wenn sie nicht zum Graphen gehrt.
+	 */
+	public int indexOf(Vertex vertex) {
+		return localIndexOf(vertex);
+	}
+
+	/**
+	 * Bestimmen der Nummer einer Ecke wie indexOf(), aber ohne die
+	 * berschreibungen von Unterklassen. Wird unter stateLock aufgerufen, wo
+	 * keine weiteren Sperren belegt werden drfen.
+	 */
+	private int localIndexOf(Vertex vertex) {
+		if (vertex == null) {
+			return -1;
+		}
+
+		if (vertex.getGraph() == this) {
+			return vertex.getId();
+		}
+
+		Integer id = foreignIds != null ? foreignIds.get(vertex) : null;
+
+		return id != null ? id.intValue() : -1;
+	}
+
+	/**
+	 * Vergeben der Nummer einer Ecke.
+	 */
+	private void setIndex(Vertex vertex, int id) {
+		if (vertex.getGraph() == null || vertex.getGraph() == this) {
+			vertex.setId(this, id);
+		} else {
+			if (foreignIds == null) {
+				foreignIds = new HashMap<Vertex, Integer>();
+			}
+			foreignIds.put(vertex, id);
+		}
 	}
 
 	/**
 	 * Festellen, ob sich die gegebene Kante in der Kantenmenge befindet.
 	 */
 	public boolean contains(Edge edge) {
-		return edges.contains(edge);
+		return edge != null && edge.getGraph() == this;
 	}
 
 	/**
@@ -73,7 +152,8 @@ public class Graph {
 
 	/**
 	 * Hinzufgen einer neuen Ecke. Hierber werden smtliche
-	 * VerticesChangeListener benachrichtigt.
+	 * VerticesChangeListener benachrichtigt. Ist die Ecke bereits enthalten, so
+	 * erfolgt keine Aktion.
 	 * 
 	 * Hinweis: Diese Methode ist nur fr den Package-internen Gebrauch gedacht.
 	 * Der Anwendungsprogrammierer sollte diese Methode nicht benutzen! Fr ihn
@@ -83,11 +163,38 @@ public class Graph {
 	 * @see #createVertex(String label)
 	 */
 	public void addVertex(Vertex vertex) {
-		vertices.add(vertex);
+		if (!insertVertex(vertex)) {
+			return;
+		}
 
-		VerticesChangeEvent e = new VerticesChangeEvent(vertex,
+		VerticesChangeEvent e = new VerticesChangeEvent(vertex, this,
 				VerticesChangeEvent.VERTEX_ADDED);
-		verticesChanged(e);
+		fireVerticesChanged(e);
+	}
+
+	/**
+	 * Eintragen einer Ecke, ohne die VerticesChangeListener zu benachrichtigen.
+	 * 
+	 * @return false, wenn die Ecke bereits enthalten war.
+	 */
+	boolean insertVertex(Vertex vertex) {
+		synchronized (stateLock) {
+			// Jede Ecke ist hchstens einmal in der Eckenmenge enthalten
+			if (localIndexOf(vertex) >= 0) {
+				return false;
+			}
+
+			int id = vertices.size();
+
+			setIndex(vertex, id);
+			vertices.add(vertex);
+			if (state != null) {
+				addState(vertex, id);
+			}
+			version.incrementAndGet();
+		}
+
+		return true;
 	}
 
 	/**
@@ -105,6 +212,52 @@ public class Graph {
 		return vertices;
 	}
 
+	/**
+	 * Suchen einer Ecke anhand ihres Labels. Besitzen mehrere Ecken das Label,
+	 * so wird die zuerst eingetragene geliefert. Bei der ersten Suche wird ein
+	 * Index ber smtliche Labels angelegt (O(V)), der danach mit dem Graphen
+	 * und den Labels der Ecken Schritt hlt. Jede weitere Suche erfolgt in
+	 * O(1).
+	 * 
+	 * @return die Ecke oder null, wenn keine Ecke das Label besitzt.
+	 */
+	public Vertex findByLabel(String label) {
+		return getLabelIndex().find(label);
+	}
+
+	/**
+	 * Suchen smtlicher Ecken mit dem gegebenen Label.
+	 * 
+	 * @see #findByLabel(String)
+	 */
+	public List<Vertex> findAllByLabel(String label) {
+		return getLabelIndex().findAll(label);
+	}
+
+	boolean hasLabelIndex() {
+		return labelIndex != null;
+	}
+
+	/**
+	 * Auslesen des Index der Ecken nach ihrem Label. Er wird beim ersten
+	 * Aufruf angelegt, auch bei gleichzeitigen Aufrufen nur einmal.
+	 */
+	LabelIndex getLabelIndex() {
+		LabelIndex result = labelIndex;
+
+		if (result == null) {
+			synchronized (this) {
+				result = labelIndex;
+				if (result == null) {
+					result = new LabelIndex(this);
+					labelIndex = result;
+				}
+			}
+		}
+
+		return result;
+	}
+
 	public List<Edge> getAllEdges() {
 		return edges;
 	}
@@ -113,11 +266,22 @@ public class Graph {
 	 * Auslesen smtlicher Kanten von "from" nach "to".
 	 */
 	public List<Edge> getEdges(Vertex from, Vertex to) {
-		List<Edge> result = new ArrayList<Edge>();
+		return new ArrayList<Edge>(from.getEdgesTo(to));
+	}
 
-		for (Edge edge : edges) {
-			if (edge.getHead() == to && edge.getTail() == from) {
-				result.add(edge);
+	/**
+	 * Auslesen der Kante mit dem geringsten Kantengewicht von "from" nach "to".
+	 * Dies ist im Falle von Multigraphen (Graphen bei denen Ecken mit mehr als
+	 * einer Kante verbunden sein knnen) wichtig.
+	 * 
+	 * @return die krzeste Kante oder null, wenn die Ecken nicht adjazent sind.
+	 */
+	public Edge getShortestEdge(Vertex from, Vertex to) {
+		Edge result = null;
+
+		for (Edge edge : from.getEdgesTo(to)) {
+			if (result == null || edge.getWeight() < result.getWeight()) {
+				result = edge;
 			}
 		}
 
@@ -129,19 +293,113 @@ public class Graph {
 	 * Smtliche EdgeSetChangeListener werden benachrichtigt.
 	 */
 	public Edge connect(Vertex from, Vertex to) {
-		Edge edge = new Edge(from, to);
-		edges.add(edge);
+		Edge edge = insertEdge(from, to);
+		edgeAdded(edge);
 
-		// Hinzufgen zur Kantenliste des Ausgangsknotens
-		from.addEdge(edge);
+		return edge;
+	}
 
-		EdgeSetChangeEvent e = new EdgeSetChangeEvent(edge,
+	/**
+	 * Benachrichtigen der Listener ber eine neue Kante.
+	 */
+	void edgeAdded(Edge edge) {
+		// Die Ausgangsecke meldet die neue Kante ihren eigenen Listenern
+		Vertex from = edge.getTail();
+		from.vertexChanged(new VertexChangeEvent(from));
+
+		EdgeSetChangeEvent e = new EdgeSetChangeEvent(edge, this,
 				EdgeSetChangeEvent.EDGE_ADDED);
-		edgeSetChanged(e);
+		fireEdgeSetChanged(e);
+	}
+
+	/**
+	 * Anlegen und Eintragen einer neuen Kante, ohne Listener zu
+	 * benachrichtigen.
+	 */
+	Edge insertEdge(Vertex from, Vertex to) {
+		return insertEdge(from, to, "", 1);
+	}
+
+	/**
+	 * Anlegen und Eintragen einer neuen Kante mit Label und Gewicht, ohne
+	 * Listener zu benachrichtigen. Label und Gewicht werden gesetzt, bevor die
+	 * Kante eingetragen wird.
+	 */
+	Edge insertEdge(Vertex from, Vertex to, String label, double weight) {
+		Edge edge = new Edge(from, to, label, weight);
+
+		synchronized (stateLock) {
+			registerEdge(edge);
+
+			// Hinzufgen zur Kantenliste des Ausgangsknotens und zu den
+			// eingehenden Kanten des Zielknotens
+			from.insertEdge(edge);
+			to.addIncomingEdge(edge);
+		}
 
 		return edge;
 	}
 
+	/**
+	 * Auslesen einer Kopie der Kantenliste. Die Kopie wird unter derselben
+	 * Sperre angelegt, unter der Kanten ein- und ausgetragen werden.
+	 */
+	List<Edge> copyAllEdges() {
+		synchronized (stateLock) {
+			return new ArrayList<Edge>(edges);
+		}
+	}
+
+	/**
+	 * Anhngen einer Kante an die Kantenliste.
+	 */
+	void registerEdge(Edge edge) {
+		synchronized (stateLock) {
+			edge.setIndex(this, edges.size());
+			edges.add(edge);
+
+			int tail = localIndexOf(edge.getTail());
+			if (state != null && tail >= 0) {
+				addState(tail, edge);
+			}
+			version.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Austragen einer Kante aus der Kantenliste. Die letzte Kante der Liste
+	 * rckt an ihre Stelle.
+	 */
+	void unregisterEdge(Edge edge) {
+		synchronized (stateLock) {
+			int index = edge.getIndex();
+			Edge last = edges.remove(edges.size() - 1);
+
+			if (last != edge) {
+				edges.set(index, last);
+				last.setIndex(this, index);
+			}
+			removeState(edge.getTail(), edge);
+			edge.setIndex(null, -1);
+			version.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Vergrern der internen Strukturen, so dass die gegebene Anzahl weiterer
+	 * Ecken und Kanten ohne erneutes Umkopieren aufgenommen werden kann.
+	 */
+	void ensureCapacity(int additionalVertices, int additionalEdges) {
+		if (vertices instanceof ArrayList) {
+			((ArrayList<Vertex>) vertices).ensureCapacity(vertices.size()
+					+ additionalVertices);
+		}
+		if (edges instanceof ArrayList) {
+			((ArrayList<Edge>) edges).ensureCapacity(edges.size()
+					+ additionalEdges);
+		}
+	}
+
 	/**
 	 * Anlegen einer Kante zwischen den gegebenen Ecken mit Kantenbeschriftung.
 	 * Factory-Methode. Smtliche EdgeSetChangeListener werden benachrichtigt.
@@ -181,53 +439,191 @@ public class Graph {
 	 * Auslesen, ob zwei Ecken durch mind. eine Kante verbunden (adjazent) sind.
 	 */
 	public boolean isConnected(Vertex from, Vertex to) {
-		for (Edge edge : edges) {
-			if (edge.getTail() == from && edge.getHead() == to) {
-				return true;
-			}
-		}
-
-		return false;
+		return from.isConnectedTo(to);
 	}
 
 	/**
 	 * Berechnen smtlicher Vorgnger einer Ecke, also smtlicher Ecken, von
-	 * denen Kanten ausgehen, die auf die gegebene Ecke weisen.
+	 * denen Kanten ausgehen, die auf die gegebene Ecke weisen. Der Aufwand ist
+	 * proportional zum Eingangsgrad der Ecke.
 	 */
 	public List<Vertex> getPred(Vertex target) {
-		List<Vertex> predecessors = new ArrayList<Vertex>();
+		// Jeder Vorgnger wird nur einmal aufgefhrt, auch wenn er ber
+		// mehrere Kanten mit der gegebenen Ecke verbunden ist
+		Set<Vertex> predecessors = new LinkedHashSet<Vertex>();
 
-		for (Vertex vertex : vertices) {
-			if (vertex.getNeighbours().contains(target)) {
-				predecessors.add(vertex);
-			}
+		for (Edge edge : target.getIncomingEdges()) {
+			predecessors.add(edge.getTail());
 		}
 
-		return predecessors;
+		return new ArrayList<Vertex>(predecessors);
 	}
 
+	/**
+	 * Entfernen einer Kante. Der Aufwand ist unabhngig vom Grad ihrer
+	 * Endecken. Die Reihenfolge in getAllEdges() und in den Kantenlisten der
+	 * Endecken bleibt dabei nicht erhalten: Die letzte Kante der Liste rckt
+	 * an die Stelle der entfernten Kante.
+	 */
 	public void remove(Edge edge) {
-		for (Vertex vertex : vertices) {
-			vertex.removeEdge(edge);
+		if (unlink(edge)) {
+			edgeRemoved(edge);
+		}
+	}
+
+	/**
+	 * Austragen einer Kante bei ihren Endecken und aus der Kantenliste, ohne
+	 * Listener zu benachrichtigen.
+	 * 
+	 * @return false, wenn die Kante nicht enthalten war.
+	 */
+	boolean unlink(Edge edge) {
+		if (!contains(edge)) {
+			return false;
+		}
+
+		synchronized (stateLock) {
+			if (edge.getTail() != null) {
+				edge.getTail().deleteEdge(edge);
+			}
+			if (edge.getHead() != null) {
+				edge.getHead().removeIncomingEdge(edge);
+			}
+			unregisterEdge(edge);
+		}
+
+		return true;
+	}
+
+	/**
+	 * Benachrichtigen der Listener ber eine entfernte Kante.
+	 */
+	void edgeRemoved(Edge edge) {
+		Vertex from = edge.getTail();
+		if (from != null) {
+			from.vertexChanged(new VertexChangeEvent(from));
 		}
-		edges.remove(edge);
 
-		EdgeSetChangeEvent e = new EdgeSetChangeEvent(edge,
+		EdgeSetChangeEvent e = new EdgeSetChangeEvent(edge, this,
 				EdgeSetChangeEvent.EDGE_REMOVED);
-		edgeSetChanged(e);
+		fireEdgeSetChanged(e);
 	}
 
+	/**
+	 * Entfernen einer Ecke samt ihrer ein- und ausgehenden Kanten. Der Aufwand
+	 * ist proportional zum Grad der Ecke. Die Reihenfolge in getVertices()
+	 * bleibt dabei nicht erhalten: Die letzte Ecke der Liste rckt an die
+	 * Stelle der entfernten Ecke und erhlt deren Nummer.
+	 */
 	public void remove(Vertex vertex) {
-		for (Edge edge : new ArrayList<Edge>(edges)) {
-			if (edge.getHead() == vertex || edge.getTail() == vertex) {
-				remove(edge);
+		// Die Kanten werden bei den Nachbarn ausgetragen, bei der Ecke selbst
+		// anschlieend in einem Durchgang. Die Listener werden erst danach
+		// benachrichtigt, jede Startecke einer eingehenden Kante nur einmal.
+		List<Edge> removed = new ArrayList<Edge>();
+		Set<Vertex> changed = new LinkedHashSet<Vertex>();
+
+		synchronized (stateLock) {
+			int id = localIndexOf(vertex);
+
+			if (id < 0) {
+				return;
+			}
+
+			for (Edge edge : vertex.getOutgoingEdges()) {
+				if (edge.getGraph() == this) {
+					if (edge.getHead() != vertex) {
+						edge.getHead().removeIncomingEdge(edge);
+					}
+					removed.add(edge);
+				}
+			}
+			for (Edge edge : vertex.getIncomingEdges()) {
+				if (edge.getGraph() == this && edge.getTail() != vertex) {
+					edge.getTail().deleteEdge(edge);
+					changed.add(edge.getTail());
+					removed.add(edge);
+				}
+			}
+			vertex.removeEdgesOf(this);
+
+			for (Edge edge : removed) {
+				unregisterEdge(edge);
+			}
+
+			Vertex last = vertices.remove(vertices.size() - 1);
+			if (last != vertex) {
+				vertices.set(id, last);
+				setIndex(last, id);
+			}
+			if (state != null) {
+				state.removeVertex(id);
 			}
+
+			if (vertex.getGraph() == this) {
+				vertex.setId(null, -1);
+			} else {
+				foreignIds.remove(vertex);
+			}
+			version.incrementAndGet();
 		}
-		vertices.remove(vertex);
 
-		VerticesChangeEvent e = new VerticesChangeEvent(vertex,
+		vertex.vertexChanged(new VertexChangeEvent(vertex));
+		for (Edge edge : removed) {
+			fireEdgeSetChanged(new EdgeSetChangeEvent(edge, this,
+					EdgeSetChangeEvent.EDGE_REMOVED));
+		}
+		for (Vertex from : changed) {
+			from.vertexChanged(new VertexChangeEvent(from));
+		}
+
+		VerticesChangeEvent e = new VerticesChangeEvent(vertex, this,
 				VerticesChangeEvent.VERTEX_REMOVED);
-		verticesChanged(e);
+		fireVerticesChanged(e);
+	}
+
+	/**
+	 * Erzeugen einer kompakten, unvernderlichen Darstellung des Graphen im
+	 * CSR-Format. Die Ecken werden durch ihre Nummern (siehe indexOf())
+	 * dargestellt. Der Aufwand ist O(V+E).
+	 * 
+	 * @see CsrGraph
+	 */
+	public CsrGraph toCsr() {
+		int n = vertices.size();
+		int m = edges.size();
+		int[] offsets = new int[n + 1];
+		Edge[] csrEdges = new Edge[m];
+		int[] targets = new int[m];
+		double[] weights = new double[m];
+		int pos = 0;
+
+		// Die Kanten jeder Ecke werden ihrer Kantenliste entnommen und behalten
+		// so ihre Reihenfolge. Nur Kanten dieses Graphen zwischen Ecken dieses
+		// Graphen werden bercksichtigt.
+		for (int i = 0; i < n; i++) {
+			offsets[i] = pos;
+
+			for (Edge edge : vertices.get(i).getOutgoingEdges()) {
+				int head = indexOf(edge.getHead());
+
+				if (head >= 0 && edge.getGraph() == this) {
+					csrEdges[pos] = edge;
+					targets[pos] = head;
+					weights[pos] = edge.getWeight();
+					pos++;
+				}
+			}
+		}
+		offsets[n] = pos;
+
+		if (pos < m) {
+			csrEdges = Arrays.copyOf(csrEdges, pos);
+			targets = Arrays.copyOf(targets, pos);
+			weights = Arrays.copyOf(weights, pos);
+		}
+
+		return new CsrGraph(vertices.toArray(new Vertex[n]), csrEdges,
+				offsets, targets, weights);
 	}
 
 	/* ************************************************************************
@@ -235,55 +631,263 @@ public class Graph {
 	 * ************************************************************************
 	 */
 
+	/**
+	 * Anlegen einer Kopie des Graphen. Die Kopie besitzt neue Ecken und Kanten
+	 * mit denselben Labels und Kantengewichten. Die Ecken behalten ihre Nummern
+	 * und die Kanten jeder Ecke ihre Reihenfolge. Listener werden nicht
+	 * bernommen.
+	 * 
+	 * Die Strukturen der Kopie werden vorab passend dimensioniert und ohne
+	 * Ereignisse befllt, so dass der Aufwand O(V+E) betrgt. Eine Abspaltung,
+	 * die Ecken und Kanten mit dem Graphen teilt, liefert fork() in O(1).
+	 */
 	public Graph copy() {
 		return (Graph) clone();
 	}
 
-	protected Object clone() { // throws CloneNotSupportedException
+	protected Object clone() {
+		Graph g = newInstance();
+		Vertex[] copies = copyInto(g);
 
-		Class thisClass = getClass();
-		Graph g = null;
+		copyStateTo(g, copies);
 
-		try {
-			g = (Graph) thisClass.newInstance();
-		} catch (IllegalAccessException ex) {
-			System.out.println(ex);
-		} catch (InstantiationException ex) {
-			System.out.println(ex);
+		return g;
+	}
+
+	/**
+	 * Eintragen von Kopien smtlicher Ecken und Kanten in den gegebenen,
+	 * leeren Graphen, ohne Listener zu benachrichtigen.
+	 * 
+	 * @return die Kopien der Ecken. copies[i] ist die Kopie der Ecke mit der
+	 *         Nummer i.
+	 */
+	private Vertex[] copyInto(Graph g) {
+		int n = vertices.size();
+		Vertex[] copies = new Vertex[n];
+
+		g.ensureCapacity(n, edges.size());
+
+		for (int i = 0; i < n; i++) {
+			copies[i] = new Vertex(vertices.get(i).getLabel());
+			g.insertVertex(copies[i]);
 		}
 
-		// Bildet alte Ecken auf Neue ab. key=alt value=neu
-		Map<Vertex, Vertex> assoc = new HashMap<Vertex, Vertex>();
+		for (int i = 0; i < n; i++) {
+			for (Edge edge : vertices.get(i).getOutgoingEdges()) {
+				int head = indexOf(edge.getHead());
 
-		// Jede Ecke klonen
-		for (Vertex vertex : vertices) {
-			Vertex newVertex = (Vertex) vertex.clone();
-			assoc.put(vertex, newVertex);
-			g.addVertex(newVertex);
+				// Nur Kanten dieses Graphen zwischen Ecken dieses Graphen
+				if (head < 0 || edge.getGraph() != this) {
+					continue;
+				}
+
+				g.insertEdge(copies[i], copies[head], edge.getLabel(),
+						edge.getWeight());
+			}
 		}
 
-		for (Edge edge : edges) {
-			Vertex head = edge.getHead();
-			Vertex tail = edge.getTail();
-			Vertex newHead = null, newTail = null;
+		return copies;
+	}
+
+	/**
+	 * Anlegen einer unvernderlichen Momentaufnahme des Graphen. Algorithmen
+	 * knnen auf ihr arbeiten, whrend der Graph weiter verndert wird.
+	 * 
+	 * Beim ersten Aufruf wird eine Adjazenzstruktur angelegt (O(V+E)), die
+	 * danach mit dem Graphen Schritt hlt und sich ihre Teile mit frheren
+	 * Fassungen teilt (siehe GraphState). Jede weitere Momentaufnahme hlt
+	 * deren aktuellen Stand in O(1) fest. Erst sptere nderungen kopieren die
+	 * betroffenen Teile der Struktur (O(log V + log d) je nderung). Solange
+	 * der Graph nicht verndert wird (siehe getVersion()), liefert jeder
+	 * Aufruf dasselbe Objekt.
+	 * 
+	 * Der Aufruf ist auch bei gleichzeitigen nderungen aus anderen Threads
+	 * sicher. Die Momentaufnahme enthlt dann jede nderung entweder ganz oder
+	 * gar nicht.
+	 * 
+	 * @see GraphSnapshot
+	 */
+	public GraphSnapshot snapshot() {
+		synchronized (stateLock) {
+			long current = version.get();
+
+			if (snapshot == null || snapshot.getVersion() != current) {
+				snapshot = new GraphSnapshot(getState().fork(), current);
+			}
+
+			return snapshot;
+		}
+	}
+
+	/**
+	 * Abspalten eines vernderbaren Graphen, der sich seine Struktur mit
+	 * diesem Graphen teilt (siehe PersistentGraph). Wie bei snapshot() wird
+	 * nur beim ersten Aufruf eine Adjazenzstruktur angelegt (O(V+E)). Jede
+	 * weitere Abspaltung kostet O(1), auch bei gleichzeitigen nderungen aus
+	 * anderen Threads.
+	 * 
+	 * Die Abspaltung eignet sich z.B. fr Was-wre-wenn-Auswertungen: Kanten
+	 * knnen dort entfernt oder umgewichtet werden, ohne den Graphen zu
+	 * kopieren oder zu verndern.
+	 */
+	public PersistentGraph fork() {
+		synchronized (stateLock) {
+			return new PersistentGraph(getState().fork(), version.get());
+		}
+	}
+
+	/**
+	 * Auslesen der Adjazenzstruktur. Sie wird beim ersten Aufruf angelegt.
+	 * Nur unter stateLock aufzurufen.
+	 */
+	private GraphState getState() {
+		if (state == null) {
+			state = new GraphState();
+			for (int i = 0; i < vertices.size(); i++) {
+				addState(vertices.get(i), i);
+			}
+		}
+
+		return state;
+	}
+
+	/**
+	 * Auslesen der Versionsnummer des Graphen. Sie wird bei jeder nderung an
+	 * Ecken, Kanten, Labels oder Kantengewichten erhht.
+	 */
+	public long getVersion() {
+		return version.get();
+	}
+
+	/**
+	 * bernehmen des Labels einer Ecke in die Adjazenzstruktur. Wird von
+	 * Vertex.setLabel() aufgerufen.
+	 */
+	void labelModified(Vertex vertex) {
+		synchronized (stateLock) {
+			int id = localIndexOf(vertex);
+
+			if (state != null && id >= 0) {
+				state.setLabel(id, vertex.getLabel());
+			}
+			version.incrementAndGet();
+		}
+	}
 
-			// Nur verbundene Kanten klonen
-			if (head == null || tail == null) {
-				continue;
+	/**
+	 * bernehmen von Label, Gewicht und Zielecke einer Kante in die
+	 * Adjazenzstruktur. Wird von Edge aufgerufen.
+	 */
+	void edgeModified(Edge edge) {
+		synchronized (stateLock) {
+			int tail = state != null ? localIndexOf(edge.getTail()) : -1;
+			int position = tail >= 0 ? state.position(tail, edge,
+					edge.getStateIndex()) : -1;
+
+			if (position >= 0) {
+				state.setEdge(tail, position, new GraphState.EdgeState(edge));
 			}
+			version.incrementAndGet();
+		}
+	}
 
-			newHead = assoc.get(head);
-			newTail = assoc.get(tail);
+	/**
+	 * Eintragen einer Kante dieses Graphen in der Adjazenzstruktur, nachdem
+	 * sie bei der gegebenen Ecke eingetragen wurde (siehe Vertex.addEdge() und
+	 * Edge.setTail()).
+	 */
+	void outgoingEdgeAdded(Vertex vertex, Edge edge) {
+		synchronized (stateLock) {
+			int tail = localIndexOf(vertex);
 
-			if (newHead == null || newTail == null) {
-				System.out.println("Edge wasn't cloned: " + edge.toString());
-				continue;
+			if (state != null && tail >= 0 && edge.getGraph() == this) {
+				addState(tail, edge);
 			}
+			version.incrementAndGet();
+		}
+	}
 
-			g.connect(newTail, newHead, edge.getLabel());
+	/**
+	 * Austragen einer Kante dieses Graphen aus der Adjazenzstruktur, nachdem
+	 * sie bei der gegebenen Startecke ausgetragen wurde (siehe
+	 * Vertex.removeEdge() und Edge.setTail()).
+	 */
+	void outgoingEdgeRemoved(Vertex tail, Edge edge) {
+		synchronized (stateLock) {
+			removeState(tail, edge);
+			version.incrementAndGet();
 		}
+	}
 
-		return g;
+	/**
+	 * Eintragen einer Ecke mit der gegebenen Nummer samt ihrer Kanten in die
+	 * Adjazenzstruktur. Nur unter stateLock aufzurufen.
+	 */
+	private void addState(Vertex vertex, int id) {
+		state.addVertex(vertex, vertex.getLabel());
+
+		// Kanten dieses Graphen, die bereits bei der Ecke eingetragen sind
+		for (Edge edge : vertex.getOutgoingEdges()) {
+			if (edge.getGraph() == this) {
+				addState(id, edge);
+			}
+		}
+	}
+
+	/**
+	 * Anhngen einer Kante an die Kantenliste der Ecke mit der gegebenen Nummer
+	 * in der Adjazenzstruktur. Nur unter stateLock aufzurufen.
+	 */
+	private void addState(int tail, Edge edge) {
+		edge.setStateIndex(state.addEdge(tail, new GraphState.EdgeState(edge)));
+	}
+
+	/**
+	 * Austragen einer Kante aus der Kantenliste der gegebenen Ecke in der
+	 * Adjazenzstruktur, falls sie dort eingetragen ist. Die nachrckende Kante
+	 * erhlt ihre neue Position. Nur unter stateLock aufzurufen.
+	 */
+	private void removeState(Vertex tail, Edge edge) {
+		int id = state != null ? localIndexOf(tail) : -1;
+		int position = id >= 0 ? state.position(id, edge,
+				edge.getStateIndex()) : -1;
+
+		if (position < 0) {
+			return;
+		}
+
+		GraphState.EdgeState moved = state.removeEdge(id, position);
+		if (moved != null && moved.edge.getGraph() == this) {
+			moved.edge.setStateIndex(position);
+		}
+		edge.setStateIndex(-1);
+	}
+
+	/**
+	 * Anlegen eines leeren Graphen derselben Klasse fr copy(). Unterklassen,
+	 * deren Konstruktor bereits Ecken anlegt oder die keinen parameterlosen
+	 * Konstruktor besitzen, sollten diese Methode berschreiben.
+	 */
+	protected Graph newInstance() {
+		if (getClass() == Graph.class) {
+			return new Graph();
+		}
+
+		try {
+			return getClass().newInstance();
+		} catch (InstantiationException ex) {
+			throw new IllegalStateException(ex);
+		} catch (IllegalAccessException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	/**
+	 * bertragen des Zustands von Unterklassen auf die Kopie. Wird von copy()
+	 * aufgerufen, nachdem Ecken und Kanten kopiert wurden. copies[i] ist die
+	 * Kopie der Ecke mit der Nummer i.
+	 */
+	protected void copyStateTo(Graph copy, Vertex[] copies) {
 	}
 
 	/* ************************************************************************
@@ -291,58 +895,211 @@ public class Graph {
 	 * ************************************************************************
 	 */
 
-	public synchronized void addVertexChangeListener(
-			VerticesChangeListener listener) {
+	/**
+	 * ffnen eines Batches. Bis zum zugehrigen commitBatch() werden die
+	 * VerticesChangeListener und EdgeSetChangeListener nicht mehr bei jeder
+	 * einzelnen nderung benachrichtigt. Stattdessen erhalten sie beim Schlieen
+	 * des uersten Batches je ein Ereignis (Sammelnderung, siehe
+	 * isBulkChange()), das smtliche hinzugefgten und entfernten Ecken bzw.
+	 * Kanten enthlt. Elemente, die innerhalb des Batches hinzugefgt und
+	 * wieder entfernt wurden, werden nicht gemeldet.
+	 * 
+	 * Batches knnen verschachtelt werden. Es findet kein Rollback statt: Die
+	 * nderungen werden sofort am Graphen durchgefhrt, nur ihre Meldung wird
+	 * aufgeschoben.
+	 */
+	public void beginBatch() {
+		if (batchDepth == 0) {
+			batchAddedVertices = new LinkedHashSet<Vertex>();
+			batchRemovedVertices = new LinkedHashSet<Vertex>();
+			batchAddedEdges = new LinkedHashSet<Edge>();
+			batchRemovedEdges = new LinkedHashSet<Edge>();
+		}
+		batchDepth++;
+	}
+
+	/**
+	 * Schlieen eines Batches. Beim Schlieen des uersten Batches werden die
+	 * gesammelten nderungen gemeldet.
+	 * 
+	 * @see #beginBatch()
+	 */
+	public void commitBatch() {
+		if (batchDepth == 0) {
+			throw new IllegalStateException("Kein Batch geffnet!");
+		}
+
+		if (--batchDepth > 0) {
+			return;
+		}
+
+		List<Vertex> addedVertices = new ArrayList<Vertex>(batchAddedVertices);
+		List<Vertex> removedVertices = new ArrayList<Vertex>(
+				batchRemovedVertices);
+		List<Edge> addedEdges = new ArrayList<Edge>(batchAddedEdges);
+		List<Edge> removedEdges = new ArrayList<Edge>(batchRemovedEdges);
+
+		batchAddedVertices = null;
+		batchRemovedVertices = null;
+		batchAddedEdges = null;
+		batchRemovedEdges = null;
+
+		// Die internen Listener kennen die nderungen bereits
+		if (!addedVertices.isEmpty() || !removedVertices.isEmpty()) {
+			dispatch(verticesChangeListeners, new VerticesChangeEvent(this,
+					addedVertices, removedVertices));
+		}
+		if (!addedEdges.isEmpty() || !removedEdges.isEmpty()) {
+			dispatch(edgeSetChangeListeners, new EdgeSetChangeEvent(this,
+					addedEdges, removedEdges));
+		}
+	}
+
+	/**
+	 * Ausfhren der gegebenen nderungen in einem Batch. Der Batch wird auch
+	 * dann geschlossen, wenn eine Exception auftritt.
+	 * 
+	 * @see #beginBatch()
+	 */
+	public void batch(Runnable changes) {
+		beginBatch();
+		try {
+			changes.run();
+		} finally {
+			commitBatch();
+		}
+	}
+
+	public boolean isBatchOpen() {
+		return batchDepth > 0;
+	}
+
+	public void addVertexChangeListener(VerticesChangeListener listener) {
 		verticesChangeListeners.add(listener);
 	}
 
-	public synchronized void removeVertexChangeListener(
-			VerticesChangeListener listener) {
+	public void removeVertexChangeListener(VerticesChangeListener listener) {
 		verticesChangeListeners.remove(listener);
 	}
 
+	/**
+	 * Registrieren eines internen Listeners, der auch innerhalb eines Batches
+	 * sofort ber jede nderung benachrichtigt wird.
+	 */
+	void addInternalVertexChangeListener(VerticesChangeListener listener) {
+		internalVerticesChangeListeners.add(listener);
+	}
+
 	/**
 	 * Smtliche VerticesChangeListeners benachrichtigen.
 	 */
 	protected void verticesChanged(VerticesChangeEvent e) {
-		List<VerticesChangeListener> listeners = null;
-
-		synchronized (this) {
-			listeners = new ArrayList<VerticesChangeListener>(
-					verticesChangeListeners);
-		}
+		dispatch(internalVerticesChangeListeners, e);
+		dispatch(verticesChangeListeners, e);
+	}
 
+	private void dispatch(List<VerticesChangeListener> listeners,
+			VerticesChangeEvent e) {
 		for (VerticesChangeListener vcl : listeners) {
 			vcl.verticesChanged(e);
 		}
 	}
 
-	public synchronized void addEdgeSetChangeListener(
-			EdgeSetChangeListener listener) {
+	/**
+	 * Benachrichtigen ber eine nderung der Eckenmenge. Innerhalb eines
+	 * Batches wird die nderung fr die nicht internen Listener vorgemerkt.
+	 */
+	void fireVerticesChanged(VerticesChangeEvent e) {
+		if (batchDepth == 0) {
+			verticesChanged(e);
+			return;
+		}
+
+		dispatch(internalVerticesChangeListeners, e);
+		for (Vertex vertex : e.getRemovedVertices()) {
+			if (!batchAddedVertices.remove(vertex)) {
+				batchRemovedVertices.add(vertex);
+			}
+		}
+		for (Vertex vertex : e.getAddedVertices()) {
+			if (!batchRemovedVertices.remove(vertex)) {
+				batchAddedVertices.add(vertex);
+			}
+		}
+	}
+
+	/**
+	 * Benachrichtigen smtlicher Listener ber eine Sammelnderung. Zuerst
+	 * werden die VerticesChangeListener, danach die EdgeSetChangeListener mit je
+	 * einem Ereignis benachrichtigt. Leere nderungen werden nicht gemeldet.
+	 */
+	void fireBulkChange(List<Vertex> addedVertices,
+			List<Vertex> removedVertices, List<Edge> addedEdges,
+			List<Edge> removedEdges) {
+		if (!addedVertices.isEmpty() || !removedVertices.isEmpty()) {
+			fireVerticesChanged(new VerticesChangeEvent(this, addedVertices,
+					removedVertices));
+		}
+		if (!addedEdges.isEmpty() || !removedEdges.isEmpty()) {
+			fireEdgeSetChanged(new EdgeSetChangeEvent(this, addedEdges,
+					removedEdges));
+		}
+	}
+
+	public void addEdgeSetChangeListener(EdgeSetChangeListener listener) {
 		edgeSetChangeListeners.add(listener);
 	}
 
-	public synchronized void removeEdgeSetChangeListener(
-			EdgeSetChangeListener listener) {
+	public void removeEdgeSetChangeListener(EdgeSetChangeListener listener) {
 		edgeSetChangeListeners.remove(listener);
 	}
 
+	/**
+	 * Registrieren eines internen Listeners, der auch innerhalb eines Batches
+	 * sofort ber jede nderung benachrichtigt wird.
+	 */
+	void addInternalEdgeSetChangeListener(EdgeSetChangeListener listener) {
+		internalEdgeSetChangeListeners.add(listener);
+	}
+
 	/**
 	 * Smtliche EdgeSetChangeListener benachrichtigen.
 	 */
 	public void edgeSetChanged(EdgeSetChangeEvent e) {
-		List<EdgeSetChangeListener> listeners = null;
-
-		synchronized (this) {
-			listeners = new ArrayList<EdgeSetChangeListener>(
-					edgeSetChangeListeners);
-		}
+		dispatch(internalEdgeSetChangeListeners, e);
+		dispatch(edgeSetChangeListeners, e);
+	}
 
+	private void dispatch(List<EdgeSetChangeListener> listeners,
+			EdgeSetChangeEvent e) {
 		for (EdgeSetChangeListener ecl : listeners) {
 			ecl.edgeSetChanged(e);
 		}
 	}
 
+	/**
+	 * Benachrichtigen ber eine nderung der Kantenmenge. Innerhalb eines
+	 * Batches wird die nderung fr die nicht internen Listener vorgemerkt.
+	 */
+	void fireEdgeSetChanged(EdgeSetChangeEvent e) {
+		if (batchDepth == 0) {
+			edgeSetChanged(e);
+			return;
+		}
+
+		dispatch(internalEdgeSetChangeListeners, e);
+		for (Edge edge : e.getRemovedEdges()) {
+			if (!batchAddedEdges.remove(edge)) {
+				batchRemovedEdges.add(edge);
+			}
+		}
+		for (Edge edge : e.getAddedEdges()) {
+			if (!batchRemovedEdges.remove(edge)) {
+				batchAddedEdges.add(edge);
+			}
+		}
+	}
+
 	/* ************************************************************************
 	 * Einen Graphen als String reprsentieren
 	 * ************************************************************************
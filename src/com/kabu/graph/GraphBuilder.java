@@ -0,0 +1,181 @@
+package com.kabu.graph;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Schnelles Befllen eines Graphen mit vielen Ecken und Kanten. Anders als bei
+ * createVertex() und connect() werden die Listener nicht bei jeder einzelnen
+ * Ecke oder Kante benachrichtigt. Stattdessen meldet build() smtliche
+ * nderungen mit je einem VerticesChangeEvent und einem EdgeSetChangeEvent
+ * (Sammelnderung, siehe isBulkChange()). VertexChangeEvents fr die neuen
+ * Kanten entfallen ganz.
+ *
+ * Beispiel:
+ *
+ * <pre>
+ * GraphBuilder builder = new GraphBuilder(graph);
+ * builder.ensureCapacity(labels.length, tails.length);
+ * builder.addVertices(labels);
+ * builder.addEdges(tails, heads, weights);
+ * builder.build();
+ * </pre>
+ *
+ * Hinweis: Zwischen dem ersten Hinzufgen und build() ist der Graph zwar
+ * vollstndig aufgebaut, seine Listener (z.B. die Indizes der TypeHierarchy)
+ * kennen die neuen Elemente aber noch nicht. Der Graph sollte in dieser Zeit
+ * nicht anderweitig verwendet werden. Insbesondere prft der Builder nicht, ob
+ * neue Kanten in einer TypeHierarchy einen Kreis erzeugen.
+ */
+public class GraphBuilder {
+	private Graph graph = null;
+	private boolean checkDuplicates = false;
+
+	// Seit dem letzten build() hinzugefgte Elemente
+	private ArrayList<Vertex> addedVertices = new ArrayList<Vertex>();
+	private ArrayList<Edge> addedEdges = new ArrayList<Edge>();
+
+	/**
+	 * Builder fr einen neuen, leeren Graphen.
+	 */
+	public GraphBuilder() {
+		this(new Graph());
+	}
+
+	/**
+	 * Builder, der den gegebenen Graphen ergnzt.
+	 */
+	public GraphBuilder(Graph graph) {
+		this.graph = graph;
+	}
+
+	public Graph getGraph() {
+		return graph;
+	}
+
+	public boolean isCheckDuplicates() {
+		return checkDuplicates;
+	}
+
+	/**
+	 * Festlegen, ob vor dem Anlegen einer Kante geprft wird, ob bereits eine
+	 * gleiche Kante (gleiche Endecken, gleiches Label und Gewicht) existiert.
+	 * In diesem Fall wird keine neue Kante angelegt. Voreinstellung ist false:
+	 * Wie bei connect() werden parallele Kanten stets angelegt, auch wenn sie
+	 * einer vorhandenen Kante gleichen.
+	 *
+	 * Die Prfung durchluft smtliche Kanten zwischen den beiden Ecken und
+	 * sollte nur eingeschaltet werden, wenn doppelte Eintrge der Eingabe
+	 * zusammengefasst werden sollen.
+	 */
+	public void setCheckDuplicates(boolean checkDuplicates) {
+		this.checkDuplicates = checkDuplicates;
+	}
+
+	/**
+	 * Vergrern der internen Strukturen des Graphen fr die gegebene Anzahl
+	 * weiterer Ecken und Kanten.
+	 */
+	public void ensureCapacity(int vertexCount, int edgeCount) {
+		graph.ensureCapacity(vertexCount, edgeCount);
+		addedVertices.ensureCapacity(addedVertices.size() + vertexCount);
+		addedEdges.ensureCapacity(addedEdges.size() + edgeCount);
+	}
+
+	/**
+	 * Anlegen einer neuen Ecke mit dem gegebenen Label.
+	 */
+	public Vertex addVertex(String label) {
+		Vertex vertex = new Vertex(label);
+
+		graph.insertVertex(vertex);
+		addedVertices.add(vertex);
+
+		return vertex;
+	}
+
+	/**
+	 * Anlegen je einer neuen Ecke fr jedes der gegebenen Labels. Die neuen
+	 * Ecken erhalten fortlaufende Nummern (siehe Graph.indexOf()).
+	 */
+	public Vertex[] addVertices(String[] labels) {
+		Vertex[] result = new Vertex[labels.length];
+
+		for (int i = 0; i < labels.length; i++) {
+			result[i] = addVertex(labels[i]);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Anlegen einer Kante zwischen zwei Ecken des Graphen.
+	 *
+	 * @return die neue Kante oder bei eingeschalteter Prfung eine bereits
+	 *         vorhandene gleiche Kante.
+	 */
+	public Edge addEdge(Vertex from, Vertex to, String label, double weight) {
+		if (checkDuplicates) {
+			for (Edge edge : from.getEdgesTo(to)) {
+				if (edge.getWeight() == weight
+						&& (label == null ? edge.getLabel() == null : label
+								.equals(edge.getLabel()))) {
+					return edge;
+				}
+			}
+		}
+
+		Edge edge = graph.insertEdge(from, to, label, weight);
+		addedEdges.add(edge);
+
+		return edge;
+	}
+
+	public Edge addEdge(Vertex from, Vertex to, double weight) {
+		return addEdge(from, to, "", weight);
+	}
+
+	/**
+	 * Anlegen von Kanten zwischen den Ecken mit den gegebenen Nummern (siehe
+	 * Graph.indexOf()). Die i-te Kante fhrt von tails[i] nach heads[i] und
+	 * erhlt das Gewicht weights[i]. Ist weights null, so erhalten smtliche
+	 * Kanten das Gewicht 1.
+	 */
+	public void addEdges(int[] tails, int[] heads, double[] weights) {
+		if (tails.length != heads.length
+				|| (weights != null && weights.length != tails.length)) {
+			throw new IllegalArgumentException(
+					"Die Arrays mssen gleich lang sein!");
+		}
+
+		List<Vertex> vertices = graph.getVertices();
+
+		ensureCapacity(0, tails.length);
+		for (int i = 0; i < tails.length; i++) {
+			addEdge(vertices.get(tails[i]), vertices.get(heads[i]),
+					weights != null ? weights[i] : 1);
+		}
+	}
+
+	/**
+	 * Benachrichtigen der Listener des Graphen ber smtliche seit dem letzten
+	 * Aufruf hinzugefgten Ecken und Kanten. Danach kann der Builder weiter
+	 * verwendet werden.
+	 *
+	 * @return der befllte Graph.
+	 */
+	public Graph build() {
+		List<Vertex> vertices = addedVertices;
+		List<Edge> edges = addedEdges;
+		List<Vertex> noVertices = Collections.emptyList();
+		List<Edge> noEdges = Collections.emptyList();
+
+		addedVertices = new ArrayList<Vertex>();
+		addedEdges = new ArrayList<Edge>();
+
+		graph.fireBulkChange(vertices, noVertices, edges, noEdges);
+
+		return graph;
+	}
+}
@@ -0,0 +1,93 @@
+package com.kabu.graph;
+
+/**
+ * Unvernderliche Momentaufnahme eines Graphen (siehe Graph.snapshot()). Die
+ * Momentaufnahme gibt Ecken, Kanten, Nummern, Labels und Kantengewichte zum
+ * Zeitpunkt der Aufnahme wieder. Sptere nderungen am Graphen wirken sich
+ * nicht auf sie aus.
+ *
+ * Die Momentaufnahme kopiert weder Ecken noch Kanten, sondern verwendet
+ * dieselben Objekte wie der Graph. Die Ecken des Graphen knnen daher direkt
+ * an sie bergeben werden (z.B. als Startecke eines Algorithmus). Ihre
+ * Struktur liest sie aus einem festgehaltenen Stand der Adjazenzstruktur des
+ * Graphen (siehe GraphState), Labels und Kantengewichte zum Zeitpunkt der
+ * Aufnahme liefern getLabel() und getWeight(). Die Methoden der Ecken und
+ * Kanten selbst (z.B. Vertex.getOutgoingEdges() oder Edge.getWeight())
+ * liefern dagegen den aktuellen Stand des Graphen.
+ *
+ * Smtliche verndernden Methoden der Momentaufnahme werfen eine
+ * UnsupportedOperationException. getVertices() und getAllEdges() liefern
+ * unvernderliche Listen. Die Momentaufnahme kann daher gefahrlos an
+ * Algorithmen bergeben und von mehreren Threads gleichzeitig gelesen werden,
+ * z.B. eine lngere Auswertung auf Version N, whrend der Graph bereits
+ * Version N+1 erreicht. Abgeleitete Darstellungen wie toCsr() werden beim
+ * ersten Aufruf in O(V+E) erzeugt und danach wiederverwendet.
+ *
+ * Eine vernderbare Kopie liefert copy(), eine vernderbare Abspaltung ohne
+ * Kopieren fork().
+ */
+public class GraphSnapshot extends PersistentGraph {
+	GraphSnapshot(GraphState state, long version) {
+		super(state, version);
+	}
+
+	/**
+	 * Auslesen der Version des Graphen, von der die Momentaufnahme stammt.
+	 */
+	public long getVersion() {
+		return super.getVersion();
+	}
+
+	/**
+	 * Die Momentaufnahme ist ihre eigene Momentaufnahme.
+	 */
+	public GraphSnapshot snapshot() {
+		return this;
+	}
+
+	/* ************************************************************************
+	 * Verndernde Methoden
+	 * ************************************************************************
+	 */
+
+	private static UnsupportedOperationException readOnly() {
+		return new UnsupportedOperationException(
+				"Eine Momentaufnahme kann nicht verndert werden!");
+	}
+
+	boolean insertVertex(Vertex vertex) {
+		throw readOnly();
+	}
+
+	Edge insertEdge(Vertex from, Vertex to, String label, double weight) {
+		throw readOnly();
+	}
+
+	public void addVertex(Vertex vertex) {
+		throw readOnly();
+	}
+
+	public void remove(Edge edge) {
+		throw readOnly();
+	}
+
+	public void remove(Vertex vertex) {
+		throw readOnly();
+	}
+
+	public void setLabel(Vertex vertex, String label) {
+		throw readOnly();
+	}
+
+	public void setLabel(Edge edge, String label) {
+		throw readOnly();
+	}
+
+	public void setWeight(Edge edge, double weight) {
+		throw readOnly();
+	}
+
+	public void beginBatch() {
+		throw readOnly();
+	}
+}
@@ -0,0 +1,223 @@
+package com.kabu.graph;
+
+/**
+ * Adjazenzstruktur eines Graphen, deren Fassungen sich den grten Teil ihrer
+ * Struktur teilen. Jede Ecke besitzt eine persistente Liste ihrer ausgehenden
+ * Kanten, zusammen mit den Labels und Kantengewichten zum Zeitpunkt der
+ * letzten nderung. fork() hlt den aktuellen Stand in O(1) fest. Danach
+ * kopiert jede nderung nur die Knoten auf ihrem Weg (O(log32 n)), der
+ * festgehaltene Stand bleibt unverndert.
+ *
+ * Die Ecken werden durch ihre Position 0..getOrder()-1 angesprochen. Ecken
+ * und Kanten rcken beim Entfernen wie in Graph nach: Das letzte Element tritt
+ * an die Stelle des entfernten.
+ *
+ * Die Methoden sind nicht synchronisiert (siehe Graph.snapshot()).
+ */
+final class GraphState {
+	/**
+	 * Zustand einer Ecke. Er wird nur unter dem nderungsstempel verndert,
+	 * unter dem er angelegt wurde, und andernfalls vorher kopiert.
+	 */
+	static final class VertexState {
+		final Object edit;
+		final Vertex vertex;
+		String label;
+		PersistentList<EdgeState> edges;
+
+		VertexState(Object edit, Vertex vertex, String label,
+				PersistentList<EdgeState> edges) {
+			this.edit = edit;
+			this.vertex = vertex;
+			this.label = label;
+			this.edges = edges;
+		}
+	}
+
+	/**
+	 * Unvernderlicher Zustand einer Kante.
+	 */
+	static final class EdgeState {
+		final Edge edge;
+		final Vertex head;
+		final String label;
+		final double weight;
+
+		EdgeState(Edge edge) {
+			this(edge, edge.getHead(), edge.getLabel(), edge.getWeight());
+		}
+
+		EdgeState(Edge edge, Vertex head, String label, double weight) {
+			this.edge = edge;
+			this.head = head;
+			this.label = label;
+			this.weight = weight;
+		}
+	}
+
+	private PersistentList<VertexState> vertices;
+	private int edgeCount;
+	private Object edit = new Object();
+
+	GraphState() {
+		this(PersistentList.<VertexState> empty(), 0);
+	}
+
+	private GraphState(PersistentList<VertexState> vertices, int edgeCount) {
+		this.vertices = vertices;
+		this.edgeCount = edgeCount;
+	}
+
+	/**
+	 * Festhalten des aktuellen Stands in O(1). Die gelieferte Fassung und
+	 * diese Fassung teilen sich ihre Struktur und knnen danach unabhngig
+	 * voneinander verndert werden.
+	 */
+	GraphState fork() {
+		edit = new Object();
+
+		return new GraphState(vertices, edgeCount);
+	}
+
+	/**
+	 * Anzahl der Ecken.
+	 */
+	int getOrder() {
+		return vertices.size();
+	}
+
+	/**
+	 * Anzahl der Kanten.
+	 */
+	int getSize() {
+		return edgeCount;
+	}
+
+	Vertex getVertex(int vertex) {
+		return vertices.get(vertex).vertex;
+	}
+
+	String getLabel(int vertex) {
+		return vertices.get(vertex).label;
+	}
+
+	/**
+	 * Auslesen der Kanten der Ecke an der gegebenen Position. Die Liste darf
+	 * nicht verndert werden.
+	 */
+	PersistentList<EdgeState> getEdges(int vertex) {
+		return vertices.get(vertex).edges;
+	}
+
+	/**
+	 * Anhngen einer Ecke ohne Kanten.
+	 */
+	void addVertex(Vertex vertex, String label) {
+		vertices = vertices.add(edit, new VertexState(edit, vertex, label,
+				PersistentList.<EdgeState> empty()));
+	}
+
+	/**
+	 * Entfernen der Ecke an der gegebenen Position samt ihrer ausgehenden
+	 * Kanten. Die letzte Ecke rckt an ihre Stelle. Kanten anderer Ecken, die
+	 * auf sie weisen, bleiben erhalten.
+	 */
+	void removeVertex(int vertex) {
+		int last = vertices.size() - 1;
+
+		edgeCount -= vertices.get(vertex).edges.size();
+		if (vertex != last) {
+			vertices = vertices.set(edit, vertex, vertices.get(last));
+		}
+		vertices = vertices.removeLast(edit);
+	}
+
+	void setLabel(int vertex, String label) {
+		editable(vertex).label = label;
+	}
+
+	/**
+	 * Anhngen einer Kante an die Kantenliste der gegebenen Ecke.
+	 *
+	 * @return die Position der Kante in der Kantenliste.
+	 */
+	int addEdge(int tail, EdgeState edge) {
+		VertexState state = editable(tail);
+
+		state.edges = state.edges.add(edit, edge);
+		edgeCount++;
+
+		return state.edges.size() - 1;
+	}
+
+	/**
+	 * Ersetzen des Zustands der Kante an der gegebenen Position.
+	 */
+	void setEdge(int tail, int position, EdgeState edge) {
+		VertexState state = editable(tail);
+
+		state.edges = state.edges.set(edit, position, edge);
+	}
+
+	/**
+	 * Entfernen der Kante an der gegebenen Position. Die letzte Kante der Liste
+	 * rckt an ihre Stelle.
+	 *
+	 * @return die nachgerckte Kante oder null, wenn die entfernte Kante die
+	 *         letzte war.
+	 */
+	EdgeState removeEdge(int tail, int position) {
+		VertexState state = editable(tail);
+		PersistentList<EdgeState> edges = state.edges;
+		int last = edges.size() - 1;
+		EdgeState moved = null;
+
+		if (position != last) {
+			moved = edges.get(last);
+			edges = edges.set(edit, position, moved);
+		}
+		state.edges = edges.removeLast(edit);
+		edgeCount--;
+
+		return moved;
+	}
+
+	/**
+	 * Bestimmen der Position einer Kante in der Kantenliste der gegebenen Ecke.
+	 * Stimmt die vermutete Position, so erfolgt dies in O(log32 n).
+	 * Andernfalls wird die Liste durchsucht.
+	 *
+	 * @return die Position oder -1, wenn die Kante nicht enthalten ist.
+	 */
+	int position(int tail, Edge edge, int hint) {
+		PersistentList<EdgeState> edges = vertices.get(tail).edges;
+
+		if (hint >= 0 && hint < edges.size() && edges.get(hint).edge == edge) {
+			return hint;
+		}
+
+		for (int i = 0; i < edges.size(); i++) {
+			if (edges.get(i).edge == edge) {
+				return i;
+			}
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Auslesen des Zustands einer Ecke zum Verndern. Stammt er aus einer
+	 * festgehaltenen Fassung, so wird er vorher kopiert.
+	 */
+	private VertexState editable(int vertex) {
+		VertexState state = vertices.get(vertex);
+
+		if (state.edit != edit) {
+			state = new VertexState(edit, state.vertex, state.label,
+					state.edges);
+			vertices = vertices.set(edit, vertex, state);
+		}
+
+		return state;
+	}
+}
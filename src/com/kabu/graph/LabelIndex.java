@@ -0,0 +1,158 @@
+package com.kabu.graph;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.kabu.graph.event.VertexChangeEvent;
+import com.kabu.graph.event.VertexChangeListener;
+import com.kabu.graph.event.VerticesChangeEvent;
+import com.kabu.graph.event.VerticesChangeListener;
+
+/**
+ * Index der Ecken eines Graphen nach ihrem Label. Damit kann eine Ecke anhand
+ * ihres Labels in O(1) gefunden werden, ohne den Graphen zu durchsuchen.
+ *
+ * Der Index verfolgt das Hinzufgen und Entfernen von Ecken ber die
+ * VerticesChange-Ereignisse des Graphen. Zustzlich wird fr jede Ecke ein
+ * VertexChangeListener registriert, der sich das zuletzt eingetragene Label
+ * merkt. ndert sich das Label der Ecke, so wird sie im Index umgetragen.
+ *
+ * Smtliche Methoden sind auf dem Index synchronisiert, so dass er auch von
+ * ConcurrentGraph verwendet werden kann. Labels knnen dort ohne Sperre des
+ * Graphen gendert werden.
+ */
+class LabelIndex implements VerticesChangeListener {
+	private Graph graph = null;
+	private Map<String, List<Vertex>> verticesByLabel = new HashMap<String, List<Vertex>>();
+	private Map<Vertex, Entry> entries = new HashMap<Vertex, Entry>();
+
+	/**
+	 * Eintrag einer Ecke im Index. Merkt sich das Label, unter dem die Ecke
+	 * eingetragen ist.
+	 */
+	private class Entry implements VertexChangeListener {
+		private Vertex vertex = null;
+		private String label = null;
+
+		public Entry(Vertex vertex) {
+			this.vertex = vertex;
+		}
+
+		public void vertexChanged(VertexChangeEvent e) {
+			synchronized (LabelIndex.this) {
+				// Das Ereignis wird auch beim Einfgen und Entfernen von
+				// Kanten ausgelst. Dann bleibt das Label unverndert. Nach
+				// dem Austragen der Ecke wird es ignoriert.
+				String newLabel = vertex.getLabel();
+
+				if (entries.get(vertex) != this || newLabel == label
+						|| (newLabel != null && newLabel.equals(label))) {
+					return;
+				}
+
+				removeFromList(label, vertex);
+				label = newLabel;
+				addToList(label, vertex);
+			}
+		}
+	}
+
+	public LabelIndex(Graph graph) {
+		this.graph = graph;
+
+		synchronized (this) {
+			for (Vertex vertex : graph.getVertices()) {
+				add(vertex);
+			}
+		}
+
+		graph.addInternalVertexChangeListener(this);
+	}
+
+	/**
+	 * Auslesen der zuerst eingetragenen Ecke mit dem gegebenen Label.
+	 *
+	 * @return die Ecke oder null, wenn keine Ecke das Label besitzt.
+	 */
+	public synchronized Vertex find(String label) {
+		List<Vertex> list = verticesByLabel.get(label);
+
+		return list != null ? list.get(0) : null;
+	}
+
+	/**
+	 * Auslesen einer Kopie der Liste smtlicher Ecken mit dem gegebenen
+	 * Label.
+	 */
+	public synchronized List<Vertex> findAll(String label) {
+		List<Vertex> list = verticesByLabel.get(label);
+
+		return list != null ? new ArrayList<Vertex>(list)
+				: new ArrayList<Vertex>();
+	}
+
+	private void add(Vertex vertex) {
+		if (entries.containsKey(vertex)) {
+			return;
+		}
+
+		// Der Listener wird vor dem Auslesen des Labels registriert, damit
+		// keine gleichzeitige nderung des Labels verloren geht
+		Entry entry = new Entry(vertex);
+		entries.put(vertex, entry);
+		vertex.addVertexChangeListener(entry);
+		entry.label = vertex.getLabel();
+		addToList(entry.label, vertex);
+	}
+
+	private void remove(Vertex vertex) {
+		Entry entry = entries.remove(vertex);
+
+		if (entry != null) {
+			vertex.removeVertexChangeListener(entry);
+			removeFromList(entry.label, vertex);
+		}
+	}
+
+	private void addToList(String label, Vertex vertex) {
+		List<Vertex> list = verticesByLabel.get(label);
+
+		if (list == null) {
+			// Labels sind meist eindeutig
+			list = new ArrayList<Vertex>(1);
+			verticesByLabel.put(label, list);
+		}
+		list.add(vertex);
+	}
+
+	private void removeFromList(String label, Vertex vertex) {
+		List<Vertex> list = verticesByLabel.get(label);
+
+		if (list != null) {
+			list.remove(vertex);
+			if (list.isEmpty()) {
+				verticesByLabel.remove(label);
+			}
+		}
+	}
+
+	/* ************************************************************************
+	 * Event Management
+	 * ************************************************************************
+	 */
+
+	public synchronized void verticesChanged(VerticesChangeEvent e) {
+		for (Vertex vertex : e.getRemovedVertices()) {
+			if (!graph.contains(vertex)) {
+				remove(vertex);
+			}
+		}
+		for (Vertex vertex : e.getAddedVertices()) {
+			if (graph.contains(vertex)) {
+				add(vertex);
+			}
+		}
+	}
+}
@@ -0,0 +1,911 @@
+package com.kabu.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.kabu.graph.GraphState.EdgeState;
+import com.kabu.graph.event.EdgeSetChangeEvent;
+import com.kabu.graph.event.VerticesChangeEvent;
+
+/**
+ * Vernderbare Abspaltung eines Graphen (siehe Graph.fork()). Die Abspaltung
+ * teilt sich ihre Adjazenzstruktur mit dem Graphen, aus dem sie hervorgeht
+ * (siehe GraphState). Sie entsteht daher in O(1), unabhngig von der Gre
+ * des Graphen. Erst ihre nderungen kopieren die betroffenen Teile der
+ * Struktur (O(log V + log d) je nderung). nderungen an der Abspaltung wirken
+ * sich nicht auf den Graphen aus und umgekehrt. Dies eignet sich z.B. fr
+ * Was-wre-wenn-Auswertungen, bei denen Kanten entfernt oder umgewichtet und
+ * die Algorithmen anschlieend auf der Abspaltung ausgefhrt werden.
+ *
+ * Wie die Momentaufnahme kopiert die Abspaltung weder Ecken noch Kanten. Die
+ * Ecken und Kanten des Graphen knnen daher direkt an sie bergeben werden.
+ * Neue Ecken und Kanten gehren nur der Abspaltung. Fr die bernommenen
+ * Elemente gilt:
+ * <ul>
+ * <li>Ihre Labels und Kantengewichte in der Abspaltung liefern getLabel() und
+ * getWeight() und verndern setLabel() und setWeight() dieser Klasse. Die
+ * Setter der Ecken und Kanten selbst verndern dagegen den ursprnglichen
+ * Graphen.</li>
+ * <li>Die Methoden der Ecken (Vertex.getNeighbours(),
+ * Vertex.getOutgoingEdges() usw.) geben die Struktur des ursprnglichen
+ * Graphen wieder. Die Struktur der Abspaltung liefern die Methoden dieser
+ * Klasse und toCsr(), auf dem smtliche Algorithmen arbeiten.</li>
+ * <li>Die VertexChangeListener der Ecken werden nicht ber nderungen der
+ * Abspaltung benachrichtigt, die VerticesChangeListener und
+ * EdgeSetChangeListener der Abspaltung dagegen wie bei Graph.</li>
+ * </ul>
+ *
+ * Das Entfernen einer Ecke durchsucht smtliche Kantenlisten nach ihren
+ * eingehenden Kanten und kostet daher O(V+E). Abgeleitete Darstellungen wie
+ * toCsr() werden bei Bedarf in O(V+E) erzeugt und bis zur nchsten nderung
+ * wiederverwendet.
+ *
+ * Die Abspaltung ist wie Graph nicht fr gleichzeitige nderungen und
+ * Lesezugriffe aus mehreren Threads ausgelegt. Hierfr steht auch hier
+ * snapshot() bereit. Die Abspaltung eines ConcurrentGraph oder einer
+ * TypeHierarchy ist ein gewhnlicher PersistentGraph.
+ */
+public class PersistentGraph extends Graph {
+	private final GraphState state;
+	private final AtomicLong version;
+
+	// Tabellen der Nummern der Ecken und der Startecken der Kanten. Sie werden
+	// erst bentigt, wenn eine Ecke eine andere Nummer als im ursprnglichen
+	// Graphen besitzt oder eine Kante dort eine andere Startecke erhalten hat.
+	// Sie werden beim ersten Bedarf angelegt und danach nachgefhrt.
+	private Map<Vertex, Integer> ids = null;
+	private Map<Edge, Vertex> tails = null;
+
+	// Bei Bedarf angelegte Darstellungen, die bei jeder nderung verworfen
+	// werden
+	private Vertex[] vertexArray = null;
+	private Edge[] edgeArray = null;
+	private CsrGraph csr = null;
+	private Map<String, List<Vertex>> verticesByLabel = null;
+	private GraphSnapshot snapshot = null;
+
+	PersistentGraph(GraphState state, long version) {
+		this.state = state;
+		this.version = new AtomicLong(version);
+	}
+
+	/**
+	 * Auslesen der Versionsnummer. Sie beginnt mit der Version des Graphen, aus
+	 * dem die Abspaltung hervorgeht, und wird bei jeder nderung der
+	 * Abspaltung erhht.
+	 */
+	public long getVersion() {
+		return version.get();
+	}
+
+	/**
+	 * Anlegen einer unvernderlichen Momentaufnahme der Abspaltung in O(1).
+	 */
+	public synchronized GraphSnapshot snapshot() {
+		if (snapshot == null) {
+			snapshot = new GraphSnapshot(state.fork(), version.get());
+		}
+
+		return snapshot;
+	}
+
+	/**
+	 * Abspalten eines weiteren Graphen in O(1).
+	 */
+	public synchronized PersistentGraph fork() {
+		return new PersistentGraph(state.fork(), version.get());
+	}
+
+	/**
+	 * Verwerfen der abgeleiteten Darstellungen nach einer nderung.
+	 */
+	private void modified() {
+		version.incrementAndGet();
+		vertexArray = null;
+		edgeArray = null;
+		csr = null;
+		verticesByLabel = null;
+		snapshot = null;
+	}
+
+	/* ************************************************************************
+	 * Ecken
+	 * ************************************************************************
+	 */
+
+	public int getOrder() {
+		return state.getOrder();
+	}
+
+	/**
+	 * Auslesen der Nummer einer Ecke. Solange die Ecke ihre Nummer aus dem
+	 * ursprnglichen Graphen behalten hat, erfolgt dies in O(1), andernfalls
+	 * ber eine beim ersten Bedarf angelegte Tabelle.
+	 */
+	public int indexOf(Vertex vertex) {
+		if (vertex == null) {
+			return -1;
+		}
+
+		int id = vertex.getId();
+		if (id >= 0 && id < state.getOrder() && state.getVertex(id) == vertex) {
+			return id;
+		}
+
+		Integer result = getIds().get(vertex);
+
+		return result != null ? result.intValue() : -1;
+	}
+
+	public boolean contains(Vertex vertex) {
+		return indexOf(vertex) >= 0;
+	}
+
+	public List<Vertex> getVertices() {
+		return Collections.unmodifiableList(Arrays.asList(getVertexArray()));
+	}
+
+	/**
+	 * Auslesen des Labels einer Ecke in diesem Graphen.
+	 *
+	 * @throws IllegalArgumentException
+	 *             wenn die Ecke nicht zum Graphen gehrt.
+	 */
+	public String getLabel(Vertex vertex) {
+		return state.getLabel(checkedIndexOf(vertex));
+	}
+
+	/**
+	 * Festlegen des Labels einer Ecke in diesem Graphen. bernommene Ecken
+	 * behalten im ursprnglichen Graphen ihr Label.
+	 *
+	 * @throws IllegalArgumentException
+	 *             wenn die Ecke nicht zum Graphen gehrt.
+	 */
+	public synchronized void setLabel(Vertex vertex, String label) {
+		if (vertex.getGraph() == this) {
+			vertex.setLabel(label);
+			return;
+		}
+
+		state.setLabel(checkedIndexOf(vertex), label);
+		modified();
+	}
+
+	public Vertex findByLabel(String label) {
+		List<Vertex> result = getVerticesByLabel().get(label);
+
+		return result != null ? result.get(0) : null;
+	}
+
+	public List<Vertex> findAllByLabel(String label) {
+		List<Vertex> result = getVerticesByLabel().get(label);
+
+		return result != null ? new ArrayList<Vertex>(result)
+				: new ArrayList<Vertex>();
+	}
+
+	public List<Vertex> getPred(Vertex target) {
+		Set<Vertex> predecessors = new LinkedHashSet<Vertex>();
+		CsrGraph csr = toCsr();
+		int[] offsets = csr.getOffsets();
+		int[] targets = csr.getTargets();
+		int id = indexOf(target);
+
+		// Die Adjazenzstruktur fhrt keine Listen eingehender Kanten
+		for (int i = 0; i < csr.getOrder() && id >= 0; i++) {
+			for (int j = offsets[i]; j < offsets[i + 1]; j++) {
+				if (targets[j] == id) {
+					predecessors.add(csr.getVertex(i));
+					break;
+				}
+			}
+		}
+
+		return new ArrayList<Vertex>(predecessors);
+	}
+
+	synchronized boolean insertVertex(Vertex vertex) {
+		if (indexOf(vertex) >= 0) {
+			return false;
+		}
+
+		int id = state.getOrder();
+
+		state.addVertex(vertex, vertex.getLabel());
+		if (vertex.getGraph() == null) {
+			vertex.setId(this, id);
+		}
+		if (ids != null) {
+			ids.put(vertex, id);
+		}
+		modified();
+
+		return true;
+	}
+
+	/**
+	 * Entfernen einer Ecke samt ihrer ein- und ausgehenden Kanten. Die letzte
+	 * Ecke rckt wie bei Graph an ihre Stelle.
+	 */
+	public void remove(Vertex vertex) {
+		List<Edge> removed = new ArrayList<Edge>();
+
+		synchronized (this) {
+			int id = indexOf(vertex);
+
+			if (id < 0) {
+				return;
+			}
+
+			// Die Ecke kennt nur die eingehenden Kanten des ursprnglichen
+			// Graphen, daher werden smtliche Kantenlisten durchsucht. Sie
+			// werden von hinten durchlaufen, da beim Entfernen die letzte
+			// Kante nachrckt.
+			EdgeState[] buffer = new EdgeState[0];
+			for (int i = 0; i < state.getOrder(); i++) {
+				if (i == id) {
+					continue;
+				}
+
+				PersistentList<EdgeState> edges = state.getEdges(i);
+				int degree = edges.size();
+
+				if (buffer.length < degree) {
+					buffer = new EdgeState[Math.max(degree, buffer.length * 2)];
+				}
+				edges.copyTo(buffer, 0);
+
+				for (int j = degree - 1; j >= 0; j--) {
+					if (buffer[j].head == vertex) {
+						removed.add(buffer[j].edge);
+						removeEdge(i, j);
+					}
+				}
+			}
+
+			PersistentList<EdgeState> outgoing = state.getEdges(id);
+			for (int j = 0; j < outgoing.size(); j++) {
+				removed.add(outgoing.get(j).edge);
+				released(outgoing.get(j).edge);
+			}
+			state.removeVertex(id);
+
+			if (id < state.getOrder()) {
+				Vertex last = state.getVertex(id);
+
+				if (last.getGraph() == this) {
+					last.setId(this, id);
+				}
+				if (ids != null) {
+					ids.put(last, id);
+				}
+			}
+			if (ids != null) {
+				ids.remove(vertex);
+			}
+			if (vertex.getGraph() == this) {
+				vertex.setId(null, -1);
+			}
+			modified();
+		}
+
+		for (Edge edge : removed) {
+			fireEdgeSetChanged(new EdgeSetChangeEvent(edge, this,
+					EdgeSetChangeEvent.EDGE_REMOVED));
+		}
+
+		VerticesChangeEvent e = new VerticesChangeEvent(vertex, this,
+				VerticesChangeEvent.VERTEX_REMOVED);
+		fireVerticesChanged(e);
+	}
+
+	/* ************************************************************************
+	 * Kanten
+	 * ************************************************************************
+	 */
+
+	public boolean contains(Edge edge) {
+		return locate(edge) != null;
+	}
+
+	public List<Edge> getAllEdges() {
+		return Collections.unmodifiableList(Arrays.asList(getEdgeArray()));
+	}
+
+	/**
+	 * Auslesen des Labels einer Kante in diesem Graphen.
+	 *
+	 * @throws IllegalArgumentException
+	 *             wenn die Kante nicht zum Graphen gehrt.
+	 */
+	public String getLabel(Edge edge) {
+		return getEdgeState(checkedLocate(edge)).label;
+	}
+
+	/**
+	 * Festlegen des Labels einer Kante in diesem Graphen. bernommene Kanten
+	 * behalten im ursprnglichen Graphen ihr Label.
+	 *
+	 * @throws IllegalArgumentException
+	 *             wenn die Kante nicht zum Graphen gehrt.
+	 */
+	public synchronized void setLabel(Edge edge, String label) {
+		if (edge.getGraph() == this) {
+			edge.setLabel(label);
+			return;
+		}
+
+		int[] location = checkedLocate(edge);
+		EdgeState old = getEdgeState(location);
+
+		state.setEdge(location[0], location[1], new EdgeState(edge, old.head,
+				label, old.weight));
+		modified();
+	}
+
+	/**
+	 * Auslesen des Gewichts einer Kante in diesem Graphen.
+	 *
+	 * @throws IllegalArgumentException
+	 *             wenn die Kante nicht zum Graphen gehrt.
+	 */
+	public double getWeight(Edge edge) {
+		return getEdgeState(checkedLocate(edge)).weight;
+	}
+
+	/**
+	 * Festlegen des Gewichts einer Kante in diesem Graphen. bernommene Kanten
+	 * behalten im ursprnglichen Graphen ihr Gewicht.
+	 *
+	 * @throws IllegalArgumentException
+	 *             wenn die Kante nicht zum Graphen gehrt.
+	 */
+	public synchronized void setWeight(Edge edge, double weight) {
+		if (edge.getGraph() == this) {
+			edge.setWeight(weight);
+			return;
+		}
+
+		int[] location = checkedLocate(edge);
+		EdgeState old = getEdgeState(location);
+
+		state.setEdge(location[0], location[1], new EdgeState(edge, old.head,
+				old.label, weight));
+		modified();
+	}
+
+	public List<Edge> getEdges(Vertex from, Vertex to) {
+		List<Edge> result = new ArrayList<Edge>();
+		int id = indexOf(from);
+
+		if (id >= 0) {
+			PersistentList<EdgeState> edges = state.getEdges(id);
+
+			for (int i = 0; i < edges.size(); i++) {
+				if (edges.get(i).head == to) {
+					result.add(edges.get(i).edge);
+				}
+			}
+		}
+
+		return result;
+	}
+
+	public Edge getShortestEdge(Vertex from, Vertex to) {
+		EdgeState result = null;
+		int id = indexOf(from);
+
+		if (id >= 0) {
+			PersistentList<EdgeState> edges = state.getEdges(id);
+
+			for (int i = 0; i < edges.size(); i++) {
+				EdgeState edge = edges.get(i);
+
+				if (edge.head == to
+						&& (result == null || edge.weight < result.weight)) {
+					result = edge;
+				}
+			}
+		}
+
+		return result != null ? result.edge : null;
+	}
+
+	public boolean isConnected(Vertex from, Vertex to) {
+		return !getEdges(from, to).isEmpty();
+	}
+
+	/**
+	 * Anlegen und Eintragen einer neuen Kante, ohne Listener zu
+	 * benachrichtigen. Die Kante gehrt nur diesem Graphen und wird nicht bei
+	 * ihren Endecken eingetragen.
+	 *
+	 * @throws IllegalArgumentException
+	 *             wenn die Startecke nicht zum Graphen gehrt.
+	 */
+	synchronized Edge insertEdge(Vertex from, Vertex to, String label,
+			double weight) {
+		int tail = checkedIndexOf(from);
+		Edge edge = new Edge(from, to, label, weight);
+
+		edge.setIndex(this, -1);
+		edge.setStateIndex(state.addEdge(tail, new EdgeState(edge)));
+		if (tails != null) {
+			tails.put(edge, from);
+		}
+		modified();
+
+		return edge;
+	}
+
+	/**
+	 * Benachrichtigen der Listener ber eine neue Kante. Die Startecke wird
+	 * nicht benachrichtigt, da ihre Kantenliste unverndert bleibt.
+	 */
+	void edgeAdded(Edge edge) {
+		fireEdgeSetChanged(new EdgeSetChangeEvent(edge, this,
+				EdgeSetChangeEvent.EDGE_ADDED));
+	}
+
+	synchronized boolean unlink(Edge edge) {
+		int[] location = locate(edge);
+
+		if (location == null) {
+			return false;
+		}
+
+		removeEdge(location[0], location[1]);
+		modified();
+
+		return true;
+	}
+
+	/**
+	 * Benachrichtigen der Listener ber eine entfernte Kante.
+	 *
+	 * @see #edgeAdded(Edge)
+	 */
+	void edgeRemoved(Edge edge) {
+		fireEdgeSetChanged(new EdgeSetChangeEvent(edge, this,
+				EdgeSetChangeEvent.EDGE_REMOVED));
+	}
+
+	/**
+	 * Entfernen der Kante an der gegebenen Position der Kantenliste der
+	 * gegebenen Ecke. Nur synchronisiert aufzurufen.
+	 */
+	private void removeEdge(int tail, int position) {
+		Edge edge = state.getEdges(tail).get(position).edge;
+		EdgeState moved = state.removeEdge(tail, position);
+
+		if (moved != null && moved.edge.getGraph() == this) {
+			moved.edge.setStateIndex(position);
+		}
+		released(edge);
+	}
+
+	/**
+	 * Freigeben einer entfernten Kante. Nur synchronisiert aufzurufen.
+	 */
+	private void released(Edge edge) {
+		if (edge.getGraph() == this) {
+			edge.setIndex(null, -1);
+			edge.setStateIndex(-1);
+		}
+		if (tails != null) {
+			tails.remove(edge);
+		}
+	}
+
+	/**
+	 * Bestimmen der Startecke und der Position einer Kante in der
+	 * Adjazenzstruktur. Die Kante wird zunchst bei ihrer aktuellen Startecke
+	 * gesucht und nur dann in der Tabelle der Startecken, wenn sie dort nicht
+	 * zu finden ist.
+	 *
+	 * @return die Nummer der Startecke und die Position oder null, wenn die
+	 *         Kante nicht enthalten ist.
+	 */
+	private int[] locate(Edge edge) {
+		if (edge == null) {
+			return null;
+		}
+
+		int tail = indexOf(edge.getTail());
+		int position = tail >= 0 ? state.position(tail, edge,
+				edge.getStateIndex()) : -1;
+
+		if (position < 0) {
+			tail = indexOf(getTails().get(edge));
+			position = tail >= 0 ? state.position(tail, edge,
+					edge.getStateIndex()) : -1;
+		}
+
+		return position >= 0 ? new int[] { tail, position } : null;
+	}
+
+	/* ************************************************************************
+	 * nderungen an Ecken und Kanten dieses Graphen
+	 * ************************************************************************
+	 */
+
+	/**
+	 * bernehmen des Labels einer Ecke, die diesem Graphen gehrt.
+	 */
+	synchronized void labelModified(Vertex vertex) {
+		int id = indexOf(vertex);
+
+		if (id >= 0) {
+			state.setLabel(id, vertex.getLabel());
+		}
+		modified();
+	}
+
+	/**
+	 * bernehmen von Label, Gewicht, Ziel- und Startecke einer Kante, die
+	 * diesem Graphen gehrt.
+	 */
+	synchronized void edgeModified(Edge edge) {
+		int[] location = locate(edge);
+
+		if (location != null) {
+			int tail = indexOf(edge.getTail());
+
+			if (tail >= 0 && tail != location[0]) {
+				EdgeState moved = state.removeEdge(location[0], location[1]);
+
+				if (moved != null && moved.edge.getGraph() == this) {
+					moved.edge.setStateIndex(location[1]);
+				}
+				edge.setStateIndex(state.addEdge(tail, new EdgeState(edge)));
+				if (tails != null) {
+					tails.put(edge, edge.getTail());
+				}
+			} else {
+				state.setEdge(location[0], location[1], new EdgeState(edge));
+			}
+		}
+		modified();
+	}
+
+	/**
+	 * Die Kantenlisten der Ecken gehren dem ursprnglichen Graphen und werden
+	 * von der Abspaltung nicht ausgewertet.
+	 */
+	void outgoingEdgeAdded(Vertex vertex, Edge edge) {
+	}
+
+	void outgoingEdgeRemoved(Vertex tail, Edge edge) {
+	}
+
+	void ensureCapacity(int additionalVertices, int additionalEdges) {
+	}
+
+	/* ************************************************************************
+	 * Bei Bedarf angelegte Darstellungen
+	 * ************************************************************************
+	 */
+
+	/**
+	 * Erzeugen der CSR-Darstellung. Sie wird bis zur nchsten nderung
+	 * wiederverwendet. Kanten, deren Zielecke nicht zum Graphen gehrt, werden
+	 * wie in Graph.toCsr() bergangen.
+	 */
+	public synchronized CsrGraph toCsr() {
+		if (csr == null) {
+			csr = createCsr();
+		}
+
+		return csr;
+	}
+
+	private CsrGraph createCsr() {
+		Vertex[] vertices = getVertexArray();
+		int n = vertices.length;
+		int m = state.getSize();
+		int[] offsets = new int[n + 1];
+		Edge[] csrEdges = new Edge[m];
+		int[] targets = new int[m];
+		double[] weights = new double[m];
+		EdgeState[] buffer = new EdgeState[0];
+		int pos = 0;
+
+		for (int i = 0; i < n; i++) {
+			PersistentList<EdgeState> edges = state.getEdges(i);
+			int degree = edges.size();
+
+			if (buffer.length < degree) {
+				buffer = new EdgeState[Math.max(degree, buffer.length * 2)];
+			}
+			edges.copyTo(buffer, 0);
+
+			offsets[i] = pos;
+			for (int j = 0; j < degree; j++) {
+				Vertex vertex = buffer[j].head;
+				int head = vertex != null ? vertex.getId() : -1;
+
+				// Die Nummer wird zuerst am Array der Ecken geprft
+				if (head < 0 || head >= n || vertices[head] != vertex) {
+					head = indexOf(vertex);
+				}
+
+				if (head >= 0) {
+					csrEdges[pos] = buffer[j].edge;
+					targets[pos] = head;
+					weights[pos] = buffer[j].weight;
+					pos++;
+				}
+			}
+		}
+		offsets[n] = pos;
+
+		if (pos < m) {
+			csrEdges = Arrays.copyOf(csrEdges, pos);
+			targets = Arrays.copyOf(targets, pos);
+			weights = Arrays.copyOf(weights, pos);
+		}
+
+		return new CsrGraph(vertices, csrEdges, offsets, targets, weights);
+	}
+
+	private synchronized Vertex[] getVertexArray() {
+		if (vertexArray == null) {
+			vertexArray = new Vertex[state.getOrder()];
+			for (int i = 0; i < vertexArray.length; i++) {
+				vertexArray[i] = state.getVertex(i);
+			}
+		}
+
+		return vertexArray;
+	}
+
+	/**
+	 * Auslesen smtlicher Kanten, geordnet nach der Nummer ihrer Startecke.
+	 */
+	private synchronized Edge[] getEdgeArray() {
+		if (edgeArray == null) {
+			EdgeState[] states = new EdgeState[state.getSize()];
+			int pos = 0;
+
+			for (int i = 0; i < state.getOrder(); i++) {
+				PersistentList<EdgeState> edges = state.getEdges(i);
+
+				edges.copyTo(states, pos);
+				pos += edges.size();
+			}
+
+			edgeArray = new Edge[states.length];
+			for (int i = 0; i < states.length; i++) {
+				edgeArray[i] = states[i].edge;
+			}
+		}
+
+		return edgeArray;
+	}
+
+	private synchronized Map<Vertex, Integer> getIds() {
+		if (ids == null) {
+			ids = new IdentityHashMap<Vertex, Integer>(state.getOrder());
+
+			for (int i = 0; i < state.getOrder(); i++) {
+				ids.put(state.getVertex(i), i);
+			}
+		}
+
+		return ids;
+	}
+
+	private synchronized Map<Edge, Vertex> getTails() {
+		if (tails == null) {
+			tails = new IdentityHashMap<Edge, Vertex>(state.getSize());
+
+			for (int i = 0; i < state.getOrder(); i++) {
+				PersistentList<EdgeState> edges = state.getEdges(i);
+
+				for (int j = 0; j < edges.size(); j++) {
+					tails.put(edges.get(j).edge, state.getVertex(i));
+				}
+			}
+		}
+
+		return tails;
+	}
+
+	private synchronized Map<String, List<Vertex>> getVerticesByLabel() {
+		if (verticesByLabel == null) {
+			verticesByLabel = new HashMap<String, List<Vertex>>();
+
+			for (int i = 0; i < state.getOrder(); i++) {
+				List<Vertex> list = verticesByLabel.get(state.getLabel(i));
+
+				if (list == null) {
+					list = new ArrayList<Vertex>(1);
+					verticesByLabel.put(state.getLabel(i), list);
+				}
+				list.add(state.getVertex(i));
+			}
+		}
+
+		return verticesByLabel;
+	}
+
+	private int checkedIndexOf(Vertex vertex) {
+		int id = indexOf(vertex);
+
+		if (id < 0) {
+			throw new IllegalArgumentException(
+					"Die Ecke gehrt nicht zum Graphen!");
+		}
+
+		return id;
+	}
+
+	private int[] checkedLocate(Edge edge) {
+		int[] location = locate(edge);
+
+		if (location == null) {
+			throw new IllegalArgumentException(
+					"Die Kante gehrt nicht zum Graphen!");
+		}
+
+		return location;
+	}
+
+	private EdgeState getEdgeState(int[] location) {
+		return state.getEdges(location[0]).get(location[1]);
+	}
+
+	/* ************************************************************************
+	 * Reproduktion
+	 * ************************************************************************
+	 */
+
+	/**
+	 * Kopien sind gewhnliche, vernderbare Graphen mit neuen Ecken und
+	 * Kanten.
+	 */
+	protected Graph newInstance() {
+		return new Graph();
+	}
+
+	protected Object clone() {
+		Graph g = newInstance();
+		copyInto(g);
+
+		return g;
+	}
+
+	/**
+	 * Eintragen von Kopien smtlicher Ecken und Kanten in den gegebenen,
+	 * leeren Graphen, ohne Listener zu benachrichtigen.
+	 *
+	 * @return die Kopien der Ecken. copies[i] ist die Kopie der Ecke mit der
+	 *         Nummer i.
+	 */
+	Vertex[] copyInto(Graph g) {
+		int n = state.getOrder();
+		Vertex[] copies = new Vertex[n];
+
+		g.ensureCapacity(n, state.getSize());
+
+		for (int i = 0; i < n; i++) {
+			copies[i] = new Vertex(state.getLabel(i));
+			g.insertVertex(copies[i]);
+		}
+
+		for (int i = 0; i < n; i++) {
+			PersistentList<EdgeState> edges = state.getEdges(i);
+
+			for (int j = 0; j < edges.size(); j++) {
+				EdgeState edge = edges.get(j);
+				int head = indexOf(edge.head);
+
+				// Nur Kanten zwischen Ecken dieses Graphen
+				if (head >= 0) {
+					g.insertEdge(copies[i], copies[head], edge.label,
+							edge.weight);
+				}
+			}
+		}
+
+		return copies;
+	}
+
+	/* ************************************************************************
+	 * Den Graphen als String reprsentieren
+	 * ************************************************************************
+	 */
+
+	/**
+	 * Darstellung wie Graph.toString(), aber mit den Labels und
+	 * Kantengewichten dieses Graphen.
+	 */
+	public String toString(int inset) {
+		StringBuilder insetBuf = new StringBuilder();
+		StringBuilder buf = new StringBuilder();
+
+		for (int i = 0; i < inset; i++) {
+			insetBuf.append("\t");
+		}
+
+		String insetString = new String(insetBuf.toString());
+
+		buf.append(insetString);
+		buf.append("(Graph \n");
+
+		buf.append(insetString + "\t");
+		buf.append("(vertices\n");
+
+		for (int i = 0; i < state.getOrder(); i++) {
+			PersistentList<EdgeState> edges = state.getEdges(i);
+
+			buf.append(insetString + "\t\t");
+			buf.append("(vertex\n");
+			buf.append(insetString + "\t\t\t");
+			buf.append("(label \"" + state.getLabel(i) + "\")\n");
+			buf.append(insetString + "\t\t\t");
+			buf.append("(edges\n");
+
+			for (int j = 0; j < edges.size(); j++) {
+				buf.append(insetString + "\t\t\t\t");
+				buf.append("\"" + edges.get(j).label + "\"\n");
+			}
+
+			buf.append(insetString + "\t\t\t");
+			buf.append(")\n");
+			buf.append(insetString + "\t\t");
+			buf.append(")\n");
+		}
+
+		buf.append(insetString + "\t");
+		buf.append(")\n");
+
+		buf.append(insetString + "\t");
+		buf.append("(edges\n");
+
+		for (int i = 0; i < state.getOrder(); i++) {
+			PersistentList<EdgeState> edges = state.getEdges(i);
+
+			for (int j = 0; j < edges.size(); j++) {
+				EdgeState edge = edges.get(j);
+				int head = indexOf(edge.head);
+
+				buf.append(insetString + "\t\t");
+				buf.append("(edge\n");
+				buf.append(insetString + "\t\t\t");
+				buf.append("(label \"" + edge.label + "\")\n");
+				buf.append(insetString + "\t\t\t");
+				buf.append("(weight \"" + edge.weight + "\")\n");
+
+				if (edge.head != null) {
+					buf.append(insetString + "\t\t\t");
+					buf.append("(head \""
+							+ (head >= 0 ? state.getLabel(head) : edge.head
+									.getLabel()) + "\")\n");
+				}
+
+				buf.append(insetString + "\t\t\t");
+				buf.append("(tail \"" + state.getLabel(i) + "\")\n");
+				buf.append(insetString + "\t\t");
+				buf.append(")\n");
+			}
+		}
+
+		buf.append(insetString + "\t");
+		buf.append(")\n");
+
+		buf.append(insetString);
+		buf.append(")\n");
+
+		return buf.toString();
+	}
+}
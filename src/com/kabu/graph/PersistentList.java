@@ -0,0 +1,228 @@
+package com.kabu.graph;
+
+import java.util.Arrays;
+
+/**
+ * Liste, deren Fassungen sich den grten Teil ihrer Struktur teilen
+ * (persistente Datenstruktur). Die Elemente liegen in einem Baum mit bis zu 32
+ * Kindern je Knoten, so dass get(), set(), add() und removeLast() O(log32 n)
+ * kosten.
+ *
+ * Jede verndernde Methode erhlt einen nderungsstempel (edit). Knoten, die
+ * unter demselben Stempel angelegt wurden, werden direkt verndert, alle
+ * anderen vorher kopiert. Solange der Stempel gleich bleibt, entstehen also
+ * keine Kopien. Wer eine Fassung festhalten will, muss danach einen neuen
+ * Stempel verwenden (siehe GraphState.fork()). Mit dem Stempel null wird stets
+ * kopiert.
+ *
+ * Die Methoden sind nicht synchronisiert.
+ */
+final class PersistentList<E> {
+	private static final int BITS = 5;
+	private static final int WIDTH = 1 << BITS;
+	private static final int MASK = WIDTH - 1;
+
+	private static final Object[] NO_ELEMENTS = new Object[0];
+	private static final PersistentList<Object> EMPTY = new PersistentList<Object>(
+			null, 0, 0, new Node(null, NO_ELEMENTS));
+
+	/**
+	 * Knoten des Baums. Die Arrays wachsen bis zur Breite von 32 Eintrgen, so
+	 * dass kurze Listen (z.B. die Kanten einer Ecke) wenig Speicher belegen.
+	 */
+	private static final class Node {
+		final Object edit;
+		Object[] array;
+
+		Node(Object edit, Object[] array) {
+			this.edit = edit;
+			this.array = array;
+		}
+	}
+
+	private final Object edit;
+	private int size;
+	// Anzahl der Bits, um die eine Position fr die Wurzel verschoben wird
+	private int shift;
+	private Node root;
+
+	private PersistentList(Object edit, int size, int shift, Node root) {
+		this.edit = edit;
+		this.size = size;
+		this.shift = shift;
+		this.root = root;
+	}
+
+	@SuppressWarnings("unchecked")
+	static <E> PersistentList<E> empty() {
+		return (PersistentList<E>) EMPTY;
+	}
+
+	int size() {
+		return size;
+	}
+
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+	@SuppressWarnings("unchecked")
+	E get(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: "
+					+ size);
+		}
+
+		Node node = root;
+		for (int level = shift; level > 0; level -= BITS) {
+			node = (Node) node.array[(index >>> level) & MASK];
+		}
+
+		return (E) node.array[index & MASK];
+	}
+
+	/**
+	 * Ersetzen eines Elements.
+	 *
+	 * @return die vernderte Liste. Sie ist diese Liste selbst, wenn sie unter
+	 *         dem gegebenen Stempel angelegt wurde.
+	 */
+	PersistentList<E> set(Object edit, int index, E element) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: "
+					+ size);
+		}
+
+		return update(edit, size, shift, set(edit, root, shift, index, element));
+	}
+
+	/**
+	 * Anhngen eines Elements.
+	 *
+	 * @see #set(Object, int, Object)
+	 */
+	PersistentList<E> add(Object edit, E element) {
+		Node newRoot = root;
+		int newShift = shift;
+
+		// Ist der Baum voll, so erhlt er eine neue Wurzel
+		if ((size >>> shift) >= WIDTH) {
+			newRoot = new Node(edit, new Object[] { root, null });
+			newShift += BITS;
+		}
+
+		return update(edit, size + 1, newShift,
+				add(edit, newRoot, newShift, size, element));
+	}
+
+	/**
+	 * Entfernen des letzten Elements.
+	 *
+	 * @see #set(Object, int, Object)
+	 */
+	PersistentList<E> removeLast(Object edit) {
+		if (size == 0) {
+			throw new IndexOutOfBoundsException("Die Liste ist leer!");
+		}
+		if (size == 1) {
+			return empty();
+		}
+
+		int newSize = size - 1;
+		int newShift = shift;
+		Node newRoot = set(edit, root, shift, newSize, null);
+
+		// Passen die brigen Elemente in das erste Kind, so wird es zur Wurzel
+		while (newShift > 0 && newSize <= (1 << newShift)) {
+			newRoot = (Node) newRoot.array[0];
+			newShift -= BITS;
+		}
+
+		return update(edit, newSize, newShift, newRoot);
+	}
+
+	/**
+	 * Kopieren smtlicher Elemente in das gegebene Array ab der gegebenen
+	 * Position. Der Aufwand ist O(n) statt O(n log n) fr n Aufrufe von get().
+	 */
+	void copyTo(Object[] dest, int offset) {
+		copyTo(root, shift, 0, dest, offset);
+	}
+
+	private void copyTo(Node node, int level, int first, Object[] dest,
+			int offset) {
+		if (level == 0) {
+			System.arraycopy(node.array, 0, dest, offset + first,
+					Math.min(node.array.length, size - first));
+			return;
+		}
+
+		for (int i = 0; i < node.array.length; i++) {
+			int start = first + (i << level);
+
+			if (start >= size) {
+				return;
+			}
+			copyTo((Node) node.array[i], level - BITS, start, dest, offset);
+		}
+	}
+
+	private PersistentList<E> update(Object edit, int newSize, int newShift,
+			Node newRoot) {
+		if (edit != null && this.edit == edit) {
+			size = newSize;
+			shift = newShift;
+			root = newRoot;
+			return this;
+		}
+
+		return new PersistentList<E>(edit, newSize, newShift, newRoot);
+	}
+
+	private static Node editable(Object edit, Node node) {
+		if (edit != null && node.edit == edit) {
+			return node;
+		}
+
+		return new Node(edit, node.array.clone());
+	}
+
+	private static Node set(Object edit, Node node, int level, int index,
+			Object element) {
+		Node result = editable(edit, node);
+		int i = (index >>> level) & MASK;
+
+		if (level == 0) {
+			result.array[i] = element;
+		} else {
+			result.array[i] = set(edit, (Node) node.array[i], level - BITS,
+					index, element);
+		}
+
+		return result;
+	}
+
+	private static Node add(Object edit, Node node, int level, int index,
+			Object element) {
+		Node result = editable(edit, node);
+		int i = (index >>> level) & MASK;
+
+		if (i >= result.array.length) {
+			result.array = Arrays.copyOf(result.array,
+					Math.min(WIDTH, Math.max(i + 1, result.array.length * 2)));
+		}
+
+		if (level == 0) {
+			result.array[i] = element;
+		} else {
+			Node child = (Node) result.array[i];
+
+			if (child == null) {
+				child = new Node(edit, NO_ELEMENTS);
+			}
+			result.array[i] = add(edit, child, level - BITS, index, element);
+		}
+
+		return result;
+	}
+}
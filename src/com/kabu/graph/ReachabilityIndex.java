@@ -0,0 +1,276 @@
+package com.kabu.graph;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import com.kabu.graph.event.EdgeSetChangeEvent;
+import com.kabu.graph.event.EdgeSetChangeListener;
+import com.kabu.graph.event.VerticesChangeEvent;
+import com.kabu.graph.event.VerticesChangeListener;
+
+/**
+ * Erreichbarkeitsindex eines Graphen. Fr jede Ecke wird bei Bedarf die Menge
+ * der von ihr aus erreichbaren Ecken (einschlielich der Ecke selbst) als
+ * Bitmenge ber den Eckennummern berechnet und zwischengespeichert. Die Frage,
+ * ob eine Ecke von einer anderen aus erreichbar ist, wird danach in O(1)
+ * beantwortet. Wahlweise wird in oder entgegen der Kantenrichtung gesucht.
+ *
+ * Die Bitmengen werden in azyklischen Graphen aus den Bitmengen der Nachbarn
+ * zusammengesetzt, so dass jede Ecke nur einmal durchlaufen wird.
+ *
+ * Der Index verfolgt nderungen am Graphen ber die VerticesChange- und
+ * EdgeSetChange-Ereignisse. Beim Einfgen einer Kante (x,y) werden die
+ * berechneten Bitmengen, die x enthalten, um die Bitmenge von y ergnzt. Nach
+ * dem Entfernen von Kanten oder Ecken sowie nach Sammelnderungen wird der
+ * Index verworfen und bei der nchsten Anfrage neu aufgebaut.
+ */
+class ReachabilityIndex implements VerticesChangeListener,
+		EdgeSetChangeListener {
+	private Graph graph = null;
+	// true: Suche in Kantenrichtung, false: entgegen der Kantenrichtung
+	private boolean forward = true;
+
+	// reachable[i] enthlt die von der Ecke mit der Nummer i aus erreichbaren
+	// Ecken oder null, wenn sie noch nicht berechnet wurden
+	private BitSet[] reachable = new BitSet[16];
+	// Nummern der Ecken, deren Bitmengen berechnet wurden
+	private int[] computed = new int[16];
+	private int computedCount = 0;
+
+	public ReachabilityIndex(Graph graph, boolean forward) {
+		this.graph = graph;
+		this.forward = forward;
+		graph.addInternalVertexChangeListener(this);
+		graph.addInternalEdgeSetChangeListener(this);
+	}
+
+	/**
+	 * Feststellen, ob die Ecke "to" von der Ecke "from" aus ber einen
+	 * gerichteten Kantenzug erreichbar ist. Jede Ecke erreicht sich selbst.
+	 */
+	public boolean reaches(Vertex from, Vertex to) {
+		int x = graph.indexOf(from);
+		int y = graph.indexOf(to);
+
+		if (x < 0 || y < 0) {
+			return false;
+		}
+
+		return getReachable(x).get(y);
+	}
+
+	/**
+	 * Auslesen der von der Ecke mit der gegebenen Nummer aus erreichbaren
+	 * Ecken. Die gelieferte Bitmenge darf nicht verndert werden.
+	 */
+	public BitSet getReachable(int vertex) {
+		ensureCapacity(graph.getOrder());
+
+		if (reachable[vertex] == null) {
+			compute(vertex);
+		}
+
+		return reachable[vertex];
+	}
+
+	/**
+	 * Berechnung der Bitmengen fr die gegebene Ecke und smtliche von ihr aus
+	 * erreichbaren Ecken, deren Bitmengen noch fehlen. Es wird eine iterative
+	 * Tiefensuche verwendet: Sobald die Bitmengen aller Nachbarn einer Ecke
+	 * bekannt sind, ergibt sich ihre Bitmenge als deren Vereinigung.
+	 */
+	private void compute(int start) {
+		List<Vertex> vertices = graph.getVertices();
+		int[] stack = new int[8];
+		int[] cursor = new int[8];
+		boolean[] onStack = new boolean[vertices.size()];
+		int size = 0;
+
+		stack[size++] = start;
+		onStack[start] = true;
+
+		while (size > 0) {
+			int v = stack[size - 1];
+			List<Edge> edges = getEdges(vertices.get(v));
+
+			// Nchsten Nachbarn ohne Bitmenge suchen
+			int w = -1;
+			while (cursor[size - 1] < edges.size()) {
+				int candidate = indexOfNeighbour(edges.get(cursor[size - 1]++));
+
+				if (candidate >= 0 && reachable[candidate] == null) {
+					w = candidate;
+					break;
+				}
+			}
+
+			if (w < 0) {
+				// Smtliche Nachbarn sind berechnet
+				BitSet result = new BitSet();
+				result.set(v);
+				for (Edge edge : edges) {
+					int neighbour = indexOfNeighbour(edge);
+					if (neighbour >= 0) {
+						result.or(reachable[neighbour]);
+					}
+				}
+				store(v, result);
+				onStack[v] = false;
+				size--;
+			} else if (onStack[w]) {
+				// Kreis: Die Bitmengen knnen nicht zusammengesetzt werden.
+				// Stattdessen wird jede Ecke auf dem Stack einzeln durchsucht.
+				for (int i = size - 1; i >= 0; i--) {
+					store(stack[i], search(stack[i]));
+				}
+				return;
+			} else {
+				if (size == stack.length) {
+					stack = Arrays.copyOf(stack, 2 * size);
+					cursor = Arrays.copyOf(cursor, 2 * size);
+				}
+				stack[size] = w;
+				cursor[size] = 0;
+				size++;
+				onStack[w] = true;
+			}
+		}
+	}
+
+	/**
+	 * Bestimmung der von der gegebenen Ecke aus erreichbaren Ecken durch eine
+	 * einfache Suche, ohne bereits berechnete Bitmengen zu verwenden.
+	 */
+	private BitSet search(int start) {
+		List<Vertex> vertices = graph.getVertices();
+		BitSet visited = new BitSet();
+		int[] stack = new int[8];
+		int size = 0;
+
+		visited.set(start);
+		stack[size++] = start;
+
+		while (size > 0) {
+			int v = stack[--size];
+
+			for (Edge edge : getEdges(vertices.get(v))) {
+				int w = indexOfNeighbour(edge);
+
+				if (w >= 0 && !visited.get(w)) {
+					visited.set(w);
+					if (size == stack.length) {
+						stack = Arrays.copyOf(stack, 2 * size);
+					}
+					stack[size++] = w;
+				}
+			}
+		}
+
+		return visited;
+	}
+
+	/**
+	 * Auslesen der Kanten, ber die von der gegebenen Ecke aus weitergesucht
+	 * wird.
+	 */
+	private List<Edge> getEdges(Vertex vertex) {
+		return forward ? vertex.getOutgoingEdges() : vertex.getIncomingEdges();
+	}
+
+	/**
+	 * Nummer der Ecke, die ber die gegebene Kante erreicht wird.
+	 */
+	private int indexOfNeighbour(Edge edge) {
+		return graph.indexOf(forward ? edge.getHead() : edge.getTail());
+	}
+
+	private void store(int vertex, BitSet result) {
+		if (computedCount == computed.length) {
+			computed = Arrays.copyOf(computed, 2 * computedCount);
+		}
+		computed[computedCount++] = vertex;
+		reachable[vertex] = result;
+	}
+
+	private void ensureCapacity(int n) {
+		if (reachable.length < n) {
+			reachable = Arrays.copyOf(reachable,
+					Math.max(n, 2 * reachable.length));
+		}
+	}
+
+	/**
+	 * Verwerfen smtlicher berechneter Bitmengen.
+	 */
+	private void clear() {
+		for (int i = 0; i < computedCount; i++) {
+			reachable[computed[i]] = null;
+		}
+		computedCount = 0;
+	}
+
+	/* ************************************************************************
+	 * Event Management
+	 * ************************************************************************
+	 */
+
+	public void verticesChanged(VerticesChangeEvent e) {
+		// Eine neue Ecke ist isoliert und ndert keine Bitmenge. Entfernte
+		// Ecken verschieben dagegen die Nummern der brigen Ecken.
+		if (!e.getRemovedVertices().isEmpty()) {
+			clear();
+		}
+	}
+
+	public void edgeSetChanged(EdgeSetChangeEvent e) {
+		if (e.isBulkChange()) {
+			clear();
+			return;
+		}
+
+		Edge edge = (Edge) e.getSource();
+		// Die neue Kante fhrt in Suchrichtung von x nach y
+		int x = graph.indexOf(forward ? edge.getTail() : edge.getHead());
+		int y = graph.indexOf(forward ? edge.getHead() : edge.getTail());
+
+		if (!e.isEdgeAdded() || x < 0 || y < 0) {
+			clear();
+			return;
+		}
+
+		if (computedCount == 0) {
+			return;
+		}
+
+		// Fhrt in Suchrichtung keine Kante zu x, so enthlt nur die Bitmenge
+		// von x selbst die Ecke x
+		Vertex vertex = graph.getVertices().get(x);
+		if ((forward ? vertex.getIncomingEdges() : vertex.getOutgoingEdges())
+				.isEmpty()) {
+			if (x < reachable.length && reachable[x] != null) {
+				reachable[x].or(getReachable(y));
+			}
+			return;
+		}
+
+		BitSet fromY = getReachable(y);
+
+		// Ist x von y aus erreichbar, so entsteht ein Kreis. Die bisherigen
+		// Bitmengen lassen sich dann nicht schrittweise ergnzen.
+		if (fromY.get(x)) {
+			clear();
+			return;
+		}
+
+		// Jede Ecke, die x erreicht, erreicht nun auch smtliche von y aus
+		// erreichbaren Ecken
+		for (int i = 0; i < computedCount; i++) {
+			BitSet set = reachable[computed[i]];
+
+			if (set.get(x)) {
+				set.or(fromY);
+			}
+		}
+	}
+}
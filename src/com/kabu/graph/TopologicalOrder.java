@@ -0,0 +1,291 @@
+package com.kabu.graph;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.kabu.graph.event.EdgeSetChangeEvent;
+import com.kabu.graph.event.EdgeSetChangeListener;
+import com.kabu.graph.event.VerticesChangeEvent;
+import com.kabu.graph.event.VerticesChangeListener;
+
+/**
+ * Verwaltung einer topologischen Sortierung eines azyklischen Graphen, die beim
+ * Einfgen von Kanten schrittweise angepasst wird (Algorithmus von Pearce und
+ * Kelly). Fr jede Kante (x,y) gilt ord[x] < ord[y].
+ *
+ * Vor dem Einfgen einer Kante kann mit insert() geprft werden, ob sie einen
+ * Kreis erzeugen wrde. Durchsucht wird dabei nur der Bereich der Ecken, deren
+ * Position zwischen den Positionen der beiden Endecken liegt. Ist die Kante
+ * zulssig, so wird die Sortierung vorab angepasst.
+ *
+ * Die Sortierung verfolgt nderungen am Graphen ber die VerticesChange- und
+ * EdgeSetChange-Ereignisse. Nach dem Entfernen von Ecken (die Nummern der
+ * brigen Ecken ndern sich) wird sie bei Bedarf vollstndig neu berechnet.
+ */
+class TopologicalOrder implements VerticesChangeListener,
+		EdgeSetChangeListener {
+	private Graph graph = null;
+
+	// ord[i] enthlt die Position der Ecke mit der Nummer i
+	private int[] ord = new int[16];
+	private int nextOrd = 0;
+	private boolean valid = false;
+
+	// Markierungen fr die Suche. Jede Suche verwendet einen neuen Stempel, so
+	// dass das Array nicht geleert werden muss.
+	private int[] mark = new int[16];
+	private int stamp = 0;
+
+	public TopologicalOrder(Graph graph) {
+		this.graph = graph;
+		graph.addInternalVertexChangeListener(this);
+		graph.addInternalEdgeSetChangeListener(this);
+	}
+
+	/**
+	 * Prft, ob eine Kante von "from" nach "to" eingefgt werden kann, ohne
+	 * dass ein Kreis entsteht. Ist dies der Fall, so wird die Sortierung so
+	 * angepasst, dass sie auch die neue Kante bercksichtigt.
+	 *
+	 * @return false, wenn die Kante einen Kreis erzeugen wrde.
+	 */
+	public boolean insert(Vertex from, Vertex to) {
+		int x = graph.indexOf(from);
+		int y = graph.indexOf(to);
+
+		if (x < 0 || y < 0) {
+			return true;
+		}
+
+		if (x == y) {
+			return false;
+		}
+
+		// Enthlt der Graph bereits einen Kreis, so gibt es keine Sortierung.
+		// Dann bleibt nur die Suche im gesamten Graphen.
+		if (!valid && !rebuild()) {
+			return !reaches(y, x, Integer.MAX_VALUE);
+		}
+
+		// Die Sortierung ist bereits vertrglich mit der neuen Kante
+		if (ord[x] < ord[y]) {
+			return true;
+		}
+
+		int lowerBound = ord[y];
+		int upperBound = ord[x];
+
+		// Vorwrtssuche: smtliche von y aus erreichbaren Ecken, die vor x
+		// einsortiert sind. Wird x erreicht, so entstnde ein Kreis.
+		int[] forward = search(y, upperBound, x, true);
+		if (forward == null) {
+			return false;
+		}
+
+		// Rckwrtssuche: smtliche Ecken, von denen aus x erreichbar ist und
+		// die hinter y einsortiert sind.
+		int[] backward = search(x, lowerBound, -1, false);
+
+		reorder(backward, forward);
+
+		return true;
+	}
+
+	/**
+	 * Iterative Tiefensuche ab der Ecke "start" in (forward=true) bzw. entgegen
+	 * (forward=false) der Kantenrichtung. Es werden nur Ecken betreten, deren
+	 * Position kleiner (vorwrts) bzw. grer (rckwrts) als "bound" ist.
+	 *
+	 * @return die Nummern der besuchten Ecken oder null, wenn die Ecke
+	 *         "target" erreicht wurde.
+	 */
+	private int[] search(int start, int bound, int target, boolean forward) {
+		List<Vertex> vertices = graph.getVertices();
+		int[] stack = new int[8];
+		int[] visited = new int[8];
+		int stackSize = 0, visitedSize = 0;
+
+		stamp++;
+		mark[start] = stamp;
+		stack[stackSize++] = start;
+
+		while (stackSize > 0) {
+			int v = stack[--stackSize];
+
+			if (visitedSize == visited.length) {
+				visited = Arrays.copyOf(visited, 2 * visitedSize);
+			}
+			visited[visitedSize++] = v;
+
+			Vertex vertex = vertices.get(v);
+			List<Edge> edges = forward ? vertex.getOutgoingEdges() : vertex
+					.getIncomingEdges();
+
+			for (Edge edge : edges) {
+				int w = graph.indexOf(forward ? edge.getHead() : edge
+						.getTail());
+
+				if (w < 0 || mark[w] == stamp) {
+					continue;
+				}
+				if (w == target) {
+					return null;
+				}
+				if (forward ? ord[w] < bound : ord[w] > bound) {
+					mark[w] = stamp;
+					if (stackSize == stack.length) {
+						stack = Arrays.copyOf(stack, 2 * stackSize);
+					}
+					stack[stackSize++] = w;
+				}
+			}
+		}
+
+		return Arrays.copyOf(visited, visitedSize);
+	}
+
+	/**
+	 * Prft, ob "target" von "start" aus erreichbar ist.
+	 */
+	private boolean reaches(int start, int target, int bound) {
+		return search(start, bound, target, true) == null;
+	}
+
+	/**
+	 * Neuvergabe der Positionen der betroffenen Ecken. Die Ecken, von denen aus
+	 * die neue Kante erreichbar ist, werden vor die Ecken einsortiert, die von
+	 * ihr aus erreichbar sind. Dafr werden ausschlielich die bisherigen
+	 * Positionen der betroffenen Ecken wiederverwendet.
+	 */
+	private void reorder(int[] backward, int[] forward) {
+		sortByOrd(backward);
+		sortByOrd(forward);
+
+		int[] positions = new int[backward.length + forward.length];
+		for (int i = 0; i < backward.length; i++) {
+			positions[i] = ord[backward[i]];
+		}
+		for (int i = 0; i < forward.length; i++) {
+			positions[backward.length + i] = ord[forward[i]];
+		}
+		Arrays.sort(positions);
+
+		for (int i = 0; i < backward.length; i++) {
+			ord[backward[i]] = positions[i];
+		}
+		for (int i = 0; i < forward.length; i++) {
+			ord[forward[i]] = positions[backward.length + i];
+		}
+	}
+
+	/**
+	 * Sortieren von Eckennummern nach ihrer Position. Position und Nummer
+	 * werden dazu in einen long-Wert gepackt.
+	 */
+	private void sortByOrd(int[] vertices) {
+		long[] keys = new long[vertices.length];
+
+		for (int i = 0; i < vertices.length; i++) {
+			keys[i] = ((long) ord[vertices[i]] << 32) | vertices[i];
+		}
+		Arrays.sort(keys);
+		for (int i = 0; i < vertices.length; i++) {
+			vertices[i] = (int) keys[i];
+		}
+	}
+
+	/**
+	 * Vollstndige Neuberechnung der Sortierung nach Kahn.
+	 *
+	 * @return false, wenn der Graph einen Kreis enthlt und daher keine
+	 *         topologische Sortierung besitzt.
+	 */
+	private boolean rebuild() {
+		CsrGraph csr = graph.toCsr();
+		int n = csr.getOrder();
+		int[] offsets = csr.getOffsets();
+		int[] targets = csr.getTargets();
+		int[] inDegree = new int[n];
+		int[] queue = new int[n];
+		int first = 0, last = 0;
+
+		ensureCapacity(n);
+
+		for (int pos = 0; pos < targets.length; pos++) {
+			inDegree[targets[pos]]++;
+		}
+		for (int i = 0; i < n; i++) {
+			if (inDegree[i] == 0) {
+				queue[last++] = i;
+			}
+		}
+
+		while (first < last) {
+			int v = queue[first];
+			ord[v] = first++;
+
+			for (int pos = offsets[v]; pos < offsets[v + 1]; pos++) {
+				if (--inDegree[targets[pos]] == 0) {
+					queue[last++] = targets[pos];
+				}
+			}
+		}
+
+		nextOrd = n;
+		valid = last == n;
+
+		return valid;
+	}
+
+	private void ensureCapacity(int n) {
+		if (ord.length < n) {
+			int capacity = Math.max(n, 2 * ord.length);
+			ord = Arrays.copyOf(ord, capacity);
+			mark = Arrays.copyOf(mark, capacity);
+		}
+	}
+
+	/* ************************************************************************
+	 * Event Management
+	 * ************************************************************************
+	 */
+
+	public void verticesChanged(VerticesChangeEvent e) {
+		if (!valid) {
+			return;
+		}
+
+		// Nach Sammelnderungen wird die Sortierung bei Bedarf neu berechnet
+		if (e.isBulkChange()) {
+			valid = false;
+			return;
+		}
+
+		int id = graph.indexOf((Vertex) e.getSource());
+
+		if (e.isVertexAdded() && id >= 0) {
+			// Eine neue Ecke besitzt noch keine Kanten und darf daher an das
+			// Ende der Sortierung gestellt werden
+			ensureCapacity(id + 1);
+			ord[id] = nextOrd++;
+		} else {
+			valid = false;
+		}
+	}
+
+	public void edgeSetChanged(EdgeSetChangeEvent e) {
+		// Kanten, die am Graphen vorbei ber connect() eingefgt wurden, werden
+		// nachtrglich einsortiert. Das Entfernen einer Kante erhlt die
+		// Sortierung. Nach Sammelnderungen wird sie bei Bedarf in O(V+E) neu
+		// berechnet, was gnstiger ist als viele einzelne Anpassungen.
+		if (valid && e.isBulkChange()) {
+			valid = false;
+		} else if (valid && e.isEdgeAdded()) {
+			Edge edge = (Edge) e.getSource();
+
+			if (!insert(edge.getTail(), edge.getHead())) {
+				valid = false;
+			}
+		}
+	}
+}
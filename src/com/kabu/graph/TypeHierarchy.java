@@ -1,10 +1,9 @@
 package com.kabu.graph;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 
-import com.kabu.graph.algorithm.IsAcyclic;
-
 /**
  * Diese Subklasse von Graph erlaubt die Spezifikation von Hierarchien.
  * 
@@ -14,11 +13,39 @@ import com.kabu.graph.algorithm.IsAcyclic;
  */
 public class TypeHierarchy extends Graph {
 	private Vertex root = null;
-	private IsAcyclic algIsAcyclic = null;
+	// Topologische Sortierung der Hierarchie zur Erkennung von Kreisen, bevor
+	// eine neue Kante eingefgt wird
+	private TopologicalOrder topologicalOrder = new TopologicalOrder(this);
+	// Zwischengespeicherte Mengen der Super- bzw. Subtypen fr schnelle
+	// Anfragen
+	private ReachabilityIndex supertypes = new ReachabilityIndex(this, true);
+	private ReachabilityIndex subtypes = new ReachabilityIndex(this, false);
 
 	public TypeHierarchy() {
 		root = createVertex("Thing");
-		algIsAcyclic = new IsAcyclic(this);
+	}
+
+	/**
+	 * Anlegen einer leeren Hierarchie ohne Wurzel. Die Wurzel wird beim
+	 * Kopieren in copyStateTo() gesetzt.
+	 */
+	private TypeHierarchy(Vertex root) {
+		this.root = root;
+	}
+
+	protected Graph newInstance() {
+		if (getClass() == TypeHierarchy.class) {
+			return new TypeHierarchy(null);
+		}
+
+		return super.newInstance();
+	}
+
+	protected void copyStateTo(Graph copy, Vertex[] copies) {
+		super.copyStateTo(copy, copies);
+
+		int id = indexOf(root);
+		((TypeHierarchy) copy).root = id >= 0 ? copies[id] : null;
 	}
 
 	public void setRoot(Vertex v) throws GraphException {
@@ -34,7 +61,9 @@ public class TypeHierarchy extends Graph {
 	}
 
 	/**
-	 * Anlegen einer Kante zwischen Sub- und Supertyp.
+	 * Anlegen einer Kante zwischen Sub- und Supertyp. Wrde die Kante einen
+	 * Kreis erzeugen, so wird sie nicht angelegt und eine HierarchyException
+	 * geworfen.
 	 */
 	public void setIsSubtypeOf(Vertex subType, Vertex superType)
 			throws HierarchyException {
@@ -48,7 +77,14 @@ public class TypeHierarchy extends Graph {
 					"Bitte geben Sie einen passenden Supertyp an!");
 		}
 		
-		if (getSupertypesOf(subType).contains(superType != null ? superType : getRoot())) {
+		if (!contains(subType)) {
+			throw new HierarchyException(
+					"Ecke nicht in der Typhierarchie enthalten!");
+		}
+
+		// Die Beziehung besteht bereits
+		if (supertypes.reaches(subType, superType != null ? superType
+				: getRoot())) {
 			return;
 		}
 
@@ -56,21 +92,23 @@ public class TypeHierarchy extends Graph {
 
 		// Bei fehlendem Supertyp whlen wir die Wurzel als Supertyp
 		if (superType == null) {
-			connect(subType, root, "is a");
-		} else {
-			connect(subType, superType, "is a");
+			superType = root;
 		}
 
-		algIsAcyclic.execute();
-		if (!algIsAcyclic.isAcyclic()) {
+		// Die Kante darf keinen Kreis erzeugen. Dies wird geprft, bevor sie
+		// eingefgt wird, so dass die Hierarchie stets azyklisch bleibt.
+		if (!topologicalOrder.insert(subType, superType)) {
 			throw new HierarchyException(
-					"Vererbungsfehler. Hierarchie ist nicht azyklisch!");
+					"Vererbungsfehler. Hierarchie wre nicht mehr azyklisch!");
 		}
+
+		connect(subType, superType, "is a");
 	}
 
 	/**
 	 * Gibt smtliche Supertypen einer Ecke zurck. Gegenstck von
-	 * getDenotationOf(Vertex vertex).
+	 * getDenotationOf(Vertex vertex). Die Supertypen werden bei der ersten
+	 * Anfrage berechnet und zwischengespeichert.
 	 */
 	public List<Vertex> getSupertypesOf(Vertex vertex)
 			throws HierarchyException {
@@ -79,29 +117,34 @@ public class TypeHierarchy extends Graph {
 					"Ecke nicht in der Typhierarchie enthalten!");
 		}
 
-		List<Vertex> supertypeList = new ArrayList<Vertex>();
-
-		// Der gegebene Knoten gehrt selbst zur Denotation
-		supertypeList.add(vertex);
-
-		List<Vertex> neighbours = vertex.getNeighbours();
-
-		// Rekursiv smtliche Supertypen "einsammeln"
-		for (Vertex neighbour : neighbours) {
-			List<Vertex> supertypesOfNeighbour = getSupertypesOf(neighbour);
+		// Der gegebene Knoten gehrt selbst zu seinen Supertypen
+		return toList(vertex, supertypes.getReachable(indexOf(vertex)));
+	}
 
-			for (Vertex supertype : supertypesOfNeighbour) {
-				if (!supertypeList.contains(supertype)) {
-					supertypeList.add(supertype);
-				}
+	/**
+	 * Umwandeln einer Bitmenge von Eckennummern in eine Liste von Ecken. Die
+	 * gegebene Ecke steht am Anfang, die brigen folgen in der Reihenfolge
+	 * ihrer Nummern.
+	 */
+	private List<Vertex> toList(Vertex first, BitSet set) {
+		List<Vertex> vertices = getVertices();
+		List<Vertex> result = new ArrayList<Vertex>(set.cardinality());
+		int skip = indexOf(first);
+
+		result.add(first);
+		for (int i = set.nextSetBit(0); i >= 0; i = set.nextSetBit(i + 1)) {
+			if (i != skip) {
+				result.add(vertices.get(i));
 			}
 		}
 
-		return supertypeList;
+		return result;
 	}
 
 	/**
-	 * Feststellen, ob eine Sub-Supertyp-Beziehung besteht.
+	 * Feststellen, ob eine Sub-Supertyp-Beziehung besteht. Die Supertypen jedes
+	 * Typs werden bei der ersten Anfrage berechnet und zwischengespeichert, so
+	 * dass weitere Anfragen in O(1) beantwortet werden.
 	 */
 	public boolean isSubtypeOf(Vertex subType, Vertex superType)
 			throws HierarchyException {
@@ -110,12 +153,15 @@ public class TypeHierarchy extends Graph {
 			throw new HierarchyException("Bitte Typen ungleich null angeben");
 		}
 
-		// Prfe einfach, ob superType in der Menge der Supertypen enthalten ist
-		List<Vertex> supertypes = getSupertypesOf(subType);
-
-		supertypes.add(getRoot());
+		if (!contains(subType)) {
+			throw new HierarchyException(
+					"Ecke nicht in der Typhierarchie enthalten!");
+		}
 
-		return supertypes.contains(superType);
+		// Die Wurzel ist Supertyp jedes Typs. Ansonsten prfen wir, ob
+		// superType in der zwischengespeicherten Menge der Supertypen enthalten
+		// ist.
+		return superType == getRoot() || supertypes.reaches(subType, superType);
 	}
 
 	/**
@@ -124,6 +170,8 @@ public class TypeHierarchy extends Graph {
 	 * 
 	 * Duden: De|no|ta|ti|on, die; -, -en (Sprachw. begriffliche od.
 	 * Sachbedeutung eines Wortes)
+	 *
+	 * Die Subtypen werden wie die Supertypen zwischengespeichert.
 	 */
 	public List<Vertex> getDenotationOf(Vertex vertex)
 			throws HierarchyException {
@@ -132,26 +180,9 @@ public class TypeHierarchy extends Graph {
 					"Ecke nicht in der Typhierarchie enthalten!");
 		}
 
-		List<Vertex> subtypeList = new ArrayList<Vertex>();
-
-		// Der gegebene Knoten gehrt selbst zur Denotation
-		subtypeList.add(vertex);
-
-		for (Vertex v : getVertices()) {
-			List<Vertex> neighbours = v.getNeighbours();
-			if (neighbours.contains(vertex)) {
-				// Rekursiv smtliche Subtypen "einsammeln"
-				List<Vertex> subtypesOfChild = getDenotationOf(v);
-
-				for (Vertex subtype : subtypesOfChild) {
-					if (!subtypeList.contains(subtype)) {
-						subtypeList.add(subtype);
-					}
-				}
-			}
-		}
-
-		return subtypeList;
+		// Der gegebene Knoten gehrt selbst zur Denotation. Die Subtypen sind
+		// die Ecken, von denen aus er erreichbar ist.
+		return toList(vertex, subtypes.getReachable(indexOf(vertex)));
 	}
 
 	/**
@@ -1,7 +1,11 @@
 package com.kabu.graph;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import com.kabu.graph.Edge;
 import com.kabu.graph.Vertex;
@@ -11,13 +15,41 @@ import com.kabu.graph.event.VertexChangeListener;
 public class Vertex {
 	/**
 	 * Die Kantenliste enthlt alle Kanten, die von dieser Ecke ausgehen. Diese
-	 * Liste wird als Adjazenzliste benutzt.
+	 * Liste wird als Adjazenzliste benutzt. Jede Kante kennt ihre Position in
+	 * der Liste, so dass sie in O(1) entfernt werden kann. Die letzte Kante
+	 * rckt dabei an ihre Stelle.
 	 */
 	private List<Edge> edgeList = new ArrayList<Edge>();
 
+	/**
+	 * Die Liste der eingehenden Kanten enthlt alle Kanten, die auf diese Ecke
+	 * weisen. Sie wird von Graph.connect() und Graph.remove() gepflegt und
+	 * erlaubt es, die Vorgnger einer Ecke ohne Durchlauf des gesamten Graphen
+	 * zu bestimmen.
+	 */
+	private List<Edge> incomingEdgeList = new ArrayList<Edge>();
+
+	/**
+	 * Index der ausgehenden Kanten nach ihrer Zielecke. Da Multigraphen erlaubt
+	 * sind, wird je Zielecke eine (meist einelementige) Liste paralleler Kanten
+	 * verwaltet. Die Map wird erst beim Hinzufgen der ersten Kante angelegt.
+	 */
+	private Map<Vertex, List<Edge>> edgesByHead = null;
+
 	private String label = "";
 
-	private List<VertexChangeListener> vertexChangeListeners = new ArrayList<VertexChangeListener>();
+	/**
+	 * Fortlaufende Nummer der Ecke. Sie entspricht der Position der Ecke in
+	 * der Eckenliste des Graphen, dem sie zuerst hinzugefgt wurde.
+	 * 
+	 * @see Graph#indexOf(Vertex)
+	 */
+	private int id = -1;
+	private Graph graph = null;
+
+	// Wird erst beim Registrieren des ersten Listeners angelegt, da die meisten
+	// Ecken keine Listener besitzen
+	private volatile List<VertexChangeListener> vertexChangeListeners = null;
 
 	public Vertex() {
 	}
@@ -36,8 +68,39 @@ public class Vertex {
 		return neighbours;
 	}
 
+	/**
+	 * Auslesen smtlicher Kanten, die von dieser Ecke ausgehen.
+	 */
+	public List<Edge> getOutgoingEdges() {
+		return Collections.unmodifiableList(edgeList);
+	}
+
+	/**
+	 * Berechnen der Vorgnger dieser Ecke, also der Startecken smtlicher
+	 * eingehenden Kanten. Der Aufwand ist proportional zum Eingangsgrad.
+	 */
+	public List<Vertex> getPredecessors() {
+		List<Vertex> predecessors = new ArrayList<Vertex>();
+
+		for (Edge edge : incomingEdgeList) {
+			predecessors.add(edge.getTail());
+		}
+
+		return predecessors;
+	}
+
+	/**
+	 * Auslesen smtlicher Kanten, die auf diese Ecke weisen.
+	 */
+	public List<Edge> getIncomingEdges() {
+		return Collections.unmodifiableList(incomingEdgeList);
+	}
+
 	public void setLabel(String label) {
 		this.label = label;
+		if (graph != null) {
+			graph.labelModified(this);
+		}
 		vertexChanged(new VertexChangeEvent(this));
 	}
 
@@ -45,21 +108,222 @@ public class Vertex {
 		return label;
 	}
 
+	/**
+	 * Auslesen smtlicher Kanten von dieser Ecke zur gegebenen Zielecke. Der
+	 * Aufwand ist unabhngig vom Grad der Ecke.
+	 */
+	public List<Edge> getEdgesTo(Vertex head) {
+		List<Edge> parallelEdges = edgesByHead != null ? edgesByHead.get(head)
+				: null;
+
+		if (parallelEdges == null) {
+			return Collections.emptyList();
+		}
+
+		return Collections.unmodifiableList(parallelEdges);
+	}
+
+	/**
+	 * Auslesen, ob mind. eine Kante von dieser Ecke zur gegebenen Zielecke
+	 * fhrt.
+	 */
+	public boolean isConnectedTo(Vertex head) {
+		return edgesByHead != null && edgesByHead.containsKey(head);
+	}
+
 	public void addEdge(Edge edge) {
-		if (!edgeList.contains(edge)) {
-			edgeList.add(edge);
+		if (insertEdge(edge)) {
+			if (edge.getGraph() != null) {
+				edge.getGraph().outgoingEdgeAdded(this, edge);
+			}
 			vertexChanged(new VertexChangeEvent(this));
 		}
 	}
 
+	/**
+	 * Eintragen einer ausgehenden Kante, ohne die VertexChangeListener zu
+	 * benachrichtigen.
+	 * 
+	 * @return false, wenn die Kante bereits eingetragen war.
+	 */
+	boolean insertEdge(Edge edge) {
+		if (edgesByHead == null) {
+			edgesByHead = new HashMap<Vertex, List<Edge>>();
+		}
+
+		List<Edge> parallelEdges = edgesByHead.get(edge.getHead());
+
+		if (parallelEdges == null) {
+			parallelEdges = new ArrayList<Edge>(1);
+			edgesByHead.put(edge.getHead(), parallelEdges);
+		} else if (parallelEdges.contains(edge)) {
+			return false;
+		}
+
+		parallelEdges.add(edge);
+		edge.setOutgoingIndex(edgeList.size());
+		edgeList.add(edge);
+
+		return true;
+	}
+
 	public void removeEdge(Edge edge) {
-		edgeList.remove(edge);
+		if (deleteEdge(edge) && edge.getGraph() != null) {
+			edge.getGraph().outgoingEdgeRemoved(this, edge);
+		}
 		vertexChanged(new VertexChangeEvent(this));
 	}
 
-	void removeAllEdges() {
+	/**
+	 * Austragen einer ausgehenden Kante, ohne die VertexChangeListener zu
+	 * benachrichtigen.
+	 * 
+	 * @return false, wenn die Kante nicht eingetragen war.
+	 */
+	boolean deleteEdge(Edge edge) {
+		int position = find(edgeList, edge, edge.getOutgoingIndex());
+
+		if (position < 0) {
+			return false;
+		}
+
+		Edge last = edgeList.remove(edgeList.size() - 1);
+		if (last != edge) {
+			edgeList.set(position, last);
+			last.setOutgoingIndex(position);
+		}
+		edge.setOutgoingIndex(-1);
+
+		List<Edge> parallelEdges = edgesByHead != null ? edgesByHead
+				.get(edge.getHead()) : null;
+
+		if (parallelEdges != null) {
+			parallelEdges.remove(edge);
+			if (parallelEdges.isEmpty()) {
+				edgesByHead.remove(edge.getHead());
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Umtragen einer ausgehenden Kante im Index nach Zielecken, nachdem ihre
+	 * Zielecke gendert wurde. Die Position in der Kantenliste bleibt
+	 * erhalten.
+	 */
+	void headChanged(Edge edge, Vertex oldHead) {
+		List<Edge> parallelEdges = edgesByHead != null ? edgesByHead
+				.get(oldHead) : null;
+
+		if (parallelEdges == null || !parallelEdges.remove(edge)) {
+			return;
+		}
+		if (parallelEdges.isEmpty()) {
+			edgesByHead.remove(oldHead);
+		}
+
+		parallelEdges = edgesByHead.get(edge.getHead());
+		if (parallelEdges == null) {
+			parallelEdges = new ArrayList<Edge>(1);
+			edgesByHead.put(edge.getHead(), parallelEdges);
+		}
+		parallelEdges.add(edge);
+	}
+
+	/**
+	 * Hinweis: Graph.connect() legt stets eine neue Kante an, daher wird hier
+	 * auf eine Prfung auf doppelte Eintrge verzichtet.
+	 */
+	void addIncomingEdge(Edge edge) {
+		edge.setIncomingIndex(incomingEdgeList.size());
+		incomingEdgeList.add(edge);
+	}
+
+	/**
+	 * @return false, wenn die Kante nicht eingetragen war.
+	 */
+	boolean removeIncomingEdge(Edge edge) {
+		int position = find(incomingEdgeList, edge, edge.getIncomingIndex());
+
+		if (position < 0) {
+			return false;
+		}
+
+		Edge last = incomingEdgeList.remove(incomingEdgeList.size() - 1);
+		if (last != edge) {
+			incomingEdgeList.set(position, last);
+			last.setIncomingIndex(position);
+		}
+		edge.setIncomingIndex(-1);
+
+		return true;
+	}
+
+	/**
+	 * Bestimmen der Position einer Kante in der gegebenen Liste. Stimmt die
+	 * in der Kante gespeicherte Position, so erfolgt dies in O(1). Andernfalls
+	 * (z.B. wenn die Kante mit addEdge() bei einer fremden Ecke eingetragen
+	 * wurde) wird die Liste durchsucht.
+	 * 
+	 * @return die Position oder -1, wenn die Kante nicht enthalten ist.
+	 */
+	private static int find(List<Edge> list, Edge edge, int position) {
+		if (position >= 0 && position < list.size()
+				&& list.get(position) == edge) {
+			return position;
+		}
+
+		for (int i = 0; i < list.size(); i++) {
+			if (list.get(i) == edge) {
+				return i;
+			}
+		}
+
+		return -1;
+	}
+
+	int getId() {
+		return id;
+	}
+
+	Graph getGraph() {
+		return graph;
+	}
+
+	void setId(Graph graph, int id) {
+		this.graph = graph;
+		this.id = id;
+	}
+
+	/**
+	 * Austragen smtlicher ein- und ausgehenden Kanten, die zum gegebenen
+	 * Graphen gehren, ohne die VertexChangeListener zu benachrichtigen. Kanten anderer Graphen, die dieselbe Ecke verwenden,
+	 * bleiben erhalten. Der Aufwand ist proportional zum Grad der Ecke.
+	 */
+	void removeEdgesOf(Graph owner) {
+		List<Edge> remaining = new ArrayList<Edge>();
+
+		for (Edge edge : edgeList) {
+			if (edge.getGraph() != owner) {
+				remaining.add(edge);
+			}
+		}
+
 		edgeList = new ArrayList<Edge>();
-		vertexChanged(new VertexChangeEvent(this));
+		edgesByHead = null;
+		for (Edge edge : remaining) {
+			insertEdge(edge);
+		}
+
+		List<Edge> remainingIncoming = new ArrayList<Edge>();
+		for (Edge edge : incomingEdgeList) {
+			if (edge.getGraph() != owner) {
+				edge.setIncomingIndex(remainingIncoming.size());
+				remainingIncoming.add(edge);
+			}
+		}
+		incomingEdgeList = remainingIncoming;
 	}
 
 	/**
@@ -80,23 +344,27 @@ public class Vertex {
 
 	public synchronized void addVertexChangeListener(
 			VertexChangeListener listener) {
+		if (vertexChangeListeners == null) {
+			vertexChangeListeners = new CopyOnWriteArrayList<VertexChangeListener>();
+		}
 		vertexChangeListeners.add(listener);
 	}
 
 	public synchronized void removeVertexChangeListener(
 			VertexChangeListener listener) {
-		vertexChangeListeners.remove(listener);
+		if (vertexChangeListeners != null) {
+			vertexChangeListeners.remove(listener);
+		}
 	}
 
 	/**
 	 * Smtliche VertexChangeListeners benachrichtigen.
 	 */
 	protected void vertexChanged(VertexChangeEvent e) {
-		List<VertexChangeListener> listeners = null;
+		List<VertexChangeListener> listeners = vertexChangeListeners;
 
-		synchronized (this) {
-			listeners = new ArrayList<VertexChangeListener>(
-					vertexChangeListeners);
+		if (listeners == null) {
+			return;
 		}
 
 		for (VertexChangeListener vcl : listeners) {
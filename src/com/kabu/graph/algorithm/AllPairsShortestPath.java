@@ -0,0 +1,450 @@
+package com.kabu.graph.algorithm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import com.kabu.graph.CsrGraph;
+import com.kabu.graph.Graph;
+import com.kabu.graph.Vertex;
+
+/**
+ * Berechnung der krzesten Wege zwischen smtlichen Paaren von Ecken des
+ * Graphen. Das Ergebnis besteht aus zwei n*n-Matrizen, die zeilenweise in
+ * primitiven Arrays abgelegt sind: Die Distanz von Ecke i zu Ecke j steht an
+ * Position i*n+j der Distanzmatrix, der Vorgnger von j auf einem krzesten Weg
+ * von i nach j an derselben Position der Vorgngermatrix. Zeilen und Spalten
+ * entsprechen den Nummern der Ecken (siehe Graph.indexOf()).
+ *
+ * Es stehen zwei Verfahren zur Verfgung:
+ * <ul>
+ * <li>FLOYD_WARSHALL: Der Algorithmus von Floyd-Warshall in der blockweisen
+ * Variante. Die Matrix wird in Blcke zerlegt, die in den Cache passen. Fr
+ * jeden Diagonalblock werden zuerst er selbst, dann seine Zeile und Spalte und
+ * schlielich die brigen Blcke aktualisiert, die beiden letzten Schritte
+ * parallel. Aufwand O(V^3), geeignet fr dichte Graphen. Negative
+ * Kantengewichte sind erlaubt.</li>
+ * <li>DIJKSTRA: Der Algorithmus von Dijkstra wird parallel von jeder Ecke aus
+ * ausgefhrt. Aufwand O(V*E*log V), geeignet fr dnnbesetzte Graphen.
+ * Smtliche Kantengewichte mssen grer oder gleich 0 sein, andernfalls wird
+ * Floyd-Warshall verwendet.</li>
+ * </ul>
+ * AUTOMATIC (Voreinstellung) whlt Dijkstra, wenn keine negativen
+ * Kantengewichte vorkommen und der Graph weniger als V*V/8 Kanten hat.
+ *
+ * Die Berechnung verwendet standardmig smtliche Prozessoren (siehe
+ * setParallelism()). Der Speicherbedarf betrgt 12*V*V Byte; Graphen mit mehr
+ * als 46340 Ecken werden nicht untersttzt.
+ */
+public class AllPairsShortestPath extends GraphAlgorithm {
+	public static final int AUTOMATIC = 0;
+	public static final int FLOYD_WARSHALL = 1;
+	public static final int DIJKSTRA = 2;
+
+	// Grte Eckenzahl, fr die n*n noch in ein Array passt
+	private static final int MAX_ORDER = 46340;
+
+	private int method = AUTOMATIC;
+	private int parallelism = Runtime.getRuntime().availableProcessors();
+	private int blockSize = 64;
+
+	// Zustand des Graphen zum Zeitpunkt der Berechnung
+	private CsrGraph csr = null;
+	private int order = 0;
+	private double[] dist = null;
+	private int[] pred = null;
+	private boolean negativeCycle = false;
+
+	public AllPairsShortestPath(Graph g) {
+		super(g);
+	}
+
+	public int getMethod() {
+		return method;
+	}
+
+	/**
+	 * Festlegen des Verfahrens: AUTOMATIC, FLOYD_WARSHALL oder DIJKSTRA.
+	 */
+	public void setMethod(int method) {
+		if (method < AUTOMATIC || method > DIJKSTRA) {
+			throw new IllegalArgumentException("Unbekanntes Verfahren: "
+					+ method);
+		}
+		this.method = method;
+	}
+
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	/**
+	 * Festlegen der Anzahl paralleler Threads. Bei 1 wird ausschlielich im
+	 * aufrufenden Thread gerechnet.
+	 */
+	public void setParallelism(int parallelism) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException(
+					"Mindestens ein Thread ist erforderlich!");
+		}
+		this.parallelism = parallelism;
+	}
+
+	public int getBlockSize() {
+		return blockSize;
+	}
+
+	/**
+	 * Festlegen der Kantenlnge der Blcke fr Floyd-Warshall. Drei Blcke
+	 * sollten gemeinsam in den Cache eines Prozessorkerns passen.
+	 */
+	public void setBlockSize(int blockSize) {
+		if (blockSize < 1) {
+			throw new IllegalArgumentException(
+					"Die Blockgre muss positiv sein!");
+		}
+		this.blockSize = blockSize;
+	}
+
+	public void execute() {
+		csr = getGraph().toCsr();
+		order = csr.getOrder();
+		negativeCycle = false;
+
+		if (order > MAX_ORDER) {
+			throw new IllegalStateException("Der Graph hat mehr als "
+					+ MAX_ORDER + " Ecken!");
+		}
+
+		int n = order;
+		dist = new double[n * n];
+		pred = new int[n * n];
+
+		boolean negativeWeights = false;
+		for (double weight : csr.getWeights()) {
+			if (weight < 0) {
+				negativeWeights = true;
+				break;
+			}
+		}
+
+		boolean useDijkstra;
+		if (method == AUTOMATIC) {
+			useDijkstra = !negativeWeights && csr.getSize() < (long) n * n / 8;
+		} else {
+			useDijkstra = method == DIJKSTRA && !negativeWeights;
+		}
+
+		if (isTracing()) {
+			trace((useDijkstra ? "Dijkstra" : "Floyd-Warshall") + " fr " + n
+					+ " Ecken und " + csr.getSize() + " Kanten mit "
+					+ parallelism + " Threads");
+		}
+
+		ForkJoinPool pool = parallelism > 1 ? new ForkJoinPool(parallelism)
+				: null;
+		try {
+			if (useDijkstra) {
+				run(pool, new DijkstraTask(0, n, Math.max(1, n
+						/ (4 * parallelism))));
+			} else {
+				floydWarshall(pool);
+			}
+		} finally {
+			if (pool != null) {
+				pool.shutdown();
+			}
+		}
+	}
+
+	private void run(ForkJoinPool pool, RecursiveAction task) {
+		if (pool != null) {
+			pool.invoke(task);
+		} else {
+			task.invoke();
+		}
+	}
+
+	/* ************************************************************************
+	 * Floyd-Warshall
+	 * ************************************************************************
+	 */
+
+	private void floydWarshall(ForkJoinPool pool) {
+		int n = order;
+		int[] offsets = csr.getOffsets();
+		int[] targets = csr.getTargets();
+		double[] weights = csr.getWeights();
+
+		// Anfangs sind nur die Kanten bekannt. Von parallelen Kanten zhlt die
+		// krzeste.
+		Arrays.fill(dist, Double.POSITIVE_INFINITY);
+		Arrays.fill(pred, -1);
+		for (int i = 0; i < n; i++) {
+			dist[i * n + i] = 0;
+
+			for (int pos = offsets[i]; pos < offsets[i + 1]; pos++) {
+				int ij = i * n + targets[pos];
+
+				if (weights[pos] < dist[ij]) {
+					dist[ij] = weights[pos];
+					pred[ij] = i;
+				}
+			}
+		}
+
+		int blocks = (n + blockSize - 1) / blockSize;
+
+		for (int k = 0; k < blocks; k++) {
+			// 1. Der Diagonalblock hngt nur von sich selbst ab
+			updateBlock(k, k, k);
+			// 2. Zeile und Spalte des Diagonalblocks
+			run(pool, new BlockTask(k, true, 0, blocks));
+			// 3. Smtliche brigen Blcke
+			run(pool, new BlockTask(k, false, 0, blocks));
+		}
+
+		for (int i = 0; i < n; i++) {
+			if (dist[i * n + i] < 0) {
+				negativeCycle = true;
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Aktualisieren des Blocks (ib,jb) ber smtliche Zwischenecken des Blocks
+	 * kb.
+	 */
+	private void updateBlock(int ib, int jb, int kb) {
+		int n = order;
+		int iEnd = Math.min(n, (ib + 1) * blockSize);
+		int jStart = jb * blockSize;
+		int jEnd = Math.min(n, jStart + blockSize);
+		int kEnd = Math.min(n, (kb + 1) * blockSize);
+
+		for (int k = kb * blockSize; k < kEnd; k++) {
+			int kRow = k * n;
+
+			for (int i = ib * blockSize; i < iEnd; i++) {
+				int iRow = i * n;
+				double dik = dist[iRow + k];
+
+				if (dik == Double.POSITIVE_INFINITY) {
+					continue;
+				}
+
+				for (int j = jStart; j < jEnd; j++) {
+					double candidate = dik + dist[kRow + j];
+
+					if (candidate < dist[iRow + j]) {
+						dist[iRow + j] = candidate;
+						pred[iRow + j] = pred[kRow + j];
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Aktualisieren der Blockzeilen lo bis hi-1 fr den Diagonalblock k. Im
+	 * zweiten Schritt (cross) werden je Blockzeile b die Blcke (b,k) und
+	 * (k,b) bearbeitet, im dritten Schritt smtliche Blcke (b,j) auerhalb
+	 * von Zeile und Spalte k.
+	 */
+	private class BlockTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private int k;
+		private boolean cross;
+		private int lo;
+		private int hi;
+
+		BlockTask(int k, boolean cross, int lo, int hi) {
+			this.k = k;
+			this.cross = cross;
+			this.lo = lo;
+			this.hi = hi;
+		}
+
+		protected void compute() {
+			if (hi - lo > 1) {
+				int mid = (lo + hi) >>> 1;
+				invokeAll(new BlockTask(k, cross, lo, mid), new BlockTask(k,
+						cross, mid, hi));
+				return;
+			}
+
+			int b = lo;
+			if (b == k) {
+				return;
+			}
+
+			if (cross) {
+				updateBlock(b, k, k);
+				updateBlock(k, b, k);
+			} else {
+				int blocks = (order + blockSize - 1) / blockSize;
+
+				for (int j = 0; j < blocks; j++) {
+					if (j != k) {
+						updateBlock(b, j, k);
+					}
+				}
+			}
+		}
+	}
+
+	/* ************************************************************************
+	 * Dijkstra
+	 * ************************************************************************
+	 */
+
+	/**
+	 * Berechnung der Zeilen lo bis hi-1 der Matrizen mit je einem Durchlauf
+	 * des Algorithmus von Dijkstra. Bereiche mit hchstens grain Startecken
+	 * werden nicht weiter aufgeteilt und teilen sich einen Heap.
+	 */
+	private class DijkstraTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private int lo;
+		private int hi;
+		private int grain;
+
+		DijkstraTask(int lo, int hi, int grain) {
+			this.lo = lo;
+			this.hi = hi;
+			this.grain = grain;
+		}
+
+		protected void compute() {
+			if (hi - lo > grain) {
+				int mid = (lo + hi) >>> 1;
+				invokeAll(new DijkstraTask(lo, mid, grain), new DijkstraTask(
+						mid, hi, grain));
+				return;
+			}
+
+			IndexedHeap heap = new IndexedHeap(order);
+			for (int s = lo; s < hi; s++) {
+				dijkstra(s, heap);
+			}
+		}
+	}
+
+	private void dijkstra(int s, IndexedHeap heap) {
+		int n = order;
+		int row = s * n;
+		int[] offsets = csr.getOffsets();
+		int[] targets = csr.getTargets();
+		double[] weights = csr.getWeights();
+
+		Arrays.fill(dist, row, row + n, Double.POSITIVE_INFINITY);
+		Arrays.fill(pred, row, row + n, -1);
+		dist[row + s] = 0;
+		heap.insertOrDecrease(s, 0);
+
+		while (!heap.isEmpty()) {
+			int u = heap.extractMin();
+			double du = dist[row + u];
+
+			for (int pos = offsets[u]; pos < offsets[u + 1]; pos++) {
+				int v = targets[pos];
+				double candidate = du + weights[pos];
+
+				if (candidate < dist[row + v]) {
+					dist[row + v] = candidate;
+					pred[row + v] = u;
+					heap.insertOrDecrease(v, candidate);
+				}
+			}
+		}
+	}
+
+	/* ************************************************************************
+	 * Ergebnisse
+	 * ************************************************************************
+	 */
+
+	/**
+	 * Anzahl der Ecken bei der letzten Berechnung und damit die Kantenlnge der
+	 * Matrizen.
+	 */
+	public int getOrder() {
+		return order;
+	}
+
+	/**
+	 * Auslesen der Distanzmatrix. Die Distanz von i nach j steht an Position
+	 * i*getOrder()+j, Double.POSITIVE_INFINITY bedeutet, dass j von i aus
+	 * nicht erreichbar ist. Das Array darf nicht verndert werden.
+	 */
+	public double[] getDistanceMatrix() {
+		return dist;
+	}
+
+	/**
+	 * Auslesen der Vorgngermatrix. An Position i*getOrder()+j steht die
+	 * Nummer des Vorgngers von j auf einem krzesten Weg von i nach j oder -1,
+	 * wenn j = i oder von i aus nicht erreichbar ist. Das Array darf nicht
+	 * verndert werden.
+	 */
+	public int[] getPredecessorMatrix() {
+		return pred;
+	}
+
+	public double getDistance(int from, int to) {
+		return dist[from * order + to];
+	}
+
+	public int getPredecessor(int from, int to) {
+		return pred[from * order + to];
+	}
+
+	/**
+	 * Auslesen der Distanz zwischen zwei Ecken.
+	 */
+	public double getDistance(Vertex from, Vertex to) {
+		return getDistance(getGraph().indexOf(from), getGraph().indexOf(to));
+	}
+
+	/**
+	 * Auslesen eines krzesten Weges als Folge von Ecken einschlielich Start-
+	 * und Zielecke.
+	 *
+	 * @return die Ecken des Weges oder eine leere Liste, wenn das Ziel nicht
+	 *         erreichbar ist.
+	 */
+	public List<Vertex> getPath(Vertex from, Vertex to) {
+		int s = getGraph().indexOf(from);
+		int t = getGraph().indexOf(to);
+		List<Vertex> path = new ArrayList<Vertex>();
+
+		if (s < 0 || t < 0 || dist[s * order + t] == Double.POSITIVE_INFINITY) {
+			return path;
+		}
+
+		// Bei Kreisen negativer Lnge knnen die Vorgnger einen Kreis bilden
+		int v = t;
+		while (v != s && v >= 0 && path.size() < order) {
+			path.add(csr.getVertex(v));
+			v = pred[s * order + v];
+		}
+		path.add(csr.getVertex(s));
+		Collections.reverse(path);
+
+		return path;
+	}
+
+	/**
+	 * Auslesen, ob der Graph einen Kreis negativer Lnge enthlt. In diesem
+	 * Fall sind die Matrizen nicht aussagekrftig.
+	 */
+	public boolean hasNegativeCycle() {
+		return negativeCycle;
+	}
+}
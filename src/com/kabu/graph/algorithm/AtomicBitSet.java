@@ -0,0 +1,65 @@
+package com.kabu.graph.algorithm;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bitmenge fester Gre ber den Ganzzahlen 0..size-1, deren Bits von mehreren
+ * Threads gleichzeitig gesetzt werden knnen. set() arbeitet mit
+ * compareAndSet() auf dem betroffenen 64-Bit-Wort und meldet, ob der Aufruf
+ * das Bit tatschlich gesetzt hat. So kann genau ein Thread eine Ecke fr
+ * sich beanspruchen, ohne dass Sperren bentigt werden.
+ *
+ * Wird von der parallelen Breitensuche fr die Menge der besuchten Ecken
+ * verwendet. Gegenber einem boolean-Array wird nur ein Achtel des Speichers
+ * bentigt, so dass die Menge auch bei groen Graphen im Cache bleibt.
+ */
+class AtomicBitSet {
+	private final AtomicLongArray words;
+	private final int size;
+
+	public AtomicBitSet(int size) {
+		this.size = size;
+		words = new AtomicLongArray((size + 63) >>> 6);
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean get(int index) {
+		return (words.get(index >>> 6) & (1L << index)) != 0;
+	}
+
+	/**
+	 * Setzen eines Bits.
+	 *
+	 * @return true, wenn das Bit zuvor nicht gesetzt war; false, wenn es
+	 *         bereits gesetzt war bzw. ein anderer Thread zuvorgekommen ist.
+	 */
+	public boolean set(int index) {
+		int word = index >>> 6;
+		long mask = 1L << index;
+
+		while (true) {
+			long old = words.get(word);
+
+			if ((old & mask) != 0) {
+				return false;
+			}
+			if (words.compareAndSet(word, old, old | mask)) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Auslesen des Wortes mit den Bits 64*word bis 64*word+63.
+	 */
+	public long getWord(int word) {
+		return words.get(word);
+	}
+
+	public int getWordCount() {
+		return words.length();
+	}
+}
@@ -0,0 +1,540 @@
+package com.kabu.graph.algorithm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.kabu.graph.CsrGraph;
+import com.kabu.graph.Graph;
+import com.kabu.graph.Vertex;
+
+/**
+ * Parallele Breitensuche von einer Startecke aus. Bestimmt fr jede Ecke die
+ * Ebene, d.h. die geringste Anzahl von Kanten auf einem Weg von der Startecke,
+ * sowie ihren Vorgnger in einem Breitensuchbaum.
+ *
+ * Die Ecken werden ebenenweise bearbeitet: Aus der Menge der Ecken der
+ * aktuellen Ebene (frontier) wird parallel die Menge der nchsten Ebene
+ * berechnet. Die besuchten Ecken werden in einer AtomicBitSet gefhrt, so dass
+ * jede Ecke ohne Sperren von genau einem Thread bernommen wird. Fr jeden
+ * Schritt stehen zwei Richtungen zur Verfgung:
+ * <ul>
+ * <li>TOP_DOWN: Die ausgehenden Kanten der Ecken der aktuellen Ebene werden
+ * durchlaufen. Gnstig, solange die Ebene klein ist.</li>
+ * <li>BOTTOM_UP: Fr jede noch nicht besuchte Ecke werden die eingehenden
+ * Kanten durchlaufen, bis ein Vorgnger in der aktuellen Ebene gefunden ist.
+ * Gnstig fr groe Ebenen, wie sie in Graphen mit geringem Durchmesser
+ * auftreten, da viele Kanten nicht mehr betrachtet werden mssen.</li>
+ * </ul>
+ * AUTOMATIC (Voreinstellung) wechselt nach Beamer et al. zu BOTTOM_UP, sobald
+ * die Ecken der aktuellen Ebene mehr als 1/15 der noch nicht betrachteten
+ * Kanten besitzen, und zurck zu TOP_DOWN, sobald die Ebene weniger als 1/18
+ * der Ecken enthlt.
+ *
+ * Fr BOTTOM_UP wird die CSR-Darstellung der umgekehrten Kanten bentigt (siehe
+ * CsrGraph.transpose()). Sie wird erst beim ersten Schritt in dieser Richtung
+ * erzeugt. Beide Darstellungen werden fr weitere Suchen wiederverwendet,
+ * solange sich die Version des Graphen (siehe Graph.getVersion()) nicht
+ * ndert.
+ *
+ * Die Ebenen sind eindeutig bestimmt. Welcher von mehreren mglichen
+ * Vorgngern eingetragen wird, hngt dagegen von der Richtung und bei mehreren
+ * Threads vom zeitlichen Ablauf ab.
+ */
+public class BreadthFirstSearch extends GraphAlgorithm {
+	public static final int AUTOMATIC = 0;
+	public static final int TOP_DOWN = 1;
+	public static final int BOTTOM_UP = 2;
+
+	// Schwellwerte fr den Richtungswechsel nach Beamer et al.
+	private static final int ALPHA = 15;
+	private static final int BETA = 18;
+
+	// Kleinste Anzahl von Ecken bzw. Wrtern, die als Ganzes bearbeitet wird
+	private static final int MIN_VERTICES = 256;
+	private static final int MIN_WORDS = 16;
+
+	private Vertex start = null;
+	private int direction = AUTOMATIC;
+	private int parallelism = Runtime.getRuntime().availableProcessors();
+
+	// Zustand des Graphen zum Zeitpunkt der Suche
+	private CsrGraph csr = null;
+	private CsrGraph reverse = null;
+	private long version = -1;
+	private int order = 0;
+	private int startIndex = -1;
+
+	// level[i] ist die Ebene der Ecke i, parent[i] ihr Vorgnger (-1, wenn i
+	// nicht erreichbar oder die Startecke ist)
+	private int[] level = null;
+	private int[] parent = null;
+	private AtomicBitSet visited = null;
+
+	// Zustand des aktuellen Schritts
+	private int depth = 0;
+	private int[] queue = null;
+	private int[] nextQueue = null;
+	private long[] frontier = null;
+	private long[] next = null;
+	private AtomicInteger found = new AtomicInteger();
+	private AtomicLong foundEdges = new AtomicLong();
+
+	private int reached = 0;
+	private int topDownSteps = 0;
+	private int bottomUpSteps = 0;
+
+	public BreadthFirstSearch(Graph g) {
+		super(g);
+	}
+
+	public void setStart(Vertex start) {
+		this.start = start;
+	}
+
+	public int getDirection() {
+		return direction;
+	}
+
+	/**
+	 * Festlegen der Richtung: AUTOMATIC, TOP_DOWN oder BOTTOM_UP.
+	 */
+	public void setDirection(int direction) {
+		if (direction < AUTOMATIC || direction > BOTTOM_UP) {
+			throw new IllegalArgumentException("Unbekannte Richtung: "
+					+ direction);
+		}
+		this.direction = direction;
+	}
+
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	/**
+	 * Festlegen der Anzahl paralleler Threads. Bei 1 wird ausschlielich im
+	 * aufrufenden Thread gerechnet.
+	 */
+	public void setParallelism(int parallelism) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException(
+					"Mindestens ein Thread ist erforderlich!");
+		}
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * Ausfhren der Suche. Wenn die Startecke vorher nicht gesetzt wurde, so
+	 * erfolgt keine Aktion.
+	 */
+	public void execute() {
+		if (start == null) {
+			return;
+		}
+
+		if (csr == null || version != getGraph().getVersion()) {
+			version = getGraph().getVersion();
+			csr = getGraph().toCsr();
+			reverse = null;
+		}
+		order = csr.getOrder();
+		startIndex = getGraph().indexOf(start);
+
+		level = new int[order];
+		parent = new int[order];
+		Arrays.fill(level, -1);
+		Arrays.fill(parent, -1);
+		visited = new AtomicBitSet(order);
+		reached = 0;
+		depth = 0;
+		topDownSteps = 0;
+		bottomUpSteps = 0;
+
+		if (startIndex < 0 || startIndex >= order) {
+			return;
+		}
+
+		ForkJoinPool pool = parallelism > 1 ? new ForkJoinPool(parallelism)
+				: null;
+		try {
+			search(pool);
+		} finally {
+			if (pool != null) {
+				pool.shutdown();
+			}
+			queue = nextQueue = null;
+			frontier = next = null;
+		}
+	}
+
+	private void search(ForkJoinPool pool) {
+		int words = visited.getWordCount();
+
+		visited.set(startIndex);
+		level[startIndex] = 0;
+		reached = 1;
+
+		queue = new int[order];
+		queue[0] = startIndex;
+		int frontierSize = 1;
+		boolean frontierInQueue = true;
+
+		long frontierEdges = csr.getDegree(startIndex);
+		long unexploredEdges = csr.getSize() - frontierEdges;
+
+		while (frontierSize > 0) {
+			boolean bottomUp;
+			if (direction == AUTOMATIC) {
+				bottomUp = frontierInQueue ? frontierEdges > unexploredEdges
+						/ ALPHA : frontierSize >= order / BETA;
+			} else {
+				bottomUp = direction == BOTTOM_UP;
+			}
+
+			if (isTracing()) {
+				trace("Ebene " + depth + ": " + frontierSize + " Ecken, "
+						+ (bottomUp ? "bottom-up" : "top-down"));
+			}
+
+			found.set(0);
+			foundEdges.set(0);
+
+			if (bottomUp) {
+				if (reverse == null) {
+					reverse = csr.transpose();
+				}
+				if (frontierInQueue) {
+					frontier = toBits(queue, frontierSize, frontier, words);
+				}
+				if (next == null) {
+					next = new long[words];
+				} else {
+					Arrays.fill(next, 0);
+				}
+
+				run(pool, new BottomUpTask(0, words, Math.max(MIN_WORDS, words
+						/ (4 * parallelism))));
+
+				long[] swap = frontier;
+				frontier = next;
+				next = swap;
+				frontierInQueue = false;
+				bottomUpSteps++;
+			} else {
+				if (!frontierInQueue) {
+					frontierSize = toQueue(frontier, queue);
+				}
+				if (nextQueue == null) {
+					nextQueue = new int[order];
+				}
+
+				run(pool, new TopDownTask(0, frontierSize, Math.max(
+						MIN_VERTICES, frontierSize / (4 * parallelism))));
+
+				int[] swap = queue;
+				queue = nextQueue;
+				nextQueue = swap;
+				frontierInQueue = true;
+				topDownSteps++;
+			}
+
+			depth++;
+			frontierSize = found.get();
+			frontierEdges = foundEdges.get();
+			unexploredEdges -= frontierEdges;
+			reached += frontierSize;
+		}
+	}
+
+	private void run(ForkJoinPool pool, RecursiveAction task) {
+		if (pool != null) {
+			pool.invoke(task);
+		} else {
+			task.invoke();
+		}
+	}
+
+	/**
+	 * Umwandeln einer Ebene aus der Liste in die Bitdarstellung.
+	 */
+	private static long[] toBits(int[] vertices, int size, long[] bits,
+			int words) {
+		if (bits == null) {
+			bits = new long[words];
+		} else {
+			Arrays.fill(bits, 0);
+		}
+
+		for (int i = 0; i < size; i++) {
+			bits[vertices[i] >>> 6] |= 1L << vertices[i];
+		}
+
+		return bits;
+	}
+
+	/**
+	 * Umwandeln einer Ebene aus der Bitdarstellung in die Liste.
+	 *
+	 * @return die Anzahl der Ecken der Ebene.
+	 */
+	private static int toQueue(long[] bits, int[] vertices) {
+		int size = 0;
+
+		for (int w = 0; w < bits.length; w++) {
+			long word = bits[w];
+
+			while (word != 0) {
+				vertices[size++] = (w << 6) + Long.numberOfTrailingZeros(word);
+				word &= word - 1;
+			}
+		}
+
+		return size;
+	}
+
+	/* ************************************************************************
+	 * Top-down
+	 * ************************************************************************
+	 */
+
+	/**
+	 * Bearbeitung der Ecken queue[lo] bis queue[hi-1] der aktuellen Ebene. Die
+	 * gefundenen Ecken werden zunchst lokal gesammelt und dann als Block in
+	 * nextQueue bertragen.
+	 */
+	private class TopDownTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private int lo;
+		private int hi;
+		private int grain;
+
+		TopDownTask(int lo, int hi, int grain) {
+			this.lo = lo;
+			this.hi = hi;
+			this.grain = grain;
+		}
+
+		protected void compute() {
+			if (hi - lo > grain) {
+				int mid = (lo + hi) >>> 1;
+				invokeAll(new TopDownTask(lo, mid, grain), new TopDownTask(
+						mid, hi, grain));
+				return;
+			}
+
+			int[] offsets = csr.getOffsets();
+			int[] targets = csr.getTargets();
+			int[] local = new int[Math.min(order, 64)];
+			int count = 0;
+			long edges = 0;
+
+			for (int i = lo; i < hi; i++) {
+				int u = queue[i];
+
+				for (int pos = offsets[u]; pos < offsets[u + 1]; pos++) {
+					int v = targets[pos];
+
+					if (!visited.get(v) && visited.set(v)) {
+						level[v] = depth + 1;
+						parent[v] = u;
+						edges += offsets[v + 1] - offsets[v];
+
+						if (count == local.length) {
+							local = Arrays.copyOf(local, Math.min(order,
+									2 * count));
+						}
+						local[count++] = v;
+					}
+				}
+			}
+
+			if (count > 0) {
+				System.arraycopy(local, 0, nextQueue, found.getAndAdd(count),
+						count);
+				foundEdges.addAndGet(edges);
+			}
+		}
+	}
+
+	/* ************************************************************************
+	 * Bottom-up
+	 * ************************************************************************
+	 */
+
+	/**
+	 * Bearbeitung der noch nicht besuchten Ecken in den Wrtern lo bis hi-1
+	 * der Bitmengen. Da jede Aufgabe ganze Wrter bearbeitet, kann next ohne
+	 * Synchronisation beschrieben werden.
+	 */
+	private class BottomUpTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private int lo;
+		private int hi;
+		private int grain;
+
+		BottomUpTask(int lo, int hi, int grain) {
+			this.lo = lo;
+			this.hi = hi;
+			this.grain = grain;
+		}
+
+		protected void compute() {
+			if (hi - lo > grain) {
+				int mid = (lo + hi) >>> 1;
+				invokeAll(new BottomUpTask(lo, mid, grain), new BottomUpTask(
+						mid, hi, grain));
+				return;
+			}
+
+			int[] offsets = csr.getOffsets();
+			int[] reverseOffsets = reverse.getOffsets();
+			int[] sources = reverse.getTargets();
+			int count = 0;
+			long edges = 0;
+
+			for (int w = lo; w < hi; w++) {
+				long candidates = ~visited.getWord(w);
+
+				// Bits jenseits der letzten Ecke ausblenden
+				if (w == visited.getWordCount() - 1 && (order & 63) != 0) {
+					candidates &= (1L << order) - 1;
+				}
+
+				while (candidates != 0) {
+					int v = (w << 6) + Long.numberOfTrailingZeros(candidates);
+					candidates &= candidates - 1;
+
+					for (int pos = reverseOffsets[v]; pos < reverseOffsets[v + 1]; pos++) {
+						int u = sources[pos];
+
+						if ((frontier[u >>> 6] & (1L << u)) != 0) {
+							visited.set(v);
+							level[v] = depth + 1;
+							parent[v] = u;
+							next[w] |= 1L << v;
+							edges += offsets[v + 1] - offsets[v];
+							count++;
+							break;
+						}
+					}
+				}
+			}
+
+			if (count > 0) {
+				found.addAndGet(count);
+				foundEdges.addAndGet(edges);
+			}
+		}
+	}
+
+	/* ************************************************************************
+	 * Ergebnisse
+	 * ************************************************************************
+	 */
+
+	/**
+	 * Auslesen der Ebenen smtlicher Ecken, indiziert mit den Nummern der Ecken
+	 * (siehe Graph.indexOf()). -1 bedeutet, dass die Ecke nicht erreichbar
+	 * ist. Das Array darf nicht verndert werden.
+	 */
+	public int[] getLevelArray() {
+		return level;
+	}
+
+	/**
+	 * Auslesen der Vorgnger smtlicher Ecken im Breitensuchbaum. -1 bedeutet,
+	 * dass die Ecke die Startecke oder nicht erreichbar ist. Das Array darf
+	 * nicht verndert werden.
+	 */
+	public int[] getParentArray() {
+		return parent;
+	}
+
+	/**
+	 * Auslesen der Anzahl der Kanten auf einem krzesten Weg von der Startecke
+	 * zur gegebenen Ecke.
+	 *
+	 * @return die Ebene oder -1, wenn die Ecke nicht erreichbar ist.
+	 */
+	public int getLevel(Vertex vertex) {
+		int i = getGraph().indexOf(vertex);
+
+		return i >= 0 && i < order ? level[i] : -1;
+	}
+
+	/**
+	 * Auslesen des Vorgngers einer Ecke im Breitensuchbaum.
+	 *
+	 * @return der Vorgnger oder null fr die Startecke und nicht erreichbare
+	 *         Ecken.
+	 */
+	public Vertex getParent(Vertex vertex) {
+		int i = getGraph().indexOf(vertex);
+
+		if (i < 0 || i >= order || parent[i] < 0) {
+			return null;
+		}
+
+		return csr.getVertex(parent[i]);
+	}
+
+	public boolean isReachable(Vertex vertex) {
+		return getLevel(vertex) >= 0;
+	}
+
+	/**
+	 * Auslesen eines Weges mit der geringsten Anzahl von Kanten von der
+	 * Startecke zur gegebenen Ecke.
+	 *
+	 * @return die Ecken des Weges einschlielich Start- und Zielecke oder eine
+	 *         leere Liste, wenn die Ecke nicht erreichbar ist.
+	 */
+	public List<Vertex> getPath(Vertex vertex) {
+		List<Vertex> path = new ArrayList<Vertex>();
+		int i = getGraph().indexOf(vertex);
+
+		if (i < 0 || i >= order || level[i] < 0) {
+			return path;
+		}
+
+		for (int v = i; v >= 0; v = parent[v]) {
+			path.add(csr.getVertex(v));
+		}
+		Collections.reverse(path);
+
+		return path;
+	}
+
+	/**
+	 * Anzahl der von der Startecke aus erreichbaren Ecken einschlielich der
+	 * Startecke.
+	 */
+	public int getReachedCount() {
+		return reached;
+	}
+
+	/**
+	 * Anzahl der nichtleeren Ebenen, d.h. die grte Ebene plus 1.
+	 */
+	public int getLevelCount() {
+		return depth;
+	}
+
+	/**
+	 * Anzahl der Schritte, die in der jeweiligen Richtung ausgefhrt wurden.
+	 */
+	public int getTopDownSteps() {
+		return topDownSteps;
+	}
+
+	public int getBottomUpSteps() {
+		return bottomUpSteps;
+	}
+}
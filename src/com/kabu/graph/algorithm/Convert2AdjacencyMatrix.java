@@ -1,71 +1,261 @@
 package com.kabu.graph.algorithm;
 
-import java.util.List;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Arrays;
 
+import com.kabu.graph.CsrGraph;
 import com.kabu.graph.Graph;
-import com.kabu.graph.Vertex;
 
 /**
  * Konvertiert einen Graphen in seine quivalente Adjazenzmatrix. Eine
  * Adjazenzmatrix A enthlt Elemente a[i][j], fr die gilt: a[i][j]=1, wenn es
- * eine Kante von Ecke i zu Ecke j gibt. Ansonsten ist a[i][j]=0.
- * 
- * Hinweis: Diese Realisierung ist sehr rudimentr und nicht weiter optimiert.
- * Kantengewichte werden ignoriert.
+ * eine Kante von Ecke i zu Ecke j gibt. Ansonsten ist a[i][j]=0. Die Zeilen und
+ * Spalten entsprechen den Nummern der Ecken (siehe Graph.indexOf()).
+ *
+ * Die Matrix wird bitweise gespeichert: Zeile i besteht aus (n+63)/64
+ * long-Werten, Bit j%64 des Wertes j/64 ist a[i][j]. Gegenber int[n][n]
+ * bentigt sie damit nur ein 32tel des Speichers.
+ *
+ * Weitere Ausgaben:
+ * <ul>
+ * <li>Gewichtete Matrix (setWeighted(true)): w[i][j] ist das geringste Gewicht
+ * der Kanten von i nach j (wie Graph.getShortestEdge()) bzw.
+ * Double.POSITIVE_INFINITY, wenn keine Kante existiert.</li>
+ * <li>Dnnbesetzte Matrix im CSR-Format: Fr Zeile i liegen die Spalten der
+ * Eintrge aufsteigend sortiert in getColumnIndices() zwischen den Positionen
+ * getRowOffsets()[i] und getRowOffsets()[i+1]-1, die geringsten Gewichte an
+ * denselben Positionen in getValues(). getRowIndices() liefert zusammen mit
+ * getColumnIndices() das COO-Format. Diese Ausgabe bentigt nur O(V+E)
+ * Speicher.</li>
+ * </ul>
+ *
+ * Fr sehr groe Graphen kann die dichte Matrix mit setDense(false)
+ * abgeschaltet werden.
  */
 public class Convert2AdjacencyMatrix extends GraphAlgorithm {
-	private int adjacencyMatrix[][] = null;
+	private boolean dense = true;
+	private boolean weighted = false;
+
+	private int order = 0;
+	private long[][] rows = null;
+	private double[][] weights = null;
+
+	private int[] rowOffsets = null;
+	private int[] columnIndices = null;
+	private double[] values = null;
 
 	public Convert2AdjacencyMatrix(Graph g) {
 		super(g);
 	}
 
+	public boolean isDense() {
+		return dense;
+	}
+
+	/**
+	 * Festlegen, ob die bitweise Matrix berechnet wird. Voreinstellung ist
+	 * true.
+	 */
+	public void setDense(boolean dense) {
+		this.dense = dense;
+	}
+
+	public boolean isWeighted() {
+		return weighted;
+	}
+
+	/**
+	 * Festlegen, ob zustzlich die gewichtete Matrix als double[n][n]
+	 * berechnet wird. Voreinstellung ist false.
+	 */
+	public void setWeighted(boolean weighted) {
+		this.weighted = weighted;
+	}
+
 	public void execute() {
-		List<Vertex> vertices = getGraph().getVertices();
+		CsrGraph csr = getGraph().toCsr();
+		int[] offsets = csr.getOffsets();
+		int[] targets = csr.getTargets();
+		double[] edgeWeights = csr.getWeights();
 
 		// Dimensionen der Adjazenzmatrix entprechen immer der Anzahl der Ecken
 		// des Graphen
-		int n = vertices.size();
-		adjacencyMatrix = new int[n][n];
+		int n = csr.getOrder();
+		order = n;
+
+		// Dnnbesetzte Matrix: Parallele Kanten werden zu einem Eintrag mit
+		// dem geringsten Gewicht zusammengefasst. stamp[j] == i+1 bedeutet,
+		// dass Spalte j in Zeile i bereits vorkommt.
+		int[] stamp = new int[n];
+		double[] minWeight = new double[n];
+
+		rowOffsets = new int[n + 1];
+		columnIndices = new int[targets.length];
+		values = new double[targets.length];
+		int k = 0;
 
-		// Initialisierung der Matrixelemente mit Null
 		for (int i = 0; i < n; i++) {
-			for (int j = 0; j < n; j++) {
-				adjacencyMatrix[i][j] = 0;
+			rowOffsets[i] = k;
+
+			for (int pos = offsets[i]; pos < offsets[i + 1]; pos++) {
+				int j = targets[pos];
+
+				if (stamp[j] != i + 1) {
+					stamp[j] = i + 1;
+					minWeight[j] = edgeWeights[pos];
+					columnIndices[k++] = j;
+				} else if (edgeWeights[pos] < minWeight[j]) {
+					minWeight[j] = edgeWeights[pos];
+				}
+			}
+
+			Arrays.sort(columnIndices, rowOffsets[i], k);
+			for (int p = rowOffsets[i]; p < k; p++) {
+				values[p] = minWeight[columnIndices[p]];
 			}
 		}
+		rowOffsets[n] = k;
+		columnIndices = Arrays.copyOf(columnIndices, k);
+		values = Arrays.copyOf(values, k);
 
-		// Fr jeden Knoten lesen wir nun seine Nachbarn aus und vermerken diese
-		// Adjazenz in der Matrix
-		for (int i = 0; i < vertices.size(); i++) {
-			Vertex vertex = vertices.get(i);
+		// Dichte Matrizen werden aus der dnnbesetzten Darstellung befllt.
+		// Die Matrixelemente sind bereits mit Null initialisiert.
+		rows = null;
+		weights = null;
+
+		if (dense) {
+			int words = (n + 63) >>> 6;
+			rows = new long[n][words];
+
+			for (int i = 0; i < n; i++) {
+				for (int p = rowOffsets[i]; p < rowOffsets[i + 1]; p++) {
+					int j = columnIndices[p];
+					rows[i][j >>> 6] |= 1L << j;
+				}
+			}
+		}
 
-			// Fr jeden Nachbarn bestimmen wir nun dessen Position in der Menge
-			// der Knoten und setzen das entsprechende Matrixelement auf 1.
-			List<Vertex> neighbours = vertex.getNeighbours();
-			for (int k = 0; k < neighbours.size(); k++) {
-				int j = vertices.indexOf(neighbours.get(k));
+		if (weighted) {
+			weights = new double[n][n];
 
-				adjacencyMatrix[i][j] = 1;
+			for (int i = 0; i < n; i++) {
+				Arrays.fill(weights[i], Double.POSITIVE_INFINITY);
+				for (int p = rowOffsets[i]; p < rowOffsets[i + 1]; p++) {
+					weights[i][columnIndices[p]] = values[p];
+				}
 			}
+		}
+	}
 
+	/**
+	 * Auslesen eines Matrixelements.
+	 */
+	public boolean isAdjacent(int i, int j) {
+		if (rows != null) {
+			return (rows[i][j >>> 6] & (1L << j)) != 0;
 		}
 
+		return Arrays.binarySearch(columnIndices, rowOffsets[i],
+				rowOffsets[i + 1], j) >= 0;
 	}
 
+	/**
+	 * Auslesen der bitweise gespeicherten Matrix. Bit j%64 von
+	 * getBitRows()[i][j/64] ist gesetzt, wenn es eine Kante von i nach j gibt.
+	 *
+	 * @return die Matrix oder null, wenn setDense(false) gewhlt wurde.
+	 */
+	public long[][] getBitRows() {
+		return rows;
+	}
+
+	/**
+	 * Auslesen der Matrix als int[n][n]. Die Matrix wird bei jedem Aufruf aus
+	 * der dnnbesetzten Darstellung erzeugt und bentigt 32 mal so viel
+	 * Speicher wie getBitRows().
+	 */
 	public int[][] getResult() {
+		if (rowOffsets == null) {
+			return null;
+		}
+
+		int[][] adjacencyMatrix = new int[order][order];
+
+		for (int i = 0; i < order; i++) {
+			for (int p = rowOffsets[i]; p < rowOffsets[i + 1]; p++) {
+				adjacencyMatrix[i][columnIndices[p]] = 1;
+			}
+		}
+
 		return adjacencyMatrix;
 	}
 
-	public String getResultString() {
-		StringBuilder result = new StringBuilder();
+	/**
+	 * Auslesen der gewichteten Matrix.
+	 *
+	 * @return die Matrix oder null, wenn setWeighted(true) nicht gewhlt wurde.
+	 */
+	public double[][] getWeightedResult() {
+		return weights;
+	}
+
+	public int[] getRowOffsets() {
+		return rowOffsets;
+	}
+
+	public int[] getColumnIndices() {
+		return columnIndices;
+	}
+
+	public double[] getValues() {
+		return values;
+	}
+
+	/**
+	 * Auslesen der Zeilennummern der Eintrge (COO-Format). Das Array wird bei
+	 * jedem Aufruf neu erzeugt.
+	 */
+	public int[] getRowIndices() {
+		int[] rowIndices = new int[columnIndices.length];
+
+		for (int i = 0; i < order; i++) {
+			Arrays.fill(rowIndices, rowOffsets[i], rowOffsets[i + 1], i);
+		}
+
+		return rowIndices;
+	}
 
-		for (int i = 0; i < adjacencyMatrix.length; i++) {
-			result.append(adjacencyMatrix[i][0] + " ");
-			for (int j = 1; j < adjacencyMatrix[i].length; j++) {
-				result.append(adjacencyMatrix[i][j] + " ");
+	/**
+	 * Ausgabe der Matrix zeilenweise in den gegebenen Writer. Jedes Element
+	 * wird von einem Leerzeichen gefolgt, jede Zeile von einem Zeilenumbruch.
+	 */
+	public void writeResult(Writer out) throws IOException {
+		char[] line = new char[2 * order + 1];
+
+		for (int i = 0; i < order; i++) {
+			for (int j = 0; j < order; j++) {
+				line[2 * j] = isAdjacent(i, j) ? '1' : '0';
+				line[2 * j + 1] = ' ';
 			}
-			result.append("\n");
+			line[2 * order] = '\n';
+			out.write(line);
+		}
+	}
+
+	/**
+	 * Ausgabe der Matrix als String. Fr groe Graphen sollte writeResult()
+	 * verwendet werden.
+	 */
+	public String getResultString() {
+		StringWriter result = new StringWriter();
+
+		try {
+			writeResult(result);
+		} catch (IOException ex) {
+			// Ein StringWriter wirft keine IOException
+			throw new IllegalStateException(ex);
 		}
 
 		return result.toString();
@@ -0,0 +1,249 @@
+package com.kabu.graph.algorithm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.kabu.graph.CsrGraph;
+import com.kabu.graph.Graph;
+import com.kabu.graph.Vertex;
+
+/**
+ * Berechnung der krzesten oder lngsten Wege in einem azyklischen Graphen
+ * (DAG), z.B. einer TypeHierarchy oder einem Abhngigkeitsgraphen. Die Ecken
+ * werden in topologischer Reihenfolge (siehe TopologicalSort) bearbeitet, so
+ * dass jede Kante genau einmal betrachtet wird. Der Aufwand ist O(V+E),
+ * unabhngig von den Kantengewichten, die auch negativ sein drfen.
+ *
+ * Mit setLongest(true) werden die lngsten Wege berechnet. Bei
+ * Abhngigkeitsgraphen, deren Kantengewichte Dauern angeben, ist die Lnge des
+ * lngsten Weges die frhestmgliche Fertigstellung; getCriticalPath() liefert
+ * den zugehrigen kritischen Pfad.
+ *
+ * Ist keine Startecke gesetzt, so beginnen die Wege an smtlichen Ecken ohne
+ * eingehende Kanten (Quellen) mit der Distanz 0.
+ *
+ * Nicht erreichbare Ecken besitzen die Distanz Double.POSITIVE_INFINITY
+ * (krzeste Wege) bzw. Double.NEGATIVE_INFINITY (lngste Wege).
+ */
+public class DagShortestPath extends GraphAlgorithm {
+	private Vertex start = null;
+	private boolean longest = false;
+
+	private CsrGraph csr = null;
+	// dist[i] ist die Lnge eines krzesten bzw. lngsten Weges zur Ecke i,
+	// pred[i] der Vorgnger von i auf diesem Weg oder -1
+	private double[] dist = new double[0];
+	private int[] pred = new int[0];
+
+	public DagShortestPath(Graph g) {
+		super(g);
+	}
+
+	/**
+	 * Festlegen der Startecke. Mit null beginnen die Wege an smtlichen
+	 * Quellen.
+	 */
+	public void setStart(Vertex start) {
+		this.start = start;
+	}
+
+	public boolean isLongest() {
+		return longest;
+	}
+
+	/**
+	 * Festlegen, ob lngste statt krzester Wege berechnet werden.
+	 */
+	public void setLongest(boolean longest) {
+		this.longest = longest;
+	}
+
+	/**
+	 * Ausfhren des Algorithmus.
+	 *
+	 * @throws IllegalStateException
+	 *             wenn der Graph einen Kreis enthlt. Den Kreis liefert
+	 *             TopologicalSort.getCycle().
+	 */
+	public void execute() {
+		csr = getGraph().toCsr();
+		int n = csr.getOrder();
+		int[] order = new int[n];
+
+		if (TopologicalSort.sort(csr, order) < n) {
+			throw new IllegalStateException("Der Graph enthlt einen Kreis!");
+		}
+
+		double unreachable = longest ? Double.NEGATIVE_INFINITY
+				: Double.POSITIVE_INFINITY;
+		dist = new double[n];
+		pred = new int[n];
+		Arrays.fill(dist, unreachable);
+		Arrays.fill(pred, -1);
+
+		if (start != null) {
+			int s = getGraph().indexOf(start);
+
+			if (s >= 0 && s < n) {
+				dist[s] = 0;
+			}
+		} else {
+			// Smtliche Quellen sind Startecken
+			int[] targets = csr.getTargets();
+			boolean[] hasPredecessor = new boolean[n];
+
+			for (int pos = 0; pos < targets.length; pos++) {
+				hasPredecessor[targets[pos]] = true;
+			}
+			for (int v = 0; v < n; v++) {
+				if (!hasPredecessor[v]) {
+					dist[v] = 0;
+				}
+			}
+		}
+
+		relax(csr, order, dist, pred, longest);
+
+		if (isTracing()) {
+			trace((longest ? "Lngste" : "Krzeste") + " Wege fr " + n
+					+ " Ecken und " + csr.getSize() + " Kanten");
+		}
+	}
+
+	/**
+	 * Verkrzen bzw. Verlngern der Distanzen entlang smtlicher Kanten in
+	 * topologischer Reihenfolge. Beim Bearbeiten einer Ecke sind smtliche
+	 * Vorgnger bereits bearbeitet, ihre Distanz ist daher endgltig.
+	 */
+	static void relax(CsrGraph csr, int[] order, double[] dist, int[] pred,
+			boolean longest) {
+		int[] offsets = csr.getOffsets();
+		int[] targets = csr.getTargets();
+		double[] weights = csr.getWeights();
+		double unreachable = longest ? Double.NEGATIVE_INFINITY
+				: Double.POSITIVE_INFINITY;
+
+		for (int u : order) {
+			double du = dist[u];
+
+			if (du == unreachable) {
+				continue;
+			}
+
+			for (int pos = offsets[u]; pos < offsets[u + 1]; pos++) {
+				int v = targets[pos];
+				double candidate = du + weights[pos];
+
+				if (longest ? candidate > dist[v] : candidate < dist[v]) {
+					dist[v] = candidate;
+					pred[v] = u;
+				}
+			}
+		}
+	}
+
+	/* ************************************************************************
+	 * Ergebnisse
+	 * ************************************************************************
+	 */
+
+	/**
+	 * Auslesen der Distanz der gegebenen Ecke.
+	 *
+	 * @return die Lnge des krzesten bzw. lngsten Weges oder
+	 *         Double.POSITIVE_INFINITY bzw. Double.NEGATIVE_INFINITY, wenn die
+	 *         Ecke nicht erreichbar ist.
+	 */
+	public double getDistance(Vertex vertex) {
+		int v = getGraph().indexOf(vertex);
+
+		if (v < 0 || v >= dist.length) {
+			return longest ? Double.NEGATIVE_INFINITY
+					: Double.POSITIVE_INFINITY;
+		}
+
+		return dist[v];
+	}
+
+	/**
+	 * Auslesen des Vorgngers der gegebenen Ecke auf ihrem Weg.
+	 *
+	 * @return der Vorgnger oder null fr Startecken und nicht erreichbare
+	 *         Ecken.
+	 */
+	public Vertex getPredecessor(Vertex vertex) {
+		int v = getGraph().indexOf(vertex);
+
+		if (v < 0 || v >= pred.length || pred[v] < 0) {
+			return null;
+		}
+
+		return csr.getVertex(pred[v]);
+	}
+
+	/**
+	 * Auslesen der Distanztabelle, indiziert mit den Nummern der Ecken (siehe
+	 * Graph.indexOf()). Das Array darf nicht verndert werden.
+	 */
+	public double[] getDistanceArray() {
+		return dist;
+	}
+
+	/**
+	 * Auslesen der Vorgngertabelle. An Position i steht die Nummer des
+	 * Vorgngers der Ecke i oder -1. Das Array darf nicht verndert werden.
+	 */
+	public int[] getPredecessorArray() {
+		return pred;
+	}
+
+	/**
+	 * Auslesen des krzesten bzw. lngsten Weges zur gegebenen Ecke.
+	 *
+	 * @return die Ecken des Weges einschlielich Start- und Zielecke oder eine
+	 *         leere Liste, wenn die Ecke nicht erreichbar ist.
+	 */
+	public List<Vertex> pathTo(Vertex vertex) {
+		int v = getGraph().indexOf(vertex);
+
+		if (v < 0 || v >= dist.length || Double.isInfinite(dist[v])) {
+			return new ArrayList<Vertex>();
+		}
+
+		return path(v);
+	}
+
+	/**
+	 * Auslesen des Weges zu der Ecke mit der grten endlichen Distanz. Bei
+	 * lngsten Wegen ist dies der kritische Pfad.
+	 *
+	 * @return die Ecken des Weges oder eine leere Liste, wenn keine Ecke
+	 *         erreichbar ist.
+	 */
+	public List<Vertex> getCriticalPath() {
+		int farthest = -1;
+
+		for (int v = 0; v < dist.length; v++) {
+			if (!Double.isInfinite(dist[v])
+					&& (farthest < 0 || dist[v] > dist[farthest])) {
+				farthest = v;
+			}
+		}
+
+		return farthest >= 0 ? path(farthest) : new ArrayList<Vertex>();
+	}
+
+	private List<Vertex> path(int v) {
+		List<Vertex> path = new ArrayList<Vertex>();
+
+		while (v >= 0) {
+			path.add(csr.getVertex(v));
+			v = pred[v];
+		}
+		Collections.reverse(path);
+
+		return path;
+	}
+}
@@ -0,0 +1,146 @@
+package com.kabu.graph.algorithm;
+
+import java.util.Arrays;
+
+import com.kabu.graph.CsrGraph;
+
+/**
+ * Iterative Tiefensuche auf der CSR-Darstellung eines Graphen. Anstelle der
+ * Rekursion wird ein expliziter Stack aus Eckennummern verwendet, so dass auch
+ * sehr lange Wege keinen StackOverflowError auslsen. Fr jede Ecke auf dem
+ * Stack wird die Position der nchsten zu untersuchenden Kante mitgefhrt.
+ *
+ * Die Arrays werden einmal im Konstruktor angelegt. Whrend der Suche werden
+ * keine Objekte erzeugt. Was bei den einzelnen Ecken und Kanten geschieht,
+ * bestimmt der bergebene DepthFirstVisitor.
+ *
+ * Der Zustand jeder Ecke wird als Farbe gespeichert: WHITE (noch nicht
+ * betreten), GRAY (auf dem Stack) oder BLACK (vollstndig abgearbeitet). Die
+ * Farben bleiben ber mehrere Aufrufe von traverse() hinweg erhalten, bis
+ * reset() aufgerufen wird.
+ */
+public class DepthFirstTraversal {
+	public static final byte WHITE = 0, GRAY = 1, BLACK = 2;
+
+	private CsrGraph csr = null;
+	private int[] offsets = null;
+	private int[] targets = null;
+
+	private byte[] color = null;
+	// stack[i] enthlt die Nummer der i-ten Ecke des aktuellen Weges,
+	// cursor[i] die Position ihrer nchsten Kante in targets
+	private int[] stack = null;
+	private int[] cursor = null;
+	private int size = 0;
+
+	public DepthFirstTraversal(CsrGraph csr) {
+		this.csr = csr;
+		offsets = csr.getOffsets();
+		targets = csr.getTargets();
+
+		int n = csr.getOrder();
+		color = new byte[n];
+		stack = new int[n];
+		cursor = new int[n];
+	}
+
+	public CsrGraph getCsr() {
+		return csr;
+	}
+
+	/**
+	 * Tiefensuche ab der gegebenen Ecke. Ist die Ecke bereits betreten worden,
+	 * so geschieht nichts.
+	 *
+	 * @return false, wenn die Suche durch den Visitor abgebrochen wurde. Der
+	 *         Stack enthlt dann den Weg zu der Ecke, bei der abgebrochen
+	 *         wurde.
+	 */
+	public boolean traverse(int start, DepthFirstVisitor visitor) {
+		if (color[start] != WHITE) {
+			return true;
+		}
+
+		size = 0;
+		if (!push(start, visitor)) {
+			return false;
+		}
+
+		while (size > 0) {
+			int top = size - 1;
+			int v = stack[top];
+
+			if (cursor[top] < offsets[v + 1]) {
+				int w = targets[cursor[top]++];
+
+				if (color[w] == WHITE) {
+					if (!push(w, visitor)) {
+						return false;
+					}
+				} else if (!visitor.examineEdge(v, w)) {
+					return false;
+				}
+			} else {
+				if (!visitor.finish(v)) {
+					return false;
+				}
+				color[v] = BLACK;
+				size--;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Tiefensuche, die nacheinander von smtlichen noch nicht betretenen Ecken
+	 * in der Reihenfolge ihrer Nummern gestartet wird.
+	 *
+	 * @return false, wenn die Suche durch den Visitor abgebrochen wurde.
+	 */
+	public boolean traverseAll(DepthFirstVisitor visitor) {
+		for (int i = 0; i < color.length; i++) {
+			if (!traverse(i, visitor)) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private boolean push(int vertex, DepthFirstVisitor visitor) {
+		color[vertex] = GRAY;
+		stack[size] = vertex;
+		cursor[size] = offsets[vertex];
+		size++;
+
+		return visitor.discover(vertex);
+	}
+
+	/**
+	 * Zurcksetzen smtlicher Ecken auf WHITE.
+	 */
+	public void reset() {
+		Arrays.fill(color, WHITE);
+		size = 0;
+	}
+
+	public byte getColor(int vertex) {
+		return color[vertex];
+	}
+
+	/**
+	 * Anzahl der Ecken auf dem Stack.
+	 */
+	public int getDepth() {
+		return size;
+	}
+
+	/**
+	 * Auslesen der i-ten Ecke des aktuellen Weges. Die Startecke hat den Index
+	 * 0, die zuletzt betretene Ecke den Index getDepth()-1.
+	 */
+	public int getStackElement(int i) {
+		return stack[i];
+	}
+}
@@ -0,0 +1,27 @@
+package com.kabu.graph.algorithm;
+
+/**
+ * Rckrufe der iterativen Tiefensuche (siehe DepthFirstTraversal). Die Ecken
+ * werden ber ihre Nummern angegeben. Liefert einer der Rckrufe false, so wird
+ * die Suche abgebrochen.
+ */
+public interface DepthFirstVisitor {
+	/**
+	 * Die Ecke wird zum ersten Mal betreten (pre-order). Sie liegt bereits
+	 * oben auf dem Stack.
+	 */
+	boolean discover(int vertex);
+
+	/**
+	 * Die Kante fhrt zu einer Ecke, die bereits betreten wurde. Ist diese
+	 * noch auf dem Stack (DepthFirstTraversal.GRAY), so schliet die Kante
+	 * einen Kreis.
+	 */
+	boolean examineEdge(int from, int to);
+
+	/**
+	 * Smtliche Nachbarn der Ecke sind abgearbeitet (post-order). Die Ecke liegt
+	 * noch oben auf dem Stack.
+	 */
+	boolean finish(int vertex);
+}
@@ -2,20 +2,21 @@ package com.kabu.graph.algorithm;
 
 import java.util.ArrayDeque;
 import java.util.Deque;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
 
+import com.kabu.graph.CsrGraph;
 import com.kabu.graph.Graph;
 import com.kabu.graph.Vertex;
 
 /**
- * Rekursive Tiefensuche in einem Graphen. Dieser Algorithmus ist nur zu
+ * Tiefensuche in einem Graphen. Dieser Algorithmus ist nur zu
  * Demonstrationszwecken gedacht, da er nur nach einer Ecke anhand ihres Labels
  * sucht.
  * 
  * Achtung: Es wird die erste Ecke zurckgegeben, die das gesuchte Label
  * besitzt! Alle weiteren Ecken werden ignoriert.
+ * 
+ * Die Suche verwendet DepthFirstTraversal und kommt daher ohne Rekursion aus.
+ * Ablaufmeldungen werden nur ausgegeben, wenn ein Tracer gesetzt ist.
  */
 public class DepthSearch extends GraphAlgorithm {
 
@@ -42,70 +43,79 @@ public class DepthSearch extends GraphAlgorithm {
 	}
 
 	/**
-	 * Operationen bei Besuch einer Ecke. Ruft sich rekursiv auf, um smtliche
-	 * Nachbarn der jeweweiligen Ecke zu besuchen.
+	 * Operationen bei Besuch der Ecken. Eine Ecke wird mit dem gesuchten Label
+	 * verglichen, nachdem smtliche ihrer Nachbarn besucht wurden. Stimmt das
+	 * Label berein, so wird die Suche abgebrochen.
 	 */
-	public Vertex visit(Set<Vertex> visited, Vertex vertex) {
-		System.out.println("Passiere " + vertex.getLabel());
-
-		Vertex result = null;
-
-		path.add(vertex);
-
-		List<Vertex> neighbours = vertex.getNeighbours();
+	private class Visitor implements DepthFirstVisitor {
+		private CsrGraph csr = null;
+		private int found = -1;
 
-		// Ausgabe der Ecken ungeraden Grades
-		if (neighbours.size() % 2 != 0) {
-			System.out.println("Ecke " + vertex.getLabel()
-					+ " ist ungeraden Grades. Grad=" + neighbours.size());
+		public Visitor(CsrGraph csr) {
+			this.csr = csr;
 		}
 
-		for (Vertex nb : neighbours) {
-			// Wenn wir den Nachbarn noch nicht besucht haben, dann tun wir dies
-			// jetzt
-			if (!visited.contains(nb)) {
-				// Wir merken uns den Besuch des Nachbarn
-				visited.add(nb);
-				// Durchfhren des Besuchs
-				result = visit(visited, nb);
-				if (result != null) {
-					return result;
+		public boolean discover(int vertex) {
+			if (isTracing()) {
+				trace("Passiere " + csr.getVertex(vertex).getLabel());
+
+				// Ausgabe der Ecken ungeraden Grades
+				if (csr.getDegree(vertex) % 2 != 0) {
+					trace("Ecke " + csr.getVertex(vertex).getLabel()
+							+ " ist ungeraden Grades. Grad="
+							+ csr.getDegree(vertex));
 				}
 			}
+
+			return true;
 		}
 
-		if (vertex.getLabel().equals(label)) {
-			result = vertex;
-		} else {
-			result = null;
-			path.removeLast();
+		public boolean examineEdge(int from, int to) {
+			return true;
 		}
 
-		return result;
+		public boolean finish(int vertex) {
+			if (csr.getVertex(vertex).getLabel().equals(label)) {
+				found = vertex;
+				return false;
+			}
+
+			return true;
+		}
 	}
 
 	/**
-	 * Start der eigentlichen Tiefensuche. Es wird ein Stack verwaltet, der
-	 * smtliche bereits besuchten Ecken speichert, um keine Ecke mehr als
-	 * einmal besuchen zu mssen.
+	 * Start der eigentlichen Tiefensuche. Es wird vermerkt, welche Ecken
+	 * bereits besucht wurden, um keine Ecke mehr als einmal besuchen zu
+	 * mssen. Der gefundene Weg entspricht dem Stack der Tiefensuche zum
+	 * Zeitpunkt des Fundes.
 	 */
 	public void execute() {
-		Set<Vertex> visited = new HashSet<Vertex>();
-
-		for (Vertex vertex : getGraph().getVertices()) {
-			path = new ArrayDeque<Vertex>();
-
-			if (!visited.contains(vertex)) {
-				Vertex result = visit(visited, vertex);
-				if (result != null) {
-					System.out.println("Ecke gefunden:\n" + result + "\n"
-							+ "Startecke:\n" + vertex);
-					System.out.println("Weg:\n" + path);
-					return;
-				} else {
-					System.out.println("Ecke ausgehend von Startecke:\n"
-							+ vertex + "\nnicht gefunden.");
+		CsrGraph csr = getGraph().toCsr();
+		DepthFirstTraversal traversal = new DepthFirstTraversal(csr);
+		Visitor visitor = new Visitor(csr);
+
+		path = new ArrayDeque<Vertex>();
+
+		for (int i = 0; i < csr.getOrder(); i++) {
+			if (traversal.getColor(i) != DepthFirstTraversal.WHITE) {
+				continue;
+			}
+
+			if (!traversal.traverse(i, visitor)) {
+				for (int j = 0; j < traversal.getDepth(); j++) {
+					path.add(csr.getVertex(traversal.getStackElement(j)));
+				}
+
+				if (isTracing()) {
+					trace("Ecke gefunden:\n" + csr.getVertex(visitor.found)
+							+ "\n" + "Startecke:\n" + csr.getVertex(i));
+					trace("Weg:\n" + path);
 				}
+				return;
+			} else if (isTracing()) {
+				trace("Ecke ausgehend von Startecke:\n" + csr.getVertex(i)
+						+ "\nnicht gefunden.");
 			}
 		}
 	}
@@ -11,6 +11,7 @@ import com.kabu.graph.Graph;
  */
 public abstract class GraphAlgorithm {
 	private Graph graph = null;
+	private Tracer tracer = null;
 
 	public GraphAlgorithm(Graph graph) {
 		this.graph = graph;
@@ -20,6 +21,32 @@ public abstract class GraphAlgorithm {
 		return graph;
 	}
 
+	public Tracer getTracer() {
+		return tracer;
+	}
+
+	/**
+	 * Setzen des Empfngers fr Ablaufmeldungen. Ohne Tracer (null) werden
+	 * keine Meldungen erzeugt.
+	 */
+	public void setTracer(Tracer tracer) {
+		this.tracer = tracer;
+	}
+
+	/**
+	 * Feststellen, ob Ablaufmeldungen ausgegeben werden. Sollte vor dem
+	 * Zusammensetzen aufwendiger Meldungen abgefragt werden.
+	 */
+	protected boolean isTracing() {
+		return tracer != null;
+	}
+
+	protected void trace(String message) {
+		if (tracer != null) {
+			tracer.trace(message);
+		}
+	}
+
 	/**
 	 * Diese Methode soll von auen aufgerufen werden, um den jeweiloigen
 	 * Algorithmus zu starten.
@@ -0,0 +1,26 @@
+package com.kabu.graph.algorithm;
+
+/**
+ * Schtzfunktion fr die A*-Suche (siehe PointToPointShortestPath). Die Ecken
+ * werden durch ihre Nummern (siehe Graph.indexOf()) angegeben.
+ *
+ * Die Schtzung muss zulssig sein, d.h. sie darf die tatschliche Distanz
+ * nie berschtzen. Sonst ist der gefundene Weg nicht zwingend der krzeste.
+ *
+ * Beispiel fr Ecken mit Koordinaten, deren Kantengewichte mindestens dem
+ * euklidischen Abstand entsprechen:
+ *
+ * <pre>
+ * Heuristic euclid = new Heuristic() {
+ * 	public double estimate(int vertex, int target) {
+ * 		return Math.hypot(x[vertex] - x[target], y[vertex] - y[target]);
+ * 	}
+ * };
+ * </pre>
+ */
+public interface Heuristic {
+	/**
+	 * Untere Schranke fr die Distanz von vertex nach target.
+	 */
+	public double estimate(int vertex, int target);
+}
@@ -0,0 +1,140 @@
+package com.kabu.graph.algorithm;
+
+import java.util.Arrays;
+
+/**
+ * Indizierter binrer Min-Heap ber den Ganzzahlen 0..capacity-1. Jedem
+ * Element ist eine Prioritt vom Typ double zugeordnet. Neben den blichen
+ * Operationen insert() und extractMin() untersttzt der Heap decreaseKey() in
+ * O(log n), da die Position jedes Elements im Heap mitgefhrt wird.
+ *
+ * Wird von den Wegealgorithmen (z.B. Dijkstra) als Vorrangwarteschlange
+ * verwendet. Es werden ausschlielich primitive Arrays benutzt, so dass whrend
+ * der Berechnung keine Objekte angelegt werden.
+ */
+class IndexedHeap {
+	// heap[i] enthlt das Element an Position i des Heaps
+	private int[] heap = null;
+	// position[e] enthlt die Position des Elements e im Heap oder -1
+	private int[] position = null;
+	// priority[e] enthlt die aktuelle Prioritt des Elements e
+	private double[] priority = null;
+	private int size = 0;
+
+	public IndexedHeap(int capacity) {
+		heap = new int[capacity];
+		position = new int[capacity];
+		priority = new double[capacity];
+		Arrays.fill(position, -1);
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean contains(int element) {
+		return position[element] >= 0;
+	}
+
+	public double getPriority(int element) {
+		return priority[element];
+	}
+
+	/**
+	 * Einfgen eines neuen Elements bzw. Absenken der Prioritt eines bereits
+	 * enthaltenen Elements. Eine hhere Prioritt wird ignoriert.
+	 */
+	public void insertOrDecrease(int element, double newPriority) {
+		if (position[element] < 0) {
+			priority[element] = newPriority;
+			heap[size] = element;
+			position[element] = size;
+			size++;
+			siftUp(size - 1);
+		} else if (newPriority < priority[element]) {
+			priority[element] = newPriority;
+			siftUp(position[element]);
+		}
+	}
+
+	/**
+	 * Auslesen der geringsten Prioritt, ohne das Element zu entfernen. Der
+	 * Heap darf nicht leer sein.
+	 */
+	public double peekMinPriority() {
+		return priority[heap[0]];
+	}
+
+	/**
+	 * Entfernen und Zurckgeben des Elements mit der geringsten Prioritt.
+	 */
+	public int extractMin() {
+		int min = heap[0];
+
+		size--;
+		if (size > 0) {
+			heap[0] = heap[size];
+			position[heap[0]] = 0;
+			siftDown(0);
+		}
+		position[min] = -1;
+
+		return min;
+	}
+
+	/**
+	 * Leeren des Heaps. Die Kosten sind proportional zur Anzahl der noch
+	 * enthaltenen Elemente, nicht zur Kapazitt.
+	 */
+	public void clear() {
+		for (int i = 0; i < size; i++) {
+			position[heap[i]] = -1;
+		}
+		size = 0;
+	}
+
+	private void siftUp(int i) {
+		int element = heap[i];
+		double p = priority[element];
+
+		while (i > 0) {
+			int parent = (i - 1) >>> 1;
+			if (priority[heap[parent]] <= p) {
+				break;
+			}
+			heap[i] = heap[parent];
+			position[heap[i]] = i;
+			i = parent;
+		}
+		heap[i] = element;
+		position[element] = i;
+	}
+
+	private void siftDown(int i) {
+		int element = heap[i];
+		double p = priority[element];
+
+		while (true) {
+			int child = 2 * i + 1;
+			if (child >= size) {
+				break;
+			}
+			if (child + 1 < size
+					&& priority[heap[child + 1]] < priority[heap[child]]) {
+				child++;
+			}
+			if (p <= priority[heap[child]]) {
+				break;
+			}
+			heap[i] = heap[child];
+			position[heap[i]] = i;
+			i = child;
+		}
+		heap[i] = element;
+		position[element] = i;
+	}
+}
@@ -1,11 +1,7 @@
 package com.kabu.graph.algorithm;
 
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
-
+import com.kabu.graph.CsrGraph;
 import com.kabu.graph.Graph;
-import com.kabu.graph.Vertex;
 
 /**
  * Algorithmus zur Bestimmung, ob ein Graph azaklisch ist. Basiert auf einer
@@ -22,59 +18,28 @@ public class IsAcyclic extends GraphAlgorithm {
 		return acyclic;
 	}
 
-	/**
-	 * Sucht nach Kreisen in dem Graphen, an denen die gegebene Ecke beteiligt
-	 * ist. Wird von execute() aufgerufen.
-	 */
-	protected boolean searchCycle(Vertex vertex, Set<Vertex> visited,
-			Set<Vertex> left) {
-
-		visited.add(vertex);
-
-		// Wir verwenden eine Tiefensuche, um nachzuprfen, ob wir ber
-		// die Nachbarn und deren Nachbarn, usw. wieder zu dieser Ecke
-		// zurckfinden knnen.
-		List<Vertex> neighbours = vertex.getNeighbours();
-
-		for (Vertex neighbour : neighbours) {
-			if (!visited.contains(neighbour)) {
-				// Rekursion
-				if (searchCycle(neighbour, visited, left) == true) {
-					return true;
-				}
-			} else {
-				if (!left.contains(neighbour)) {
-					// Zyklus gefunden!
-					return true;
-				}
-			}
-		}
-		// Speichern, dass wir bei dieser Ecke bereits waren
-		left.add(vertex);
-
-		// Bisher haben wir keinen Kreis gefunden
-		return false;
-	}
-
 	/**
 	 * Durchlaufe den Graphen mit Tiefensuche und teste ob von der Ausgangsecke
-	 * ber die Nachbarn ein zyklischer Weg mglich ist.
+	 * ber die Nachbarn ein zyklischer Weg mglich ist. Die Suche bricht ab,
+	 * sobald eine Kante zu einer Ecke fhrt, die noch auf dem Stack liegt.
 	 */
 	public void execute() {
-		Graph graph = getGraph();
+		CsrGraph csr = getGraph().toCsr();
+		final DepthFirstTraversal traversal = new DepthFirstTraversal(csr);
 
-		Set<Vertex> visited = new HashSet<Vertex>();
-		Set<Vertex> left = new HashSet<Vertex>();
+		acyclic = traversal.traverseAll(new DepthFirstVisitor() {
+			public boolean discover(int vertex) {
+				return true;
+			}
+
+			public boolean examineEdge(int from, int to) {
+				// Zyklus gefunden!
+				return traversal.getColor(to) != DepthFirstTraversal.GRAY;
+			}
 
-		for (Vertex vertex : graph.getVertices()) {
-			if (!visited.contains(vertex)) {
-				if (searchCycle(vertex, visited, left) == true) {
-					acyclic = false;
-					return;
-				}
+			public boolean finish(int vertex) {
+				return true;
 			}
-		}
-		
-		acyclic = true;
+		});
 	}
 }
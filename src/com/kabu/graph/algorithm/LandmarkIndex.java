@@ -0,0 +1,297 @@
+package com.kabu.graph.algorithm;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+import com.kabu.graph.CsrGraph;
+import com.kabu.graph.Graph;
+import com.kabu.graph.event.EdgeSetChangeEvent;
+import com.kabu.graph.event.EdgeSetChangeListener;
+import com.kabu.graph.event.VerticesChangeEvent;
+import com.kabu.graph.event.VerticesChangeListener;
+
+/**
+ * Landmarkenindex fr wiederholte Wegeanfragen (ALT: A*, Landmarken und
+ * Dreiecksungleichung). Fr einige ausgewhlte Ecken L (Landmarken) werden die
+ * Distanzen d(L,v) und d(v,L) zu smtlichen Ecken v einmalig berechnet. Aus der
+ * Dreiecksungleichung folgt fr jede Landmarke
+ *
+ * <pre>
+ * d(v,t) &gt;= d(L,t) - d(L,v)   und   d(v,t) &gt;= d(v,L) - d(t,L)
+ * </pre>
+ *
+ * Das Maximum dieser Schranken ist eine zulssige Schtzfunktion fr die
+ * A*-Suche (siehe PointToPointShortestPath.setHeuristic()), die die Anzahl
+ * der bearbeiteten Ecken gegenber Dijkstra meist deutlich verringert.
+ *
+ * Die Landmarken werden so gewhlt, dass jede neue Landmarke mglichst weit
+ * von den bisherigen entfernt liegt. Der Aufwand fr den Aufbau ist
+ * O(k*E*log V) bei k Landmarken, der Speicherbedarf 16*k*V Byte.
+ *
+ * Der Index speichert ausschlielich Eckennummern (siehe Graph.indexOf()) und
+ * ist serialisierbar. Nach dem Einlesen muss er mit attach() dem Graphen
+ * zugeordnet werden, aus dem er erzeugt wurde. Der Index merkt sich die
+ * Version des Graphen (siehe Graph.getVersion()): Nach jeder nderung, etwa
+ * dem Einfgen oder Entfernen von Kanten, dem Entfernen von Ecken oder einem
+ * genderten Kantengewicht, liefert isStale() true und die Schtzung ist nicht
+ * mehr zuverlssig. Da die Version nicht nach der Art der nderung
+ * unterscheidet, gilt dies auch fr genderte Labels. Einzig neu hinzugefgte
+ * Ecken werden ber die VerticesChange-Ereignisse erkannt und mit der
+ * Schtzung 0 behandelt.
+ */
+public class LandmarkIndex implements Heuristic, Serializable,
+		VerticesChangeListener, EdgeSetChangeListener {
+	private static final long serialVersionUID = 1L;
+
+	private int order = 0;
+	private int[] landmarks = null;
+	// from[i][v] = d(L_i,v), to[i][v] = d(v,L_i)
+	private double[][] from = null;
+	private double[][] to = null;
+
+	private transient Graph graph = null;
+	private transient volatile boolean stale = false;
+	// Version des Graphen, auf die sich der Index bezieht
+	private transient volatile long version = -1;
+
+	/**
+	 * Aufbau des Index mit der gegebenen Anzahl von Landmarken.
+	 *
+	 * @throws IllegalStateException
+	 *             wenn der Graph negative Kantengewichte enthlt.
+	 */
+	public LandmarkIndex(Graph graph, int landmarkCount) {
+		CsrGraph forward = prepare(graph);
+		CsrGraph backward = forward.transpose();
+
+		int count = Math.min(landmarkCount, order);
+		landmarks = new int[count];
+		from = new double[count][];
+		to = new double[count][];
+
+		// minimum[v] ist die Distanz von v zur nchstgelegenen Landmarke
+		double[] minimum = new double[order];
+		Arrays.fill(minimum, Double.POSITIVE_INFINITY);
+		IndexedHeap heap = new IndexedHeap(order);
+
+		// Die erste Landmarke ist die von Ecke 0 aus am weitesten entfernte
+		// erreichbare Ecke
+		if (count > 0) {
+			landmarks[0] = farthest(dijkstra(forward, 0, heap));
+		}
+
+		for (int i = 0; i < count; i++) {
+			if (i > 0) {
+				landmarks[i] = farthest(minimum);
+			}
+			from[i] = dijkstra(forward, landmarks[i], heap);
+			to[i] = dijkstra(backward, landmarks[i], heap);
+
+			for (int v = 0; v < order; v++) {
+				minimum[v] = Math.min(minimum[v],
+						Math.min(from[i][v], to[i][v]));
+			}
+		}
+
+		attach(graph);
+	}
+
+	/**
+	 * Aufbau des Index mit den gegebenen Landmarken (Eckennummern).
+	 *
+	 * @throws IllegalStateException
+	 *             wenn der Graph negative Kantengewichte enthlt.
+	 */
+	public LandmarkIndex(Graph graph, int[] landmarks) {
+		CsrGraph forward = prepare(graph);
+		CsrGraph backward = forward.transpose();
+		IndexedHeap heap = new IndexedHeap(order);
+
+		this.landmarks = landmarks.clone();
+		from = new double[landmarks.length][];
+		to = new double[landmarks.length][];
+
+		for (int i = 0; i < landmarks.length; i++) {
+			from[i] = dijkstra(forward, landmarks[i], heap);
+			to[i] = dijkstra(backward, landmarks[i], heap);
+		}
+
+		attach(graph);
+	}
+
+	private CsrGraph prepare(Graph graph) {
+		CsrGraph csr = graph.toCsr();
+
+		for (double weight : csr.getWeights()) {
+			if (weight < 0) {
+				throw new IllegalStateException(
+						"Der Graph enthlt negative Kantengewichte!");
+			}
+		}
+		order = csr.getOrder();
+
+		return csr;
+	}
+
+	/**
+	 * Distanzen von der gegebenen Ecke zu smtlichen Ecken nach Dijkstra.
+	 */
+	private double[] dijkstra(CsrGraph csr, int s, IndexedHeap heap) {
+		int[] offsets = csr.getOffsets();
+		int[] targets = csr.getTargets();
+		double[] weights = csr.getWeights();
+		double[] dist = new double[order];
+
+		Arrays.fill(dist, Double.POSITIVE_INFINITY);
+		dist[s] = 0;
+		heap.insertOrDecrease(s, 0);
+
+		while (!heap.isEmpty()) {
+			int u = heap.extractMin();
+
+			for (int pos = offsets[u]; pos < offsets[u + 1]; pos++) {
+				int v = targets[pos];
+				double candidate = dist[u] + weights[pos];
+
+				if (candidate < dist[v]) {
+					dist[v] = candidate;
+					heap.insertOrDecrease(v, candidate);
+				}
+			}
+		}
+
+		return dist;
+	}
+
+	/**
+	 * Nummer der Ecke mit dem grten Wert. Unendlich weit entfernte Ecken
+	 * liegen in einem Teil des Graphen, den die bisherigen Landmarken nicht
+	 * abdecken, und werden bevorzugt.
+	 */
+	private static int farthest(double[] dist) {
+		int result = 0;
+
+		for (int v = 1; v < dist.length; v++) {
+			if (dist[v] > dist[result]) {
+				result = v;
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Untere Schranke fr die Distanz von vertex nach target. Ist das Ziel
+	 * sicher nicht erreichbar, so wird Double.POSITIVE_INFINITY geliefert.
+	 */
+	public double estimate(int vertex, int target) {
+		if (vertex >= order || target >= order) {
+			return 0;
+		}
+
+		double result = 0;
+
+		for (int i = 0; i < landmarks.length; i++) {
+			double[] f = from[i];
+			double[] t = to[i];
+
+			// Ist nur einer der Werte unendlich, so ist auch d(vertex,target)
+			// unendlich. Sind beide unendlich, so ergibt sich keine Schranke.
+			double bound = f[target] - f[vertex];
+			if (bound > result) {
+				result = bound;
+			}
+
+			bound = t[vertex] - t[target];
+			if (bound > result) {
+				result = bound;
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Anzahl der Ecken des Graphen beim Aufbau des Index.
+	 */
+	public int getOrder() {
+		return order;
+	}
+
+	/**
+	 * Auslesen der Nummern der Landmarken. Das Array darf nicht verndert
+	 * werden.
+	 */
+	public int[] getLandmarks() {
+		return landmarks;
+	}
+
+	/**
+	 * Zuordnen des Index zu einem Graphen, dessen nderungen ihn ungltig
+	 * machen. Wird nach dem Einlesen eines serialisierten Index bentigt.
+	 *
+	 * @throws IllegalStateException
+	 *             wenn die Anzahl der Ecken nicht bereinstimmt.
+	 */
+	public void attach(Graph graph) {
+		if (graph.getOrder() != order) {
+			throw new IllegalStateException("Der Index gehrt zu einem Graphen mit "
+					+ order + " Ecken!");
+		}
+
+		detach();
+		this.graph = graph;
+		stale = false;
+		version = graph.getVersion();
+		graph.addVertexChangeListener(this);
+		graph.addEdgeSetChangeListener(this);
+	}
+
+	/**
+	 * Beenden der Beobachtung des Graphen.
+	 */
+	public void detach() {
+		if (graph != null) {
+			graph.removeVertexChangeListener(this);
+			graph.removeEdgeSetChangeListener(this);
+			graph = null;
+		}
+	}
+
+	/**
+	 * Auslesen, ob der Graph seit dem Aufbau bzw. seit attach() so verndert
+	 * wurde, dass die Schtzung unzulssig sein kann. Der Index sollte dann
+	 * neu aufgebaut werden. Nach einer nderung, die die Distanzen nicht
+	 * berhrt (z.B. eines Labels), kann ebenfalls true geliefert werden.
+	 */
+	public boolean isStale() {
+		Graph g = graph;
+
+		return stale || (g != null && g.getVersion() != version);
+	}
+
+	/* ************************************************************************
+	 * Event Management
+	 * ************************************************************************
+	 */
+
+	public void verticesChanged(VerticesChangeEvent e) {
+		// Entfernte Ecken verschieben die Nummern der brigen Ecken
+		if (!e.getRemovedVertices().isEmpty()) {
+			stale = true;
+			return;
+		}
+
+		// Jede neue Ecke erhht die Version um 1. Ist die Version darber
+		// hinaus gestiegen, so gab es weitere nderungen.
+		Graph g = graph;
+		if (g != null
+				&& g.getVersion() == version + e.getAddedVertices().size()) {
+			version = g.getVersion();
+		}
+	}
+
+	public void edgeSetChanged(EdgeSetChangeEvent e) {
+		stale = true;
+	}
+}
@@ -0,0 +1,384 @@
+package com.kabu.graph.algorithm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.kabu.graph.CsrGraph;
+import com.kabu.graph.Graph;
+import com.kabu.graph.Vertex;
+
+/**
+ * Berechnung eines krzesten Weges zwischen einer Start- und einer Zielecke.
+ * Anders als ShortestPath wird nicht der vollstndige kw-Baum bestimmt, sondern
+ * die Suche endet, sobald der krzeste Weg feststeht.
+ *
+ * Ohne Schtzfunktion wird der Algorithmus von Dijkstra gleichzeitig von der
+ * Startecke in Kantenrichtung und von der Zielecke entgegen der Kantenrichtung
+ * ausgefhrt. Es wird jeweils die Suche fortgesetzt, deren nchste Ecke nher
+ * liegt. Sobald die Summe der beiden geringsten vorlufigen Distanzen den
+ * bisher krzesten Weg ber eine Ecke beider Suchen erreicht, ist dieser
+ * optimal.
+ *
+ * Mit Schtzfunktion (siehe setHeuristic()) wird die A*-Suche verwendet: Ecken
+ * werden nach der Summe aus ihrer Distanz zum Start und der geschtzten Distanz
+ * zum Ziel bearbeitet. Die Suche endet, sobald die Zielecke bearbeitet wird.
+ *
+ * Smtliche Kantengewichte mssen grer oder gleich 0 sein.
+ *
+ * Fr wiederholte Anfragen wird die CSR-Darstellung des Graphen nur beim
+ * ersten Aufruf von execute() und nach nderungen am Graphen (siehe
+ * Graph.getVersion()) erzeugt. Die Arrays werden ebenfalls wiederverwendet, so
+ * dass der Aufwand einer Anfrage nur von der Anzahl der betretenen Ecken
+ * abhngt.
+ */
+public class PointToPointShortestPath extends GraphAlgorithm {
+	private Vertex start = null;
+	private Vertex target = null;
+	private Heuristic heuristic = null;
+
+	// CSR-Darstellung des Graphen und seiner umgekehrten Kanten
+	private CsrGraph forward = null;
+	private CsrGraph backward = null;
+	private long version = -1;
+
+	// Distanzen und Vorgnger beider Suchen. Die Eintrge einer Ecke sind nur
+	// gltig, wenn ihr Stempel der Nummer der aktuellen Anfrage entspricht.
+	private double[] distF = null, distB = null;
+	private int[] predF = null, predB = null;
+	private int[] stampF = null, stampB = null;
+	private int query = 0;
+	private IndexedHeap heapF = null, heapB = null;
+
+	// Ergebnis der letzten Anfrage
+	private int[] path = new int[0];
+	private double cost = Double.POSITIVE_INFINITY;
+	private int settled = 0;
+
+	public PointToPointShortestPath(Graph g) {
+		super(g);
+	}
+
+	public void setStart(Vertex start) {
+		this.start = start;
+	}
+
+	public void setTarget(Vertex target) {
+		this.target = target;
+	}
+
+	public Heuristic getHeuristic() {
+		return heuristic;
+	}
+
+	/**
+	 * Festlegen der Schtzfunktion fr die A*-Suche. Mit null wird die
+	 * bidirektionale Suche nach Dijkstra verwendet.
+	 */
+	public void setHeuristic(Heuristic heuristic) {
+		this.heuristic = heuristic;
+	}
+
+	/**
+	 * Verwerfen der CSR-Darstellung. nderungen am Graphen werden anhand
+	 * seiner Version auch ohne Aufruf erkannt.
+	 */
+	public void reset() {
+		forward = null;
+		backward = null;
+	}
+
+	/**
+	 * Ausfhren der Suche. Wenn Start- oder Zielecke nicht gesetzt wurden, so
+	 * erfolgt keine Aktion.
+	 *
+	 * @throws IllegalStateException
+	 *             wenn der Graph negative Kantengewichte enthlt.
+	 */
+	public void execute() {
+		if (start == null || target == null) {
+			return;
+		}
+
+		prepare();
+
+		path = new int[0];
+		cost = Double.POSITIVE_INFINITY;
+		settled = 0;
+
+		int s = getGraph().indexOf(start);
+		int t = getGraph().indexOf(target);
+
+		if (s < 0 || t < 0 || s >= forward.getOrder()
+				|| t >= forward.getOrder()) {
+			return;
+		}
+
+		// Nach 2^31 Anfragen beginnen die Stempel von vorn
+		if (++query == Integer.MAX_VALUE) {
+			Arrays.fill(stampF, 0);
+			Arrays.fill(stampB, 0);
+			query = 1;
+		}
+
+		if (heuristic == null) {
+			bidirectional(s, t);
+		} else {
+			aStar(s, t);
+		}
+
+		if (isTracing()) {
+			trace("Kosten " + cost + ", " + settled + " Ecken bearbeitet");
+		}
+	}
+
+	private void prepare() {
+		if (forward != null && version == getGraph().getVersion()) {
+			return;
+		}
+
+		version = getGraph().getVersion();
+		forward = getGraph().toCsr();
+
+		for (double weight : forward.getWeights()) {
+			if (weight < 0) {
+				forward = null;
+				throw new IllegalStateException(
+						"Der Graph enthlt negative Kantengewichte!");
+			}
+		}
+
+		int n = forward.getOrder();
+		if (distF == null || distF.length < n) {
+			distF = new double[n];
+			distB = new double[n];
+			predF = new int[n];
+			predB = new int[n];
+			stampF = new int[n];
+			stampB = new int[n];
+			heapF = new IndexedHeap(n);
+			heapB = new IndexedHeap(n);
+			query = 0;
+		}
+		backward = null;
+	}
+
+	private double distF(int v) {
+		return stampF[v] == query ? distF[v] : Double.POSITIVE_INFINITY;
+	}
+
+	private double distB(int v) {
+		return stampB[v] == query ? distB[v] : Double.POSITIVE_INFINITY;
+	}
+
+	/**
+	 * Bidirektionale Suche nach Dijkstra.
+	 */
+	private void bidirectional(int s, int t) {
+		if (backward == null) {
+			backward = forward.transpose();
+		}
+
+		heapF.clear();
+		heapB.clear();
+
+		stampF[s] = query;
+		distF[s] = 0;
+		predF[s] = -1;
+		heapF.insertOrDecrease(s, 0);
+
+		stampB[t] = query;
+		distB[t] = 0;
+		predB[t] = -1;
+		heapB.insertOrDecrease(t, 0);
+
+		// Lnge des krzesten bisher gefundenen Weges und die Ecke, in der sich
+		// beide Suchen auf ihm treffen
+		double best = s == t ? 0 : Double.POSITIVE_INFINITY;
+		int meet = s == t ? s : -1;
+
+		while (!heapF.isEmpty() && !heapB.isEmpty()) {
+			double topF = heapF.peekMinPriority();
+			double topB = heapB.peekMinPriority();
+
+			if (topF + topB >= best) {
+				break;
+			}
+
+			boolean forwardStep = topF <= topB;
+			CsrGraph csr = forwardStep ? forward : backward;
+			IndexedHeap heap = forwardStep ? heapF : heapB;
+			double[] dist = forwardStep ? distF : distB;
+			int[] pred = forwardStep ? predF : predB;
+			int[] stamp = forwardStep ? stampF : stampB;
+			int[] offsets = csr.getOffsets();
+			int[] targets = csr.getTargets();
+			double[] weights = csr.getWeights();
+
+			int u = heap.extractMin();
+			double du = dist[u];
+			settled++;
+
+			for (int pos = offsets[u]; pos < offsets[u + 1]; pos++) {
+				int v = targets[pos];
+				double candidate = du + weights[pos];
+
+				if (stamp[v] != query || candidate < dist[v]) {
+					stamp[v] = query;
+					dist[v] = candidate;
+					pred[v] = u;
+					heap.insertOrDecrease(v, candidate);
+				}
+
+				// Hat die andere Suche v bereits erreicht, so ergibt sich ein
+				// Weg von s nach t
+				double other = forwardStep ? distB(v) : distF(v);
+				if (dist[v] + other < best) {
+					best = dist[v] + other;
+					meet = v;
+				}
+			}
+		}
+
+		if (meet < 0) {
+			return;
+		}
+
+		// Weg vom Start bis zum Treffpunkt und vom Treffpunkt bis zum Ziel
+		int length = 0;
+		for (int v = meet; v >= 0; v = predF[v]) {
+			length++;
+		}
+		for (int v = predB[meet]; v >= 0 && meet != t; v = predB[v]) {
+			length++;
+		}
+
+		path = new int[length];
+		int i = 0;
+		for (int v = meet; v >= 0; v = predF[v]) {
+			path[i++] = v;
+		}
+		reverse(path, i);
+		if (meet != t) {
+			for (int v = predB[meet]; v >= 0; v = predB[v]) {
+				path[i++] = v;
+			}
+		}
+
+		cost = best;
+	}
+
+	/**
+	 * A*-Suche mit der gesetzten Schtzfunktion. Eine bereits bearbeitete Ecke
+	 * wird erneut in den Heap aufgenommen, wenn sich ihre Distanz noch einmal
+	 * verkrzt. Daher gengt eine zulssige Schtzfunktion.
+	 */
+	private void aStar(int s, int t) {
+		int[] offsets = forward.getOffsets();
+		int[] targets = forward.getTargets();
+		double[] weights = forward.getWeights();
+
+		heapF.clear();
+
+		stampF[s] = query;
+		distF[s] = 0;
+		predF[s] = -1;
+		heapF.insertOrDecrease(s, heuristic.estimate(s, t));
+
+		while (!heapF.isEmpty()) {
+			int u = heapF.extractMin();
+			settled++;
+
+			if (u == t) {
+				break;
+			}
+
+			double du = distF[u];
+
+			for (int pos = offsets[u]; pos < offsets[u + 1]; pos++) {
+				int v = targets[pos];
+				double candidate = du + weights[pos];
+
+				if (stampF[v] != query || candidate < distF[v]) {
+					stampF[v] = query;
+					distF[v] = candidate;
+					predF[v] = u;
+					heapF.insertOrDecrease(v,
+							candidate + heuristic.estimate(v, t));
+				}
+			}
+		}
+
+		if (stampF[t] != query) {
+			return;
+		}
+
+		int length = 0;
+		for (int v = t; v >= 0; v = predF[v]) {
+			length++;
+		}
+
+		path = new int[length];
+		int i = 0;
+		for (int v = t; v >= 0; v = predF[v]) {
+			path[i++] = v;
+		}
+		reverse(path, i);
+
+		cost = distF[t];
+	}
+
+	private static void reverse(int[] array, int length) {
+		for (int i = 0, j = length - 1; i < j; i++, j--) {
+			int swap = array[i];
+			array[i] = array[j];
+			array[j] = swap;
+		}
+	}
+
+	/**
+	 * Auslesen des gefundenen Weges als Folge von Eckennummern einschlielich
+	 * Start- und Zielecke.
+	 *
+	 * @return die Nummern oder ein leeres Array, wenn das Ziel nicht erreichbar
+	 *         ist. Das Array darf nicht verndert werden.
+	 */
+	public int[] getPathIndices() {
+		return path;
+	}
+
+	/**
+	 * Auslesen des gefundenen Weges als Folge von Ecken einschlielich Start-
+	 * und Zielecke.
+	 *
+	 * @return die Ecken oder eine leere Liste, wenn das Ziel nicht erreichbar
+	 *         ist.
+	 */
+	public List<Vertex> getPath() {
+		List<Vertex> result = new ArrayList<Vertex>(path.length);
+
+		for (int v : path) {
+			result.add(forward.getVertex(v));
+		}
+
+		return result;
+	}
+
+	/**
+	 * Auslesen der Lnge des gefundenen Weges.
+	 *
+	 * @return die Lnge oder Double.POSITIVE_INFINITY, wenn das Ziel nicht
+	 *         erreichbar ist.
+	 */
+	public double getCost() {
+		return cost;
+	}
+
+	/**
+	 * Anzahl der Ecken, die bei der letzten Anfrage aus dem Heap entnommen
+	 * wurden. Ein Ma fr den Aufwand der Suche.
+	 */
+	public int getSettledCount() {
+		return settled;
+	}
+}
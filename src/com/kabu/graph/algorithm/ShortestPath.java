@@ -1,28 +1,66 @@
 package com.kabu.graph.algorithm;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
 
-import com.kabu.graph.Edge;
+import com.kabu.graph.CsrGraph;
 import com.kabu.graph.Graph;
+import com.kabu.graph.GraphBuilder;
+import com.kabu.graph.TypeHierarchy;
 import com.kabu.graph.Vertex;
 
 /**
  * Berechnung der krzesten Wege von einer Startecke zu smtlichen anderen Ecken
- * des Graphs. Der Algorithmus basiert auf den Bellman'schen Gleichungen und ist
- * daher nur fr kantenbewertete Graphen geeignet, bei denen die Lnge jedes
- * geschlossenen Kantenzugs grer oder gleich 0 ist.
+ * des Graphs. Der Algorithmus basiert auf den Bellman'schen Gleichungen.
+ * 
+ * Sind smtliche Kantengewichte nicht negativ, so wird automatisch der
+ * Algorithmus von Dijkstra mit einem indizierten Heap verwendet. Andernfalls
+ * kommt der Algorithmus von Bellman-Ford mit einer Warteschlange genderter
+ * Ecken zum Einsatz (O(V*E)). Ist von der Startecke aus ein geschlossener
+ * Kantenzug negativer Lnge erreichbar, so existieren keine krzesten Wege. In
+ * diesem Fall bricht der Algorithmus ab und liefert den gefundenen Kreis ber
+ * getNegativeCycle().
+ * 
+ * Ist der Graph azyklisch, so werden die Kanten stattdessen in topologischer
+ * Reihenfolge bearbeitet (siehe DagShortestPath), was O(V+E) erfordert. Dies
+ * wird bei negativen Kantengewichten vor Bellman-Ford sowie fr jede
+ * TypeHierarchy geprft.
+ * 
+ * Das Ergebnis wird als Distanz- und Vorgngertabelle ber den Nummern der
+ * Ecken (siehe Graph.indexOf()) bereitgestellt. getDistance(), getPredecessor()
+ * und pathTo() lesen diese Tabellen direkt aus. Die Darstellungen als Graph
+ * (getDistances() und getShortestPathsTree()) werden erst bei Bedarf erzeugt
+ * und verwenden eigene Ecken, so dass die Ecken des ursprnglichen Graphen
+ * unverndert bleiben.
  */
 public class ShortestPath extends GraphAlgorithm {
-	// d[i] enthlt eine obere Grenze fr die Distanz d(start,i) zwischen der
-	// Startecke start und der Ecke i.
-	private Map<Vertex, Double> d = null;
-	// predecessor[i] enthlt die Vorgnger der Ecke i im zugehrigen
-	// krzesten-Wege-Baum (kurz: kw-Baum).
-	private Map<Vertex, Vertex> predecessor = null;
 	private Vertex start = null;
+	private int startIndex = -1;
+	// Ein von der Startecke aus erreichbarer Kreis negativer Lnge, falls
+	// vorhanden. Die Ecken sind in Richtung der Kanten angeordnet.
+	private List<Vertex> negativeCycle = new ArrayList<Vertex>();
+
+	// CSR-Darstellung des Graphen. Die Kanten der Ecke i liegen in den
+	// Positionen offsets[i] bis offsets[i+1]-1 von targets und weights. Nach
+	// der Berechnung wird nur noch die Zuordnung der Nummern zu den Ecken
+	// bentigt.
+	private CsrGraph csr = null;
+	private int[] offsets = null;
+	private int[] targets = null;
+	private double[] weights = null;
+
+	// dist[i] enthlt eine obere Grenze fr die Distanz d(start,i) zwischen der
+	// Startecke start und der Ecke i, nach der Berechnung die Distanz selbst.
+	private double[] dist = null;
+	// pred[i] enthlt den Vorgnger der Ecke i im zugehrigen
+	// krzesten-Wege-Baum (kurz: kw-Baum) oder -1.
+	private int[] pred = null;
+
+	// Bei Bedarf erzeugte Darstellungen des Ergebnisses als Graph
+	private Graph spTree = null;
+	private Graph distanceGraph = null;
 
 	public ShortestPath(Graph g) {
 		super(g);
@@ -31,256 +69,410 @@ public class ShortestPath extends GraphAlgorithm {
 	/**
 	 * Initialisierung des Algorithmus.
 	 * 
-	 * Anlegen der Distanzzabelle Anlegen der Vorgngertabelle (stellt spter
-	 * den kw-Baum dar) Vorbelegung der Distanztabelle, so dass smtliche Knoten
-	 * unendlich weit von dem Startknoten entfernt sind.
+	 * Der Graph wird einmalig in seine CSR-Darstellung berfhrt, so dass
+	 * Distanzen und Vorgnger in primitiven Arrays verwaltet werden knnen, die
+	 * ber die Nummern der Ecken indiziert sind. Smtliche Ecken sind zu Beginn
+	 * unendlich weit von der Startecke entfernt und besitzen keinen Vorgnger.
 	 * 
-	 * Ausnahme: Der Startknoten ist von sich selbst 0 Einheiten entfernt.
-	 * 
-	 * Vorbelegung der Vorgngertabelle, so dass jeder Knoten zu Beginn keinen
-	 * Vorgnger besitzt.
+	 * @return die Nummer der Startecke oder -1, wenn sie nicht zum Graphen
+	 *         gehrt.
 	 */
-	private void initSP(Vertex start) {
-		d = new HashMap<Vertex, Double>(getGraph().getOrder());
-		predecessor = new HashMap<Vertex, Vertex>(getGraph().getOrder());
+	private int initSP(Vertex start) {
+		csr = getGraph().toCsr();
+		offsets = csr.getOffsets();
+		targets = csr.getTargets();
+		weights = csr.getWeights();
+
+		int n = csr.getOrder();
+		dist = new double[n];
+		pred = new int[n];
+		Arrays.fill(dist, Double.POSITIVE_INFINITY);
+		Arrays.fill(pred, -1);
+
+		int s = getGraph().indexOf(start);
+		if (s >= 0) {
+			dist[s] = 0;
+		}
 
-		List<Vertex> vertices = getGraph().getVertices();
+		return s;
+	}
 
-		for (Vertex vertex : vertices) {
-			if (vertex != start) {
-				d.put(vertex, new Double(Double.POSITIVE_INFINITY));
-			} else {
-				d.put(vertex, new Double(0));
-			}
+	/**
+	 * Freigeben der Arrays, die nur whrend der Berechnung bentigt werden.
+	 * Distanzen und Vorgnger bleiben als Ergebnis erhalten.
+	 */
+	private void finishSP() {
+		offsets = null;
+		targets = null;
+		weights = null;
+	}
 
-			predecessor.put(vertex, null);
+	/**
+	 * Prft, ob der Graph Kanten mit negativem Gewicht enthlt. Nur wenn dies
+	 * nicht der Fall ist, darf der Algorithmus von Dijkstra verwendet werden.
+	 */
+	private boolean hasNegativeWeights() {
+		for (double weight : weights) {
+			if (weight < 0) {
+				return true;
+			}
 		}
+
+		return false;
 	}
 
 	/**
-	 * Entscheidet ber die Verwendbarkeit einer Ecke, um die in der
-	 * Distanztabelle gespeicherten Werte zu optimieren.
+	 * Berechnung einer topologischen Sortierung der Ecken.
 	 * 
-	 * @param v
-	 *            Die Ecke, ber deren Verwendbarkeit entschieden werden soll.
-	 * @return true, wenn d[i]+b[i,j]<d[j], mit b[i,j] als geringstes
-	 *         Kantengewicht zwischen i und j.
+	 * @return die Nummern der Ecken in topologischer Reihenfolge oder null,
+	 *         wenn der Graph einen Kreis enthlt.
 	 */
-	private boolean usable(Vertex v) {
-		List<Vertex> neighbours = v.getNeighbours();
+	private int[] topologicalOrder() {
+		int[] order = new int[dist.length];
 
-		for (Vertex nb : neighbours) {
-			Double temp = (Double) d.get(v);
-			double d1 = temp.doubleValue();
-			temp = (Double) d.get(nb);
-			double d2 = temp.doubleValue();
+		return TopologicalSort.sort(csr, order) == order.length ? order
+				: null;
+	}
 
-			// Wir interessieren uns nur fr die gnstigste - also krzeste -
-			// Kante
-			Edge e12 = getShortestEdgeBetween(v, nb);
+	/**
+	 * Berechnung der krzesten Wege nach Dijkstra. Voraussetzung ist, dass
+	 * smtliche Kantengewichte grer oder gleich 0 sind. Die Ecke mit der
+	 * geringsten vorlufigen Distanz liefert ein indizierter Heap.
+	 * 
+	 * @param s
+	 *            Nummer der Startecke
+	 */
+	private void dijkstra(int s) {
+		IndexedHeap heap = new IndexedHeap(dist.length);
 
-			// Trgt sie zur Optmierung bei?
-			if (d1 + e12.getWeight() < d2) {
-				return true;
+		heap.insertOrDecrease(s, 0);
+
+		// Die Ecke mit der geringsten Distanz ist endgltig bestimmt. ber ihre
+		// Kanten versuchen wir die Distanzen ihrer Nachbarn zu verkrzen.
+		while (!heap.isEmpty()) {
+			int u = heap.extractMin();
+
+			for (int pos = offsets[u]; pos < offsets[u + 1]; pos++) {
+				int v = targets[pos];
+				double candidate = dist[u] + weights[pos];
+
+				if (candidate < dist[v]) {
+					dist[v] = candidate;
+					pred[v] = u;
+					heap.insertOrDecrease(v, candidate);
+				}
 			}
 		}
-		// v bietet uns keine Kanten zur Optimierung an, also ist sie
-		// uninteressant. Wir signalisieren dies durch den Rckgabewert false
-
-		return false;
 	}
 
 	/**
-	 * Berechne die zur Wegoptimierung verwendbaren Ecken.
+	 * Berechnung der krzesten Wege nach Bellman-Ford. Statt in jeder Runde
+	 * smtliche Ecken zu prfen, werden nur die Ecken in einer Warteschlange
+	 * verwaltet, deren Distanz sich in der vorigen Runde verkrzt hat. Ist die
+	 * Warteschlange leer, so ist der Algorithmus vorzeitig fertig.
 	 * 
-	 * @see #usable(Vertex v)
+	 * Ohne Kreise negativer Lnge ist die Warteschlange sptestens nach n-1
+	 * Runden leer. Um einen solchen Kreis schnell zu finden, wird zudem nach je
+	 * n Verkrzungen der Vorgngergraph auf Kreise untersucht. Jeder Kreis im
+	 * Vorgngergraphen hat negative Lnge.
+	 * 
+	 * @param s
+	 *            Nummer der Startecke
+	 * @return true, wenn krzeste Wege existieren. false, wenn ein Kreis
+	 *         negativer Lnge gefunden wurde.
 	 */
-	private List<Vertex> getUsableVertices() {
-		List<Vertex> vertices = getGraph().getVertices();
-		List<Vertex> result = new ArrayList<Vertex>();
+	private boolean bellmanFord(int s) {
+		int n = dist.length;
+		int[] queue = new int[n];
+		boolean[] queued = new boolean[n];
+		int first = 0, size = 0;
+
+		queue[0] = s;
+		queued[s] = true;
+		size = 1;
+
+		int round = 0;
+		int remainingInRound = 1;
+		int relaxations = 0;
+
+		while (size > 0) {
+			int u = queue[first];
+			first = (first + 1) % n;
+			size--;
+			queued[u] = false;
+
+			for (int pos = offsets[u]; pos < offsets[u + 1]; pos++) {
+				int v = targets[pos];
+				double candidate = dist[u] + weights[pos];
+
+				if (candidate < dist[v]) {
+					dist[v] = candidate;
+					pred[v] = u;
+
+					if (!queued[v]) {
+						queue[(first + size) % n] = v;
+						queued[v] = true;
+						size++;
+					}
+
+					if (++relaxations % n == 0 && findNegativeCycle()) {
+						return false;
+					}
+				}
+			}
 
-		for (Vertex vertex : vertices) {
-			if (usable(vertex)) {
-				result.add(vertex);
+			// Eine Runde ist beendet, wenn smtliche Ecken, die zu ihrem Beginn
+			// in der Warteschlange standen, abgearbeitet wurden.
+			if (--remainingInRound == 0) {
+				round++;
+				remainingInRound = size;
+
+				// Nach n Runden gibt es noch Verkrzungen: Es muss ein Kreis
+				// negativer Lnge existieren.
+				if (round >= n && size > 0 && findNegativeCycle()) {
+					return false;
+				}
 			}
 		}
 
-		return result;
+		return true;
 	}
 
 	/**
-	 * Berechnung der krzesten Kante zwischen zwei gegebenen Ecken. Die
-	 * krzeste Kante ist diejenige mit dem geringsten Kantengewicht.
+	 * Sucht einen Kreis im Vorgngergraphen, also in dem Graphen aus den Kanten
+	 * (pred[v],v). Ein gefundener Kreis wird in negativeCycle abgelegt.
 	 * 
-	 * Dies im Falle von Multigraphen (Graphen bei denen Ecken mit mehr als
-	 * einer Kante verbunden sein knnen) wichtig.
+	 * Jede Ecke wird hchstens einmal betreten, der Aufwand ist daher O(V).
 	 */
-	private Edge getShortestEdgeBetween(Vertex v1, Vertex v2) {
-		List<Edge> edges = getGraph().getEdges(v1, v2);
-
-		// Wir gehen zunchst davon aus, dass ein undendliches Kantengewicht
-		// vorliegt
-		double minWeight = Double.POSITIVE_INFINITY;
-		Edge result = null;
-
-		for (Edge e : edges) {
-			/*
-			 * Ist das Gewicht der aktuellen Kante niedriger als das bisher
-			 * geringste Gewicht zwischen v1 und v2, so registrieren wir diese
-			 * aktuelle Kante als neue optimale Kante und merken uns ihr
-			 * Gewicht.
-			 */
-			if (e.getWeight() < minWeight) {
-				minWeight = e.getWeight();
-				result = e;
+	private boolean findNegativeCycle() {
+		int n = pred.length;
+		// walk[v] enthlt die Nummer des Durchlaufs, in dem v betreten wurde
+		int[] walk = new int[n];
+
+		for (int i = 0; i < n; i++) {
+			int v = i;
+
+			// Vorgngern folgen, bis wir auf eine bereits bekannte Ecke stoen
+			while (v >= 0 && walk[v] == 0) {
+				walk[v] = i + 1;
+				v = pred[v];
+			}
+
+			// In diesem Durchlauf bereits betreten: Kreis gefunden!
+			if (v >= 0 && walk[v] == i + 1) {
+				negativeCycle = new ArrayList<Vertex>();
+
+				int u = v;
+				do {
+					negativeCycle.add(csr.getVertex(u));
+					u = pred[u];
+				} while (u != v);
+
+				// Die Vorgnger liefern den Kreis entgegen der Kantenrichtung
+				Collections.reverse(negativeCycle);
+
+				return true;
 			}
 		}
 
-		return result;
+		return false;
+	}
+
+	public void setStart(Vertex start) {
+		this.start = start;
 	}
 
 	/**
-	 * Verkrzen der bisher registrierten minimalen Entfernung zwischen den
-	 * Ecken v1 unnd v2.
+	 * Auslesen der Distanz der gegebenen Ecke von der Startecke.
+	 * 
+	 * @return die Distanz oder Double.POSITIVE_INFINITY, wenn die Ecke nicht
+	 *         erreichbar ist. Sollte erst nach execute() aufgerufen werden.
 	 */
-	private void shorten(Vertex v1, Vertex v2) {
-		// Auslesen der bisherigen optimalen Entfernung zwischen jeweils der
-		// Startecke und v1 und v2
-		double d1 = d.get(v1).doubleValue();
-		double d2 = d.get(v2).doubleValue();
-
-		// Berechnen der gnstigsten Kante zwischen v1 und v2.
-		Edge e12 = getShortestEdgeBetween(v1, v2);
-
-		/*
-		 * Wenn die Kante e12 zwischen v1 und v2 dazu fhrt, das v2 gnstiger
-		 * als bisher von der Startecke erreicht werden kann, so mssen wir den
-		 * krzesten Weg zu v2 verkrzen (in der Distanztabelle) und v1 ist
-		 * neuer Vorgnger von v2.
-		 */
-		if (d1 + e12.getWeight() < d2) {
-			d.remove(v2);
-			d.put(v2, new Double(d1 + e12.getWeight()));
-			predecessor.remove(v2);
-			predecessor.put(v2, v1);
-		}
+	public double getDistance(Vertex vertex) {
+		int v = getGraph().indexOf(vertex);
+
+		return v >= 0 && v < dist.length ? dist[v] : Double.POSITIVE_INFINITY;
 	}
 
 	/**
-	 * Ausgangspunkt des Algorithmus zur Berechnung der krzesten Wege. Hier
-	 * wird zum einen die Initialisierung der Hilfs-Datenstrukturen
-	 * initSP(Vertex v) ausgelst. Zum anderen erfolgt hier ein Aufruf der
-	 * Methode shorten(Vertex v1, Vertex v2), solange Ecken gefunden werden
-	 * knnen, die einen vielversprechenden Beitrag zur Optimierung bieten
-	 * knnen.
+	 * Auslesen des Vorgngers der gegebenen Ecke im kw-Baum.
 	 * 
-	 * @param start
-	 *            Startecke
-	 * @see #initSP(Vertex v)
-	 * @see #shorten(Vertex v1, Vertex v2)
+	 * @return der Vorgnger oder null fr die Startecke und nicht erreichbare
+	 *         Ecken. Sollte erst nach execute() aufgerufen werden.
 	 */
-	private void bellman(Vertex start) {
-		// Hilfs-Datenstrukturen vorbereiten
-		initSP(start);
-
-		// Welche Ecken helfen uns weiter?
-		List<Vertex> usableVertices = getUsableVertices();
-
-		// Solange wir Ecken finden, die uns weiterhelfen, ...
-		while (usableVertices.size() > 0) {
-			// ... versuchen wir die Entfernung zwischen ihnen und ihren
-			// Nachbarn zu verkrzen
-			for (Vertex usableVertex : usableVertices) {
-				List<Vertex> neighbours = usableVertex.getNeighbours();
-
-				for (Vertex neighbour : neighbours) {
-					shorten(usableVertex, neighbour);
-				}
-			}
-			// Ntzliche Ecken fr den nchsten while-Durchlauf berechnen
-			usableVertices = getUsableVertices();
+	public Vertex getPredecessor(Vertex vertex) {
+		int v = getGraph().indexOf(vertex);
+
+		if (v < 0 || v >= pred.length || pred[v] < 0) {
+			return null;
 		}
+
+		return csr.getVertex(pred[v]);
 	}
 
-	public void setStart(Vertex start) {
-		this.start = start;
+	/**
+	 * Auslesen der Distanztabelle. Die Distanz der Ecke mit der Nummer i (siehe
+	 * Graph.indexOf()) steht an Position i. Das Array darf nicht verndert
+	 * werden.
+	 */
+	public double[] getDistanceArray() {
+		return dist;
 	}
 
-	public Graph getShortestPathsTree() {
-		// Einen leeren Graphen anlegen
-		// spTree wird aufgebaut, indem die Vorgngertabelle transformiert wird
-		Graph spTree = new Graph();
-
-		// Wir durchlaufen nun die Vorgngertabelle und legen in spTree zunchst
-		// die Ecken an
-		// Diese befinden sich als Key in der Vorgngertabelle
-		for (Vertex v : predecessor.keySet()) {
-			// Knoten in den spTree eintragen
-			spTree.addVertex(v);
+	/**
+	 * Auslesen der Vorgngertabelle. An Position i steht die Nummer des
+	 * Vorgngers der Ecke i im kw-Baum oder -1. Das Array darf nicht verndert
+	 * werden.
+	 */
+	public int[] getPredecessorArray() {
+		return pred;
+	}
+
+	/**
+	 * Auslesen des krzesten Weges von der Startecke zur gegebenen Ecke
+	 * anhand der Vorgngertabelle.
+	 * 
+	 * @return die Ecken des Weges einschlielich Start- und Zielecke oder eine
+	 *         leere Liste, wenn die Ecke nicht erreichbar ist.
+	 */
+	public List<Vertex> pathTo(Vertex vertex) {
+		List<Vertex> path = new ArrayList<Vertex>();
+		int v = getGraph().indexOf(vertex);
+
+		if (v < 0 || v >= dist.length || dist[v] == Double.POSITIVE_INFINITY) {
+			return path;
+		}
+
+		// Bei Kreisen negativer Lnge knnen die Vorgnger einen Kreis bilden
+		while (v >= 0 && path.size() < pred.length) {
+			path.add(csr.getVertex(v));
+			v = pred[v];
 		}
+		Collections.reverse(path);
 
-		/*
-		 * Nun durchlaufen wir die Vorgngertabelle und legen in spTree
-		 * entsprechende Kanten an. Eine Kante entspricht einem Key-Value-Pair
-		 * aus der Vorgngertabelle.
-		 */
-		for (Map.Entry<Vertex, Vertex> entry : predecessor.entrySet()) {
-			Vertex v1 = entry.getKey();
-			Vertex v2 = entry.getValue();
-
-			if (v1 != null && v2 != null) {
-				spTree.connect(v2, v1);
+		return path;
+	}
+
+	/**
+	 * Darstellung des kw-Baums als Graph. Der Graph wird beim ersten Aufruf
+	 * erzeugt. Er besitzt eigene Ecken mit denselben Labels und Nummern wie
+	 * die Ecken des ursprnglichen Graphen sowie eine Kante vom Vorgnger zu
+	 * jeder erreichten Ecke auer der Startecke.
+	 * 
+	 * @return der kw-Baum. Sollte erst nach execute() aufgerufen werden.
+	 */
+	public Graph getShortestPathsTree() {
+		if (spTree == null) {
+			GraphBuilder builder = createCopyOfVertices();
+			List<Vertex> vertices = builder.getGraph().getVertices();
+
+			for (int v = 0; v < pred.length; v++) {
+				if (pred[v] >= 0) {
+					builder.addEdge(vertices.get(pred[v]), vertices.get(v), 1);
+				}
 			}
+
+			spTree = builder.build();
 		}
-		// Schlielich haben wir den kw-Baum erstellt
+
 		return spTree;
 	}
 
 	/**
-	 * Auslesen der Distanztabelle und Darstellung als Graph.
+	 * Darstellung der Distanztabelle als Graph. Der Graph wird beim ersten
+	 * Aufruf erzeugt. Er besitzt eigene Ecken mit denselben Labels und
+	 * Nummern wie die Ecken des ursprnglichen Graphen sowie fr jede Ecke
+	 * eine Kante von der Startecke, deren Gewicht die Distanz ist.
 	 * 
 	 * @return Graph, der die Distanztabelle darstellt. Sollte erst nach
 	 *         execute() aufgerufen werden.
 	 */
 	public Graph getDistances() {
-		/*
-		 * Einen leeren Graphen anlegen. distG wird aufgebaut, indem die
-		 * Distanztabelle transformiert wird.
-		 */
-		Graph distG = new Graph();
-
-		/*
-		 * Wir durchlaufen nun die Distanztabelle und legen in distG zunchst
-		 * die Ecken an. Diese befinden sich als Key in der Distanztabelle.
-		 */
-		for (Vertex vertex : d.keySet()) {
-			distG.addVertex(vertex);
+		if (distanceGraph == null) {
+			GraphBuilder builder = createCopyOfVertices();
+			List<Vertex> vertices = builder.getGraph().getVertices();
+			for (int v = 0; startIndex >= 0 && v < dist.length; v++) {
+				builder.addEdge(vertices.get(startIndex), vertices.get(v),
+						dist[v]);
+			}
+
+			distanceGraph = builder.build();
 		}
 
-		/*
-		 * Nun durchlaufen wir die Distanztabelle und legen in distG
-		 * entsprechende Kanten an. Eine Kante entspricht einem Key-Value-Pair
-		 * aus der Distanztabelle.
-		 */
-		for (Map.Entry<Vertex, Double> entry : d.entrySet()) {
-			Vertex v = (Vertex) entry.getKey();
-			Double distance = (Double) entry.getValue();
-			distG.connect(start, v, "", distance.doubleValue());
+		return distanceGraph;
+	}
+
+	/**
+	 * Anlegen eines neuen Graphen mit Kopien der Ecken.
+	 */
+	private GraphBuilder createCopyOfVertices() {
+		int n = csr.getOrder();
+		GraphBuilder builder = new GraphBuilder();
+
+		builder.setCheckDuplicates(false);
+		builder.ensureCapacity(n, n);
+		for (int v = 0; v < n; v++) {
+			builder.addVertex(csr.getVertex(v).getLabel());
 		}
-		/*
-		 * Schlielich haben wir einen Graphen, der hilft, die Distanztabelle
-		 * graphisch darzustellen.
-		 */
-		return distG;
+
+		return builder;
+	}
+
+	/**
+	 * Auslesen, ob von der Startecke aus ein Kreis negativer Lnge erreichbar
+	 * ist. In diesem Fall sind Distanztabelle und kw-Baum nicht aussagekrftig.
+	 */
+	public boolean hasNegativeCycle() {
+		return !negativeCycle.isEmpty();
+	}
+
+	/**
+	 * Auslesen des gefundenen Kreises negativer Lnge. Die Ecken sind in
+	 * Richtung der Kanten angeordnet, auf die letzte Ecke folgt wieder die
+	 * erste.
+	 * 
+	 * @return die Ecken des Kreises oder eine leere Liste, wenn kein solcher
+	 *         Kreis existiert. Sollte erst nach execute() aufgerufen werden.
+	 */
+	public List<Vertex> getNegativeCycle() {
+		return negativeCycle;
 	}
 
 	/**
 	 * Ausfhren des Algorithmus. Wenn die Startecke vorher nicht gesetzt wurde,
-	 * so erfolgt keine Aktion.
+	 * so erfolgt keine Aktion. Enthlt der Graph keine negativen
+	 * Kantengewichte, so wird der Algorithmus von Dijkstra verwendet. Ist der
+	 * Graph kreisfrei und enthlt er negative Kantengewichte (oder ist er eine
+	 * TypeHierarchy), so werden die Kanten einmal in topologischer Reihenfolge
+	 * relaxiert. Nur fr Graphen mit Kreisen und negativen Kantengewichten
+	 * wird der Algorithmus von Bellman-Ford verwendet.
 	 */
 	public void execute() {
 		if (start != null) {
-			bellman(start);
+			negativeCycle = new ArrayList<Vertex>();
+			spTree = null;
+			distanceGraph = null;
+
+			int s = initSP(start);
+			startIndex = s;
+			if (s >= 0) {
+				boolean negativeWeights = hasNegativeWeights();
+				int[] order = null;
+
+				if (negativeWeights || getGraph() instanceof TypeHierarchy) {
+					order = topologicalOrder();
+				}
+
+				if (order != null) {
+					DagShortestPath.relax(csr, order, dist, pred, false);
+				} else if (negativeWeights) {
+					bellmanFord(s);
+				} else {
+					dijkstra(s);
+				}
+			}
+
+			finishSP();
 		}
 	}
 }
@@ -0,0 +1,642 @@
+package com.kabu.graph.algorithm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.kabu.graph.CsrGraph;
+import com.kabu.graph.Graph;
+import com.kabu.graph.GraphBuilder;
+import com.kabu.graph.Vertex;
+
+/**
+ * Berechnung der starken Zusammenhangskomponenten eines Graphen. Zwei Ecken
+ * gehren zur selben Komponente, wenn jede von der anderen aus erreichbar ist.
+ * Das Ergebnis ist ein Array, das jeder Ecke (siehe Graph.indexOf()) die
+ * Nummer ihrer Komponente zuordnet. Die Komponenten sind topologisch
+ * nummeriert: Fr jede Kante (x,y) zwischen verschiedenen Komponenten ist die
+ * Nummer der Komponente von x kleiner als die von y.
+ *
+ * Es stehen zwei Verfahren zur Verfgung:
+ * <ul>
+ * <li>TARJAN: Der Algorithmus von Tarjan mit einem expliziten Stack, so dass
+ * auch sehr lange Wege keinen StackOverflowError auslsen. Aufwand O(V+E).</li>
+ * <li>FORWARD_BACKWARD: Zunchst werden wiederholt Ecken ohne ein- oder
+ * ausgehende Kanten als einelementige Komponenten abgespalten (Trimming).
+ * Danach bildet die Menge der von einer Pivotecke aus vorwrts und rckwrts
+ * erreichbaren Ecken eine Komponente. Die drei brigen Teilmengen enthalten
+ * keine gemeinsamen Komponenten und werden parallel weiter zerlegt, kleine
+ * Teilmengen mit Tarjan. Geeignet fr Graphen mit Millionen von Ecken.</li>
+ * </ul>
+ * AUTOMATIC (Voreinstellung) whlt FORWARD_BACKWARD, wenn mehrere Threads
+ * verfgbar sind und der Graph mindestens 65536 Ecken besitzt.
+ *
+ * getCondensation() liefert den Kondensationsgraphen mit einer Ecke je
+ * Komponente. Er ist azyklisch und meist deutlich kleiner als der Graph, so
+ * dass Erreichbarkeitsanfragen (z.B. mit TopologicalSort oder
+ * DagShortestPath) dort gnstiger sind.
+ */
+public class StronglyConnectedComponents extends GraphAlgorithm {
+	public static final int AUTOMATIC = 0;
+	public static final int TARJAN = 1;
+	public static final int FORWARD_BACKWARD = 2;
+
+	// Kleinste Eckenzahl, ab der AUTOMATIC parallel rechnet, und grte
+	// Teilmenge, die mit Tarjan statt mit Pivotsuchen zerlegt wird
+	private static final int PARALLEL_THRESHOLD = 65536;
+	private static final int TARJAN_THRESHOLD = 4096;
+
+	private int method = AUTOMATIC;
+	private int parallelism = Runtime.getRuntime().availableProcessors();
+
+	private CsrGraph csr = null;
+	private CsrGraph reverse = null;
+	// component[i] ist die Nummer der Komponente der Ecke i
+	private int[] component = new int[0];
+	private int componentCount = 0;
+	private AtomicInteger nextComponent = new AtomicInteger();
+	private Graph condensation = null;
+
+	// Arbeitsdaten von Tarjan. Da gleichzeitig laufende Aufgaben disjunkte
+	// Teilmengen bearbeiten, knnen sie sich diese Arrays teilen.
+	private int[] index = null;
+	private int[] lowlink = null;
+	private int[] edgePosition = null;
+	private boolean[] onStack = null;
+
+	// part[i] ist die Teilmenge, zu der die Ecke i bei FORWARD_BACKWARD gehrt,
+	// oder -1, wenn ihre Komponente bereits feststeht
+	private int[] part = null;
+	private byte[] reached = null;
+	private AtomicInteger nextPart = new AtomicInteger();
+
+	public StronglyConnectedComponents(Graph g) {
+		super(g);
+	}
+
+	public int getMethod() {
+		return method;
+	}
+
+	/**
+	 * Festlegen des Verfahrens: AUTOMATIC, TARJAN oder FORWARD_BACKWARD.
+	 */
+	public void setMethod(int method) {
+		if (method < AUTOMATIC || method > FORWARD_BACKWARD) {
+			throw new IllegalArgumentException("Unbekanntes Verfahren: "
+					+ method);
+		}
+		this.method = method;
+	}
+
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	/**
+	 * Festlegen der Anzahl paralleler Threads fr FORWARD_BACKWARD. Bei 1 wird
+	 * ausschlielich im aufrufenden Thread gerechnet.
+	 */
+	public void setParallelism(int parallelism) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException(
+					"Mindestens ein Thread ist erforderlich!");
+		}
+		this.parallelism = parallelism;
+	}
+
+	public void execute() {
+		csr = getGraph().toCsr();
+		int n = csr.getOrder();
+
+		component = new int[n];
+		nextComponent.set(0);
+		condensation = null;
+		index = new int[n];
+		lowlink = new int[n];
+		edgePosition = new int[n];
+		onStack = new boolean[n];
+		part = new int[n];
+
+		boolean parallel;
+		if (method == AUTOMATIC) {
+			parallel = parallelism > 1 && n >= PARALLEL_THRESHOLD;
+		} else {
+			parallel = method == FORWARD_BACKWARD;
+		}
+
+		if (isTracing()) {
+			trace((parallel ? "Forward-Backward" : "Tarjan") + " fr " + n
+					+ " Ecken und " + csr.getSize() + " Kanten");
+		}
+
+		try {
+			if (parallel) {
+				forwardBackward();
+			} else {
+				int[] all = new int[n];
+				for (int v = 0; v < n; v++) {
+					all[v] = v;
+				}
+				tarjan(all, 0);
+
+				// Tarjan schliet die Komponenten in umgekehrter topologischer
+				// Reihenfolge ab
+				int last = nextComponent.get() - 1;
+				for (int v = 0; v < n; v++) {
+					component[v] = last - component[v];
+				}
+			}
+		} finally {
+			componentCount = nextComponent.get();
+			reverse = null;
+			index = lowlink = edgePosition = part = null;
+			onStack = null;
+			reached = null;
+		}
+	}
+
+	/* ************************************************************************
+	 * Tarjan
+	 * ************************************************************************
+	 */
+
+	/**
+	 * Zerlegen der gegebenen Ecken nach Tarjan. Es werden nur Kanten zwischen
+	 * Ecken mit part[v] == label betrachtet. Anstelle der Rekursion verwaltet
+	 * callStack die Ecken, deren Kanten gerade durchlaufen werden;
+	 * edgePosition[v] ist die nchste zu betrachtende Kante von v.
+	 */
+	private void tarjan(int[] members, int label) {
+		int[] offsets = csr.getOffsets();
+		int[] targets = csr.getTargets();
+		int[] callStack = new int[members.length];
+		int[] stack = new int[members.length];
+		int callSize = 0, stackSize = 0;
+		int counter = 0;
+
+		for (int root : members) {
+			if (index[root] != 0) {
+				continue;
+			}
+
+			index[root] = lowlink[root] = ++counter;
+			edgePosition[root] = offsets[root];
+			stack[stackSize++] = root;
+			onStack[root] = true;
+			callStack[callSize++] = root;
+
+			while (callSize > 0) {
+				int v = callStack[callSize - 1];
+
+				if (edgePosition[v] < offsets[v + 1]) {
+					int w = targets[edgePosition[v]++];
+
+					if (part[w] != label) {
+						continue;
+					}
+
+					if (index[w] == 0) {
+						index[w] = lowlink[w] = ++counter;
+						edgePosition[w] = offsets[w];
+						stack[stackSize++] = w;
+						onStack[w] = true;
+						callStack[callSize++] = w;
+					} else if (onStack[w] && index[w] < lowlink[v]) {
+						lowlink[v] = index[w];
+					}
+					continue;
+				}
+
+				// Smtliche Kanten von v sind bearbeitet: Rckkehr zum Aufrufer
+				callSize--;
+				if (callSize > 0) {
+					int u = callStack[callSize - 1];
+
+					if (lowlink[v] < lowlink[u]) {
+						lowlink[u] = lowlink[v];
+					}
+				}
+
+				// v ist die Wurzel einer Komponente
+				if (lowlink[v] == index[v]) {
+					int id = nextComponent.getAndIncrement();
+					int w;
+
+					do {
+						w = stack[--stackSize];
+						onStack[w] = false;
+						component[w] = id;
+					} while (w != v);
+				}
+			}
+		}
+	}
+
+	/* ************************************************************************
+	 * Forward-Backward
+	 * ************************************************************************
+	 */
+
+	private void forwardBackward() {
+		int n = csr.getOrder();
+
+		reverse = csr.transpose();
+		reached = new byte[n];
+		nextPart.set(1);
+
+		int[] remaining = trim();
+
+		if (remaining.length > 0) {
+			ForkJoinPool pool = parallelism > 1 ? new ForkJoinPool(
+					parallelism) : null;
+			PartTask task = new PartTask(remaining, 0);
+
+			try {
+				if (pool != null) {
+					pool.invoke(task);
+				} else {
+					task.invoke();
+				}
+			} finally {
+				if (pool != null) {
+					pool.shutdown();
+				}
+			}
+		}
+
+		renumber();
+	}
+
+	/**
+	 * Abspalten smtlicher Ecken, die ohne eingehende oder ohne ausgehende
+	 * Kanten zu noch nicht zugeordneten Ecken sind. Jede solche Ecke bildet
+	 * eine eigene Komponente. Aufwand O(V+E).
+	 *
+	 * @return die Nummern der brigen Ecken.
+	 */
+	private int[] trim() {
+		int n = csr.getOrder();
+		int[] offsets = csr.getOffsets();
+		int[] targets = csr.getTargets();
+		int[] inOffsets = reverse.getOffsets();
+		int[] sources = reverse.getTargets();
+		int[] inDegree = new int[n];
+		int[] outDegree = new int[n];
+		int[] queue = new int[n];
+		int first = 0, last = 0;
+
+		for (int v = 0; v < n; v++) {
+			inDegree[v] = inOffsets[v + 1] - inOffsets[v];
+			outDegree[v] = offsets[v + 1] - offsets[v];
+
+			if (inDegree[v] == 0 || outDegree[v] == 0) {
+				part[v] = -1;
+				queue[last++] = v;
+			}
+		}
+
+		while (first < last) {
+			int v = queue[first++];
+
+			component[v] = nextComponent.getAndIncrement();
+
+			for (int pos = offsets[v]; pos < offsets[v + 1]; pos++) {
+				int w = targets[pos];
+
+				if (part[w] == 0 && --inDegree[w] == 0) {
+					part[w] = -1;
+					queue[last++] = w;
+				}
+			}
+			for (int pos = inOffsets[v]; pos < inOffsets[v + 1]; pos++) {
+				int u = sources[pos];
+
+				if (part[u] == 0 && --outDegree[u] == 0) {
+					part[u] = -1;
+					queue[last++] = u;
+				}
+			}
+		}
+
+		if (isTracing()) {
+			trace(last + " Ecken durch Trimming zugeordnet");
+		}
+
+		int[] remaining = new int[n - last];
+		int count = 0;
+		for (int v = 0; v < n; v++) {
+			if (part[v] == 0) {
+				remaining[count++] = v;
+			}
+		}
+
+		return remaining;
+	}
+
+	/**
+	 * Zerlegen der Teilmenge members, deren Ecken mit label markiert sind.
+	 *
+	 * Hinweis: Die Suchen lesen part[] auch fr Ecken anderer Teilmengen, die
+	 * gleichzeitig von anderen Aufgaben umbenannt werden. Da jede Markierung
+	 * nur einmal vergeben wird, kann dabei nie die eigene Markierung gelesen
+	 * werden.
+	 */
+	private class PartTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private int[] members;
+		private int label;
+
+		PartTask(int[] members, int label) {
+			this.members = members;
+			this.label = label;
+		}
+
+		protected void compute() {
+			if (members.length <= TARJAN_THRESHOLD) {
+				tarjan(members, label);
+				for (int v : members) {
+					part[v] = -1;
+				}
+				return;
+			}
+
+			// Eine zufllige Pivotecke verhindert, dass z.B. eine Kette kleiner
+			// Komponenten in jedem Schritt nur um eine Komponente krzer wird
+			int pivot = members[ThreadLocalRandom.current().nextInt(
+					members.length)];
+			search(pivot, csr, (byte) 1);
+			search(pivot, reverse, (byte) 2);
+
+			// Vorwrts und rckwrts erreichbar: die Komponente der Pivotecke
+			int id = nextComponent.getAndIncrement();
+			int[] counts = new int[3];
+			for (int v : members) {
+				if (reached[v] == 3) {
+					component[v] = id;
+					part[v] = -1;
+				} else {
+					counts[reached[v]]++;
+				}
+			}
+
+			// Jede der brigen Teilmengen erhlt eine neue Markierung
+			int[][] subsets = new int[3][];
+			int[] labels = new int[3];
+			for (int i = 0; i < 3; i++) {
+				subsets[i] = new int[counts[i]];
+				labels[i] = nextPart.getAndIncrement();
+			}
+
+			int[] fill = new int[3];
+			for (int v : members) {
+				int r = reached[v];
+
+				if (r != 3) {
+					subsets[r][fill[r]++] = v;
+					part[v] = labels[r];
+				}
+				reached[v] = 0;
+			}
+
+			List<PartTask> tasks = new ArrayList<PartTask>(3);
+			for (int i = 0; i < 3; i++) {
+				if (subsets[i].length > 0) {
+					tasks.add(new PartTask(subsets[i], labels[i]));
+				}
+			}
+			invokeAll(tasks);
+		}
+
+		/**
+		 * Markieren smtlicher innerhalb der Teilmenge von start aus
+		 * erreichbaren Ecken mit dem gegebenen Bit.
+		 */
+		private void search(int start, CsrGraph graph, byte bit) {
+			int[] offsets = graph.getOffsets();
+			int[] targets = graph.getTargets();
+			int[] queue = new int[members.length];
+			int first = 0, last = 0;
+
+			reached[start] |= bit;
+			queue[last++] = start;
+
+			while (first < last) {
+				int v = queue[first++];
+
+				for (int pos = offsets[v]; pos < offsets[v + 1]; pos++) {
+					int w = targets[pos];
+
+					if (part[w] == label && (reached[w] & bit) == 0) {
+						reached[w] |= bit;
+						queue[last++] = w;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Topologisches Umnummerieren der Komponenten nach Kahn, da die parallele
+	 * Zerlegung die Nummern in beliebiger Reihenfolge vergibt.
+	 */
+	private void renumber() {
+		int n = csr.getOrder();
+		int count = nextComponent.get();
+		int[] offsets = csr.getOffsets();
+		int[] targets = csr.getTargets();
+
+		// Kanten zwischen Komponenten, nach ihrer Anfangskomponente gruppiert
+		int[] edgeStart = new int[count + 1];
+		for (int v = 0; v < n; v++) {
+			for (int pos = offsets[v]; pos < offsets[v + 1]; pos++) {
+				if (component[targets[pos]] != component[v]) {
+					edgeStart[component[v] + 1]++;
+				}
+			}
+		}
+		for (int c = 0; c < count; c++) {
+			edgeStart[c + 1] += edgeStart[c];
+		}
+
+		int[] edgeTargets = new int[edgeStart[count]];
+		int[] next = Arrays.copyOf(edgeStart, count);
+		int[] inDegree = new int[count];
+		for (int v = 0; v < n; v++) {
+			for (int pos = offsets[v]; pos < offsets[v + 1]; pos++) {
+				int c = component[targets[pos]];
+
+				if (c != component[v]) {
+					edgeTargets[next[component[v]]++] = c;
+					inDegree[c]++;
+				}
+			}
+		}
+
+		int[] queue = new int[count];
+		int first = 0, last = 0;
+		for (int c = 0; c < count; c++) {
+			if (inDegree[c] == 0) {
+				queue[last++] = c;
+			}
+		}
+
+		// rank[c] ist die neue Nummer der Komponente c
+		int[] rank = new int[count];
+		while (first < last) {
+			int c = queue[first];
+			rank[c] = first++;
+
+			for (int pos = edgeStart[c]; pos < edgeStart[c + 1]; pos++) {
+				if (--inDegree[edgeTargets[pos]] == 0) {
+					queue[last++] = edgeTargets[pos];
+				}
+			}
+		}
+
+		for (int v = 0; v < n; v++) {
+			component[v] = rank[component[v]];
+		}
+	}
+
+	/* ************************************************************************
+	 * Ergebnisse
+	 * ************************************************************************
+	 */
+
+	/**
+	 * Auslesen der Komponentennummern smtlicher Ecken, indiziert mit den
+	 * Nummern der Ecken. Das Array darf nicht verndert werden.
+	 */
+	public int[] getComponentArray() {
+		return component;
+	}
+
+	public int getComponentCount() {
+		return componentCount;
+	}
+
+	/**
+	 * Auslesen der Nummer der Komponente einer Ecke.
+	 *
+	 * @return die Nummer oder -1, wenn die Ecke nicht zum Graphen gehrt.
+	 */
+	public int getComponent(Vertex vertex) {
+		int v = getGraph().indexOf(vertex);
+
+		return v >= 0 && v < component.length ? component[v] : -1;
+	}
+
+	/**
+	 * Auslesen, ob der Graph stark zusammenhngend ist, d.h. aus genau einer
+	 * Komponente besteht.
+	 */
+	public boolean isStronglyConnected() {
+		return componentCount == 1;
+	}
+
+	/**
+	 * Auslesen der Ecken smtlicher Komponenten. Die i-te Liste enthlt die
+	 * Ecken der Komponente i in der Reihenfolge ihrer Nummern.
+	 */
+	public List<List<Vertex>> getComponents() {
+		List<List<Vertex>> result = new ArrayList<List<Vertex>>(componentCount);
+
+		for (int c = 0; c < componentCount; c++) {
+			result.add(new ArrayList<Vertex>());
+		}
+		for (int v = 0; v < component.length; v++) {
+			result.get(component[v]).add(csr.getVertex(v));
+		}
+
+		return result;
+	}
+
+	/**
+	 * Darstellung des Kondensationsgraphen. Der Graph wird beim ersten Aufruf
+	 * erzeugt. Die Ecke mit der Nummer i steht fr die Komponente i und trgt
+	 * das Label der ersten Ecke dieser Komponente. Zwischen zwei Komponenten
+	 * besteht hchstens eine Kante; ihr Gewicht ist das geringste Gewicht der
+	 * Kanten des Graphen zwischen den beiden Komponenten. Aufwand O(V+E).
+	 *
+	 * @return der azyklische Kondensationsgraph. Sollte erst nach execute()
+	 *         aufgerufen werden.
+	 */
+	public Graph getCondensation() {
+		if (condensation != null) {
+			return condensation;
+		}
+
+		int n = component.length;
+		int[] offsets = csr.getOffsets();
+		int[] targets = csr.getTargets();
+		double[] weights = csr.getWeights();
+
+		// Ecken nach Komponenten gruppieren (Sortieren durch Zhlen)
+		int[] start = new int[componentCount + 1];
+		for (int v = 0; v < n; v++) {
+			start[component[v] + 1]++;
+		}
+		for (int c = 0; c < componentCount; c++) {
+			start[c + 1] += start[c];
+		}
+		int[] members = new int[n];
+		int[] next = Arrays.copyOf(start, componentCount);
+		for (int v = 0; v < n; v++) {
+			members[next[component[v]]++] = v;
+		}
+
+		GraphBuilder builder = new GraphBuilder();
+		builder.setCheckDuplicates(false);
+		builder.ensureCapacity(componentCount, 0);
+
+		String[] labels = new String[componentCount];
+		for (int c = 0; c < componentCount; c++) {
+			labels[c] = csr.getVertex(members[start[c]]).getLabel();
+		}
+		Vertex[] vertices = builder.addVertices(labels);
+
+		// seen[d] == c+1, wenn bereits eine Kante von c nach d gefunden wurde;
+		// minimum[d] ist dann ihr geringstes Gewicht
+		int[] seen = new int[componentCount];
+		double[] minimum = new double[componentCount];
+		int[] heads = new int[componentCount];
+
+		for (int c = 0; c < componentCount; c++) {
+			int headCount = 0;
+
+			for (int i = start[c]; i < start[c + 1]; i++) {
+				int v = members[i];
+
+				for (int pos = offsets[v]; pos < offsets[v + 1]; pos++) {
+					int d = component[targets[pos]];
+
+					if (d == c) {
+						continue;
+					}
+					if (seen[d] != c + 1) {
+						seen[d] = c + 1;
+						minimum[d] = weights[pos];
+						heads[headCount++] = d;
+					} else if (weights[pos] < minimum[d]) {
+						minimum[d] = weights[pos];
+					}
+				}
+			}
+
+			for (int i = 0; i < headCount; i++) {
+				builder.addEdge(vertices[c], vertices[heads[i]],
+						minimum[heads[i]]);
+			}
+		}
+
+		condensation = builder.build();
+
+		return condensation;
+	}
+}
@@ -0,0 +1,208 @@
+package com.kabu.graph.algorithm;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.kabu.graph.CsrGraph;
+import com.kabu.graph.Graph;
+import com.kabu.graph.Vertex;
+
+/**
+ * Berechnung einer topologischen Sortierung nach Kahn. In der Sortierung steht
+ * fr jede Kante (x,y) die Ecke x vor der Ecke y. Eine solche Sortierung
+ * existiert genau dann, wenn der Graph azyklisch ist.
+ *
+ * Es werden wiederholt Ecken ohne eingehende Kanten entnommen und ihre
+ * ausgehenden Kanten entfernt. Bleiben dabei Ecken brig, so enthlt der Graph
+ * einen Kreis. Ein solcher Kreis wird als Beleg bestimmt, indem von einer der
+ * brigen Ecken aus den eingehenden Kanten briger Ecken gefolgt wird, bis sich
+ * eine Ecke wiederholt. Der Aufwand ist in beiden Fllen O(V+E).
+ *
+ * Anders als IsAcyclic wird keine Tiefensuche bentigt. Die Sortierung wird
+ * als Array der Eckennummern (siehe Graph.indexOf()) bereitgestellt.
+ */
+public class TopologicalSort extends GraphAlgorithm {
+	private CsrGraph csr = null;
+	// order enthlt die Nummern der Ecken in topologischer Reihenfolge
+	private int[] order = null;
+	private int[] cycle = new int[0];
+
+	public TopologicalSort(Graph g) {
+		super(g);
+	}
+
+	public void execute() {
+		csr = getGraph().toCsr();
+		int n = csr.getOrder();
+		int[] sorted = new int[n];
+		int count = sort(csr, sorted);
+
+		if (count == n) {
+			order = sorted;
+			cycle = new int[0];
+		} else {
+			order = null;
+			cycle = findCycle(sorted, count);
+		}
+
+		if (isTracing()) {
+			trace(order != null ? "Topologische Sortierung von " + n
+					+ " Ecken" : "Kreis der Lnge " + cycle.length
+					+ " gefunden");
+		}
+	}
+
+	/**
+	 * Sortieren der Ecken nach Kahn. Die Ecken ohne eingehende Kanten werden
+	 * in der Reihenfolge ihrer Nummern eingereiht, das Ergebnis ist daher
+	 * eindeutig bestimmt.
+	 *
+	 * @param order
+	 *            Array der Lnge csr.getOrder(), in das die sortierten
+	 *            Eckennummern eingetragen werden.
+	 * @return die Anzahl der sortierten Ecken. Ist sie kleiner als die Anzahl
+	 *         der Ecken, so enthlt der Graph einen Kreis.
+	 */
+	static int sort(CsrGraph csr, int[] order) {
+		int n = csr.getOrder();
+		int[] offsets = csr.getOffsets();
+		int[] targets = csr.getTargets();
+		int[] inDegree = new int[n];
+		int first = 0, last = 0;
+
+		for (int pos = 0; pos < targets.length; pos++) {
+			inDegree[targets[pos]]++;
+		}
+		for (int i = 0; i < n; i++) {
+			if (inDegree[i] == 0) {
+				order[last++] = i;
+			}
+		}
+
+		// order dient zugleich als Warteschlange
+		while (first < last) {
+			int v = order[first++];
+
+			for (int pos = offsets[v]; pos < offsets[v + 1]; pos++) {
+				if (--inDegree[targets[pos]] == 0) {
+					order[last++] = targets[pos];
+				}
+			}
+		}
+
+		return last;
+	}
+
+	/**
+	 * Bestimmen eines Kreises unter den nicht sortierten Ecken. Jede dieser
+	 * Ecken besitzt mindestens eine eingehende Kante von einer anderen nicht
+	 * sortierten Ecke, so dass der Weg entgegen der Kantenrichtung nicht
+	 * abbricht und sich nach hchstens n Schritten eine Ecke wiederholt.
+	 */
+	private int[] findCycle(int[] sorted, int count) {
+		int n = csr.getOrder();
+		CsrGraph reverse = csr.transpose();
+		int[] offsets = reverse.getOffsets();
+		int[] sources = reverse.getTargets();
+
+		boolean[] done = new boolean[n];
+		for (int i = 0; i < count; i++) {
+			done[sorted[i]] = true;
+		}
+
+		int v = 0;
+		while (done[v]) {
+			v++;
+		}
+
+		// step[v] enthlt den Schritt, in dem v betreten wurde, plus 1
+		int[] step = new int[n];
+		int[] walk = new int[n];
+		int length = 0;
+
+		while (step[v] == 0) {
+			step[v] = ++length;
+			walk[length - 1] = v;
+
+			for (int pos = offsets[v]; pos < offsets[v + 1]; pos++) {
+				if (!done[sources[pos]]) {
+					v = sources[pos];
+					break;
+				}
+			}
+		}
+
+		// Der Weg fhrt entgegen der Kantenrichtung, der Kreis beginnt bei der
+		// wiederholten Ecke
+		int start = step[v] - 1;
+		int[] result = new int[length - start];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = walk[length - 1 - i];
+		}
+
+		return result;
+	}
+
+	/**
+	 * Auslesen, ob der Graph azyklisch ist. Sollte erst nach execute()
+	 * aufgerufen werden.
+	 */
+	public boolean isAcyclic() {
+		return order != null;
+	}
+
+	/**
+	 * Auslesen der Nummern der Ecken in topologischer Reihenfolge. Das Array
+	 * darf nicht verndert werden.
+	 *
+	 * @return die Nummern oder null, wenn der Graph einen Kreis enthlt.
+	 */
+	public int[] getSortedIndices() {
+		return order;
+	}
+
+	/**
+	 * Auslesen der Ecken in topologischer Reihenfolge.
+	 *
+	 * @return die Ecken oder eine leere Liste, wenn der Graph einen Kreis
+	 *         enthlt.
+	 */
+	public List<Vertex> getSortedVertices() {
+		if (order == null) {
+			return Collections.emptyList();
+		}
+
+		return toVertices(order);
+	}
+
+	/**
+	 * Auslesen der Nummern der Ecken eines Kreises. Die Ecken sind in Richtung
+	 * der Kanten angeordnet, auf die letzte Ecke folgt wieder die erste. Das
+	 * Array darf nicht verndert werden.
+	 *
+	 * @return die Nummern oder ein leeres Array, wenn der Graph azyklisch ist.
+	 */
+	public int[] getCycleIndices() {
+		return cycle;
+	}
+
+	/**
+	 * Auslesen der Ecken eines Kreises in Richtung der Kanten.
+	 *
+	 * @return die Ecken oder eine leere Liste, wenn der Graph azyklisch ist.
+	 */
+	public List<Vertex> getCycle() {
+		return toVertices(cycle);
+	}
+
+	private List<Vertex> toVertices(int[] indices) {
+		List<Vertex> result = new ArrayList<Vertex>(indices.length);
+
+		for (int v : indices) {
+			result.add(csr.getVertex(v));
+		}
+
+		return result;
+	}
+}
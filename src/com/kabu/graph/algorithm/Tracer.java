@@ -0,0 +1,19 @@
+package com.kabu.graph.algorithm;
+
+/**
+ * Empfnger der Ablaufmeldungen eines Algorithmus. Algorithmen geben nur dann
+ * Meldungen aus, wenn ihnen mit GraphAlgorithm.setTracer() ein Tracer
+ * mitgegeben wurde.
+ */
+public interface Tracer {
+	/**
+	 * Tracer, der smtliche Meldungen auf der Konsole ausgibt.
+	 */
+	Tracer SYSTEM_OUT = new Tracer() {
+		public void trace(String message) {
+			System.out.println(message);
+		}
+	};
+
+	void trace(String message);
+}
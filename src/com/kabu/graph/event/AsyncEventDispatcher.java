@@ -0,0 +1,541 @@
+package com.kabu.graph.event;
+
+import java.util.ArrayList;
+import java.util.EventListener;
+import java.util.EventObject;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.kabu.graph.Edge;
+import com.kabu.graph.Vertex;
+
+/**
+ * Asynchrone Zustellung von Ereignissen an langsame Listener. Normalerweise
+ * werden smtliche Listener im ndernden Thread aufgerufen, so dass ein
+ * langsamer Listener jedes connect() bzw. remove() aufhlt. Ein Listener, der
+ * mit asyncEdgeSet(), asyncVertices(), asyncVertex() bzw. asyncEdge() umhllt
+ * wird, legt seine Ereignisse stattdessen in einem begrenzten Ringpuffer ab,
+ * aus dem ein eigener Thread sie nacheinander zustellt.
+ *
+ * Beispiel:
+ *
+ * <pre>
+ * AsyncEventDispatcher dispatcher = new AsyncEventDispatcher(1024,
+ * 		AsyncEventDispatcher.COALESCE);
+ * graph.addEdgeSetChangeListener(dispatcher
+ * 		.asyncEdgeSet(persistingListener));
+ * ...
+ * graph.removeEdgeSetChangeListener(dispatcher
+ * 		.asyncEdgeSet(persistingListener));
+ * dispatcher.shutdown();
+ * </pre>
+ *
+ * Jeder Listener erhlt seine Ereignisse in der Reihenfolge, in der sie
+ * ausgelst wurden. Ist der Puffer voll, so entscheidet die gewhlte Strategie:
+ * BLOCK wartet, bis wieder Platz ist, DROP verwirft das neue Ereignis und
+ * COALESCE fasst es mit dem letzten noch wartenden Ereignis desselben
+ * Listeners zusammen. VerticesChange- und EdgeSetChange-Ereignisse desselben
+ * Graphen werden dabei zu einer Sammelnderung mit dem Graphen als Quelle
+ * vereinigt, VertexChange- und EdgeChange-Ereignisse mit derselben Quelle
+ * entfallen. Ist kein passendes Ereignis vorhanden, wird wie bei BLOCK
+ * gewartet.
+ *
+ * Hinweis: Asynchrone Listener sehen den Graphen im Zustand zum Zeitpunkt der
+ * Zustellung, nicht zum Zeitpunkt der nderung. Die Listener werden im
+ * Dispatcher-Thread aufgerufen und mssen selbst fr die ntige
+ * Synchronisation sorgen. Verndert ein asynchroner Listener selbst den
+ * Graphen, so kann er bei BLOCK auf einen vollen Puffer warten, den nur er
+ * leeren knnte.
+ */
+public class AsyncEventDispatcher {
+	public static final int BLOCK = 0, DROP = 1, COALESCE = 2;
+
+	private int policy = BLOCK;
+
+	// Ringpuffer: listeners[i] erhlt events[i]
+	private EventListener[] listeners = null;
+	private EventObject[] events = null;
+	private int head = 0;
+	private int size = 0;
+	private boolean delivering = false;
+	private boolean shutdown = false;
+
+	private ReentrantLock lock = new ReentrantLock();
+	private Condition notEmpty = lock.newCondition();
+	private Condition notFull = lock.newCondition();
+	private Condition idle = lock.newCondition();
+
+	// Kennzahlen
+	private int maxQueueDepth = 0;
+	private long enqueuedCount = 0;
+	private long deliveredCount = 0;
+	private long droppedCount = 0;
+	private long coalescedCount = 0;
+	private long failedCount = 0;
+
+	// Bereits erzeugte Hllen, damit ein Listener wieder entfernt werden kann.
+	// Ein Listener kann mehrere Listener-Interfaces implementieren (z.B.
+	// TopologicalOrder) und erhlt dann je Interface eine eigene Hlle.
+	private Map<EdgeSetChangeListener, EdgeSetChangeListener> edgeSetWrappers = new IdentityHashMap<EdgeSetChangeListener, EdgeSetChangeListener>();
+	private Map<VerticesChangeListener, VerticesChangeListener> verticesWrappers = new IdentityHashMap<VerticesChangeListener, VerticesChangeListener>();
+	private Map<VertexChangeListener, VertexChangeListener> vertexWrappers = new IdentityHashMap<VertexChangeListener, VertexChangeListener>();
+	private Map<EdgeChangeListener, EdgeChangeListener> edgeWrappers = new IdentityHashMap<EdgeChangeListener, EdgeChangeListener>();
+
+	private Thread thread = null;
+
+	public AsyncEventDispatcher(int capacity, int policy) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException(
+					"Die Kapazitt muss positiv sein!");
+		}
+		if (policy != BLOCK && policy != DROP && policy != COALESCE) {
+			throw new IllegalArgumentException("Unbekannte Strategie: "
+					+ policy);
+		}
+
+		this.policy = policy;
+		listeners = new EventListener[capacity];
+		events = new EventObject[capacity];
+
+		thread = new Thread(new Runnable() {
+			public void run() {
+				drain();
+			}
+		}, "graph-event-dispatcher");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/* ************************************************************************
+	 * Umhllen von Listenern
+	 * ************************************************************************
+	 */
+
+	/**
+	 * Liefert einen Listener, der die Ereignisse asynchron an den gegebenen
+	 * Listener weiterreicht. Fr denselben Listener wird stets dieselbe Hlle
+	 * geliefert, so dass sie auch zum Entfernen verwendet werden kann.
+	 */
+	public synchronized EdgeSetChangeListener asyncEdgeSet(
+			final EdgeSetChangeListener listener) {
+		EdgeSetChangeListener wrapper = edgeSetWrappers.get(listener);
+
+		if (wrapper == null) {
+			wrapper = new EdgeSetChangeListener() {
+				public void edgeSetChanged(EdgeSetChangeEvent e) {
+					enqueue(listener, e);
+				}
+			};
+			edgeSetWrappers.put(listener, wrapper);
+		}
+
+		return wrapper;
+	}
+
+	/**
+	 * @see #asyncEdgeSet(EdgeSetChangeListener)
+	 */
+	public synchronized VerticesChangeListener asyncVertices(
+			final VerticesChangeListener listener) {
+		VerticesChangeListener wrapper = verticesWrappers.get(listener);
+
+		if (wrapper == null) {
+			wrapper = new VerticesChangeListener() {
+				public void verticesChanged(VerticesChangeEvent e) {
+					enqueue(listener, e);
+				}
+			};
+			verticesWrappers.put(listener, wrapper);
+		}
+
+		return wrapper;
+	}
+
+	/**
+	 * @see #asyncEdgeSet(EdgeSetChangeListener)
+	 */
+	public synchronized VertexChangeListener asyncVertex(
+			final VertexChangeListener listener) {
+		VertexChangeListener wrapper = vertexWrappers.get(listener);
+
+		if (wrapper == null) {
+			wrapper = new VertexChangeListener() {
+				public void vertexChanged(VertexChangeEvent e) {
+					enqueue(listener, e);
+				}
+			};
+			vertexWrappers.put(listener, wrapper);
+		}
+
+		return wrapper;
+	}
+
+	/**
+	 * @see #asyncEdgeSet(EdgeSetChangeListener)
+	 */
+	public synchronized EdgeChangeListener asyncEdge(
+			final EdgeChangeListener listener) {
+		EdgeChangeListener wrapper = edgeWrappers.get(listener);
+
+		if (wrapper == null) {
+			wrapper = new EdgeChangeListener() {
+				public void edgeChanged(EdgeChangeEvent e) {
+					enqueue(listener, e);
+				}
+			};
+			edgeWrappers.put(listener, wrapper);
+		}
+
+		return wrapper;
+	}
+
+	/* ************************************************************************
+	 * Ringpuffer
+	 * ************************************************************************
+	 */
+
+	/**
+	 * Ablegen eines Ereignisses im Puffer. Wird im ndernden Thread aufgerufen.
+	 */
+	private void enqueue(EventListener listener, EventObject event) {
+		lock.lock();
+		try {
+			if (shutdown) {
+				droppedCount++;
+				return;
+			}
+
+			if (size == events.length) {
+				if (policy == DROP) {
+					droppedCount++;
+					return;
+				}
+				if (policy == COALESCE && coalesce(listener, event)) {
+					coalescedCount++;
+					return;
+				}
+
+				boolean interrupted = false;
+				while (size == events.length && !shutdown) {
+					try {
+						notFull.await();
+					} catch (InterruptedException ex) {
+						interrupted = true;
+					}
+				}
+				if (interrupted) {
+					Thread.currentThread().interrupt();
+				}
+				if (shutdown) {
+					droppedCount++;
+					return;
+				}
+			}
+
+			int tail = (head + size) % events.length;
+			listeners[tail] = listener;
+			events[tail] = event;
+			size++;
+			enqueuedCount++;
+			if (size > maxQueueDepth) {
+				maxQueueDepth = size;
+			}
+			notEmpty.signal();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Zusammenfassen des Ereignisses mit dem letzten wartenden Ereignis
+	 * desselben Listeners. Da dieses das letzte des Listeners ist, bleibt die
+	 * Reihenfolge fr den Listener erhalten.
+	 *
+	 * @return false, wenn kein passendes Ereignis wartet.
+	 */
+	private boolean coalesce(EventListener listener, EventObject event) {
+		for (int k = size - 1; k >= 0; k--) {
+			int i = (head + k) % events.length;
+
+			if (listeners[i] != listener) {
+				continue;
+			}
+
+			EventObject pending = events[i];
+
+			// Ereignisse verschiedener Art werden nicht zusammengefasst, sonst
+			// ginge die Reihenfolge verloren
+			if (pending.getClass() != event.getClass()) {
+				return false;
+			}
+			// Sammelnderungen haben den Graphen als Quelle, daher werden nur
+			// Ereignisse desselben Graphen zusammengefasst
+			if (pending instanceof EdgeSetChangeEvent) {
+				EdgeSetChangeEvent first = (EdgeSetChangeEvent) pending;
+				EdgeSetChangeEvent second = (EdgeSetChangeEvent) event;
+
+				if (first.getGraph() == null
+						|| first.getGraph() != second.getGraph()) {
+					return false;
+				}
+				events[i] = merge(first, second);
+				return true;
+			}
+			if (pending instanceof VerticesChangeEvent) {
+				VerticesChangeEvent first = (VerticesChangeEvent) pending;
+				VerticesChangeEvent second = (VerticesChangeEvent) event;
+
+				if (first.getGraph() == null
+						|| first.getGraph() != second.getGraph()) {
+					return false;
+				}
+				events[i] = merge(first, second);
+				return true;
+			}
+
+			// Der Listener liest den Zustand der Quelle ohnehin erst bei der
+			// Zustellung
+			return pending.getSource() == event.getSource();
+		}
+
+		return false;
+	}
+
+	private static EdgeSetChangeEvent merge(EdgeSetChangeEvent first,
+			EdgeSetChangeEvent second) {
+		Set<Edge> added = new LinkedHashSet<Edge>(first.getAddedEdges());
+		Set<Edge> removed = new LinkedHashSet<Edge>(first.getRemovedEdges());
+
+		for (Edge edge : second.getRemovedEdges()) {
+			if (!added.remove(edge)) {
+				removed.add(edge);
+			}
+		}
+		for (Edge edge : second.getAddedEdges()) {
+			if (!removed.remove(edge)) {
+				added.add(edge);
+			}
+		}
+
+		return new EdgeSetChangeEvent(first.getGraph(), new ArrayList<Edge>(
+				added), new ArrayList<Edge>(removed));
+	}
+
+	private static VerticesChangeEvent merge(VerticesChangeEvent first,
+			VerticesChangeEvent second) {
+		Set<Vertex> added = new LinkedHashSet<Vertex>(first.getAddedVertices());
+		Set<Vertex> removed = new LinkedHashSet<Vertex>(
+				first.getRemovedVertices());
+
+		for (Vertex vertex : second.getRemovedVertices()) {
+			if (!added.remove(vertex)) {
+				removed.add(vertex);
+			}
+		}
+		for (Vertex vertex : second.getAddedVertices()) {
+			if (!removed.remove(vertex)) {
+				added.add(vertex);
+			}
+		}
+
+		return new VerticesChangeEvent(first.getGraph(),
+				new ArrayList<Vertex>(added), new ArrayList<Vertex>(removed));
+	}
+
+	/**
+	 * Hauptschleife des Dispatcher-Threads.
+	 */
+	private void drain() {
+		while (true) {
+			EventListener listener = null;
+			EventObject event = null;
+
+			lock.lock();
+			try {
+				while (size == 0 && !shutdown) {
+					notEmpty.awaitUninterruptibly();
+				}
+				if (size == 0) {
+					idle.signalAll();
+					return;
+				}
+
+				listener = listeners[head];
+				event = events[head];
+				listeners[head] = null;
+				events[head] = null;
+				head = (head + 1) % events.length;
+				size--;
+				delivering = true;
+				notFull.signal();
+			} finally {
+				lock.unlock();
+			}
+
+			boolean failed = false;
+			try {
+				deliver(listener, event);
+			} catch (RuntimeException ex) {
+				// Ein fehlerhafter Listener darf die brigen nicht aufhalten
+				failed = true;
+			}
+
+			lock.lock();
+			try {
+				deliveredCount++;
+				if (failed) {
+					failedCount++;
+				}
+				delivering = false;
+				if (size == 0) {
+					idle.signalAll();
+				}
+			} finally {
+				lock.unlock();
+			}
+		}
+	}
+
+	private void deliver(EventListener listener, EventObject event) {
+		if (event instanceof EdgeSetChangeEvent) {
+			((EdgeSetChangeListener) listener)
+					.edgeSetChanged((EdgeSetChangeEvent) event);
+		} else if (event instanceof VerticesChangeEvent) {
+			((VerticesChangeListener) listener)
+					.verticesChanged((VerticesChangeEvent) event);
+		} else if (event instanceof VertexChangeEvent) {
+			((VertexChangeListener) listener)
+					.vertexChanged((VertexChangeEvent) event);
+		} else if (event instanceof EdgeChangeEvent) {
+			((EdgeChangeListener) listener)
+					.edgeChanged((EdgeChangeEvent) event);
+		}
+	}
+
+	/**
+	 * Warten, bis smtliche bisher abgelegten Ereignisse zugestellt wurden.
+	 */
+	public void flush() throws InterruptedException {
+		lock.lock();
+		try {
+			while ((size > 0 || delivering) && thread.isAlive()) {
+				idle.await();
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Beenden des Dispatchers. Die bereits abgelegten Ereignisse werden noch
+	 * zugestellt, weitere Ereignisse werden verworfen.
+	 */
+	public void shutdown() {
+		lock.lock();
+		try {
+			shutdown = true;
+			notEmpty.signalAll();
+			notFull.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/* ************************************************************************
+	 * Kennzahlen
+	 * ************************************************************************
+	 */
+
+	/**
+	 * Anzahl der Ereignisse, die derzeit auf ihre Zustellung warten.
+	 */
+	public int getQueueDepth() {
+		lock.lock();
+		try {
+			return size;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public int getCapacity() {
+		return events.length;
+	}
+
+	public int getPolicy() {
+		return policy;
+	}
+
+	/**
+	 * Grte bisher erreichte Anzahl wartender Ereignisse.
+	 */
+	public int getMaxQueueDepth() {
+		lock.lock();
+		try {
+			return maxQueueDepth;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public long getEnqueuedCount() {
+		lock.lock();
+		try {
+			return enqueuedCount;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public long getDeliveredCount() {
+		lock.lock();
+		try {
+			return deliveredCount;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Anzahl der Ereignisse, die wegen eines vollen Puffers (DROP) oder nach
+	 * shutdown() verworfen wurden.
+	 */
+	public long getDroppedCount() {
+		lock.lock();
+		try {
+			return droppedCount;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Anzahl der Ereignisse, die mit einem wartenden Ereignis zusammengefasst
+	 * wurden (COALESCE).
+	 */
+	public long getCoalescedCount() {
+		lock.lock();
+		try {
+			return coalescedCount;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Anzahl der Zustellungen, bei denen der Listener eine Exception geworfen
+	 * hat.
+	 */
+	public long getFailedCount() {
+		lock.lock();
+		try {
+			return failedCount;
+		} finally {
+			lock.unlock();
+		}
+	}
+}
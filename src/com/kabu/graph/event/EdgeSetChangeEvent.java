@@ -1,17 +1,55 @@
 package com.kabu.graph.event;
 
+import java.util.Collections;
 import java.util.EventObject;
+import java.util.List;
 
+import com.kabu.graph.Edge;
+import com.kabu.graph.Graph;
+
+/**
+ * nderung der Kantenmenge eines Graphen. Einzelne nderungen haben die
+ * betroffene Kante als Quelle. Sammelnderungen (EDGES_CHANGED) haben den
+ * Graphen als Quelle und fhren smtliche hinzugefgten und entfernten Kanten
+ * in Listen mit. ber getAddedEdges() und getRemovedEdges() knnen beide Arten
+ * einheitlich ausgewertet werden.
+ */
 public class EdgeSetChangeEvent extends EventObject {
 
-	public static int EDGE_ADDED = 0, EDGE_REMOVED = 1, EDGE_MODIFIED = 2;
+	public static int EDGE_ADDED = 0, EDGE_REMOVED = 1, EDGE_MODIFIED = 2,
+			EDGES_CHANGED = 3;
 	int flag = 0;
+	Graph graph = null;
+	List<Edge> addedEdges = null;
+	List<Edge> removedEdges = null;
 
 	public EdgeSetChangeEvent(Object o, int flag) {
 		super(o);
 		this.flag = flag;
 	}
 
+	/**
+	 * Anlegen einer einzelnen nderung an der Kantenmenge des gegebenen
+	 * Graphen.
+	 */
+	public EdgeSetChangeEvent(Object o, Graph graph, int flag) {
+		super(o);
+		this.graph = graph;
+		this.flag = flag;
+	}
+
+	/**
+	 * Anlegen einer Sammelnderung. Die Listen werden nicht kopiert.
+	 */
+	public EdgeSetChangeEvent(Graph graph, List<Edge> addedEdges,
+			List<Edge> removedEdges) {
+		super(graph);
+		this.graph = graph;
+		this.flag = EDGES_CHANGED;
+		this.addedEdges = addedEdges;
+		this.removedEdges = removedEdges;
+	}
+
 	public boolean isEdgeAdded() {
 		return flag == EDGE_ADDED;
 	}
@@ -23,4 +61,40 @@ public class EdgeSetChangeEvent extends EventObject {
 	public boolean isEdgeModified() {
 		return flag == EDGE_MODIFIED;
 	}
+
+	public boolean isBulkChange() {
+		return flag == EDGES_CHANGED;
+	}
+
+	/**
+	 * Auslesen des Graphen, dessen Kantenmenge sich gendert hat. Liefert
+	 * null, wenn das Ereignis ohne Graph angelegt wurde.
+	 */
+	public Graph getGraph() {
+		return graph;
+	}
+
+	/**
+	 * Auslesen der hinzugefgten Kanten in der Reihenfolge des Hinzufgens.
+	 */
+	public List<Edge> getAddedEdges() {
+		if (flag == EDGES_CHANGED) {
+			return Collections.unmodifiableList(addedEdges);
+		}
+
+		return flag == EDGE_ADDED ? Collections.singletonList((Edge) source)
+				: Collections.<Edge> emptyList();
+	}
+
+	/**
+	 * Auslesen der entfernten Kanten in der Reihenfolge des Entfernens.
+	 */
+	public List<Edge> getRemovedEdges() {
+		if (flag == EDGES_CHANGED) {
+			return Collections.unmodifiableList(removedEdges);
+		}
+
+		return flag == EDGE_REMOVED ? Collections.singletonList((Edge) source)
+				: Collections.<Edge> emptyList();
+	}
 }
@@ -1,20 +1,55 @@
 package com.kabu.graph.event;
 
+import java.util.Collections;
 import java.util.EventObject;
+import java.util.List;
 
+import com.kabu.graph.Graph;
 import com.kabu.graph.Vertex;
 
+/**
+ * nderung der Eckenmenge eines Graphen. Einzelne nderungen haben die
+ * betroffene Ecke als Quelle. Sammelnderungen (VERTICES_CHANGED) haben den
+ * Graphen als Quelle und fhren smtliche hinzugefgten und entfernten Ecken
+ * in Listen mit.
+ */
 public class VerticesChangeEvent extends EventObject {
 
-	public static int VERTEX_ADDED = 0, VERTEX_REMOVED = 1;
+	public static int VERTEX_ADDED = 0, VERTEX_REMOVED = 1,
+			VERTICES_CHANGED = 2;
 	int flag = 0;
+	Graph graph = null;
 	Vertex vertex = null;
+	List<Vertex> addedVertices = null;
+	List<Vertex> removedVertices = null;
 
 	public VerticesChangeEvent(Object o, int flag) {
 		super(o);
 		this.flag = flag;
 	}
 
+	/**
+	 * Anlegen einer einzelnen nderung an der Eckenmenge des gegebenen
+	 * Graphen.
+	 */
+	public VerticesChangeEvent(Object o, Graph graph, int flag) {
+		super(o);
+		this.graph = graph;
+		this.flag = flag;
+	}
+
+	/**
+	 * Anlegen einer Sammelnderung. Die Listen werden nicht kopiert.
+	 */
+	public VerticesChangeEvent(Graph graph, List<Vertex> addedVertices,
+			List<Vertex> removedVertices) {
+		super(graph);
+		this.graph = graph;
+		this.flag = VERTICES_CHANGED;
+		this.addedVertices = addedVertices;
+		this.removedVertices = removedVertices;
+	}
+
 	public boolean isVertexAdded() {
 		return flag == VERTEX_ADDED;
 	}
@@ -23,6 +58,43 @@ public class VerticesChangeEvent extends EventObject {
 		return flag == VERTEX_REMOVED;
 	}
 
+	public boolean isBulkChange() {
+		return flag == VERTICES_CHANGED;
+	}
+
+	/**
+	 * Auslesen des Graphen, dessen Eckenmenge sich gendert hat. Liefert null,
+	 * wenn das Ereignis ohne Graph angelegt wurde.
+	 */
+	public Graph getGraph() {
+		return graph;
+	}
+
+	/**
+	 * Auslesen der hinzugefgten Ecken in der Reihenfolge des Hinzufgens.
+	 */
+	public List<Vertex> getAddedVertices() {
+		if (flag == VERTICES_CHANGED) {
+			return Collections.unmodifiableList(addedVertices);
+		}
+
+		return flag == VERTEX_ADDED ? Collections.singletonList((Vertex) source)
+				: Collections.<Vertex> emptyList();
+	}
+
+	/**
+	 * Auslesen der entfernten Ecken in der Reihenfolge des Entfernens.
+	 */
+	public List<Vertex> getRemovedVertices() {
+		if (flag == VERTICES_CHANGED) {
+			return Collections.unmodifiableList(removedVertices);
+		}
+
+		return flag == VERTEX_REMOVED ? Collections
+				.singletonList((Vertex) source) : Collections
+				.<Vertex> emptyList();
+	}
+
 	public void setVertex(Vertex vertex) {
 		this.vertex = vertex;
 	}
@@ -51,4 +51,27 @@ public class AcyclicityTest {
 		
 		assertThat(a.isAcyclic()).isEqualTo(false);
 	}
+
+	@Test
+	public void testLongChain() {
+		Graph g = new Graph();
+		Vertex first = g.createVertex("0");
+		Vertex last = first;
+
+		for (int i = 1; i < 100000; i++) {
+			Vertex next = g.createVertex(Integer.toString(i));
+			g.connect(last, next);
+			last = next;
+		}
+
+		IsAcyclic a = new IsAcyclic(g);
+		a.execute();
+
+		assertThat(a.isAcyclic()).isEqualTo(true);
+
+		g.connect(last, first);
+		a.execute();
+
+		assertThat(a.isAcyclic()).isEqualTo(false);
+	}
 }
@@ -46,4 +46,46 @@ public class AdjacencyTest {
 						{ 1, 0, 0, 1 } });
 	}
 
+	@Test
+	public void testWeightedAndSparse() {
+		Graph g = new Graph();
+
+		Vertex v1 = g.createVertex("Node 1");
+		Vertex v2 = g.createVertex("Node 2");
+		Vertex v3 = g.createVertex("Node 3");
+
+		g.connect(v1, v3, "N1->N3", 4);
+		g.connect(v1, v2, "N1->N2", 5);
+		g.connect(v1, v2, "N1->N2", 2);
+		g.connect(v3, v1, "N3->N1", 1);
+
+		Convert2AdjacencyMatrix algorithm = new Convert2AdjacencyMatrix(g);
+		algorithm.setWeighted(true);
+		algorithm.execute();
+
+		assertThat(algorithm.isAdjacent(0, 1)).isTrue();
+		assertThat(algorithm.isAdjacent(1, 0)).isFalse();
+		assertThat(algorithm.getBitRows()[0][0]).isEqualTo(6L);
+
+		double inf = Double.POSITIVE_INFINITY;
+		assertThat(algorithm.getWeightedResult()).isEqualTo(
+				new double[][] { { inf, 2, 4 }, { inf, inf, inf },
+						{ 1, inf, inf } });
+
+		// Parallele Kanten ergeben einen Eintrag, Spalten sind sortiert
+		assertThat(algorithm.getRowOffsets()).containsExactly(0, 2, 2, 3);
+		assertThat(algorithm.getColumnIndices()).containsExactly(1, 2, 0);
+		assertThat(algorithm.getValues()).containsExactly(2.0, 4.0, 1.0);
+		assertThat(algorithm.getRowIndices()).containsExactly(0, 0, 2);
+
+		assertThat(algorithm.getResultString()).isEqualTo(
+				"0 1 1 \n0 0 0 \n1 0 0 \n");
+
+		algorithm.setDense(false);
+		algorithm.execute();
+
+		assertThat(algorithm.getBitRows()).isNull();
+		assertThat(algorithm.isAdjacent(2, 0)).isTrue();
+		assertThat(algorithm.isAdjacent(2, 1)).isFalse();
+	}
 }
@@ -0,0 +1,126 @@
+package com.kabu.graph.tests;
+
+import org.junit.Test;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import com.kabu.graph.Graph;
+import com.kabu.graph.Vertex;
+import com.kabu.graph.algorithm.AllPairsShortestPath;
+
+/**
+ * Funktionstest des Algorithmus zur Berechnung krzester Wege zwischen allen
+ * Paaren von Ecken.
+ */
+public class AllPairsShortestPathTest {
+	final double DELTA = 1e-9;
+	final double INF = Double.POSITIVE_INFINITY;
+
+	private Graph createGraph() {
+		Graph g = new Graph();
+
+		Vertex v1 = g.createVertex("Node 1");
+		Vertex v2 = g.createVertex("Node 2");
+		Vertex v3 = g.createVertex("Node 3");
+		Vertex v4 = g.createVertex("Node 4");
+		g.createVertex("Node 5");
+
+		g.connect(v1, v2, "N1->N2", 3);
+		g.connect(v1, v3, "N1->N3", 1);
+		g.connect(v1, v4, "N1->N4", 5);
+		g.connect(v2, v4, "N2->N4", 8);
+		g.connect(v3, v4, "N3->N4", 0.3);
+		g.connect(v3, v2, "N3->N2", 7);
+		g.connect(v3, v2, "N3->N2", 1.5);
+		g.connect(v4, v1, "N4->N1", 2);
+
+		return g;
+	}
+
+	private void check(AllPairsShortestPath algorithm) {
+		Graph g = algorithm.getGraph();
+		Vertex v1 = g.getVertices().get(0);
+		Vertex v2 = g.getVertices().get(1);
+		Vertex v3 = g.getVertices().get(2);
+		Vertex v4 = g.getVertices().get(3);
+		Vertex v5 = g.getVertices().get(4);
+
+		algorithm.execute();
+
+		double[][] expected = { { 0, 2.5, 1, 1.3, INF },
+				{ 10, 0, 11, 8, INF }, { 2.3, 1.5, 0, 0.3, INF },
+				{ 2, 4.5, 3, 0, INF }, { INF, INF, INF, INF, 0 } };
+
+		assertThat(algorithm.getOrder()).isEqualTo(5);
+		for (int i = 0; i < 5; i++) {
+			for (int j = 0; j < 5; j++) {
+				if (expected[i][j] == INF) {
+					assertThat(algorithm.getDistance(i, j)).isEqualTo(INF);
+				} else {
+					assertThat(algorithm.getDistance(i, j)).isCloseTo(
+							expected[i][j], within(DELTA));
+				}
+			}
+		}
+
+		assertThat(algorithm.getDistance(v2, v3)).isCloseTo(11, within(DELTA));
+		assertThat(algorithm.getPredecessor(0, 1)).isEqualTo(2);
+		assertThat(algorithm.getPredecessor(0, 0)).isEqualTo(-1);
+		assertThat(algorithm.getPath(v2, v3)).containsExactly(v2, v4, v1, v3);
+		assertThat(algorithm.getPath(v1, v1)).containsExactly(v1);
+		assertThat(algorithm.getPath(v1, v5)).isEmpty();
+		assertThat(algorithm.hasNegativeCycle()).isFalse();
+	}
+
+	@Test
+	public void testFloydWarshall() {
+		AllPairsShortestPath algorithm = new AllPairsShortestPath(createGraph());
+		algorithm.setMethod(AllPairsShortestPath.FLOYD_WARSHALL);
+		check(algorithm);
+
+		// Kleine Blcke, damit smtliche Schritte durchlaufen werden
+		algorithm.setBlockSize(2);
+		algorithm.setParallelism(3);
+		check(algorithm);
+
+		algorithm.setParallelism(1);
+		check(algorithm);
+	}
+
+	@Test
+	public void testDijkstra() {
+		AllPairsShortestPath algorithm = new AllPairsShortestPath(createGraph());
+		algorithm.setMethod(AllPairsShortestPath.DIJKSTRA);
+		check(algorithm);
+
+		algorithm.setParallelism(1);
+		check(algorithm);
+	}
+
+	@Test
+	public void testNegativeWeights() {
+		Graph g = new Graph();
+
+		Vertex v1 = g.createVertex("Node 1");
+		Vertex v2 = g.createVertex("Node 2");
+		Vertex v3 = g.createVertex("Node 3");
+
+		g.connect(v1, v2, "N1->N2", 4);
+		g.connect(v1, v3, "N1->N3", 1);
+		g.connect(v2, v3, "N2->N3", -5);
+
+		// Dijkstra ist bei negativen Gewichten nicht anwendbar
+		AllPairsShortestPath algorithm = new AllPairsShortestPath(g);
+		algorithm.setMethod(AllPairsShortestPath.DIJKSTRA);
+		algorithm.execute();
+
+		assertThat(algorithm.hasNegativeCycle()).isFalse();
+		assertThat(algorithm.getDistance(v1, v3)).isCloseTo(-1, within(DELTA));
+		assertThat(algorithm.getPath(v1, v3)).containsExactly(v1, v2, v3);
+
+		g.connect(v3, v1, "N3->N1", 0.5);
+		algorithm.execute();
+
+		assertThat(algorithm.hasNegativeCycle()).isTrue();
+	}
+}
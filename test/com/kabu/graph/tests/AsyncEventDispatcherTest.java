@@ -0,0 +1,217 @@
+package com.kabu.graph.tests;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+import com.kabu.graph.Edge;
+import com.kabu.graph.Graph;
+import com.kabu.graph.Vertex;
+import com.kabu.graph.event.AsyncEventDispatcher;
+import com.kabu.graph.event.EdgeSetChangeEvent;
+import com.kabu.graph.event.EdgeSetChangeListener;
+import com.kabu.graph.event.VerticesChangeEvent;
+import com.kabu.graph.event.VerticesChangeListener;
+
+public class AsyncEventDispatcherTest {
+
+	/**
+	 * Listener, der bis zur Freigabe wartet und sich smtliche hinzugefgten
+	 * Kanten merkt.
+	 */
+	private static class SlowListener implements EdgeSetChangeListener {
+		CountDownLatch release = new CountDownLatch(1);
+		List<Edge> added = Collections.synchronizedList(new ArrayList<Edge>());
+		List<EdgeSetChangeEvent> received = Collections
+				.synchronizedList(new ArrayList<EdgeSetChangeEvent>());
+		int events = 0;
+
+		public void edgeSetChanged(EdgeSetChangeEvent e) {
+			try {
+				release.await();
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+			added.addAll(e.getAddedEdges());
+			received.add(e);
+			events++;
+		}
+	}
+
+	@Test
+	public void testOrder() throws InterruptedException {
+		Graph g = new Graph();
+		Vertex v1 = g.createVertex("Node 1");
+		Vertex v2 = g.createVertex("Node 2");
+		AsyncEventDispatcher dispatcher = new AsyncEventDispatcher(4,
+				AsyncEventDispatcher.BLOCK);
+		SlowListener listener = new SlowListener();
+
+		g.addEdgeSetChangeListener(dispatcher.asyncEdgeSet(listener));
+
+		// Der Listener hlt den ndernden Thread nicht auf
+		List<Edge> edges = new ArrayList<Edge>();
+		for (int i = 0; i < 3; i++) {
+			edges.add(g.connect(v1, v2));
+		}
+		assertThat(listener.added).isEmpty();
+
+		listener.release.countDown();
+		for (int i = 0; i < 20; i++) {
+			edges.add(g.connect(v1, v2));
+		}
+		dispatcher.flush();
+
+		assertThat(listener.added).isEqualTo(edges);
+		assertThat(dispatcher.getQueueDepth()).isEqualTo(0);
+		assertThat(dispatcher.getDeliveredCount()).isEqualTo(23);
+		assertThat(dispatcher.getMaxQueueDepth()).isBetween(2, 4);
+
+		g.removeEdgeSetChangeListener(dispatcher.asyncEdgeSet(listener));
+		g.connect(v1, v2);
+		dispatcher.flush();
+
+		assertThat(listener.added).hasSize(23);
+		dispatcher.shutdown();
+	}
+
+	@Test
+	public void testDropAndCoalesce() throws InterruptedException {
+		Graph g = new Graph();
+		Vertex v1 = g.createVertex("Node 1");
+		Vertex v2 = g.createVertex("Node 2");
+		AsyncEventDispatcher drop = new AsyncEventDispatcher(2,
+				AsyncEventDispatcher.DROP);
+		AsyncEventDispatcher coalesce = new AsyncEventDispatcher(2,
+				AsyncEventDispatcher.COALESCE);
+		SlowListener dropping = new SlowListener();
+		SlowListener coalescing = new SlowListener();
+
+		g.addEdgeSetChangeListener(drop.asyncEdgeSet(dropping));
+		g.addEdgeSetChangeListener(coalesce.asyncEdgeSet(coalescing));
+
+		// Das erste Ereignis wird sofort entnommen und blockiert den
+		// Dispatcher. Danach passen zwei weitere in den Puffer.
+		g.connect(v1, v2);
+		while (drop.getQueueDepth() > 0 || coalesce.getQueueDepth() > 0) {
+			Thread.sleep(1);
+		}
+		for (int i = 0; i < 9; i++) {
+			g.connect(v1, v2);
+		}
+
+		assertThat(drop.getDroppedCount()).isEqualTo(7);
+		assertThat(coalesce.getCoalescedCount()).isEqualTo(7);
+
+		dropping.release.countDown();
+		coalescing.release.countDown();
+		drop.flush();
+		coalesce.flush();
+
+		assertThat(dropping.added).hasSize(3);
+		assertThat(coalescing.events).isEqualTo(3);
+		assertThat(coalescing.added).isEqualTo(g.getAllEdges());
+
+		drop.shutdown();
+		coalesce.shutdown();
+	}
+
+	@Test
+	public void testCoalescedSource() throws InterruptedException {
+		Graph g = new Graph();
+		Graph other = new Graph();
+		Vertex v1 = g.createVertex("Node 1");
+		Vertex v2 = g.createVertex("Node 2");
+		Vertex w1 = other.createVertex("Node 1");
+		Vertex w2 = other.createVertex("Node 2");
+		AsyncEventDispatcher coalesce = new AsyncEventDispatcher(2,
+				AsyncEventDispatcher.COALESCE);
+		SlowListener listener = new SlowListener();
+
+		g.addEdgeSetChangeListener(coalesce.asyncEdgeSet(listener));
+		other.addEdgeSetChangeListener(coalesce.asyncEdgeSet(listener));
+
+		Edge first = g.connect(v1, v2);
+		while (coalesce.getQueueDepth() > 0) {
+			Thread.sleep(1);
+		}
+		Edge second = g.connect(v1, v2);
+		g.connect(v1, v2);
+		g.connect(v1, v2);
+		g.connect(v1, v2);
+
+		// Ereignisse verschiedener Graphen werden nicht zusammengefasst
+		listener.release.countDown();
+		other.connect(w1, w2);
+		coalesce.flush();
+
+		assertThat(coalesce.getCoalescedCount()).isEqualTo(2);
+		assertThat(listener.received).hasSize(4);
+		assertThat(listener.received.get(0).getSource()).isSameAs(first);
+		assertThat(listener.received.get(0).getGraph()).isSameAs(g);
+		assertThat(listener.received.get(1).getSource()).isSameAs(second);
+
+		EdgeSetChangeEvent merged = listener.received.get(2);
+		assertThat(merged.isBulkChange()).isTrue();
+		assertThat(merged.getSource()).isSameAs(g);
+		assertThat(merged.getGraph()).isSameAs(g);
+		assertThat(merged.getAddedEdges()).isEqualTo(
+				g.getAllEdges().subList(2, 5));
+		assertThat(listener.received.get(3).getGraph()).isSameAs(other);
+
+		coalesce.shutdown();
+	}
+
+	/**
+	 * Listener fr Ecken- und Kantenmengen, der die Art der Ereignisse in
+	 * ihrer Reihenfolge protokolliert.
+	 */
+	private static class GraphListener implements EdgeSetChangeListener,
+			VerticesChangeListener {
+		List<String> log = Collections
+				.synchronizedList(new ArrayList<String>());
+
+		public void edgeSetChanged(EdgeSetChangeEvent e) {
+			log.add("edges");
+		}
+
+		public void verticesChanged(VerticesChangeEvent e) {
+			log.add("vertices");
+		}
+	}
+
+	@Test
+	public void testSeveralInterfaces() throws InterruptedException {
+		Graph g = new Graph();
+		AsyncEventDispatcher dispatcher = new AsyncEventDispatcher(16,
+				AsyncEventDispatcher.COALESCE);
+		GraphListener listener = new GraphListener();
+
+		// Je Interface eine eigene Hlle, die stets dieselbe bleibt
+		EdgeSetChangeListener edgeSetWrapper = dispatcher
+				.asyncEdgeSet(listener);
+		VerticesChangeListener verticesWrapper = dispatcher
+				.asyncVertices(listener);
+
+		assertThat(dispatcher.asyncEdgeSet(listener)).isSameAs(edgeSetWrapper);
+		assertThat(dispatcher.asyncVertices(listener)).isSameAs(
+				verticesWrapper);
+
+		g.addEdgeSetChangeListener(edgeSetWrapper);
+		g.addVertexChangeListener(verticesWrapper);
+
+		Vertex v1 = g.createVertex("Node 1");
+		Vertex v2 = g.createVertex("Node 2");
+		g.connect(v1, v2);
+		dispatcher.flush();
+
+		assertThat(listener.log).containsExactly("vertices", "vertices",
+				"edges");
+		dispatcher.shutdown();
+	}
+}
@@ -0,0 +1,128 @@
+package com.kabu.graph.tests;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.kabu.graph.Graph;
+import com.kabu.graph.Vertex;
+import com.kabu.graph.algorithm.BreadthFirstSearch;
+
+/**
+ * Funktionstest der parallelen Breitensuche.
+ */
+public class BreadthFirstSearchTest {
+
+	private Graph createGraph() {
+		Graph g = new Graph();
+
+		Vertex v1 = g.createVertex("Node 1");
+		Vertex v2 = g.createVertex("Node 2");
+		Vertex v3 = g.createVertex("Node 3");
+		Vertex v4 = g.createVertex("Node 4");
+		Vertex v5 = g.createVertex("Node 5");
+		g.createVertex("Node 6");
+
+		g.connect(v1, v2);
+		g.connect(v1, v3);
+		g.connect(v2, v4);
+		g.connect(v3, v4);
+		g.connect(v4, v5);
+		g.connect(v5, v1);
+
+		return g;
+	}
+
+	@Test
+	public void test() {
+		int[] directions = { BreadthFirstSearch.AUTOMATIC,
+				BreadthFirstSearch.TOP_DOWN, BreadthFirstSearch.BOTTOM_UP };
+
+		for (int direction : directions) {
+			Graph g = createGraph();
+			Vertex v1 = g.getVertices().get(0);
+			Vertex v4 = g.getVertices().get(3);
+			Vertex v5 = g.getVertices().get(4);
+			Vertex v6 = g.getVertices().get(5);
+
+			BreadthFirstSearch algorithm = new BreadthFirstSearch(g);
+			algorithm.setStart(v1);
+			algorithm.setDirection(direction);
+			algorithm.setParallelism(1);
+			algorithm.execute();
+
+			assertThat(algorithm.getLevelArray()).containsExactly(0, 1, 1, 2,
+					3, -1);
+			assertThat(algorithm.getLevel(v5)).isEqualTo(3);
+			assertThat(algorithm.isReachable(v6)).isFalse();
+			assertThat(algorithm.getParent(v1)).isNull();
+			assertThat(algorithm.getParent(v6)).isNull();
+			assertThat(algorithm.getPath(v5)).hasSize(4).startsWith(v1)
+					.endsWith(v4, v5);
+			assertThat(algorithm.getPath(v6)).isEmpty();
+			assertThat(algorithm.getReachedCount()).isEqualTo(5);
+			assertThat(algorithm.getLevelCount()).isEqualTo(4);
+
+			// nderungen am Graphen werden bei der nchsten Suche bercksichtigt
+			g.connect(v1, v6);
+			g.connect(v6, v5);
+			algorithm.execute();
+
+			assertThat(algorithm.getLevelArray()).containsExactly(0, 1, 1, 2,
+					2, 1);
+			assertThat(algorithm.getPath(v5)).containsExactly(v1, v6, v5);
+		}
+	}
+
+	@Test
+	public void testDirections() {
+		Graph g = new Graph();
+		Random random = new Random(0);
+		int n = 5000;
+
+		List<Vertex> vertices = new ArrayList<Vertex>();
+		for (int i = 0; i < n; i++) {
+			vertices.add(g.createVertex("Node " + i));
+		}
+		for (int i = 0; i < 8 * n; i++) {
+			g.connect(vertices.get(random.nextInt(n)),
+					vertices.get(random.nextInt(n)));
+		}
+
+		BreadthFirstSearch topDown = new BreadthFirstSearch(g);
+		topDown.setStart(vertices.get(0));
+		topDown.setDirection(BreadthFirstSearch.TOP_DOWN);
+		topDown.setParallelism(1);
+		topDown.execute();
+		int[] expected = topDown.getLevelArray();
+
+		assertThat(topDown.getBottomUpSteps()).isEqualTo(0);
+
+		int[] directions = { BreadthFirstSearch.AUTOMATIC,
+				BreadthFirstSearch.BOTTOM_UP };
+		for (int direction : directions) {
+			BreadthFirstSearch algorithm = new BreadthFirstSearch(g);
+			algorithm.setStart(vertices.get(0));
+			algorithm.setDirection(direction);
+			algorithm.setParallelism(4);
+			algorithm.execute();
+
+			assertThat(algorithm.getLevelArray()).isEqualTo(expected);
+			assertThat(algorithm.getBottomUpSteps()).isGreaterThan(0);
+
+			// Jeder Vorgnger liegt eine Ebene hher und ist adjazent
+			int[] parent = algorithm.getParentArray();
+			for (int v = 0; v < n; v++) {
+				if (expected[v] > 0) {
+					assertThat(expected[parent[v]]).isEqualTo(expected[v] - 1);
+					assertThat(
+							g.isConnected(vertices.get(parent[v]),
+									vertices.get(v))).isTrue();
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,267 @@
+package com.kabu.graph.tests;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.kabu.graph.ConcurrentGraph;
+import com.kabu.graph.CsrGraph;
+import com.kabu.graph.Edge;
+import com.kabu.graph.Graph;
+import com.kabu.graph.GraphSnapshot;
+import com.kabu.graph.Vertex;
+import com.kabu.graph.algorithm.ShortestPath;
+import com.kabu.graph.event.EdgeSetChangeEvent;
+import com.kabu.graph.event.EdgeSetChangeListener;
+
+/**
+ * Funktionstest des threadsicheren Graphen.
+ */
+public class ConcurrentGraphTest {
+
+	@Test
+	public void test() {
+		ConcurrentGraph g = new ConcurrentGraph();
+
+		Vertex v1 = g.createVertex("Node 1");
+		Vertex v2 = g.createVertex("Node 2");
+		Vertex v3 = g.createVertex("Node 3");
+
+		Edge e1 = g.connect(v1, v2, "N1->N2", 2);
+		g.connect(v1, v3, "N1->N3");
+		g.connect(v3, v1, 4);
+
+		assertThat(g.getNeighbours(v1)).containsExactly(v2, v3);
+		assertThat(g.getPred(v1)).containsExactly(v3);
+		assertThat(g.getShortestEdge(v1, v2)).isSameAs(e1);
+		assertThat(e1.getLabel()).isEqualTo("N1->N2");
+		assertThat(e1.getWeight()).isEqualTo(2.0);
+		assertThat(g.findByLabel("Node 3")).isSameAs(v3);
+
+		// Die gelieferten Listen sind Kopien
+		List<Edge> edges = g.getAllEdges();
+		g.remove(e1);
+		assertThat(edges).hasSize(3);
+		assertThat(g.getAllEdges()).hasSize(2);
+		assertThat(g.getOutgoingEdges(v1)).hasSize(1);
+		assertThat(g.getIncomingEdges(v2)).isEmpty();
+
+		g.remove(v3);
+		assertThat(g.getVertices()).containsExactly(v1, v2);
+		assertThat(g.getAllEdges()).isEmpty();
+
+		Graph copy = g.copy();
+		assertThat(copy).isInstanceOf(ConcurrentGraph.class);
+		assertThat(copy.getOrder()).isEqualTo(2);
+	}
+
+	@Test
+	public void testConcurrentAccess() throws Exception {
+		final ConcurrentGraph g = new ConcurrentGraph();
+		final int n = 200;
+		final int threads = 4;
+		final int operations = 5000;
+		final AtomicInteger events = new AtomicInteger();
+
+		for (int i = 0; i < n; i++) {
+			g.createVertex("Node " + i);
+		}
+		final List<Vertex> vertices = g.getVertices();
+
+		g.addEdgeSetChangeListener(new EdgeSetChangeListener() {
+			public void edgeSetChanged(EdgeSetChangeEvent e) {
+				events.incrementAndGet();
+			}
+		});
+
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		List<Future<Integer>> results = new ArrayList<Future<Integer>>();
+
+		// Jeder Thread legt Kanten an, entfernt einen Teil davon wieder und
+		// liest zwischendurch Nachbarn
+		for (int t = 0; t < threads; t++) {
+			final Random random = new Random(t);
+
+			results.add(executor.submit(new Callable<Integer>() {
+				public Integer call() {
+					List<Edge> own = new ArrayList<Edge>();
+
+					for (int i = 0; i < operations; i++) {
+						Vertex from = vertices.get(random.nextInt(n));
+						Vertex to = vertices.get(random.nextInt(n));
+
+						if (i % 3 == 2) {
+							g.remove(own.remove(own.size() - 1));
+						} else {
+							own.add(g.connect(from, to));
+						}
+						g.getNeighbours(to);
+					}
+
+					return own.size();
+				}
+			}));
+		}
+
+		int remaining = 0;
+		for (Future<Integer> result : results) {
+			remaining += result.get();
+		}
+		executor.shutdown();
+		assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+		// Smtliche Strukturen stimmen berein
+		assertThat(g.getAllEdges()).hasSize(remaining).doesNotHaveDuplicates();
+		assertThat(events.get()).isEqualTo(threads * operations);
+
+		int outgoing = 0, incoming = 0;
+		for (Vertex vertex : vertices) {
+			for (Edge edge : g.getOutgoingEdges(vertex)) {
+				assertThat(g.contains(edge)).isTrue();
+				assertThat(edge.getTail()).isSameAs(vertex);
+				outgoing++;
+			}
+			incoming += g.getIncomingEdges(vertex).size();
+		}
+		assertThat(outgoing).isEqualTo(remaining);
+		assertThat(incoming).isEqualTo(remaining);
+		assertThat(g.toCsr().getSize()).isEqualTo(remaining);
+	}
+
+	@Test
+	public void testSnapshotWhileWriting() throws Exception {
+		final ConcurrentGraph g = new ConcurrentGraph();
+		final int n = 100;
+		final int edges = 2000;
+
+		for (int i = 0; i < n; i++) {
+			g.createVertex("Node " + i);
+		}
+		final List<Vertex> vertices = g.getVertices();
+
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		Future<?> writer = executor.submit(new Runnable() {
+			public void run() {
+				Random random = new Random(0);
+
+				for (int i = 0; i < edges; i++) {
+					g.connect(vertices.get(random.nextInt(n)),
+							vertices.get(random.nextInt(n)));
+				}
+			}
+		});
+
+		// Auswertungen auf einer Momentaufnahme sehen stets denselben Stand
+		long version = -1;
+		while (!writer.isDone()) {
+			GraphSnapshot snapshot = g.snapshot();
+			int size = snapshot.getAllEdges().size();
+
+			assertThat(snapshot.getVersion()).isGreaterThanOrEqualTo(version);
+			version = snapshot.getVersion();
+
+			ShortestPath algorithm = new ShortestPath(snapshot);
+			algorithm.setStart(snapshot.getVertices().get(0));
+			algorithm.execute();
+
+			assertThat(snapshot.toCsr().getSize()).isEqualTo(size);
+			assertThat(snapshot.getAllEdges()).hasSize(size);
+		}
+		writer.get();
+		executor.shutdown();
+
+		GraphSnapshot snapshot = g.snapshot();
+		assertThat(snapshot.getAllEdges()).hasSize(edges);
+		assertThat(g.snapshot()).isSameAs(snapshot);
+	}
+
+	@Test
+	public void testReadsDuringBatch() throws Exception {
+		final ConcurrentGraph g = new ConcurrentGraph();
+
+		Vertex v1 = g.createVertex("Node 1");
+		Vertex v2 = g.createVertex("Node 2");
+		g.connect(v1, v2, 2);
+		assertThat(g.findByLabel("Node 2")).isSameAs(v2);
+
+		g.beginBatch();
+		try {
+			Vertex v3 = g.createVertex("Node 3");
+			g.connect(v2, v3, 3);
+
+			// Lesende Zugriffe auf den gesamten Graphen warten nicht auf das
+			// Ende des Batches
+			ExecutorService executor = Executors.newSingleThreadExecutor();
+			Future<CsrGraph> csr = executor.submit(new Callable<CsrGraph>() {
+				public CsrGraph call() {
+					return g.toCsr();
+				}
+			});
+			Future<Graph> copy = executor.submit(new Callable<Graph>() {
+				public Graph call() {
+					return g.copy();
+				}
+			});
+			Future<Vertex> found = executor.submit(new Callable<Vertex>() {
+				public Vertex call() {
+					return g.findByLabel("Node 3");
+				}
+			});
+
+			assertThat(csr.get(10, TimeUnit.SECONDS).getSize()).isEqualTo(2);
+			assertThat(copy.get(10, TimeUnit.SECONDS).getOrder()).isEqualTo(3);
+			assertThat(found.get(10, TimeUnit.SECONDS)).isSameAs(v3);
+			executor.shutdown();
+		} finally {
+			g.commitBatch();
+		}
+	}
+
+	@Test
+	public void testFindByLabelWhileRelabeling() throws Exception {
+		final ConcurrentGraph g = new ConcurrentGraph();
+		final int n = 50;
+
+		for (int i = 0; i < n; i++) {
+			g.createVertex("Node " + i);
+		}
+		final List<Vertex> vertices = g.getVertices();
+
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		Future<?> writer = executor.submit(new Runnable() {
+			public void run() {
+				for (int round = 0; round < 200; round++) {
+					for (int i = 0; i < n; i++) {
+						vertices.get(i).setLabel(
+								(round % 2 == 0 ? "Other " : "Node ") + i);
+					}
+				}
+			}
+		});
+
+		// Der Index liefert nur Ecken, die das Label zwischenzeitlich besaen
+		while (!writer.isDone()) {
+			for (int i = 0; i < n; i++) {
+				Vertex found = g.findByLabel("Node " + i);
+
+				assertThat(found == null || found == vertices.get(i)).isTrue();
+			}
+		}
+		writer.get();
+		executor.shutdown();
+
+		for (int i = 0; i < n; i++) {
+			assertThat(g.findByLabel("Node " + i)).isSameAs(vertices.get(i));
+			assertThat(g.findAllByLabel("Other " + i)).isEmpty();
+		}
+	}
+}
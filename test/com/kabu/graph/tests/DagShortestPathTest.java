@@ -0,0 +1,140 @@
+package com.kabu.graph.tests;
+
+import org.junit.Test;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import com.kabu.graph.Graph;
+import com.kabu.graph.HierarchyException;
+import com.kabu.graph.TypeHierarchy;
+import com.kabu.graph.Vertex;
+import com.kabu.graph.algorithm.DagShortestPath;
+import com.kabu.graph.algorithm.ShortestPath;
+
+/**
+ * Funktionstest der krzesten und lngsten Wege in azyklischen Graphen.
+ */
+public class DagShortestPathTest {
+	final double DELTA = 1e-9;
+	final double INF = Double.POSITIVE_INFINITY;
+
+	private Graph createGraph() {
+		Graph g = new Graph();
+
+		Vertex v1 = g.createVertex("Node 1");
+		Vertex v2 = g.createVertex("Node 2");
+		Vertex v3 = g.createVertex("Node 3");
+		Vertex v4 = g.createVertex("Node 4");
+		Vertex v5 = g.createVertex("Node 5");
+		g.createVertex("Node 6");
+
+		g.connect(v1, v2, "N1->N2", 3);
+		g.connect(v1, v3, "N1->N3", 2);
+		g.connect(v3, v2, "N3->N2", -2);
+		g.connect(v2, v4, "N2->N4", 4);
+		g.connect(v3, v4, "N3->N4", 7);
+		g.connect(v4, v5, "N4->N5", 1);
+
+		return g;
+	}
+
+	@Test
+	public void testShortest() {
+		Graph g = createGraph();
+		Vertex v1 = g.getVertices().get(0);
+		Vertex v2 = g.getVertices().get(1);
+		Vertex v5 = g.getVertices().get(4);
+		Vertex v6 = g.getVertices().get(5);
+
+		DagShortestPath algorithm = new DagShortestPath(g);
+		algorithm.setStart(v1);
+		algorithm.execute();
+
+		assertThat(algorithm.getDistanceArray()).containsExactly(0.0, 0.0,
+				2.0, 4.0, 5.0, INF);
+		assertThat(algorithm.getPredecessor(v2).getLabel()).isEqualTo(
+				"Node 3");
+		assertThat(algorithm.pathTo(v5)).hasSize(5).startsWith(v1);
+		assertThat(algorithm.pathTo(v6)).isEmpty();
+		assertThat(algorithm.getDistance(v6)).isEqualTo(INF);
+
+		// ShortestPath verwendet bei negativen Kantengewichten ebenfalls die
+		// topologische Sortierung und liefert dieselben Distanzen
+		ShortestPath sp = new ShortestPath(g);
+		sp.setStart(v1);
+		sp.execute();
+
+		assertThat(sp.getDistanceArray()).isEqualTo(
+				algorithm.getDistanceArray());
+		assertThat(sp.hasNegativeCycle()).isFalse();
+	}
+
+	@Test
+	public void testLongest() {
+		Graph g = createGraph();
+		Vertex v1 = g.getVertices().get(0);
+		Vertex v3 = g.getVertices().get(2);
+		Vertex v4 = g.getVertices().get(3);
+		Vertex v5 = g.getVertices().get(4);
+		Vertex v6 = g.getVertices().get(5);
+
+		DagShortestPath algorithm = new DagShortestPath(g);
+		algorithm.setLongest(true);
+		algorithm.execute();
+
+		// Ohne Startecke beginnen die Wege an den Quellen Node 1 und Node 6
+		assertThat(algorithm.getDistanceArray()).containsExactly(0.0, 3.0,
+				2.0, 9.0, 10.0, 0.0);
+		assertThat(algorithm.getCriticalPath()).containsExactly(v1, v3, v4,
+				v5);
+		assertThat(algorithm.getDistance(v6)).isCloseTo(0, within(DELTA));
+
+		algorithm.setStart(v3);
+		algorithm.execute();
+
+		assertThat(algorithm.getDistance(v1)).isEqualTo(
+				Double.NEGATIVE_INFINITY);
+		assertThat(algorithm.getDistance(v5)).isCloseTo(8, within(DELTA));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testCycle() {
+		Graph g = createGraph();
+		g.connect(g.getVertices().get(4), g.getVertices().get(0));
+
+		new DagShortestPath(g).execute();
+	}
+
+	@Test
+	public void testHierarchy() throws HierarchyException {
+		TypeHierarchy hierarchy = new TypeHierarchy();
+
+		Vertex animal = hierarchy.createVertex("ANIMAL");
+		Vertex cat = hierarchy.createVertex("CAT");
+		Vertex pet = hierarchy.createVertex("PET");
+		Vertex petcat = hierarchy.createVertex("PETCAT");
+
+		hierarchy.setIsSubtypeOf(animal, null);
+		hierarchy.setIsSubtypeOf(cat, animal);
+		hierarchy.setIsSubtypeOf(pet, animal);
+		hierarchy.setIsSubtypeOf(petcat, cat);
+		hierarchy.setIsSubtypeOf(petcat, pet);
+
+		// Tiefe jedes Typs unterhalb der Wurzel
+		ShortestPath sp = new ShortestPath(hierarchy);
+		sp.setStart(petcat);
+		sp.execute();
+
+		assertThat(sp.getDistance(hierarchy.getRoot())).isCloseTo(3,
+				within(DELTA));
+		assertThat(sp.pathTo(hierarchy.getRoot())).hasSize(4)
+				.startsWith(petcat).endsWith(animal, hierarchy.getRoot());
+
+		DagShortestPath longest = new DagShortestPath(hierarchy);
+		longest.setLongest(true);
+		longest.execute();
+
+		assertThat(longest.getDistance(hierarchy.getRoot())).isCloseTo(3,
+				within(DELTA));
+	}
+}
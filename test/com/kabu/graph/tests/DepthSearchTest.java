@@ -139,4 +139,27 @@ public class DepthSearchTest {
 
 		assertThat(algorithm.getPath()).containsExactly(v1, v7, v8, v4);
 	}
+
+	@Test
+	public void testLongChain() {
+		Graph g = new Graph();
+		Vertex first = g.createVertex("0");
+		Vertex last = first;
+
+		// Deutlich tiefer, als es eine rekursive Suche erlauben wrde
+		for (int i = 1; i < 100000; i++) {
+			Vertex next = g.createVertex(Integer.toString(i));
+			g.connect(last, next);
+			last = next;
+		}
+
+		DepthSearch algorithm = new DepthSearch(g);
+
+		algorithm.setLabel("99999");
+		algorithm.execute();
+
+		assertThat(algorithm.getPath()).hasSize(100000);
+		assertThat(algorithm.getPath().getFirst()).isEqualTo(first);
+		assertThat(algorithm.getPath().getLast()).isEqualTo(last);
+	}
 }
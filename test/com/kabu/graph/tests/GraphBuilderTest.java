@@ -0,0 +1,115 @@
+package com.kabu.graph.tests;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.kabu.graph.Edge;
+import com.kabu.graph.Graph;
+import com.kabu.graph.GraphBuilder;
+import com.kabu.graph.HierarchyException;
+import com.kabu.graph.TypeHierarchy;
+import com.kabu.graph.Vertex;
+import com.kabu.graph.event.EdgeSetChangeEvent;
+import com.kabu.graph.event.EdgeSetChangeListener;
+import com.kabu.graph.event.VerticesChangeEvent;
+import com.kabu.graph.event.VerticesChangeListener;
+
+public class GraphBuilderTest {
+
+	@Test
+	public void test() {
+		Graph g = new Graph();
+		final List<VerticesChangeEvent> vertexEvents = new ArrayList<VerticesChangeEvent>();
+		final List<EdgeSetChangeEvent> edgeEvents = new ArrayList<EdgeSetChangeEvent>();
+
+		g.addVertexChangeListener(new VerticesChangeListener() {
+			public void verticesChanged(VerticesChangeEvent e) {
+				vertexEvents.add(e);
+			}
+		});
+		g.addEdgeSetChangeListener(new EdgeSetChangeListener() {
+			public void edgeSetChanged(EdgeSetChangeEvent e) {
+				edgeEvents.add(e);
+			}
+		});
+
+		GraphBuilder builder = new GraphBuilder(g);
+		builder.ensureCapacity(3, 4);
+		Vertex[] v = builder.addVertices(new String[] { "1", "2", "3" });
+		builder.addEdges(new int[] { 0, 0, 1 }, new int[] { 1, 2, 2 },
+				new double[] { 1, 4, 2 });
+		// Die Prfung auf gleiche Kanten muss eingeschaltet werden
+		builder.setCheckDuplicates(true);
+		Edge duplicate = builder.addEdge(v[0], v[1], 1);
+
+		// Bis build() werden keine Ereignisse verschickt
+		assertThat(vertexEvents).isEmpty();
+		assertThat(edgeEvents).isEmpty();
+
+		builder.build();
+
+		assertThat(vertexEvents).hasSize(1);
+		assertThat(vertexEvents.get(0).isBulkChange()).isTrue();
+		assertThat(vertexEvents.get(0).getAddedVertices()).containsExactly(
+				v[0], v[1], v[2]);
+		assertThat(edgeEvents).hasSize(1);
+		assertThat(edgeEvents.get(0).getAddedEdges()).hasSize(3);
+
+		assertThat(g.getVertices()).containsExactly(v[0], v[1], v[2]);
+		assertThat(g.getAllEdges()).hasSize(3);
+		assertThat(g.getEdges(v[0], v[1])).containsExactly(duplicate);
+		assertThat(g.getShortestEdge(v[0], v[2]).getWeight()).isEqualTo(4);
+		assertThat(v[2].getPredecessors()).containsExactly(v[0], v[1]);
+
+		builder.setCheckDuplicates(false);
+		builder.addEdge(v[0], v[1], 1);
+		builder.build();
+
+		assertThat(g.getEdges(v[0], v[1])).hasSize(2);
+		assertThat(edgeEvents).hasSize(2);
+		assertThat(vertexEvents).hasSize(1);
+	}
+
+	@Test
+	public void testParallelEdges() {
+		// Ohne Prfung entsteht derselbe Graph wie mit connect()
+		GraphBuilder builder = new GraphBuilder();
+		Vertex[] v = builder.addVertices(new String[] { "1", "2" });
+		Edge e1 = builder.addEdge(v[0], v[1], 1);
+		Edge e2 = builder.addEdge(v[0], v[1], 1);
+		Graph g = builder.build();
+
+		assertThat(builder.isCheckDuplicates()).isFalse();
+		assertThat(g.getEdges(v[0], v[1])).containsExactly(e1, e2);
+		assertThat(g.getAllEdges()).hasSize(2);
+	}
+
+	@Test
+	public void testTypeHierarchy() throws HierarchyException {
+		TypeHierarchy h = new TypeHierarchy();
+		Vertex animal = h.createVertex("ANIMAL");
+		h.setIsSubtypeOf(animal, null);
+
+		assertThat(h.getDenotationOf(animal)).containsOnly(animal);
+
+		GraphBuilder builder = new GraphBuilder(h);
+		Vertex cat = builder.addVertex("CAT");
+		builder.addEdge(cat, animal, "is a", 1);
+		builder.build();
+
+		// Die zwischengespeicherten Mengen der Hierarchie werden verworfen
+		assertThat(h.getDenotationOf(animal)).containsOnly(animal, cat);
+		assertThat(h.isSubtypeOf(cat, h.getRoot())).isTrue();
+		assertThat(h.findByLabel("CAT")).isEqualTo(cat);
+
+		try {
+			h.setIsSubtypeOf(animal, cat);
+		} catch (HierarchyException e) {
+			return;
+		}
+		throw new AssertionError("Kreis wurde nicht erkannt");
+	}
+}
@@ -1,11 +1,25 @@
 package com.kabu.graph.tests;
 
 import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
 import org.junit.Test;
 
+import com.kabu.graph.CsrGraph;
 import com.kabu.graph.Edge;
 import com.kabu.graph.Graph;
+import com.kabu.graph.GraphSnapshot;
+import com.kabu.graph.PersistentGraph;
 import com.kabu.graph.Vertex;
+import com.kabu.graph.algorithm.ShortestPath;
+import com.kabu.graph.event.EdgeSetChangeEvent;
+import com.kabu.graph.event.EdgeSetChangeListener;
+import com.kabu.graph.event.VertexChangeEvent;
+import com.kabu.graph.event.VertexChangeListener;
+import com.kabu.graph.event.VerticesChangeEvent;
+import com.kabu.graph.event.VerticesChangeListener;
 
 /**
  * Einfacher Funktionstest der Klassen Graph, Edge und Vertex.
@@ -33,7 +47,9 @@ public class GraphTest {
 
 		g.remove(e1);
 		
-		assertThat(g.getAllEdges()).containsExactly(e2, e3, e4, e5);
+		assertThat(g.getAllEdges()).containsOnly(e2, e3, e4, e5);
+		assertThat(g.contains(e1)).isFalse();
+		assertThat(v1.getNeighbours()).containsOnly(v3, v4);
 		System.out.println("After removing e1:\n" + g.toString());
 
 		g.remove(v4);
@@ -41,4 +57,517 @@ public class GraphTest {
 		assertThat(g.getVertices()).containsExactly(v1, v2, v3);
 		System.out.println("After removing v4:\n" + g.toString());
 	}
+
+	@Test
+	public void testRemoveVertex() {
+		Graph g = new Graph();
+		final List<VertexChangeEvent> hubEvents = new ArrayList<VertexChangeEvent>();
+
+		Vertex hub = g.createVertex("Hub");
+		Vertex[] leaves = new Vertex[4];
+		for (int i = 0; i < leaves.length; i++) {
+			leaves[i] = g.createVertex("Leaf " + i);
+			g.connect(hub, leaves[i]);
+			g.connect(leaves[i], hub);
+		}
+		Edge parallel = g.connect(hub, leaves[1]);
+		Edge loop = g.connect(leaves[1], leaves[1]);
+
+		hub.addVertexChangeListener(new VertexChangeListener() {
+			public void vertexChanged(VertexChangeEvent e) {
+				hubEvents.add(e);
+			}
+		});
+
+		g.remove(leaves[1]);
+
+		// Die Ausgangsecke wird je entfernter Ecke nur einmal benachrichtigt
+		assertThat(hubEvents).hasSize(1);
+		assertThat(g.getAllEdges()).hasSize(6).doesNotContain(parallel, loop);
+		assertThat(hub.getNeighbours()).containsOnly(leaves[0], leaves[2],
+				leaves[3]);
+		assertThat(g.getPred(hub)).containsOnly(leaves[0], leaves[2],
+				leaves[3]);
+		assertThat(g.isConnected(hub, leaves[1])).isFalse();
+		assertThat(leaves[1].getOutgoingEdges()).isEmpty();
+		assertThat(leaves[1].getIncomingEdges()).isEmpty();
+
+		for (int i : new int[] { 0, 3, 2 }) {
+			g.remove(leaves[i]);
+		}
+
+		assertThat(g.getAllEdges()).isEmpty();
+		assertThat(hub.getOutgoingEdges()).isEmpty();
+		assertThat(hub.getIncomingEdges()).isEmpty();
+		assertThat(hubEvents).hasSize(4);
+	}
+
+	@Test
+	public void testPredecessors() {
+		Graph g = new Graph();
+
+		Vertex v1 = g.createVertex("Node 1");
+		Vertex v2 = g.createVertex("Node 2");
+		Vertex v3 = g.createVertex("Node 3");
+
+		Edge e1 = g.connect(v1, v3, "N1->N3");
+		Edge e2 = g.connect(v2, v3, "N2->N3");
+		Edge e3 = g.connect(v2, v3, "N2->N3 (2)");
+
+		assertThat(v3.getIncomingEdges()).containsExactly(e1, e2, e3);
+		assertThat(v3.getPredecessors()).containsExactly(v1, v2, v2);
+		assertThat(g.getPred(v3)).containsExactly(v1, v2);
+		assertThat(g.getPred(v1)).isEmpty();
+
+		g.remove(e2);
+
+		assertThat(v3.getIncomingEdges()).containsExactly(e1, e3);
+
+		g.remove(v1);
+
+		assertThat(g.getPred(v3)).containsExactly(v2);
+
+		// Beim Umsetzen der Zielecke wandert die eingehende Kante mit
+		Vertex v4 = g.createVertex("Node 4");
+		e3.setHead(v4);
+
+		assertThat(g.getPred(v3)).isEmpty();
+		assertThat(v4.getIncomingEdges()).containsExactly(e3);
+		assertThat(g.getPred(v4)).containsExactly(v2);
+	}
+
+	@Test
+	public void testEdgeLookup() {
+		Graph g = new Graph();
+
+		Vertex v1 = g.createVertex("Node 1");
+		Vertex v2 = g.createVertex("Node 2");
+		Vertex v3 = g.createVertex("Node 3");
+
+		Edge e1 = g.connect(v1, v2, "N1->N2", 4);
+		Edge e2 = g.connect(v1, v2, "N1->N2 (2)", 2);
+		Edge e3 = g.connect(v2, v3, "N2->N3");
+
+		assertThat(g.getEdges(v1, v2)).containsExactly(e1, e2);
+		assertThat(g.getEdges(v2, v1)).isEmpty();
+		assertThat(g.getShortestEdge(v1, v2)).isEqualTo(e2);
+		assertThat(g.isConnected(v1, v2)).isTrue();
+		assertThat(g.isConnected(v1, v3)).isFalse();
+		assertThat(g.contains(e3)).isTrue();
+
+		g.remove(e2);
+
+		assertThat(g.getEdges(v1, v2)).containsExactly(e1);
+		assertThat(g.getShortestEdge(v1, v2)).isEqualTo(e1);
+		assertThat(g.contains(e2)).isFalse();
+
+		g.remove(e1);
+
+		assertThat(g.isConnected(v1, v2)).isFalse();
+		assertThat(g.getShortestEdge(v1, v2)).isNull();
+
+		// Umsetzen der Endecken einer Kante
+		e3.setHead(v1);
+
+		assertThat(g.isConnected(v2, v3)).isFalse();
+		assertThat(g.getEdges(v2, v1)).containsExactly(e3);
+		assertThat(g.getPred(v1)).containsExactly(v2);
+
+		e3.setTail(v3);
+
+		assertThat(g.isConnected(v2, v1)).isFalse();
+		assertThat(g.getEdges(v3, v1)).containsExactly(e3);
+		assertThat(v3.getNeighbours()).containsExactly(v1);
+
+		g.remove(e3);
+
+		assertThat(g.isConnected(v3, v1)).isFalse();
+		assertThat(v1.getIncomingEdges()).isEmpty();
+	}
+
+	@Test
+	public void testCsr() {
+		Graph g = new Graph();
+
+		Vertex v1 = g.createVertex("Node 1");
+		Vertex v2 = g.createVertex("Node 2");
+		Vertex v3 = g.createVertex("Node 3");
+
+		g.connect(v2, v3, "N2->N3", 3);
+		g.connect(v1, v3, "N1->N3", 2);
+		g.connect(v1, v2, "N1->N2", 1);
+
+		assertThat(g.indexOf(v1)).isEqualTo(0);
+		assertThat(g.indexOf(v3)).isEqualTo(2);
+
+		CsrGraph csr = g.toCsr();
+
+		assertThat(csr.getOrder()).isEqualTo(3);
+		assertThat(csr.getSize()).isEqualTo(3);
+		assertThat(csr.getOffsets()).isEqualTo(new int[] { 0, 2, 3, 3 });
+		assertThat(csr.getTargets()).isEqualTo(new int[] { 2, 1, 2 });
+		assertThat(csr.getWeights()).isEqualTo(new double[] { 2, 1, 3 });
+		assertThat(csr.getVertex(1)).isEqualTo(v2);
+
+		g.remove(v1);
+
+		// Die letzte Ecke bernimmt die Nummer der entfernten Ecke
+		assertThat(g.indexOf(v1)).isEqualTo(-1);
+		assertThat(g.indexOf(v3)).isEqualTo(0);
+		assertThat(g.indexOf(v2)).isEqualTo(1);
+		assertThat(g.toCsr().getOffsets()).isEqualTo(new int[] { 0, 0, 1 });
+		assertThat(g.toCsr().getTargets()).isEqualTo(new int[] { 0 });
+	}
+
+	@Test
+	public void testFindByLabel() {
+		Graph g = new Graph();
+
+		Vertex v1 = g.createVertex("Node 1");
+		Vertex v2 = g.createVertex("Node 2");
+		Vertex v3 = g.createVertex("Node 2");
+
+		assertThat(g.findByLabel("Node 1")).isEqualTo(v1);
+		assertThat(g.findByLabel("Node 2")).isEqualTo(v2);
+		assertThat(g.findAllByLabel("Node 2")).containsExactly(v2, v3);
+		assertThat(g.findByLabel("Node 3")).isNull();
+		assertThat(g.findAllByLabel("Node 3")).isEmpty();
+
+		// Der Index folgt neuen Ecken, Umbenennungen und Lschungen
+		Vertex v4 = g.createVertex("Node 4");
+		v3.setLabel("Node 3");
+		g.connect(v1, v3);
+		g.remove(v2);
+
+		assertThat(g.findByLabel("Node 4")).isEqualTo(v4);
+		assertThat(g.findByLabel("Node 3")).isEqualTo(v3);
+		assertThat(g.findAllByLabel("Node 2")).isEmpty();
+
+		v1.setLabel(null);
+
+		assertThat(g.findByLabel("Node 1")).isNull();
+		assertThat(g.findByLabel(null)).isEqualTo(v1);
+	}
+
+	@Test
+	public void testBatch() {
+		final Graph g = new Graph();
+		final List<VerticesChangeEvent> vertexEvents = new ArrayList<VerticesChangeEvent>();
+		final List<EdgeSetChangeEvent> edgeEvents = new ArrayList<EdgeSetChangeEvent>();
+
+		final Vertex v1 = g.createVertex("Node 1");
+		final Vertex v2 = g.createVertex("Node 2");
+		final Edge e1 = g.connect(v1, v2, "N1->N2");
+
+		g.addVertexChangeListener(new VerticesChangeListener() {
+			public void verticesChanged(VerticesChangeEvent e) {
+				vertexEvents.add(e);
+			}
+		});
+		g.addEdgeSetChangeListener(new EdgeSetChangeListener() {
+			public void edgeSetChanged(EdgeSetChangeEvent e) {
+				edgeEvents.add(e);
+			}
+		});
+
+		final Vertex[] v3 = new Vertex[1];
+		final Edge[] e2 = new Edge[1];
+
+		g.batch(new Runnable() {
+			public void run() {
+				v3[0] = g.createVertex("Node 3");
+				e2[0] = g.connect(v2, v3[0], "N2->N3");
+
+				// Innerhalb und auerhalb eines Batches gleich
+				g.beginBatch();
+				g.remove(e1);
+				Edge temporary = g.connect(v1, v3[0], "N1->N3");
+				g.remove(temporary);
+				g.commitBatch();
+
+				assertThat(g.isBatchOpen()).isTrue();
+				assertThat(vertexEvents).isEmpty();
+				assertThat(edgeEvents).isEmpty();
+			}
+		});
+
+		assertThat(g.isBatchOpen()).isFalse();
+		assertThat(vertexEvents).hasSize(1);
+		assertThat(vertexEvents.get(0).getAddedVertices()).containsExactly(
+				v3[0]);
+		assertThat(vertexEvents.get(0).getRemovedVertices()).isEmpty();
+		assertThat(edgeEvents).hasSize(1);
+		assertThat(edgeEvents.get(0).isBulkChange()).isTrue();
+		assertThat(edgeEvents.get(0).getAddedEdges()).containsExactly(e2[0]);
+		assertThat(edgeEvents.get(0).getRemovedEdges()).containsExactly(e1);
+
+		// Ohne Batch wird jede nderung einzeln gemeldet
+		g.remove(e2[0]);
+
+		assertThat(edgeEvents).hasSize(2);
+		assertThat(edgeEvents.get(1).isEdgeRemoved()).isTrue();
+	}
+
+	@Test
+	public void testCopy() {
+		Graph g = new Graph();
+
+		Vertex v1 = g.createVertex("Node 1");
+		Vertex v2 = g.createVertex("Node 2");
+		Vertex v3 = g.createVertex("Node 3");
+
+		g.connect(v1, v2, "N1->N2", 2.5);
+		g.connect(v1, v3, "N1->N3", 4);
+		g.connect(v3, v2, "N3->N2", -1);
+
+		Graph copy = g.copy();
+
+		assertThat(copy.getOrder()).isEqualTo(3);
+		assertThat(copy.getAllEdges()).hasSize(3);
+
+		Vertex c1 = copy.getVertices().get(0);
+		Vertex c2 = copy.getVertices().get(1);
+		Vertex c3 = copy.getVertices().get(2);
+
+		assertThat(c1).isNotSameAs(v1);
+		assertThat(c1.getLabel()).isEqualTo("Node 1");
+		assertThat(c1.getNeighbours()).containsExactly(c2, c3);
+		assertThat(c2.getPredecessors()).containsExactly(c1, c3);
+		assertThat(copy.getShortestEdge(c1, c2).getWeight()).isEqualTo(2.5);
+		assertThat(copy.getShortestEdge(c3, c2).getLabel()).isEqualTo(
+				"N3->N2");
+		assertThat(copy.getShortestEdge(c3, c2).getWeight()).isEqualTo(-1);
+
+		// Kopie und Original sind unabhngig voneinander
+		copy.remove(c3);
+
+		assertThat(g.getOrder()).isEqualTo(3);
+		assertThat(v1.getNeighbours()).containsExactly(v2, v3);
+	}
+
+	@Test
+	public void testSnapshot() {
+		Graph g = new Graph();
+
+		Vertex v1 = g.createVertex("Node 1");
+		Vertex v2 = g.createVertex("Node 2");
+		Vertex v3 = g.createVertex("Node 3");
+		Edge e1 = g.connect(v1, v2, "N1->N2", 2);
+		Edge e2 = g.connect(v2, v3, "N2->N3", 3);
+
+		GraphSnapshot snapshot = g.snapshot();
+
+		// Ohne nderung wird dieselbe Momentaufnahme geliefert
+		assertThat(g.snapshot()).isSameAs(snapshot);
+		assertThat(snapshot.getVersion()).isEqualTo(g.getVersion());
+		assertThat(snapshot.getOrder()).isEqualTo(3);
+		assertThat(snapshot.getVertices()).containsExactly(v1, v2, v3);
+		assertThat(snapshot.getAllEdges()).containsExactly(e1, e2);
+		assertThat(snapshot.indexOf(v3)).isEqualTo(2);
+		assertThat(snapshot.getLabel(v1)).isEqualTo("Node 1");
+		assertThat(snapshot.toCsr()).isSameAs(snapshot.toCsr());
+
+		// nderungen am Graphen wirken sich nicht auf die Momentaufnahme aus
+		g.remove(v1);
+		e2.setWeight(5);
+		v2.setLabel("Node 2'");
+
+		assertThat(g.getVersion()).isGreaterThan(snapshot.getVersion());
+		assertThat(snapshot.getOrder()).isEqualTo(3);
+		assertThat(snapshot.indexOf(v1)).isEqualTo(0);
+		assertThat(snapshot.indexOf(v3)).isEqualTo(2);
+		assertThat(snapshot.contains(e1)).isTrue();
+		assertThat(snapshot.getWeight(e2)).isEqualTo(3.0);
+		assertThat(snapshot.getLabel(v2)).isEqualTo("Node 2");
+		assertThat(snapshot.findByLabel("Node 2")).isSameAs(v2);
+		assertThat(snapshot.getPred(v2)).containsExactly(v1);
+		assertThat(snapshot.toCsr().getWeights()).containsExactly(2.0, 3.0);
+
+		GraphSnapshot next = g.snapshot();
+		assertThat(next).isNotSameAs(snapshot);
+		assertThat(next.getVertices()).containsExactly(v3, v2);
+		assertThat(next.getAllEdges()).containsExactly(e2);
+		assertThat(next.getWeight(e2)).isEqualTo(5.0);
+		assertThat(next.contains(e1)).isFalse();
+
+		// Algorithmen arbeiten auf der Momentaufnahme mit den Ecken des
+		// Graphen
+		ShortestPath algorithm = new ShortestPath(snapshot);
+		algorithm.setStart(v1);
+		algorithm.execute();
+		assertThat(algorithm.getDistanceArray()).containsExactly(0.0, 2.0,
+				5.0);
+
+		// Kopien sind wieder vernderbar
+		Graph copy = snapshot.copy();
+		assertThat(copy.getVertices().get(1).getLabel()).isEqualTo("Node 2");
+		copy.connect(copy.getVertices().get(2), copy.getVertices().get(0));
+		assertThat(copy.getAllEdges()).hasSize(3);
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testSnapshotIsReadOnly() {
+		Graph g = new Graph();
+		Vertex v = g.createVertex("Node 1");
+
+		g.snapshot().connect(v, v);
+	}
+
+	@Test
+	public void testSnapshotSharesElements() {
+		Graph g = new Graph();
+
+		Vertex v1 = g.createVertex("Node 1");
+		Vertex v2 = g.createVertex("Node 2");
+		final Edge edge = g.connect(v1, v2, "N1->N2", 2);
+
+		final GraphSnapshot snapshot = g.snapshot();
+
+		assertReadOnly(new Runnable() {
+			public void run() {
+				snapshot.getAllEdges().remove(0);
+			}
+		});
+		assertReadOnly(new Runnable() {
+			public void run() {
+				snapshot.getVertices().clear();
+			}
+		});
+
+		// nderungen ber die gemeinsamen Ecken und Kanten betreffen nur den
+		// Graphen
+		v1.setLabel("Node 3");
+		edge.setWeight(7);
+		edge.setHead(v1);
+		v1.removeEdge(edge);
+
+		assertThat(g.snapshot()).isNotSameAs(snapshot);
+		assertThat(g.toCsr().getSize()).isEqualTo(0);
+		assertThat(g.snapshot().toCsr().getSize()).isEqualTo(0);
+
+		assertThat(snapshot.getOrder()).isEqualTo(2);
+		assertThat(snapshot.getAllEdges()).containsExactly(edge);
+		assertThat(snapshot.getLabel(v1)).isEqualTo("Node 1");
+		assertThat(snapshot.getWeight(edge)).isEqualTo(2.0);
+		assertThat(snapshot.isConnected(v1, v2)).isTrue();
+		assertThat(snapshot.toCsr().getTargets()).containsExactly(1);
+		assertThat(snapshot.toCsr().getWeights()).containsExactly(2.0);
+	}
+
+	@Test
+	public void testSnapshotWhileWriting() throws InterruptedException {
+		final Graph g = new Graph();
+		final Vertex[] vertices = new Vertex[100];
+
+		for (int i = 0; i < vertices.length; i++) {
+			vertices[i] = g.createVertex("Node " + i);
+		}
+
+		// Ein Thread verndert den Graphen, whrend Momentaufnahmen angelegt
+		// werden
+		Thread writer = new Thread() {
+			public void run() {
+				for (int i = 0; i < 20000; i++) {
+					Edge edge = g.connect(vertices[i % 100],
+							vertices[(i * 7) % 100], i);
+					if (i % 3 == 0) {
+						g.remove(edge);
+					}
+				}
+			}
+		};
+		writer.start();
+
+		long version = -1;
+		while (writer.isAlive()) {
+			GraphSnapshot snapshot = g.snapshot();
+
+			assertThat(snapshot.getVersion()).isGreaterThanOrEqualTo(version);
+			version = snapshot.getVersion();
+			assertThat(snapshot.toCsr().getSize()).isEqualTo(
+					snapshot.getAllEdges().size());
+		}
+		writer.join();
+
+		GraphSnapshot snapshot = g.snapshot();
+		assertThat(snapshot.getAllEdges()).hasSize(g.getAllEdges().size());
+		assertThat(snapshot.toCsr().getTargets()).isEqualTo(
+				g.toCsr().getTargets());
+	}
+
+	@Test
+	public void testFork() {
+		Graph g = new Graph();
+
+		Vertex v1 = g.createVertex("Node 1");
+		Vertex v2 = g.createVertex("Node 2");
+		Vertex v3 = g.createVertex("Node 3");
+		Edge e1 = g.connect(v1, v2, "N1->N2", 2);
+		Edge e2 = g.connect(v2, v3, "N2->N3", 3);
+		Edge e3 = g.connect(v1, v3, "N1->N3", 9);
+
+		PersistentGraph fork = g.fork();
+
+		assertThat(fork.getVertices()).containsExactly(v1, v2, v3);
+		assertThat(fork.getAllEdges()).containsExactly(e1, e3, e2);
+
+		// Was-wre-wenn: Die Abspaltung wird verndert, der Graph nicht
+		fork.remove(e2);
+		fork.setWeight(e3, 4);
+		fork.setLabel(v1, "Start");
+		Vertex v4 = fork.createVertex("Node 4");
+		Edge e4 = fork.connect(v2, v4, "N2->N4", 1);
+
+		assertThat(fork.contains(e2)).isFalse();
+		assertThat(fork.getWeight(e3)).isEqualTo(4.0);
+		assertThat(fork.getLabel(v1)).isEqualTo("Start");
+		assertThat(fork.findByLabel("Start")).isSameAs(v1);
+		assertThat(fork.getEdges(v2, v4)).containsExactly(e4);
+		assertThat(fork.getPred(v3)).containsExactly(v1);
+
+		assertThat(g.getOrder()).isEqualTo(3);
+		assertThat(g.contains(e2)).isTrue();
+		assertThat(g.contains(e4)).isFalse();
+		assertThat(e3.getWeight()).isEqualTo(9.0);
+		assertThat(v1.getLabel()).isEqualTo("Node 1");
+		assertThat(v2.getOutgoingEdges()).containsExactly(e2);
+
+		// nderungen am Graphen wirken sich nicht auf die Abspaltung aus
+		g.remove(e1);
+		v2.setLabel("Node 2'");
+
+		assertThat(fork.contains(e1)).isTrue();
+		assertThat(fork.getLabel(v2)).isEqualTo("Node 2");
+
+		ShortestPath algorithm = new ShortestPath(fork);
+		algorithm.setStart(v1);
+		algorithm.execute();
+		assertThat(algorithm.getDistanceArray()).containsExactly(0.0, 2.0,
+				4.0, 3.0);
+
+		// Entfernte Ecken nehmen ihre eingehenden Kanten mit
+		PersistentGraph next = fork.fork();
+		next.remove(v3);
+
+		assertThat(next.getVertices()).containsExactly(v1, v2, v4);
+		assertThat(next.getAllEdges()).containsExactly(e1, e4);
+		assertThat(fork.getAllEdges()).hasSize(3);
+
+		GraphSnapshot snapshot = fork.snapshot();
+		assertThat(fork.snapshot()).isSameAs(snapshot);
+		assertThat(snapshot.getWeight(e3)).isEqualTo(4.0);
+
+		Graph copy = fork.copy();
+		assertThat(copy.getVertices().get(0).getLabel()).isEqualTo("Start");
+		assertThat(copy.toCsr().getWeights()).containsExactly(2.0, 4.0, 1.0);
+	}
+
+	private static void assertReadOnly(Runnable change) {
+		try {
+			change.run();
+		} catch (UnsupportedOperationException e) {
+			return;
+		}
+		throw new AssertionError("nderung wurde nicht abgewiesen");
+	}
 }
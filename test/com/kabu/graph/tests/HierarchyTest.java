@@ -115,4 +115,126 @@ public class HierarchyTest {
 	public void cyclicTest() throws HierarchyException {
 		typeHierarchy.setIsSubtypeOf(pet, petcat);
 	}
+
+	@Test
+	public void cyclicEdgeIsRejected() throws HierarchyException {
+		int edgeCount = typeHierarchy.getAllEdges().size();
+
+		try {
+			typeHierarchy.setIsSubtypeOf(typeHierarchy.getRoot(), siamese);
+			fail("Kreis nicht erkannt");
+		} catch (HierarchyException e) {
+			// erwartet
+		}
+
+		assertThat(typeHierarchy.getAllEdges()).hasSize(edgeCount);
+		assertThat(typeHierarchy.isConnected(typeHierarchy.getRoot(), siamese))
+				.isFalse();
+
+		// Die Hierarchie bleibt weiterhin erweiterbar
+		typeHierarchy.setIsSubtypeOf(girl, student);
+		assertThat(typeHierarchy.isSubtypeOf(girl, student)).isTrue();
+	}
+
+	@Test
+	public void testIsSubtypeOfAfterChange() throws HierarchyException {
+		assertThat(typeHierarchy.isSubtypeOf(siamese, human)).isFalse();
+		assertThat(typeHierarchy.isSubtypeOf(girl, pet)).isFalse();
+
+		// Neue Beziehung oberhalb bereits abgefragter Typen
+		typeHierarchy.setIsSubtypeOf(pet, human);
+
+		assertThat(typeHierarchy.isSubtypeOf(siamese, human)).isTrue();
+		assertThat(typeHierarchy.isProperSupertypeOf(human, petcat)).isTrue();
+
+		// Neuer Typ unterhalb bereits abgefragter Typen
+		Vertex kitten = typeHierarchy.createVertex("KITTEN");
+		typeHierarchy.setIsSubtypeOf(kitten, siamese);
+
+		assertThat(typeHierarchy.isSubtypeOf(kitten, human)).isTrue();
+		assertThat(typeHierarchy.isSubtypeOf(siamese, kitten)).isFalse();
+
+		typeHierarchy.remove(typeHierarchy.getEdges(pet, human).get(0));
+
+		assertThat(typeHierarchy.isSubtypeOf(kitten, human)).isFalse();
+		assertThat(typeHierarchy.isSubtypeOf(kitten, animal)).isTrue();
+	}
+
+	@Test
+	public void testSupertypesAndDenotationAfterChange()
+			throws HierarchyException {
+		assertThat(typeHierarchy.getSupertypesOf(siamese)).containsOnly(
+				siamese, petcat, cat, pet, animal, typeHierarchy.getRoot());
+		assertThat(typeHierarchy.getDenotationOf(pet)).containsOnly(pet,
+				petcat, siamese);
+
+		Vertex kitten = typeHierarchy.createVertex("KITTEN");
+		typeHierarchy.setIsSubtypeOf(kitten, siamese);
+		typeHierarchy.setIsSubtypeOf(pet, human);
+
+		assertThat(typeHierarchy.getSupertypesOf(kitten)).containsOnly(kitten,
+				siamese, petcat, cat, pet, animal, human,
+				typeHierarchy.getRoot());
+		assertThat(typeHierarchy.getDenotationOf(pet)).containsOnly(pet,
+				petcat, siamese, kitten);
+		assertThat(typeHierarchy.getDenotationOf(human)).contains(kitten, pet)
+				.doesNotContain(cat, animal);
+
+		typeHierarchy.remove(petcat);
+
+		assertThat(typeHierarchy.getSupertypesOf(kitten)).containsOnly(kitten,
+				siamese);
+		assertThat(typeHierarchy.getDenotationOf(pet)).containsOnly(pet);
+	}
+
+	@Test
+	public void testChangesInBatch() throws HierarchyException {
+		typeHierarchy.beginBatch();
+		try {
+			typeHierarchy.remove(petcat);
+			typeHierarchy.setIsSubtypeOf(siamese, cat);
+
+			// Die Indizes der Hierarchie folgen auch innerhalb des Batches
+			// jeder nderung
+			assertThat(typeHierarchy.isSubtypeOf(siamese, animal)).isTrue();
+			assertThat(typeHierarchy.isSubtypeOf(siamese, pet)).isFalse();
+			assertThat(typeHierarchy.getDenotationOf(cat)).containsOnly(cat,
+					siamese);
+
+			try {
+				typeHierarchy.setIsSubtypeOf(animal, siamese);
+				fail("Kreis wurde nicht erkannt");
+			} catch (HierarchyException e) {
+				// erwartet
+			}
+		} finally {
+			typeHierarchy.commitBatch();
+		}
+	}
+
+	@Test
+	public void testCopy() throws HierarchyException {
+		TypeHierarchy copy = (TypeHierarchy) typeHierarchy.copy();
+
+		assertThat(copy.getOrder()).isEqualTo(typeHierarchy.getOrder());
+		assertThat(copy.getRoot().getLabel()).isEqualTo("Thing");
+		assertThat(copy.contains(copy.getRoot())).isTrue();
+
+		Vertex copiedSiamese = copy.findByLabel("SIAMESE");
+		Vertex copiedAnimal = copy.findByLabel("ANIMAL");
+
+		assertThat(copy.isSubtypeOf(copiedSiamese, copiedAnimal)).isTrue();
+
+		try {
+			copy.setIsSubtypeOf(copiedAnimal, copiedSiamese);
+			fail("Kreis wurde nicht erkannt");
+		} catch (HierarchyException e) {
+			// erwartet
+		}
+
+		// nderungen an der Kopie betreffen das Original nicht
+		copy.setIsSubtypeOf(copiedSiamese, copy.findByLabel("HUMAN"));
+
+		assertThat(typeHierarchy.isSubtypeOf(siamese, human)).isFalse();
+	}
 }
@@ -0,0 +1,149 @@
+package com.kabu.graph.tests;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import org.junit.Test;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import com.kabu.graph.Graph;
+import com.kabu.graph.Vertex;
+import com.kabu.graph.algorithm.AllPairsShortestPath;
+import com.kabu.graph.algorithm.LandmarkIndex;
+import com.kabu.graph.algorithm.PointToPointShortestPath;
+
+/**
+ * Funktionstest des Landmarkenindex fr die A*-Suche.
+ */
+public class LandmarkIndexTest {
+	final double DELTA = 1e-9;
+
+	/**
+	 * Gitter aus size*size Ecken mit Kanten in beide Richtungen. Die Gewichte
+	 * der senkrechten Kanten sind doppelt so hoch wie die der waagerechten.
+	 */
+	private Graph createGrid(int size) {
+		Graph g = new Graph();
+
+		for (int i = 0; i < size * size; i++) {
+			g.createVertex("Node " + i);
+		}
+		for (int y = 0; y < size; y++) {
+			for (int x = 0; x < size; x++) {
+				Vertex v = g.getVertices().get(y * size + x);
+
+				if (x + 1 < size) {
+					Vertex right = g.getVertices().get(y * size + x + 1);
+					g.connect(v, right, 1);
+					g.connect(right, v, 1);
+				}
+				if (y + 1 < size) {
+					Vertex below = g.getVertices().get((y + 1) * size + x);
+					g.connect(v, below, 2);
+					g.connect(below, v, 2);
+				}
+			}
+		}
+
+		return g;
+	}
+
+	@Test
+	public void test() {
+		Graph g = createGrid(15);
+		LandmarkIndex index = new LandmarkIndex(g, 4);
+
+		assertThat(index.getLandmarks()).hasSize(4).doesNotHaveDuplicates();
+		assertThat(index.isStale()).isFalse();
+
+		// Die Schtzung ist zulssig
+		AllPairsShortestPath all = new AllPairsShortestPath(g);
+		all.execute();
+		for (int v = 0; v < g.getOrder(); v += 7) {
+			for (int t = 0; t < g.getOrder(); t += 5) {
+				assertThat(index.estimate(v, t)).isLessThanOrEqualTo(
+						all.getDistance(v, t) + DELTA);
+			}
+		}
+
+		PointToPointShortestPath algorithm = new PointToPointShortestPath(g);
+		algorithm.setStart(g.getVertices().get(16));
+		algorithm.setTarget(g.getVertices().get(200));
+		algorithm.execute();
+
+		double cost = algorithm.getCost();
+		int dijkstraSettled = algorithm.getSettledCount();
+
+		algorithm.setHeuristic(index);
+		algorithm.execute();
+
+		assertThat(algorithm.getCost()).isCloseTo(cost, within(DELTA));
+		assertThat(algorithm.getSettledCount()).isLessThan(dijkstraSettled);
+	}
+
+	@Test
+	public void testStale() {
+		Graph g = createGrid(4);
+		LandmarkIndex index = new LandmarkIndex(g, 2);
+
+		// Eine neue, isolierte Ecke ndert keine Distanz
+		Vertex v = new Vertex("New");
+		g.addVertex(v);
+		assertThat(index.isStale()).isFalse();
+		assertThat(index.estimate(g.indexOf(v), 0)).isEqualTo(0.0);
+
+		g.connect(v, g.getVertices().get(0));
+		assertThat(index.isStale()).isTrue();
+
+		index.detach();
+	}
+
+	@Test
+	public void testStaleAfterWeightChange() {
+		Graph g = createGrid(4);
+		LandmarkIndex index = new LandmarkIndex(g, 2);
+
+		// Ein gesenktes Gewicht macht die Schtzung unzulssig
+		g.getAllEdges().get(0).setWeight(0.1);
+		assertThat(index.isStale()).isTrue();
+
+		index.attach(g);
+		assertThat(index.isStale()).isFalse();
+
+		// Eine neue Ecke hinter einer anderen nderung wird nicht bergangen
+		g.getAllEdges().get(1).setWeight(0.1);
+		g.addVertex(new Vertex("New"));
+		assertThat(index.isStale()).isTrue();
+
+		index.detach();
+	}
+
+	@Test
+	public void testSerialization() throws Exception {
+		Graph g = createGrid(6);
+		LandmarkIndex index = new LandmarkIndex(g, new int[] { 0, 35 });
+		index.detach();
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(bytes);
+		out.writeObject(index);
+		out.close();
+
+		ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(
+				bytes.toByteArray()));
+		LandmarkIndex copy = (LandmarkIndex) in.readObject();
+		in.close();
+
+		assertThat(copy.getLandmarks()).containsExactly(0, 35);
+		assertThat(copy.estimate(0, 35)).isCloseTo(15, within(DELTA));
+		assertThat(copy.estimate(35, 0)).isCloseTo(15, within(DELTA));
+
+		copy.attach(g);
+		assertThat(copy.isStale()).isFalse();
+		g.remove(g.getVertices().get(3));
+		assertThat(copy.isStale()).isTrue();
+	}
+}
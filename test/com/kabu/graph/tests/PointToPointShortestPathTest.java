@@ -0,0 +1,149 @@
+package com.kabu.graph.tests;
+
+import org.junit.Test;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import com.kabu.graph.Graph;
+import com.kabu.graph.Vertex;
+import com.kabu.graph.algorithm.Heuristic;
+import com.kabu.graph.algorithm.PointToPointShortestPath;
+
+/**
+ * Funktionstest der Suche nach einem krzesten Weg zwischen zwei Ecken.
+ */
+public class PointToPointShortestPathTest {
+	final double DELTA = 1e-9;
+
+	@Test
+	public void test() {
+		Graph g = new Graph();
+
+		Vertex v1 = g.createVertex("Node 1");
+		Vertex v2 = g.createVertex("Node 2");
+		Vertex v3 = g.createVertex("Node 3");
+		Vertex v4 = g.createVertex("Node 4");
+		Vertex v5 = g.createVertex("Node 5");
+
+		g.connect(v1, v2, "N1->N2", 3);
+		g.connect(v1, v3, "N1->N3", 1);
+		g.connect(v1, v4, "N1->N4", 5);
+		g.connect(v2, v4, "N2->N4", 8);
+		g.connect(v3, v4, "N3->N4", 0.3);
+		g.connect(v3, v2, "N3->N2", 7);
+		g.connect(v3, v2, "N3->N2", 1.5);
+
+		PointToPointShortestPath algorithm = new PointToPointShortestPath(g);
+		algorithm.setStart(v1);
+		algorithm.setTarget(v2);
+		algorithm.execute();
+
+		assertThat(algorithm.getCost()).isCloseTo(2.5, within(DELTA));
+		assertThat(algorithm.getPath()).containsExactly(v1, v3, v2);
+		assertThat(algorithm.getPathIndices()).containsExactly(0, 2, 1);
+
+		algorithm.setTarget(v4);
+		algorithm.execute();
+
+		assertThat(algorithm.getCost()).isCloseTo(1.3, within(DELTA));
+		assertThat(algorithm.getPath()).containsExactly(v1, v3, v4);
+
+		algorithm.setTarget(v1);
+		algorithm.execute();
+
+		assertThat(algorithm.getCost()).isCloseTo(0, within(DELTA));
+		assertThat(algorithm.getPath()).containsExactly(v1);
+
+		algorithm.setTarget(v5);
+		algorithm.execute();
+
+		assertThat(algorithm.getCost()).isEqualTo(Double.POSITIVE_INFINITY);
+		assertThat(algorithm.getPath()).isEmpty();
+
+		// nderungen am Graphen werden ohne reset() erkannt
+		g.connect(v1, v5, "N1->N5", 2);
+		algorithm.execute();
+
+		assertThat(algorithm.getCost()).isCloseTo(2, within(DELTA));
+
+		// Nach dem Entfernen rckt Node 5 auf den Index von Node 3
+		g.remove(v3);
+		algorithm.setTarget(v2);
+		algorithm.execute();
+
+		assertThat(algorithm.getCost()).isCloseTo(3, within(DELTA));
+		assertThat(algorithm.getPath()).containsExactly(v1, v2);
+
+		algorithm.setTarget(v5);
+		algorithm.execute();
+
+		assertThat(algorithm.getPath()).containsExactly(v1, v5);
+		assertThat(algorithm.getPathIndices()).containsExactly(0, 2);
+	}
+
+	@Test
+	public void testAStar() {
+		// Gitter aus 20x20 Ecken mit Kanten der Lnge 1 in beide Richtungen
+		final int size = 20;
+		Graph g = new Graph();
+
+		for (int i = 0; i < size * size; i++) {
+			g.createVertex("Node " + i);
+		}
+		for (int y = 0; y < size; y++) {
+			for (int x = 0; x < size; x++) {
+				Vertex v = g.getVertices().get(y * size + x);
+
+				if (x + 1 < size) {
+					Vertex right = g.getVertices().get(y * size + x + 1);
+					g.connect(v, right, 1);
+					g.connect(right, v, 1);
+				}
+				if (y + 1 < size) {
+					Vertex below = g.getVertices().get((y + 1) * size + x);
+					g.connect(v, below, 1);
+					g.connect(below, v, 1);
+				}
+			}
+		}
+
+		Vertex start = g.getVertices().get(0);
+		Vertex target = g.getVertices().get(5 * size + 8);
+
+		PointToPointShortestPath algorithm = new PointToPointShortestPath(g);
+		algorithm.setStart(start);
+		algorithm.setTarget(target);
+		algorithm.execute();
+
+		int dijkstraSettled = algorithm.getSettledCount();
+		assertThat(algorithm.getCost()).isCloseTo(13, within(DELTA));
+
+		// Manhattan-Distanz als zulssige Schtzung
+		algorithm.setHeuristic(new Heuristic() {
+			public double estimate(int vertex, int target) {
+				return Math.abs(vertex % size - target % size)
+						+ Math.abs(vertex / size - target / size);
+			}
+		});
+		algorithm.execute();
+
+		assertThat(algorithm.getCost()).isCloseTo(13, within(DELTA));
+		assertThat(algorithm.getPath()).hasSize(14).startsWith(start)
+				.endsWith(target);
+		assertThat(algorithm.getSettledCount()).isLessThan(dijkstraSettled);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testNegativeWeights() {
+		Graph g = new Graph();
+
+		Vertex v1 = g.createVertex("Node 1");
+		Vertex v2 = g.createVertex("Node 2");
+		g.connect(v1, v2, "N1->N2", -1);
+
+		PointToPointShortestPath algorithm = new PointToPointShortestPath(g);
+		algorithm.setStart(v1);
+		algorithm.setTarget(v2);
+		algorithm.execute();
+	}
+}
@@ -0,0 +1,175 @@
+package com.kabu.graph.tests;
+
+import org.junit.Test;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import com.kabu.graph.Graph;
+import com.kabu.graph.Vertex;
+import com.kabu.graph.algorithm.ShortestPath;
+
+/**
+ * Funktionstest des Algorithmus zur Berechnung krzester Wege.
+ */
+public class ShortestPathTest {
+	final double DELTA = 1e-9;
+
+	@Test
+	public void test() {
+		Graph g = new Graph();
+
+		Vertex v1 = g.createVertex("Node 1");
+		Vertex v2 = g.createVertex("Node 2");
+		Vertex v3 = g.createVertex("Node 3");
+		Vertex v4 = g.createVertex("Node 4");
+		Vertex v5 = g.createVertex("Node 5");
+
+		g.connect(v1, v2, "N1->N2", 3);
+		g.connect(v1, v3, "N1->N3", 1);
+		g.connect(v1, v4, "N1->N4", 5);
+		g.connect(v2, v4, "N2->N4", 8);
+		g.connect(v3, v4, "N3->N4", 0.3);
+		g.connect(v3, v2, "N3->N2", 7);
+		g.connect(v3, v2, "N3->N2", 1.5);
+
+		ShortestPath algorithm = new ShortestPath(g);
+		algorithm.setStart(v1);
+		algorithm.execute();
+
+		assertThat(algorithm.getDistance(v1)).isCloseTo(0, within(DELTA));
+		assertThat(algorithm.getDistance(v2)).isCloseTo(2.5, within(DELTA));
+		assertThat(algorithm.getDistance(v3)).isCloseTo(1, within(DELTA));
+		assertThat(algorithm.getDistance(v4)).isCloseTo(1.3, within(DELTA));
+		assertThat(algorithm.getDistance(v5)).isEqualTo(
+				Double.POSITIVE_INFINITY);
+
+		assertThat(algorithm.pathTo(v2)).containsExactly(v1, v3, v2);
+		assertThat(algorithm.pathTo(v1)).containsExactly(v1);
+		assertThat(algorithm.pathTo(v5)).isEmpty();
+
+		assertThat(algorithm.getPredecessor(v1)).isNull();
+		assertThat(algorithm.getPredecessor(v2)).isEqualTo(v3);
+		assertThat(algorithm.getPredecessor(v3)).isEqualTo(v1);
+		assertThat(algorithm.getPredecessor(v4)).isEqualTo(v3);
+		assertThat(algorithm.getPredecessor(v5)).isNull();
+	}
+
+	@Test
+	public void testResultGraphs() {
+		Graph g = new Graph();
+
+		Vertex v1 = g.createVertex("Node 1");
+		Vertex v2 = g.createVertex("Node 2");
+		Vertex v3 = g.createVertex("Node 3");
+
+		g.connect(v1, v2, "N1->N2", 2);
+		g.connect(v2, v3, "N2->N3", 3);
+
+		ShortestPath algorithm = new ShortestPath(g);
+		algorithm.setStart(v1);
+		algorithm.execute();
+
+		assertThat(algorithm.getDistanceArray()).containsExactly(0.0, 2.0,
+				5.0);
+		assertThat(algorithm.getPredecessorArray()).containsExactly(-1, 0, 1);
+
+		Graph spTree = algorithm.getShortestPathsTree();
+		Graph distances = algorithm.getDistances();
+
+		// Die Graphen werden nur einmal erzeugt
+		assertThat(algorithm.getShortestPathsTree()).isSameAs(spTree);
+
+		// Eigene Ecken mit denselben Labels und Nummern
+		assertThat(spTree.getOrder()).isEqualTo(3);
+		assertThat(spTree.contains(v1)).isFalse();
+		assertThat(spTree.getVertices().get(2).getLabel()).isEqualTo("Node 3");
+		assertThat(spTree.getAllEdges()).hasSize(2);
+		assertThat(spTree.getVertices().get(1).getNeighbours())
+				.containsExactly(spTree.getVertices().get(2));
+		assertThat(distances.getVertices().get(0).getOutgoingEdges()).hasSize(3);
+		assertThat(
+				distances.getShortestEdge(distances.getVertices().get(0),
+						distances.getVertices().get(2)).getWeight())
+				.isCloseTo(5, within(DELTA));
+
+		// Die Ecken des ursprnglichen Graphen bleiben unverndert
+		assertThat(v1.getOutgoingEdges()).hasSize(1);
+		assertThat(v2.getIncomingEdges()).hasSize(1);
+		assertThat(g.getAllEdges()).hasSize(2);
+	}
+
+	@Test
+	public void testNegativeWeights() {
+		Graph g = new Graph();
+
+		Vertex v1 = g.createVertex("Node 1");
+		Vertex v2 = g.createVertex("Node 2");
+		Vertex v3 = g.createVertex("Node 3");
+
+		g.connect(v1, v2, "N1->N2", 4);
+		g.connect(v1, v3, "N1->N3", 1);
+		g.connect(v2, v3, "N2->N3", -5);
+
+		ShortestPath algorithm = new ShortestPath(g);
+		algorithm.setStart(v1);
+		algorithm.execute();
+
+		assertThat(algorithm.hasNegativeCycle()).isFalse();
+
+		assertThat(algorithm.getDistance(v2)).isCloseTo(4, within(DELTA));
+		assertThat(algorithm.getDistance(v3)).isCloseTo(-1, within(DELTA));
+		assertThat(algorithm.getPredecessor(v3))
+				.isEqualTo(v2);
+	}
+
+	@Test
+	public void testNegativeWeightsWithCycle() {
+		Graph g = new Graph();
+
+		Vertex v1 = g.createVertex("Node 1");
+		Vertex v2 = g.createVertex("Node 2");
+		Vertex v3 = g.createVertex("Node 3");
+
+		// Der Kreis N1->N2->N3->N1 hat die Lnge 9, daher ist Bellman-Ford
+		// ntig
+		g.connect(v1, v2, "N1->N2", 4);
+		g.connect(v1, v3, "N1->N3", 1);
+		g.connect(v2, v3, "N2->N3", -5);
+		g.connect(v3, v1, "N3->N1", 10);
+
+		ShortestPath algorithm = new ShortestPath(g);
+		algorithm.setStart(v1);
+		algorithm.execute();
+
+		assertThat(algorithm.hasNegativeCycle()).isFalse();
+
+		assertThat(algorithm.getDistance(v1)).isCloseTo(0, within(DELTA));
+		assertThat(algorithm.getDistance(v2)).isCloseTo(4, within(DELTA));
+		assertThat(algorithm.getDistance(v3)).isCloseTo(-1, within(DELTA));
+		assertThat(algorithm.getPredecessor(v3)).isEqualTo(v2);
+		assertThat(algorithm.getPredecessor(v1)).isNull();
+	}
+
+	@Test
+	public void testNegativeCycle() {
+		Graph g = new Graph();
+
+		Vertex v1 = g.createVertex("Node 1");
+		Vertex v2 = g.createVertex("Node 2");
+		Vertex v3 = g.createVertex("Node 3");
+		Vertex v4 = g.createVertex("Node 4");
+
+		g.connect(v1, v2, "N1->N2", 1);
+		g.connect(v2, v3, "N2->N3", 2);
+		g.connect(v3, v4, "N3->N4", -4);
+		g.connect(v4, v2, "N4->N2", 1);
+
+		ShortestPath algorithm = new ShortestPath(g);
+		algorithm.setStart(v1);
+		algorithm.execute();
+
+		assertThat(algorithm.hasNegativeCycle()).isTrue();
+		assertThat(algorithm.getNegativeCycle()).hasSize(3).containsOnly(v2,
+				v3, v4);
+	}
+}
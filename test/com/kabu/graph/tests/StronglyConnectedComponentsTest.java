@@ -0,0 +1,151 @@
+package com.kabu.graph.tests;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import com.kabu.graph.Graph;
+import com.kabu.graph.Vertex;
+import com.kabu.graph.algorithm.StronglyConnectedComponents;
+
+/**
+ * Funktionstest der Berechnung starker Zusammenhangskomponenten.
+ */
+public class StronglyConnectedComponentsTest {
+
+	private Graph createGraph() {
+		Graph g = new Graph();
+
+		Vertex v1 = g.createVertex("Node 1");
+		Vertex v2 = g.createVertex("Node 2");
+		Vertex v3 = g.createVertex("Node 3");
+		Vertex v4 = g.createVertex("Node 4");
+		Vertex v5 = g.createVertex("Node 5");
+		Vertex v6 = g.createVertex("Node 6");
+
+		// Komponenten {1,2,3}, {4,5} und {6}
+		g.connect(v1, v2, "N1->N2", 1);
+		g.connect(v2, v3, "N2->N3", 1);
+		g.connect(v3, v1, "N3->N1", 1);
+		g.connect(v3, v4, "N3->N4", 5);
+		g.connect(v2, v5, "N2->N5", 2);
+		g.connect(v4, v5, "N4->N5", 1);
+		g.connect(v5, v4, "N5->N4", 1);
+		g.connect(v6, v1, "N6->N1", 3);
+
+		return g;
+	}
+
+	@Test
+	public void test() {
+		int[] methods = { StronglyConnectedComponents.TARJAN,
+				StronglyConnectedComponents.FORWARD_BACKWARD };
+
+		for (int method : methods) {
+			Graph g = createGraph();
+			List<Vertex> vertices = g.getVertices();
+
+			StronglyConnectedComponents algorithm = new StronglyConnectedComponents(
+					g);
+			algorithm.setMethod(method);
+			algorithm.execute();
+
+			// Die Nummern sind topologisch geordnet
+			assertThat(algorithm.getComponentCount()).isEqualTo(3);
+			assertThat(algorithm.getComponentArray()).containsExactly(1, 1, 1,
+					2, 2, 0);
+			assertThat(algorithm.getComponent(vertices.get(4))).isEqualTo(2);
+			assertThat(algorithm.isStronglyConnected()).isFalse();
+			assertThat(algorithm.getComponents().get(1)).containsExactly(
+					vertices.get(0), vertices.get(1), vertices.get(2));
+
+			// Kondensation: je Komponente eine Ecke und hchstens eine Kante
+			// mit dem geringsten Gewicht
+			Graph condensation = algorithm.getCondensation();
+			List<Vertex> components = condensation.getVertices();
+
+			assertThat(condensation.getOrder()).isEqualTo(3);
+			assertThat(components.get(0).getLabel()).isEqualTo("Node 6");
+			assertThat(components.get(1).getLabel()).isEqualTo("Node 1");
+			assertThat(condensation.getAllEdges()).hasSize(2);
+			assertThat(
+					condensation.getEdges(components.get(1), components.get(2))
+							.get(0).getWeight()).isCloseTo(2, within(1e-9));
+			assertThat(algorithm.getCondensation()).isSameAs(condensation);
+
+			g.connect(vertices.get(4), vertices.get(5));
+			algorithm.execute();
+
+			assertThat(algorithm.isStronglyConnected()).isTrue();
+		}
+	}
+
+	@Test
+	public void testForwardBackward() {
+		Graph g = new Graph();
+		Random random = new Random(0);
+		int n = 20000;
+
+		List<Vertex> vertices = new ArrayList<Vertex>();
+		for (int i = 0; i < n; i++) {
+			vertices.add(g.createVertex("Node " + i));
+		}
+		for (int i = 0; i < 2 * n; i++) {
+			g.connect(vertices.get(random.nextInt(n)),
+					vertices.get(random.nextInt(n)));
+		}
+
+		StronglyConnectedComponents tarjan = new StronglyConnectedComponents(g);
+		tarjan.setMethod(StronglyConnectedComponents.TARJAN);
+		tarjan.execute();
+
+		StronglyConnectedComponents parallel = new StronglyConnectedComponents(
+				g);
+		parallel.setMethod(StronglyConnectedComponents.FORWARD_BACKWARD);
+		parallel.setParallelism(4);
+		parallel.execute();
+
+		// Die Nummerierung kann abweichen, die Zerlegung nicht
+		int[] expected = tarjan.getComponentArray();
+		int[] actual = parallel.getComponentArray();
+		int[] mapping = new int[tarjan.getComponentCount()];
+		for (int v = 0; v < n; v++) {
+			if (mapping[expected[v]] == 0) {
+				mapping[expected[v]] = actual[v] + 1;
+			}
+			assertThat(mapping[expected[v]]).isEqualTo(actual[v] + 1);
+		}
+		assertThat(parallel.getComponentCount()).isEqualTo(
+				tarjan.getComponentCount());
+	}
+
+	@Test
+	public void testLongChain() {
+		Graph g = new Graph();
+		Vertex first = g.createVertex("0");
+		Vertex last = first;
+
+		for (int i = 1; i < 100000; i++) {
+			Vertex next = g.createVertex(Integer.toString(i));
+			g.connect(last, next);
+			last = next;
+		}
+
+		StronglyConnectedComponents algorithm = new StronglyConnectedComponents(
+				g);
+		algorithm.setMethod(StronglyConnectedComponents.TARJAN);
+		algorithm.execute();
+
+		assertThat(algorithm.getComponentCount()).isEqualTo(100000);
+		assertThat(algorithm.getComponent(last)).isEqualTo(99999);
+
+		g.connect(last, first);
+		algorithm.execute();
+
+		assertThat(algorithm.isStronglyConnected()).isTrue();
+	}
+}
@@ -0,0 +1,112 @@
+package com.kabu.graph.tests;
+
+import java.util.List;
+
+import org.junit.Test;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.kabu.graph.Edge;
+import com.kabu.graph.Graph;
+import com.kabu.graph.Vertex;
+import com.kabu.graph.algorithm.TopologicalSort;
+
+/**
+ * Funktionstest der topologischen Sortierung.
+ */
+public class TopologicalSortTest {
+
+	@Test
+	public void test() {
+		Graph g = new Graph();
+
+		Vertex v1 = g.createVertex("Node 1");
+		Vertex v2 = g.createVertex("Node 2");
+		Vertex v3 = g.createVertex("Node 3");
+		Vertex v4 = g.createVertex("Node 4");
+		Vertex v5 = g.createVertex("Node 5");
+
+		g.connect(v4, v2);
+		g.connect(v2, v1);
+		g.connect(v4, v3);
+		g.connect(v3, v1);
+		g.connect(v1, v5);
+
+		TopologicalSort sort = new TopologicalSort(g);
+		sort.execute();
+
+		assertThat(sort.isAcyclic()).isTrue();
+		assertThat(sort.getSortedIndices()).containsExactly(3, 1, 2, 0, 4);
+		assertThat(sort.getSortedVertices()).containsExactly(v4, v2, v3, v1,
+				v5);
+		assertThat(sort.getCycle()).isEmpty();
+
+		// Jede Kante zeigt in der Sortierung nach vorn
+		List<Vertex> sorted = sort.getSortedVertices();
+		for (Edge edge : g.getAllEdges()) {
+			assertThat(sorted.indexOf(edge.getTail())).isLessThan(
+					sorted.indexOf(edge.getHead()));
+		}
+	}
+
+	@Test
+	public void testCycle() {
+		Graph g = new Graph();
+
+		Vertex v1 = g.createVertex("Node 1");
+		Vertex v2 = g.createVertex("Node 2");
+		Vertex v3 = g.createVertex("Node 3");
+		Vertex v4 = g.createVertex("Node 4");
+		Vertex v5 = g.createVertex("Node 5");
+
+		g.connect(v1, v2);
+		g.connect(v2, v3);
+		g.connect(v3, v4);
+		g.connect(v4, v2);
+		g.connect(v4, v5);
+
+		TopologicalSort sort = new TopologicalSort(g);
+		sort.execute();
+
+		assertThat(sort.isAcyclic()).isFalse();
+		assertThat(sort.getSortedIndices()).isNull();
+		assertThat(sort.getSortedVertices()).isEmpty();
+
+		// Der Kreis beginnt bei einer beliebigen seiner Ecken
+		List<Vertex> cycle = sort.getCycle();
+		assertThat(cycle).hasSize(3).containsOnly(v2, v3, v4);
+		for (int i = 0; i < cycle.size(); i++) {
+			assertThat(cycle.get(i).isConnectedTo(
+					cycle.get((i + 1) % cycle.size()))).isTrue();
+		}
+
+		g.connect(v5, v5);
+		g.remove(g.getEdges(v4, v2).get(0));
+		sort.execute();
+
+		assertThat(sort.getCycle()).containsExactly(v5);
+	}
+
+	@Test
+	public void testLongChain() {
+		Graph g = new Graph();
+		Vertex first = g.createVertex("0");
+		Vertex last = first;
+
+		for (int i = 1; i < 100000; i++) {
+			Vertex next = g.createVertex(Integer.toString(i));
+			g.connect(next, last);
+			last = next;
+		}
+
+		TopologicalSort sort = new TopologicalSort(g);
+		sort.execute();
+
+		assertThat(sort.isAcyclic()).isTrue();
+		assertThat(sort.getSortedIndices()[0]).isEqualTo(99999);
+
+		g.connect(first, last);
+		sort.execute();
+
+		assertThat(sort.getCycleIndices()).hasSize(100000);
+	}
+}